@@ -0,0 +1,39 @@
+package nl.tno.omt.benchmark;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so that every result
+ * includes the allocation rate (gc.alloc.rate.norm, bytes per operation).
+ * Accepts the JMH command line options, e.g. a benchmark regex or -rf json.
+ *
+ * @author bergtwvd
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws IOException, RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+		if (commandLine.shouldList()) {
+			Options options = new OptionsBuilder().parent(commandLine).build();
+			new Runner(options).list();
+			return;
+		}
+
+		Options options = new OptionsBuilder()
+			.parent(commandLine)
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+}
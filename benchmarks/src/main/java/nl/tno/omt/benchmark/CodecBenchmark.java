@@ -0,0 +1,103 @@
+package nl.tno.omt.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import nl.tno.omt.helpers.FomCodecs;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.HlaCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding and encoding of RPR attribute values with the compiled HLA codecs.
+ *
+ * The generic benchmarks convert between the encoding and Java objects; the
+ * in-place benchmarks read and write the fields of a WorldLocationStruct with
+ * the scalar accessors, which do not allocate.
+ *
+ * @author bergtwvd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+	private HlaCodec.FixedRecord location;
+	private HlaCodec.FixedRecord spatialStatic;
+	private HlaCodec string;
+
+	private ByteBuffer locationBuffer;
+	private byte[] locationData;
+	private byte[] spatialStaticData;
+	private byte[] stringData;
+	private Map<String, Object> locationValue;
+	private ByteBuffer output;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		FomCodecs codecs = FomModuleSet.of(Foms.readOmt(Foms.MIM), Foms.readOmt(Foms.RPR)).getCodecs();
+		location = (HlaCodec.FixedRecord) codecs.getCodec("WorldLocationStruct");
+		spatialStatic = (HlaCodec.FixedRecord) codecs.getCodec("SpatialStaticStruct");
+		string = codecs.getCodec("HLAunicodeString");
+
+		locationValue = new LinkedHashMap<>();
+		locationValue.put("X", 3905000.0);
+		locationValue.put("Y", 307000.0);
+		locationValue.put("Z", 5025000.0);
+		locationData = location.encode(locationValue);
+		locationBuffer = ByteBuffer.wrap(locationData);
+		spatialStaticData = new byte[spatialStatic.skip(ByteBuffer.allocate(1024), 0)];
+		stringData = string.encode("Generic entity name");
+		output = ByteBuffer.allocate(1024);
+	}
+
+	@Benchmark
+	public Object decodeRecord() {
+		return location.decode(locationData);
+	}
+
+	@Benchmark
+	public Object decodeNestedRecord() {
+		return spatialStatic.decode(spatialStaticData);
+	}
+
+	@Benchmark
+	public Object decodeString() {
+		return string.decode(stringData);
+	}
+
+	@Benchmark
+	public int encodeRecord() {
+		return location.encode(output, 0, locationValue);
+	}
+
+	@Benchmark
+	public void readFieldsInPlace(Blackhole bh) {
+		for (int i = 0; i < 3; i++) {
+			bh.consume(location.getField(i).getDouble(locationBuffer, location.fieldOffset(locationBuffer, 0, i)));
+		}
+	}
+
+	@Benchmark
+	public void writeFieldsInPlace() {
+		for (int i = 0; i < 3; i++) {
+			location.getField(i).putDouble(output, location.fieldOffset(output, 0, i), i);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package nl.tno.omt.benchmark;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import nl.tno.omt.ObjectFactory;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent read and write load on the JAXB engine of OmtFunctions.
+ *
+ * The baseline methods use a synchronized JAXB context getter and a new
+ * Unmarshaller or Marshaller per call, which is how OmtFunctions worked before
+ * the marshallers were pooled.
+ *
+ * @author bergtwvd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ConcurrentReadBenchmark {
+
+	// number of reads submitted per virtual thread benchmark invocation
+	private static final int VIRTUAL_THREAD_READS = 64;
+
+	private static JAXBContext jaxbContext = null;
+
+	private static final ObjectFactory objectFactory = new ObjectFactory();
+
+	private byte[] mim;
+	private ObjectModelType mimModel;
+	private ExecutorService executor;
+
+	private static synchronized JAXBContext getContext() throws IOException {
+		if (jaxbContext == null) {
+			try {
+				jaxbContext = JAXBContext.newInstance(ObjectModelType.class);
+			} catch (JAXBException ex) {
+				throw new IOException(ex);
+			}
+		}
+
+		return jaxbContext;
+	}
+
+	private static ObjectModelType baselineReadOmt(InputStream input) throws IOException {
+		try (input) {
+			@SuppressWarnings("unchecked")
+			JAXBElement<ObjectModelType> element = (JAXBElement<ObjectModelType>) getContext().createUnmarshaller().unmarshal(input);
+			return element.getValue();
+		} catch (JAXBException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private static OutputStream baselineWriteOmt(ObjectModelType omt, OutputStream output) throws IOException {
+		try {
+			Marshaller marshaller = getContext().createMarshaller();
+			marshaller.marshal(objectFactory.createObjectModel(omt), output);
+			return output;
+		} catch (JAXBException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		try (InputStream input = ConcurrentReadBenchmark.class.getResourceAsStream("/foms/HLAstandardMIM.xml")) {
+			mim = input.readAllBytes();
+		}
+		mimModel = OmtFunctions.readOmt(new ByteArrayInputStream(mim));
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public ObjectModelType pooledRead() throws IOException {
+		return OmtFunctions.readOmt(new ByteArrayInputStream(mim));
+	}
+
+	@Benchmark
+	public ObjectModelType baselineRead() throws IOException {
+		return baselineReadOmt(new ByteArrayInputStream(mim));
+	}
+
+	@Benchmark
+	public OutputStream pooledWrite() throws IOException {
+		return OmtFunctions.writeOmt(mimModel, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public OutputStream baselineWrite() throws IOException {
+		return baselineWriteOmt(mimModel, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int pooledVirtualThreadReads() throws Exception {
+		List<Future<ObjectModelType>> futures = new ArrayList<>(VIRTUAL_THREAD_READS);
+		for (int i = 0; i < VIRTUAL_THREAD_READS; i++) {
+			futures.add(executor.submit(() -> OmtFunctions.readOmt(new ByteArrayInputStream(mim))));
+		}
+		return join(futures);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int baselineVirtualThreadReads() throws Exception {
+		List<Future<ObjectModelType>> futures = new ArrayList<>(VIRTUAL_THREAD_READS);
+		for (int i = 0; i < VIRTUAL_THREAD_READS; i++) {
+			futures.add(executor.submit(() -> baselineReadOmt(new ByteArrayInputStream(mim))));
+		}
+		return join(futures);
+	}
+
+	private static int join(List<Future<ObjectModelType>> futures) throws Exception {
+		int count = 0;
+		for (Future<ObjectModelType> future : futures) {
+			if (future.get() != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,52 @@
+package nl.tno.omt.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.OmtFunctions;
+
+/**
+ * The bundled FOM modules used by the benchmarks.
+ *
+ * @author bergtwvd
+ */
+final class Foms {
+
+	static final String RPR = "/foms/RPR_FOM_v2.0_1516-2010.xml";
+	static final String MIM = "/foms/HLAstandardMIM.xml";
+
+	private Foms() {
+	}
+
+	/**
+	 * Returns the bytes of a bundled module.
+	 *
+	 * @param fom "RPR" or "MIM"
+	 * @return module bytes
+	 * @throws IOException on error
+	 */
+	static byte[] read(String fom) throws IOException {
+		String resource = switch (fom) {
+			case "RPR" ->
+				RPR;
+			case "MIM" ->
+				MIM;
+			default ->
+				throw new IllegalArgumentException("Unknown FOM " + fom);
+		};
+		try (InputStream input = Foms.class.getResourceAsStream(resource)) {
+			return input.readAllBytes();
+		}
+	}
+
+	static ObjectModelType readOmt(String resource) throws IOException {
+		return OmtFunctions.readOmt(Foms.class.getResource(resource));
+	}
+
+	static byte[] toSnapshot(ObjectModelType omt) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		OmtFunctions.writeOmtSnapshot(omt, output);
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,59 @@
+package nl.tno.omt.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomView;
+
+/**
+ * Measures the retained heap of the JAXB tree and of the FomView of the MIM
+ * and RPR modules, and fails if the view is not at most a quarter of the
+ * tree. The heap in use is measured after explicit garbage collections, so
+ * run it in its own JVM without -XX:+DisableExplicitGC:
+ *
+ * java -cp benchmarks/target/benchmarks.jar nl.tno.omt.benchmark.Footprint
+ *
+ * @author bergtwvd
+ */
+public class Footprint {
+
+	private static final int COPIES = 8;
+
+	// heap in use after garbage collection
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(20);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		// warm up, so that one-time allocations such as the JAXB context are not measured
+		FomView.of(Foms.readOmt(Foms.MIM), Foms.readOmt(Foms.RPR));
+
+		long base = usedHeap();
+		List<ObjectModelType[]> trees = new ArrayList<>();
+		for (int i = 0; i < COPIES; i++) {
+			trees.add(new ObjectModelType[]{Foms.readOmt(Foms.MIM), Foms.readOmt(Foms.RPR)});
+		}
+		long treeSize = (usedHeap() - base) / COPIES;
+
+		List<FomView> views = new ArrayList<>();
+		for (ObjectModelType[] tree : trees) {
+			views.add(FomView.of(tree));
+		}
+		trees.clear();
+		long viewSize = (usedHeap() - base) / COPIES;
+
+		System.out.println("JAXB tree " + treeSize / 1024 + " KiB, view " + viewSize / 1024 + " KiB, " + views.size() + " copies");
+		if (treeSize <= 0 || viewSize * 4 >= treeSize) {
+			System.err.println("The view is not at most a quarter of the JAXB tree");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package nl.tno.omt.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtStreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded readOmt and writeOmt on the bundled FOM modules, with the
+ * JAXB Marshaller and with OmtStreamWriter.
+ *
+ * @author bergtwvd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IoBenchmark {
+
+	private static final OmtStreamWriter GZIP = OmtStreamWriter.of(false, true);
+
+	@Param({"RPR", "MIM"})
+	public String fom;
+
+	private byte[] xml;
+	private byte[] snapshot;
+	private ObjectModelType model;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		xml = Foms.read(fom);
+		model = OmtFunctions.readOmt(new ByteArrayInputStream(xml));
+		snapshot = Foms.toSnapshot(model);
+	}
+
+	@Benchmark
+	public ObjectModelType readOmt() throws IOException {
+		return OmtFunctions.readOmt(new ByteArrayInputStream(xml));
+	}
+
+	@Benchmark
+	public ObjectModelType readOmtSnapshot() throws IOException {
+		return OmtFunctions.readOmtSnapshot(new ByteArrayInputStream(snapshot));
+	}
+
+	@Benchmark
+	public OutputStream writeOmt() throws IOException {
+		return OmtFunctions.writeOmt(model, OutputStream.nullOutputStream(), false);
+	}
+
+	@Benchmark
+	public OutputStream writeOmtFormatted() throws IOException {
+		return OmtFunctions.writeOmt(model, OutputStream.nullOutputStream(), true);
+	}
+
+	@Benchmark
+	public OutputStream writeOmtStream() throws IOException {
+		return OmtStreamWriter.plain().writeOmt(model, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public OutputStream writeOmtStreamFormatted() throws IOException {
+		return OmtStreamWriter.formatted().writeOmt(model, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public OutputStream writeOmtStreamGzip() throws IOException {
+		return GZIP.writeOmt(model, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public OutputStream writeOmtSnapshot() throws IOException {
+		return OmtFunctions.writeOmtSnapshot(model, OutputStream.nullOutputStream());
+	}
+}
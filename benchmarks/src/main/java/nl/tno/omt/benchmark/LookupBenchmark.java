@@ -0,0 +1,222 @@
+package nl.tno.omt.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Datatype and class lookups across the MIM and RPR modules.
+ *
+ * Each benchmark looks up every name of a category once, so the score is the
+ * time of a sweep over all names. The linear methods use the
+ * ObjectModelType[] functions of OmtFunctions, the indexed methods use a
+ * FomModuleSet.
+ *
+ * @author bergtwvd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+	private ObjectModelType[] modules;
+	private FomModuleSet set;
+
+	private String[] basicData;
+	private String[] simpleData;
+	private String[] enumeratedData;
+	private String[] arrayData;
+	private String[] fixedRecordData;
+	private String[] variantRecordData;
+	private String[] objectClasses;
+	private String[] interactionClasses;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		modules = new ObjectModelType[]{Foms.readOmt(Foms.MIM), Foms.readOmt(Foms.RPR)};
+		set = FomModuleSet.of(modules);
+
+		List<String> basic = new ArrayList<>();
+		List<String> simple = new ArrayList<>();
+		List<String> enumerated = new ArrayList<>();
+		List<String> array = new ArrayList<>();
+		List<String> fixedRecord = new ArrayList<>();
+		List<String> variantRecord = new ArrayList<>();
+		for (ObjectModelType module : modules) {
+			module.getDataTypes().getBasicDataRepresentations().getBasicData().forEach(e -> basic.add(e.getName().getValue()));
+			module.getDataTypes().getSimpleDataTypes().getSimpleData().forEach(e -> simple.add(e.getName().getValue()));
+			module.getDataTypes().getEnumeratedDataTypes().getEnumeratedData().forEach(e -> enumerated.add(e.getName().getValue()));
+			module.getDataTypes().getArrayDataTypes().getArrayData().forEach(e -> array.add(e.getName().getValue()));
+			module.getDataTypes().getFixedRecordDataTypes().getFixedRecordData().forEach(e -> fixedRecord.add(e.getName().getValue()));
+			module.getDataTypes().getVariantRecordDataTypes().getVariantRecordData().forEach(e -> variantRecord.add(e.getName().getValue()));
+		}
+
+		basicData = basic.toArray(new String[0]);
+		simpleData = simple.toArray(new String[0]);
+		enumeratedData = enumerated.toArray(new String[0]);
+		arrayData = array.toArray(new String[0]);
+		fixedRecordData = fixedRecord.toArray(new String[0]);
+		variantRecordData = variantRecord.toArray(new String[0]);
+		objectClasses = set.getClassIndex().getObjectClassNames().toArray(new String[0]);
+		interactionClasses = set.getClassIndex().getInteractionClassNames().toArray(new String[0]);
+	}
+
+	@Benchmark
+	public void linearBasicData(Blackhole bh) {
+		for (String name : basicData) {
+			bh.consume(OmtFunctions.getBasicDataByName(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedBasicData(Blackhole bh) {
+		for (String name : basicData) {
+			bh.consume(set.getBasicDataByName(name));
+		}
+	}
+
+	@Benchmark
+	public void linearSimpleData(Blackhole bh) {
+		for (String name : simpleData) {
+			bh.consume(OmtFunctions.getSimpleDataByName(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedSimpleData(Blackhole bh) {
+		for (String name : simpleData) {
+			bh.consume(set.getSimpleDataByName(name));
+		}
+	}
+
+	@Benchmark
+	public void linearEnumeratedData(Blackhole bh) {
+		for (String name : enumeratedData) {
+			bh.consume(OmtFunctions.getEnumeratedDataByName(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedEnumeratedData(Blackhole bh) {
+		for (String name : enumeratedData) {
+			bh.consume(set.getEnumeratedDataByName(name));
+		}
+	}
+
+	@Benchmark
+	public void linearArrayData(Blackhole bh) {
+		for (String name : arrayData) {
+			bh.consume(OmtFunctions.getArrayDataByName(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedArrayData(Blackhole bh) {
+		for (String name : arrayData) {
+			bh.consume(set.getArrayDataByName(name));
+		}
+	}
+
+	@Benchmark
+	public void linearFixedRecordData(Blackhole bh) {
+		for (String name : fixedRecordData) {
+			bh.consume(OmtFunctions.getFixedRecordDataByName(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedFixedRecordData(Blackhole bh) {
+		for (String name : fixedRecordData) {
+			bh.consume(set.getFixedRecordDataByName(name));
+		}
+	}
+
+	@Benchmark
+	public void linearVariantRecordData(Blackhole bh) {
+		for (String name : variantRecordData) {
+			bh.consume(OmtFunctions.getVariantRecordDataByName(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedVariantRecordData(Blackhole bh) {
+		for (String name : variantRecordData) {
+			bh.consume(set.getVariantRecordDataByName(name));
+		}
+	}
+
+	@Benchmark
+	public void linearObjectClass(Blackhole bh) {
+		for (String name : objectClasses) {
+			bh.consume(OmtFunctions.getObjectClass(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedObjectClass(Blackhole bh) {
+		for (String name : objectClasses) {
+			bh.consume(set.getObjectClass(name));
+		}
+	}
+
+	@Benchmark
+	public void linearInteractionClass(Blackhole bh) {
+		for (String name : interactionClasses) {
+			bh.consume(OmtFunctions.getInteractionClass(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedInteractionClass(Blackhole bh) {
+		for (String name : interactionClasses) {
+			bh.consume(set.getInteractionClass(name));
+		}
+	}
+
+	@Benchmark
+	public void linearObjectClassAttributes(Blackhole bh) {
+		for (String name : objectClasses) {
+			bh.consume(OmtFunctions.getObjectClassAttributes(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedObjectClassAttributes(Blackhole bh) {
+		for (String name : objectClasses) {
+			bh.consume(set.getObjectClassAttributes(name));
+		}
+	}
+
+	@Benchmark
+	public void linearInteractionClassParameters(Blackhole bh) {
+		for (String name : interactionClasses) {
+			bh.consume(OmtFunctions.getInteractionClassParameters(modules, name));
+		}
+	}
+
+	@Benchmark
+	public void indexedInteractionClassParameters(Blackhole bh) {
+		for (String name : interactionClasses) {
+			bh.consume(set.getInteractionClassParameters(name));
+		}
+	}
+}
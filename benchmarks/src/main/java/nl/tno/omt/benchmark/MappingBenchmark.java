@@ -0,0 +1,169 @@
+package nl.tno.omt.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomJavaNames;
+import nl.tno.omt.helpers.FomJavaTypes;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtJavaMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * OMT to Java type and name mapping of OmtJavaMapping, as used by code
+ * generators.
+ *
+ * The datatype benchmarks map the datatypes of all RPR object class
+ * attributes; the name benchmarks map all RPR class and attribute names,
+ * which include names with '-' and '_' characters. The resolved benchmarks
+ * use the cached FomJavaTypes of a module set, and the table benchmarks the
+ * FomJavaNames table of a module set.
+ *
+ * @author bergtwvd
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+	private ObjectModelType[] modules;
+	private FomJavaTypes javaTypes;
+	private FomJavaNames javaNameTable;
+
+	private String[] datatypes;
+	private String[] omtNames;
+	private String[] javaNames;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		modules = new ObjectModelType[]{Foms.readOmt(Foms.MIM), Foms.readOmt(Foms.RPR)};
+		FomModuleSet set = FomModuleSet.of(modules);
+		javaTypes = set.getJavaTypes();
+		javaNameTable = set.getJavaNames();
+
+		List<String> types = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		for (String fqName : set.getClassIndex().getObjectClassNames()) {
+			ObjectClass oc = set.getObjectClass(fqName, false);
+			names.add(oc.getName().getValue());
+			for (Attribute attribute : oc.getAttribute()) {
+				names.add(attribute.getName().getValue());
+				if (attribute.getDataType() != null && isMapped(attribute.getDataType().getValue())) {
+					types.add(attribute.getDataType().getValue());
+				}
+			}
+		}
+		for (String fqName : set.getClassIndex().getInteractionClassNames()) {
+			names.add(set.getInteractionClass(fqName, false).getName().getValue());
+		}
+
+		datatypes = types.toArray(new String[0]);
+		omtNames = names.toArray(new String[0]);
+		javaNames = names.stream().map(OmtJavaMapping::toJavaName).toArray(String[]::new);
+	}
+
+	// only benchmark datatypes that have a Java mapping
+	private boolean isMapped(String datatype) {
+		try {
+			OmtJavaMapping.getJavaDatatypeName(modules, datatype, false);
+			return true;
+		} catch (Exception ex) {
+			return false;
+		}
+	}
+
+	@Benchmark
+	public void getJavaDatatypeName(Blackhole bh) throws Exception {
+		for (String datatype : datatypes) {
+			bh.consume(OmtJavaMapping.getJavaDatatypeName(modules, datatype, false));
+		}
+	}
+
+	@Benchmark
+	public void getJavaDatatypeNameBoxed(Blackhole bh) throws Exception {
+		for (String datatype : datatypes) {
+			bh.consume(OmtJavaMapping.getJavaDatatypeName(modules, datatype, true));
+		}
+	}
+
+	@Benchmark
+	public void getJavaDatatypeNameList(Blackhole bh) throws Exception {
+		for (String datatype : datatypes) {
+			bh.consume(OmtJavaMapping.getJavaDatatypeName(modules, datatype, 2, true, true));
+		}
+	}
+
+	@Benchmark
+	public void getJavaDatatypeNameArray(Blackhole bh) throws Exception {
+		for (String datatype : datatypes) {
+			bh.consume(OmtJavaMapping.getJavaDatatypeName(modules, datatype, 2, false, false));
+		}
+	}
+
+	@Benchmark
+	public void getJavaDatatypeNameResolved(Blackhole bh) {
+		for (String datatype : datatypes) {
+			bh.consume(javaTypes.getJavaDatatypeName(datatype, false));
+		}
+	}
+
+	@Benchmark
+	public void getJavaDatatypeNameListResolved(Blackhole bh) {
+		for (String datatype : datatypes) {
+			bh.consume(javaTypes.getJavaDatatypeName(datatype, 2, true, true));
+		}
+	}
+
+	@Benchmark
+	public void getJavaDatatypeNameMapped(Blackhole bh) {
+		for (String datatype : datatypes) {
+			bh.consume(OmtJavaMapping.getJavaDatatypeName(datatype));
+		}
+	}
+
+	@Benchmark
+	public void toJavaName(Blackhole bh) {
+		for (String name : omtNames) {
+			bh.consume(OmtJavaMapping.toJavaName(name));
+		}
+	}
+
+	@Benchmark
+	public void toOmtName(Blackhole bh) {
+		for (String name : javaNames) {
+			bh.consume(OmtJavaMapping.toOmtName(name));
+		}
+	}
+
+	@Benchmark
+	public void toJavaNameTable(Blackhole bh) {
+		for (String name : omtNames) {
+			bh.consume(javaNameTable.getJavaName(name));
+		}
+	}
+
+	@Benchmark
+	public void toOmtNameTable(Blackhole bh) {
+		for (String name : javaNames) {
+			bh.consume(javaNameTable.getOmtName(name));
+		}
+	}
+}
@@ -1,9 +1,13 @@
 module nl.tno.omt {
 	requires jakarta.xml.bind;
+	requires jdk.jfr;
 
 	// allow reflection access to jakarta.xml.bind
 	opens nl.tno.omt to jakarta.xml.bind;
 
 	exports nl.tno.omt;
 	exports nl.tno.omt.helpers;
+
+	// optional metrics implementation
+	uses nl.tno.omt.helpers.OmtMetrics;
 }
@@ -0,0 +1,231 @@
+package nl.tno.omt.helpers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+
+/**
+ * Parsed cardinality of an array datatype.
+ *
+ * A cardinality has one or more comma separated dimensions. Each dimension
+ * is a number of elements, a range '[' min '..' max ']', or 'Dynamic', e.g.
+ * "8", "[1..3],[0..5]" or "Dynamic,3". The maximum of a range can also be
+ * 'Dynamic'. The elements of a multidimensional array are encoded
+ * consecutively, so the number of elements of the array is the product of
+ * the dimensions.
+ *
+ * Cardinalities are immutable. The cardinalities of array datatypes are
+ * cached by their text, so each distinct cardinality is parsed once.
+ *
+ * @author bergtwvd
+ */
+public final class Cardinality {
+
+	/**
+	 * Maximum of a dimension without an upper bound.
+	 */
+	public static final int UNBOUNDED = -1;
+
+	/**
+	 * The cardinality 'Dynamic'.
+	 */
+	public static final Cardinality DYNAMIC = new Cardinality(OmtMimConstants.DYNAMIC, new int[]{0}, new int[]{UNBOUNDED});
+
+	// parsed cardinalities by text; the FOMs in use have few distinct cardinalities
+	private static final int CACHE_SIZE = 1024;
+	private static final Map<String, Cardinality> CACHE = new ConcurrentHashMap<>();
+
+	static {
+		CACHE.put(DYNAMIC.text, DYNAMIC);
+	}
+
+	private final String text;
+	private final int[] min;
+	private final int[] max;
+
+	private Cardinality(String text, int[] min, int[] max) {
+		this.text = text;
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * Parses a cardinality.
+	 *
+	 * @param text cardinality
+	 * @return the cardinality
+	 * @throws IllegalArgumentException if the cardinality is not valid, or the
+	 * number of elements of the array does not fit in a long
+	 */
+	public static Cardinality parse(String text) {
+		Cardinality cardinality = CACHE.get(text);
+		if (cardinality == null) {
+			cardinality = parse(text, text.split(",", -1));
+			if (CACHE.size() < CACHE_SIZE) {
+				CACHE.putIfAbsent(text, cardinality);
+			}
+		}
+		return cardinality;
+	}
+
+	private static Cardinality parse(String text, String[] dimensions) {
+		int[] min = new int[dimensions.length];
+		int[] max = new int[dimensions.length];
+		for (int i = 0; i < dimensions.length; i++) {
+			String dimension = dimensions[i].trim();
+			if (dimension.equals(OmtMimConstants.DYNAMIC)) {
+				min[i] = 0;
+				max[i] = UNBOUNDED;
+			} else if (dimension.startsWith("[") && dimension.endsWith("]")) {
+				String range = dimension.substring(1, dimension.length() - 1);
+				int separator = range.indexOf("..");
+				if (separator == -1) {
+					throw new IllegalArgumentException("Invalid cardinality " + text);
+				}
+				String upper = range.substring(separator + 2).trim();
+				min[i] = count(text, range.substring(0, separator).trim());
+				max[i] = upper.equals(OmtMimConstants.DYNAMIC) ? UNBOUNDED : count(text, upper);
+				if (max[i] != UNBOUNDED && max[i] < min[i]) {
+					throw new IllegalArgumentException("Invalid cardinality " + text);
+				}
+			} else {
+				min[i] = count(text, dimension);
+				max[i] = min[i];
+			}
+		}
+
+		// the number of elements of the array must be representable
+		product(text, min);
+		product(text, max);
+		return new Cardinality(text, min, max);
+	}
+
+	private static int count(String text, String value) {
+		try {
+			int n = Integer.parseInt(value);
+			if (n >= 0) {
+				return n;
+			}
+		} catch (NumberFormatException ex) {
+			// reported below
+		}
+		throw new IllegalArgumentException("Invalid cardinality " + text);
+	}
+
+	/**
+	 * Returns the cardinality of an array datatype.
+	 *
+	 * @param dt array datatype
+	 * @return the cardinality
+	 * @throws IllegalArgumentException if the datatype has no valid cardinality
+	 */
+	public static Cardinality of(ArrayData dt) {
+		if (dt.getCardinality() == null || dt.getCardinality().getValue() == null) {
+			throw new IllegalArgumentException("Array datatype " + (dt.getName() == null ? null : dt.getName().getValue()) + " has no cardinality");
+		}
+		return parse(dt.getCardinality().getValue());
+	}
+
+	public int getDimensionCount() {
+		return min.length;
+	}
+
+	public int getMin(int dimension) {
+		return min[dimension];
+	}
+
+	/**
+	 * Returns the maximum number of elements of a dimension.
+	 *
+	 * @param dimension dimension index
+	 * @return maximum, or UNBOUNDED
+	 */
+	public int getMax(int dimension) {
+		return max[dimension];
+	}
+
+	/**
+	 * Returns true if no dimension is unbounded.
+	 *
+	 * @return true if bounded
+	 */
+	public boolean isBounded() {
+		for (int m : max) {
+			if (m == UNBOUNDED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if every dimension has a single number of elements, which is
+	 * the cardinality of an HLAfixedArray.
+	 *
+	 * @return true if fixed
+	 */
+	public boolean isFixed() {
+		return Arrays.equals(min, max);
+	}
+
+	/**
+	 * Returns the minimum number of elements of the array, the product of the
+	 * minimum of each dimension.
+	 *
+	 * @return minimum number of elements
+	 */
+	public long getMinElements() {
+		return product(text, min);
+	}
+
+	/**
+	 * Returns the maximum number of elements of the array, the product of the
+	 * maximum of each dimension.
+	 *
+	 * @return maximum number of elements, or UNBOUNDED
+	 */
+	public long getMaxElements() {
+		return product(text, max);
+	}
+
+	private static long product(String text, int[] values) {
+		long n = 1;
+		boolean unbounded = false;
+		for (int value : values) {
+			if (value == 0) {
+				return 0;
+			}
+			if (value == UNBOUNDED) {
+				unbounded = true;
+			} else {
+				try {
+					n = Math.multiplyExact(n, value);
+				} catch (ArithmeticException ex) {
+					throw new IllegalArgumentException("Invalid cardinality " + text + ", too many elements");
+				}
+			}
+		}
+		return unbounded ? UNBOUNDED : n;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Cardinality other && Arrays.equals(min, other.min) && Arrays.equals(max, other.max);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(min) + Arrays.hashCode(max);
+	}
+
+	/**
+	 * Returns the cardinality as it was parsed.
+	 *
+	 * @return cardinality
+	 */
+	@Override
+	public String toString() {
+		return text;
+	}
+}
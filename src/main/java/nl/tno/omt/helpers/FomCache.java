@@ -0,0 +1,275 @@
+package nl.tno.omt.helpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import nl.tno.omt.ObjectModelType;
+
+/**
+ * Content-addressed on-disk cache of parsed FOM modules.
+ *
+ * A module is identified by the SHA-256 hash of its bytes. On a cache hit the
+ * model is read from a binary snapshot (see OmtFunctions.readOmtSnapshot) with
+ * a memory mapped read, without using JAXB. On a miss the module is parsed
+ * with OmtFunctions.readOmt and a snapshot is added to the cache.
+ *
+ * The cache directory can be shared by several JVMs on the same host.
+ * Snapshots are written to a temporary file and atomically renamed, so a
+ * reader never sees a partial snapshot. The cache size is bounded; when the
+ * bound is exceeded the least recently used snapshots are removed, using the
+ * file modification time as access time. Eviction is serialized between JVMs
+ * with a file lock. A snapshot that cannot be read, e.g. because it was
+ * written by another version of this library, is treated as a miss and
+ * replaced.
+ *
+ * @author bergtwvd
+ */
+public final class FomCache {
+
+	// file name extension of cached snapshots
+	private static final String SNAPSHOT_EXTENSION = ".omts";
+
+	// file name extension of snapshots that are being written
+	private static final String TEMP_EXTENSION = ".tmp";
+
+	// name of the lock file used for eviction
+	private static final String LOCK_FILE = "cache.lock";
+
+	// temporary files older than this are left over by a failed writer
+	private static final long STALE_TEMP_MILLIS = 60L * 60L * 1000L;
+
+	// file locks are held per JVM, so eviction within a JVM is serialized by a monitor
+	private static final Object evictionMonitor = new Object();
+
+	private final Path directory;
+	private final long maxSize;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private FomCache(Path directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Opens a cache in the given directory. The directory is created if it does
+	 * not exist.
+	 *
+	 * @param directory cache directory
+	 * @param maxSize maximum total size of the cached snapshots in bytes
+	 * @return the cache
+	 * @throws IOException on error
+	 */
+	public static FomCache open(Path directory, long maxSize) throws IOException {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+		}
+		Files.createDirectories(directory);
+		return new FomCache(directory.toAbsolutePath(), maxSize);
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of reads served from the cache by this instance.
+	 *
+	 * @return number of hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of reads that parsed the module by this instance.
+	 *
+	 * @return number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public ObjectModelType readOmt(URL module) throws IOException {
+		return readOmt(module.openStream());
+	}
+
+	public ObjectModelType readOmt(Path module) throws IOException {
+		return readOmt(Files.newInputStream(module));
+	}
+
+	/**
+	 * Reads a module through the cache. The stream is read completely and
+	 * closed.
+	 *
+	 * @param input module input stream
+	 * @return the model
+	 * @throws IOException on error
+	 */
+	public ObjectModelType readOmt(InputStream input) throws IOException {
+		byte[] bytes;
+		try (input) {
+			bytes = input.readAllBytes();
+		}
+
+		Path snapshot = directory.resolve(key(bytes) + SNAPSHOT_EXTENSION);
+
+		ObjectModelType omt = readSnapshot(snapshot);
+		if (omt != null) {
+			hits.incrementAndGet();
+			return omt;
+		}
+
+		misses.incrementAndGet();
+		omt = OmtFunctions.readOmt(new ByteArrayInputStream(bytes));
+		writeSnapshot(omt, snapshot);
+		evict();
+		return omt;
+	}
+
+	/**
+	 * Removes all snapshots from the cache.
+	 *
+	 * @throws IOException on error
+	 */
+	public void clear() throws IOException {
+		synchronized (evictionMonitor) {
+			try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock lock = channel.lock()) {
+				for (Path file : list(SNAPSHOT_EXTENSION)) {
+					delete(file);
+				}
+			}
+		}
+	}
+
+	// the cache key is the content hash, qualified with the snapshot format version
+	private static String key(byte[] bytes) throws IOException {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+			return HexFormat.of().formatHex(hash) + "-v" + OmtSnapshot.FORMAT_VERSION;
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private static ObjectModelType readSnapshot(Path snapshot) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (NoSuchFileException ex) {
+			return null;
+		}
+
+		ObjectModelType omt;
+		try {
+			omt = OmtSnapshot.read(buffer);
+		} catch (IOException ex) {
+			// unreadable snapshot, replaced by the caller
+			return null;
+		}
+
+		// the access time is used for eviction
+		try {
+			Files.setLastModifiedTime(snapshot, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException ex) {
+			// evicted by another reader
+		}
+		return omt;
+	}
+
+	private void writeSnapshot(ObjectModelType omt, Path snapshot) throws IOException {
+		Path temp = Files.createTempFile(directory, snapshot.getFileName().toString(), TEMP_EXTENSION);
+		try {
+			try (OutputStream output = Files.newOutputStream(temp)) {
+				OmtSnapshot.write(omt, output);
+			}
+			Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private void evict() throws IOException {
+		synchronized (evictionMonitor) {
+			try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock lock = channel.lock()) {
+				long now = System.currentTimeMillis();
+				for (Path file : list(TEMP_EXTENSION)) {
+					if (now - lastModified(file) > STALE_TEMP_MILLIS) {
+						delete(file);
+					}
+				}
+
+				record Snapshot(Path file, long size, long lastModified) {
+				}
+
+				List<Snapshot> snapshots = new ArrayList<>();
+				long size = 0;
+				for (Path file : list(SNAPSHOT_EXTENSION)) {
+					try {
+						Snapshot snapshot = new Snapshot(file, Files.size(file), lastModified(file));
+						snapshots.add(snapshot);
+						size += snapshot.size();
+					} catch (NoSuchFileException ex) {
+						// removed concurrently
+					}
+				}
+
+				snapshots.sort(Comparator.comparingLong(Snapshot::lastModified));
+				for (int i = 0; size > maxSize && i < snapshots.size(); i++) {
+					if (delete(snapshots.get(i).file())) {
+						size -= snapshots.get(i).size();
+					}
+				}
+			}
+		}
+	}
+
+	private List<Path> list(String extension) throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + extension)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		return files;
+	}
+
+	private static long lastModified(Path file) throws IOException {
+		return Files.getLastModifiedTime(file).toMillis();
+	}
+
+	// a mapped file may not be deletable on some platforms; it is retried on the next eviction
+	private static boolean delete(Path file) {
+		try {
+			return Files.deleteIfExists(file);
+		} catch (IOException ex) {
+			return false;
+		}
+	}
+}
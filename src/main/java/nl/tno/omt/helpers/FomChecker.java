@@ -0,0 +1,438 @@
+package nl.tno.omt.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.HLAString;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.Parameter;
+import nl.tno.omt.ReferenceType;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+
+/**
+ * Semantic consistency checks of a module set, beyond schema validity:
+ *
+ * - Every datatype, representation and transportation reference resolves to
+ * a definition in the module set.
+ *
+ * - The cardinality of every array datatype can be parsed.
+ *
+ * - The enumerator values of an enumerated datatype are integers and unique.
+ *
+ * - The discriminant of a variant record is an enumerated datatype, and the
+ * alternatives refer to its enumerators.
+ *
+ * - Attribute and parameter names do not collide with the names of inherited
+ * members.
+ *
+ * References are resolved with the hash indexes of the module set, which are
+ * built once. The rule families run in parallel as fork-join tasks, and each
+ * family splits its definitions into subtasks. The diagnostics are in a
+ * deterministic order: by rule family, then in module and declaration order.
+ * Every definition of every module is checked, not only the first definition
+ * of a name, and each diagnostic names the module of the definition.
+ *
+ * @author bergtwvd
+ */
+public final class FomChecker {
+
+	/**
+	 * Rule that a diagnostic violates.
+	 */
+	public enum Rule {
+		UNRESOLVED_DATATYPE,
+		UNRESOLVED_REPRESENTATION,
+		UNRESOLVED_TRANSPORTATION,
+		INVALID_CARDINALITY,
+		INVALID_ENUMERATOR_VALUE,
+		DUPLICATE_ENUMERATOR_VALUE,
+		INVALID_DISCRIMINANT,
+		MEMBER_NAME_COLLISION
+	}
+
+	/**
+	 * Consistency problem.
+	 *
+	 * @param rule the violated rule
+	 * @param element datatype name, or FQ class name for a class or its members
+	 * @param module position of the module that has the definition
+	 * @param message description of the problem
+	 */
+	public record Diagnostic(Rule rule, String element, int module, String message) {
+
+		@Override
+		public String toString() {
+			return "module " + module + ", " + rule + ' ' + element + ": " + message;
+		}
+	}
+
+	// definition, with its name and the position of its module
+	private record Item<T>(T value, String name, int module) {
+	}
+
+	// the variant record alternative that carries no data refers to NA
+	private static final String NA = "NA";
+	private static final String HLAOTHER = "HLAother";
+
+	// number of definitions below which a task is not split
+	private static final int THRESHOLD = 64;
+
+	// checks a range of definitions, splitting the range until it is small enough
+	private static final class CheckTask<T> extends RecursiveTask<List<Diagnostic>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient List<Item<T>> items;
+		private final transient BiConsumer<Item<T>, List<Diagnostic>> check;
+		private final int from;
+		private final int to;
+
+		CheckTask(List<Item<T>> items, BiConsumer<Item<T>, List<Diagnostic>> check, int from, int to) {
+			this.items = items;
+			this.check = check;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<Diagnostic> compute() {
+			if (to - from <= THRESHOLD) {
+				List<Diagnostic> diagnostics = new ArrayList<>();
+				for (int i = from; i < to; i++) {
+					check.accept(items.get(i), diagnostics);
+				}
+				return diagnostics;
+			}
+			int mid = (from + to) >>> 1;
+			CheckTask<T> left = new CheckTask<>(items, check, from, mid);
+			left.fork();
+			List<Diagnostic> right = new CheckTask<>(items, check, mid, to).compute();
+			List<Diagnostic> diagnostics = left.join();
+			diagnostics.addAll(right);
+			return diagnostics;
+		}
+	}
+
+	private final FomModuleSet set;
+	private final FomDatatypeGraph graph;
+	private final Map<ObjectModelType, Integer> positions = new IdentityHashMap<>();
+
+	// definitions of all modules, in module and declaration order
+	private final List<Item<SimpleData>> simpleData = new ArrayList<>();
+	private final List<Item<EnumeratedData>> enumeratedData = new ArrayList<>();
+	private final List<Item<ArrayData>> arrayData = new ArrayList<>();
+	private final List<Item<FixedRecordData>> fixedRecordData = new ArrayList<>();
+	private final List<Item<VariantRecordData>> variantRecordData = new ArrayList<>();
+	private final List<Item<ObjectClass>> objectClasses = new ArrayList<>();
+	private final List<Item<InteractionClass>> interactionClasses = new ArrayList<>();
+
+	// the classes of the class index, for the member name checks
+	private final List<Item<InheritedMembers<Attribute>>> attributeClosures = new ArrayList<>();
+	private final List<Item<InheritedMembers<Parameter>>> parameterClosures = new ArrayList<>();
+
+	private FomChecker(FomModuleSet set) {
+		this.set = set;
+		// build the lazy indexes before the tasks share them
+		this.graph = set.getDatatypeGraph();
+		FomClassIndex index = set.getClassIndex();
+		FomMemberIndex members = set.getMemberIndex();
+
+		List<ObjectModelType> modules = set.getModuleList();
+		for (int m = 0; m < modules.size(); m++) {
+			ObjectModelType module = modules.get(m);
+			positions.putIfAbsent(module, m);
+			DataTypesType dt = module.getDataTypes();
+			if (dt != null) {
+				if (dt.getSimpleDataTypes() != null) {
+					addItems(simpleData, m, dt.getSimpleDataTypes().getSimpleData(), SimpleData::getName);
+				}
+				if (dt.getEnumeratedDataTypes() != null) {
+					addItems(enumeratedData, m, dt.getEnumeratedDataTypes().getEnumeratedData(), EnumeratedData::getName);
+				}
+				if (dt.getArrayDataTypes() != null) {
+					addItems(arrayData, m, dt.getArrayDataTypes().getArrayData(), ArrayData::getName);
+				}
+				if (dt.getFixedRecordDataTypes() != null) {
+					addItems(fixedRecordData, m, dt.getFixedRecordDataTypes().getFixedRecordData(), FixedRecordData::getName);
+				}
+				if (dt.getVariantRecordDataTypes() != null) {
+					addItems(variantRecordData, m, dt.getVariantRecordDataTypes().getVariantRecordData(), VariantRecordData::getName);
+				}
+			}
+			if (module.getObjects() != null && module.getObjects().getObjectClass() != null) {
+				addObjectClass(m, module.getObjects().getObjectClass(), null);
+			}
+			if (module.getInteractions() != null && module.getInteractions().getInteractionClass() != null) {
+				addInteractionClass(m, module.getInteractions().getInteractionClass(), null);
+			}
+		}
+
+		for (String fqName : index.getObjectClassNames()) {
+			InheritedMembers<Attribute> closure = members.getObjectClassAttributes(fqName);
+			if (closure != null) {
+				attributeClosures.add(new Item<>(closure, fqName, position(index.getObjectClassModule(fqName, true))));
+			}
+		}
+		for (String fqName : index.getInteractionClassNames()) {
+			InheritedMembers<Parameter> closure = members.getInteractionClassParameters(fqName);
+			if (closure != null) {
+				parameterClosures.add(new Item<>(closure, fqName, position(index.getInteractionClassModule(fqName, true))));
+			}
+		}
+	}
+
+	private static <T> void addItems(List<Item<T>> items, int module, List<? extends T> list, Function<T, IdentifierType> name) {
+		for (T e : list) {
+			IdentifierType id = name.apply(e);
+			items.add(new Item<>(e, id == null ? null : id.getValue(), module));
+		}
+	}
+
+	private static String fqName(String parent, IdentifierType name) {
+		String value = name == null ? null : name.getValue();
+		return parent == null ? value : parent + "." + value;
+	}
+
+	private void addObjectClass(int module, ObjectClass oc, String parent) {
+		String fqName = fqName(parent, oc.getName());
+		objectClasses.add(new Item<>(oc, fqName, module));
+		for (ObjectClass child : oc.getObjectClass()) {
+			addObjectClass(module, child, fqName);
+		}
+	}
+
+	private void addInteractionClass(int module, InteractionClass ic, String parent) {
+		String fqName = fqName(parent, ic.getName());
+		interactionClasses.add(new Item<>(ic, fqName, module));
+		for (InteractionClass child : ic.getInteractionClass()) {
+			addInteractionClass(module, child, fqName);
+		}
+	}
+
+	private int position(ObjectModelType module) {
+		Integer position = positions.get(module);
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Checks the module set in the common fork-join pool.
+	 *
+	 * @param set the module set
+	 * @return diagnostics, empty if the module set is consistent
+	 */
+	public static List<Diagnostic> check(FomModuleSet set) {
+		return check(set, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Checks the module set in the provided fork-join pool.
+	 *
+	 * @param set the module set
+	 * @param pool fork-join pool
+	 * @return diagnostics, empty if the module set is consistent
+	 */
+	public static List<Diagnostic> check(FomModuleSet set, ForkJoinPool pool) {
+		FomChecker checker = new FomChecker(set);
+		return pool.invoke(ForkJoinTask.adapt(checker::run));
+	}
+
+	private List<Diagnostic> run() {
+		List<CheckTask<?>> tasks = List.of(
+			// references
+			task(simpleData, (item, out) -> checkRepresentation(item, item.value().getRepresentation(), out)),
+			task(enumeratedData, (item, out) -> checkRepresentation(item, item.value().getRepresentation(), out)),
+			task(arrayData, (item, out) -> checkDatatype(item, item.value().getDataType(), "Element type", out)),
+			task(fixedRecordData, this::checkFields),
+			task(objectClasses, this::checkAttributes),
+			task(interactionClasses, this::checkParameters),
+			// cardinality
+			task(arrayData, this::checkCardinality),
+			// enumerators
+			task(enumeratedData, this::checkEnumerators),
+			// variant records
+			task(variantRecordData, this::checkVariantRecord),
+			// member names
+			task(attributeClosures, (item, out) -> checkMemberNames(item, Attribute::getName, "Attribute", out)),
+			task(parameterClosures, (item, out) -> checkMemberNames(item, Parameter::getName, "Parameter", out)));
+
+		ForkJoinTask.invokeAll(tasks);
+		List<Diagnostic> diagnostics = new ArrayList<>();
+		for (CheckTask<?> task : tasks) {
+			diagnostics.addAll(task.join());
+		}
+		return Collections.unmodifiableList(diagnostics);
+	}
+
+	private static <T> CheckTask<T> task(List<Item<T>> items, BiConsumer<Item<T>, List<Diagnostic>> check) {
+		return new CheckTask<>(items, check, 0, items.size());
+	}
+
+	private static String reference(ReferenceType reference) {
+		return reference == null || reference.getValue() == null || reference.getValue().isEmpty() ? null : reference.getValue();
+	}
+
+	private static String text(HLAString s) {
+		return s == null || s.getValue() == null ? "" : s.getValue();
+	}
+
+	private static String name(IdentifierType id) {
+		return id == null ? null : id.getValue();
+	}
+
+	private void checkRepresentation(Item<?> item, ReferenceType representation, List<Diagnostic> out) {
+		String name = reference(representation);
+		if (name != null && set.getBasicDataByName(name) == null) {
+			out.add(new Diagnostic(Rule.UNRESOLVED_REPRESENTATION, item.name(), item.module(), "Representation " + name + " is not a basic data representation"));
+		}
+	}
+
+	private void checkDatatype(Item<?> item, ReferenceType datatype, String what, List<Diagnostic> out) {
+		String name = reference(datatype);
+		if (name != null && !name.equals(NA) && !graph.contains(name)) {
+			out.add(new Diagnostic(Rule.UNRESOLVED_DATATYPE, item.name(), item.module(), what + " refers to unknown datatype " + name));
+		}
+	}
+
+	private void checkTransportation(Item<?> item, ReferenceType transportation, String what, List<Diagnostic> out) {
+		String name = reference(transportation);
+		if (name != null && set.getTransportationByName(name) == null) {
+			out.add(new Diagnostic(Rule.UNRESOLVED_TRANSPORTATION, item.name(), item.module(), what + " refers to unknown transportation " + name));
+		}
+	}
+
+	private void checkFields(Item<FixedRecordData> item, List<Diagnostic> out) {
+		for (FixedRecordData.Field field : item.value().getField()) {
+			checkDatatype(item, field.getDataType(), "Field " + name(field.getName()), out);
+		}
+	}
+
+	private void checkAttributes(Item<ObjectClass> item, List<Diagnostic> out) {
+		for (Attribute attribute : item.value().getAttribute()) {
+			String what = "Attribute " + name(attribute.getName());
+			checkDatatype(item, attribute.getDataType(), what, out);
+			checkTransportation(item, attribute.getTransportation(), what, out);
+		}
+	}
+
+	private void checkParameters(Item<InteractionClass> item, List<Diagnostic> out) {
+		checkTransportation(item, item.value().getTransportation(), "Interaction class", out);
+		for (Parameter parameter : item.value().getParameter()) {
+			checkDatatype(item, parameter.getDataType(), "Parameter " + name(parameter.getName()), out);
+		}
+	}
+
+	private void checkCardinality(Item<ArrayData> item, List<Diagnostic> out) {
+		try {
+			Cardinality.of(item.value());
+		} catch (IllegalArgumentException ex) {
+			out.add(new Diagnostic(Rule.INVALID_CARDINALITY, item.name(), item.module(), ex.getMessage()));
+		}
+	}
+
+	private void checkEnumerators(Item<EnumeratedData> item, List<Diagnostic> out) {
+		Map<Long, String> values = new HashMap<>();
+		for (EnumeratedData.Enumerator enumerator : item.value().getEnumerator()) {
+			String enumeratorName = name(enumerator.getName());
+			for (HLAString value : enumerator.getValue()) {
+				long n;
+				try {
+					n = Long.parseLong(text(value).trim());
+				} catch (NumberFormatException ex) {
+					out.add(new Diagnostic(Rule.INVALID_ENUMERATOR_VALUE, item.name(), item.module(), "Enumerator " + enumeratorName + " has an invalid value " + text(value)));
+					continue;
+				}
+				String previous = values.putIfAbsent(n, enumeratorName);
+				if (previous != null) {
+					out.add(new Diagnostic(Rule.DUPLICATE_ENUMERATOR_VALUE, item.name(), item.module(), "Enumerator " + enumeratorName + " has value " + n + ", which is also the value of enumerator " + previous));
+				}
+			}
+		}
+	}
+
+	private void checkVariantRecord(Item<VariantRecordData> item, List<Diagnostic> out) {
+		VariantRecordData data = item.value();
+		String discriminantType = reference(data.getDataType());
+		EnumeratedData enumeration = discriminantType == null ? null : set.getEnumeratedDataByName(discriminantType);
+		if (enumeration == null) {
+			out.add(new Diagnostic(Rule.INVALID_DISCRIMINANT, item.name(), item.module(), "Discriminant type " + discriminantType + " is not an enumerated datatype"));
+			return;
+		}
+		List<String> names = new ArrayList<>();
+		Map<String, Integer> enumerators = new HashMap<>();
+		for (EnumeratedData.Enumerator enumerator : enumeration.getEnumerator()) {
+			enumerators.putIfAbsent(name(enumerator.getName()), names.size());
+			names.add(name(enumerator.getName()));
+		}
+
+		Set<String> used = new HashSet<>();
+		for (VariantRecordData.Alternative alternative : data.getAlternative()) {
+			String what = "Alternative " + name(alternative.getName());
+			checkDatatype(item, alternative.getDataType(), what, out);
+
+			// a comma separated list of enumerators and enumerator ranges
+			String spec = alternative.getEnumerator() == null ? "" : alternative.getEnumerator().getValue();
+			for (String enumerator : spec.split(",")) {
+				enumerator = enumerator.trim();
+				if (enumerator.equals(HLAOTHER)) {
+					if (!used.add(HLAOTHER)) {
+						out.add(new Diagnostic(Rule.INVALID_DISCRIMINANT, item.name(), item.module(), what + " repeats " + HLAOTHER));
+					}
+				} else if (enumerator.startsWith("[") && enumerator.endsWith("]") && enumerator.contains("..")) {
+					String[] bounds = enumerator.substring(1, enumerator.length() - 1).split("\\.\\.");
+					Integer from = enumerators.get(bounds[0].trim());
+					Integer to = bounds.length == 2 ? enumerators.get(bounds[1].trim()) : null;
+					if (from == null || to == null || to < from) {
+						out.add(new Diagnostic(Rule.INVALID_DISCRIMINANT, item.name(), item.module(), what + " has an invalid enumerator range " + enumerator + " of " + discriminantType));
+						continue;
+					}
+					for (String e : names.subList(from, to + 1)) {
+						use(item, what, used, e, out);
+					}
+				} else if (enumerators.containsKey(enumerator)) {
+					use(item, what, used, enumerator, out);
+				} else {
+					out.add(new Diagnostic(Rule.INVALID_DISCRIMINANT, item.name(), item.module(), what + " refers to unknown enumerator " + enumerator + " of " + discriminantType));
+				}
+			}
+		}
+	}
+
+	private static void use(Item<?> item, String what, Set<String> used, String enumerator, List<Diagnostic> out) {
+		if (!used.add(enumerator)) {
+			out.add(new Diagnostic(Rule.INVALID_DISCRIMINANT, item.name(), item.module(), what + " repeats enumerator " + enumerator + " of an earlier alternative"));
+		}
+	}
+
+	private static <M> void checkMemberNames(Item<InheritedMembers<M>> item, Function<M, IdentifierType> name, String what, List<Diagnostic> out) {
+		InheritedMembers<M> closure = item.value();
+		Set<String> names = new HashSet<>();
+		for (M member : closure.getInherited()) {
+			names.add(name(name.apply(member)));
+		}
+		for (M member : closure.getOwn()) {
+			String memberName = name(name.apply(member));
+			if (!names.add(memberName)) {
+				out.add(new Diagnostic(Rule.MEMBER_NAME_COLLISION, item.name(), item.module(), what + " " + memberName + " is already declared by the class or a superclass"));
+			}
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package nl.tno.omt.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Interval numbering of the object class and interaction class trees of a
+ * module set, for constant time subclass checks.
+ *
+ * The trees are the unified trees of all modules, with scaffolding classes
+ * resolved, and use the class handles of FomHandles. Every class is numbered
+ * in pre-order and in post-order of a depth-first traversal. A class is a
+ * subclass of another class if its pre-order number is not lower and its
+ * post-order number is not higher than that of the other class. The
+ * descendants of a class are a contiguous range of pre-order numbers, which
+ * starts at the class itself.
+ *
+ * @author bergtwvd
+ */
+public final class FomClassHierarchy {
+
+	/**
+	 * Interval numbering of a class tree.
+	 */
+	public static final class Tree {
+
+		private final FomHandles.Classes<?, ?> classes;
+		private final int[] preOrder;
+		private final int[] postOrder;
+		private final int[] depths;
+		// class handles by pre-order number
+		private final int[] order;
+		// direct subclasses of each class, in handle order
+		private final int[][] subclasses;
+
+		private Tree(FomHandles.Classes<?, ?> classes) {
+			this.classes = classes;
+			int n = classes.getClassCount();
+			preOrder = new int[n];
+			postOrder = new int[n];
+			depths = new int[n];
+			order = new int[n];
+
+			int[] counts = new int[n];
+			for (int i = 0; i < n; i++) {
+				if (classes.getParent(i) != -1) {
+					counts[classes.getParent(i)]++;
+				}
+			}
+			subclasses = new int[n][];
+			for (int i = 0; i < n; i++) {
+				subclasses[i] = new int[counts[i]];
+				counts[i] = 0;
+			}
+			for (int i = 0; i < n; i++) {
+				int parent = classes.getParent(i);
+				if (parent != -1) {
+					subclasses[parent][counts[parent]++] = i;
+				}
+			}
+
+			// iterative depth-first traversal, deep hierarchies do not overflow the stack
+			int[] stack = new int[n];
+			int[] next = new int[n];
+			int pre = 0;
+			int post = 0;
+			for (int root = 0; root < n; root++) {
+				if (classes.getParent(root) != -1) {
+					continue;
+				}
+				int top = 0;
+				stack[0] = root;
+				order[pre] = root;
+				preOrder[root] = pre++;
+				while (top >= 0) {
+					int c = stack[top];
+					if (next[c] < subclasses[c].length) {
+						int child = subclasses[c][next[c]++];
+						depths[child] = depths[c] + 1;
+						order[pre] = child;
+						preOrder[child] = pre++;
+						stack[++top] = child;
+					} else {
+						postOrder[c] = post++;
+						top--;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the class handles of this tree.
+		 *
+		 * @return class handles
+		 */
+		public FomHandles.Classes<?, ?> getClasses() {
+			return classes;
+		}
+
+		public int getPreOrder(int classHandle) {
+			return preOrder[classHandle];
+		}
+
+		public int getPostOrder(int classHandle) {
+			return postOrder[classHandle];
+		}
+
+		/**
+		 * Returns the depth of a class in the tree.
+		 *
+		 * @param classHandle class handle
+		 * @return 0 for a root class
+		 */
+		public int getDepth(int classHandle) {
+			return depths[classHandle];
+		}
+
+		/**
+		 * Returns true if a class is the same class as, or a subclass of,
+		 * another class.
+		 *
+		 * @param classHandle class handle
+		 * @param superclassHandle class handle of the superclass
+		 * @return true if the class is a subclass of the superclass
+		 */
+		public boolean isSubclassOf(int classHandle, int superclassHandle) {
+			return preOrder[superclassHandle] <= preOrder[classHandle]
+				&& postOrder[classHandle] <= postOrder[superclassHandle];
+		}
+
+		/**
+		 * Returns true if a class is the same class as, or a subclass of,
+		 * another class.
+		 *
+		 * @param fqName FQ OMT class name
+		 * @param superclassFqName FQ OMT class name of the superclass
+		 * @return true if the class is a subclass of the superclass, false if
+		 * either class is not in the module set
+		 */
+		public boolean isSubclassOf(String fqName, String superclassFqName) {
+			int handle = classes.getClassHandle(fqName);
+			int superclass = classes.getClassHandle(superclassFqName);
+			return handle != -1 && superclass != -1 && isSubclassOf(handle, superclass);
+		}
+
+		/**
+		 * Returns the direct subclasses of a class.
+		 *
+		 * @param classHandle class handle
+		 * @return class handles
+		 */
+		public int[] getSubclasses(int classHandle) {
+			return subclasses[classHandle].clone();
+		}
+
+		/**
+		 * Returns the number of descendants of a class, including the class
+		 * itself. The descendants have the pre-order numbers from
+		 * getPreOrder(classHandle) up to, but not including,
+		 * getPreOrder(classHandle) + getDescendantCount(classHandle).
+		 *
+		 * @param classHandle class handle
+		 * @return number of descendants
+		 */
+		public int getDescendantCount(int classHandle) {
+			// all descendants are visited after the class in pre-order and before it in post-order
+			return postOrder[classHandle] - preOrder[classHandle] + depths[classHandle] + 1;
+		}
+
+		/**
+		 * Returns the class at a pre-order number.
+		 *
+		 * @param preOrderNumber pre-order number
+		 * @return class handle
+		 */
+		public int getClassAt(int preOrderNumber) {
+			return order[preOrderNumber];
+		}
+
+		/**
+		 * Returns the descendants of a class, including the class itself, in
+		 * pre-order.
+		 *
+		 * @param classHandle class handle
+		 * @return class handles
+		 */
+		public int[] getDescendants(int classHandle) {
+			int from = preOrder[classHandle];
+			return Arrays.copyOfRange(order, from, from + getDescendantCount(classHandle));
+		}
+	}
+
+	private final Tree objectClasses;
+	private final Tree interactionClasses;
+
+	private FomClassHierarchy(FomHandles handles) {
+		objectClasses = new Tree(handles.getObjectClasses());
+		interactionClasses = new Tree(handles.getInteractionClasses());
+	}
+
+	static FomClassHierarchy of(FomModuleSet modules) {
+		return new FomClassHierarchy(modules.getHandles());
+	}
+
+	public Tree getObjectClasses() {
+		return objectClasses;
+	}
+
+	public Tree getInteractionClasses() {
+		return interactionClasses;
+	}
+
+	/**
+	 * Returns true if an object class is the same class as, or a subclass of,
+	 * another object class.
+	 *
+	 * @param fqName FQ OMT object class name
+	 * @param superclassFqName FQ OMT object class name of the superclass
+	 * @return true if the class is a subclass of the superclass
+	 */
+	public boolean isObjectSubclassOf(String fqName, String superclassFqName) {
+		return objectClasses.isSubclassOf(fqName, superclassFqName);
+	}
+
+	/**
+	 * Returns true if an interaction class is the same class as, or a subclass
+	 * of, another interaction class.
+	 *
+	 * @param fqName FQ OMT interaction class name
+	 * @param superclassFqName FQ OMT interaction class name of the superclass
+	 * @return true if the class is a subclass of the superclass
+	 */
+	public boolean isInteractionSubclassOf(String fqName, String superclassFqName) {
+		return interactionClasses.isSubclassOf(fqName, superclassFqName);
+	}
+}
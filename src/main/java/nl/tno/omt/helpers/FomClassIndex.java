@@ -0,0 +1,230 @@
+package nl.tno.omt.helpers;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+
+/**
+ * Index from FQ OMT class name to object class and interaction class nodes.
+ *
+ * The index is built with a single traversal of the class trees. Lookups are
+ * a single hash map access and do not allocate. An index can be created for a
+ * single module or for a module set; for a module set the lookups have the
+ * same semantics as the ObjectModelType[] overloads of
+ * OmtFunctions.getObjectClass and OmtFunctions.getInteractionClass.
+ *
+ * @author bergtwvd
+ */
+public final class FomClassIndex {
+
+	// indexed class node, together with the module that defines it
+	private record Entry<T>(T node, ObjectModelType module, boolean scaffolding) {
+	}
+
+	// first occurrence of a class, scaffolding or not
+	private final Map<String, Entry<ObjectClass>> objectClasses = new LinkedHashMap<>();
+	private final Map<String, Entry<InteractionClass>> interactionClasses = new LinkedHashMap<>();
+
+	// first non-scaffolding occurrence of a class
+	private final Map<String, Entry<ObjectClass>> definedObjectClasses = new LinkedHashMap<>();
+	private final Map<String, Entry<InteractionClass>> definedInteractionClasses = new LinkedHashMap<>();
+
+	// reverse lookup of FQ name by class node
+	private final Map<ObjectClass, String> objectClassNames = new IdentityHashMap<>();
+	private final Map<InteractionClass, String> interactionClassNames = new IdentityHashMap<>();
+
+	private FomClassIndex(ObjectModelType[] modules) {
+		for (ObjectModelType module : modules) {
+			if (module.getObjects() != null && module.getObjects().getObjectClass() != null) {
+				addObjectClass(module, module.getObjects().getObjectClass(), null);
+			}
+			if (module.getInteractions() != null && module.getInteractions().getInteractionClass() != null) {
+				addInteractionClass(module, module.getInteractions().getInteractionClass(), null);
+			}
+		}
+	}
+
+	// trailing dots are ignored, as by the OmtFunctions lookups
+	static String key(String fqName) {
+		int length = OmtFunctions.nameLength(fqName);
+		return length == fqName.length() ? fqName : fqName.substring(0, length);
+	}
+
+	private static String fqName(String parent, String name) {
+		return parent == null ? name : parent + "." + name;
+	}
+
+	private void addObjectClass(ObjectModelType module, ObjectClass oc, String parent) {
+		String fqName = fqName(parent, oc.getName().getValue());
+		Entry<ObjectClass> entry = new Entry<>(oc, module, OmtFunctions.isScaffoldingClass(oc));
+
+		objectClasses.putIfAbsent(fqName, entry);
+		if (!entry.scaffolding()) {
+			definedObjectClasses.putIfAbsent(fqName, entry);
+		}
+		objectClassNames.put(oc, fqName);
+
+		for (ObjectClass child : oc.getObjectClass()) {
+			addObjectClass(module, child, fqName);
+		}
+	}
+
+	private void addInteractionClass(ObjectModelType module, InteractionClass ic, String parent) {
+		String fqName = fqName(parent, ic.getName().getValue());
+		Entry<InteractionClass> entry = new Entry<>(ic, module, OmtFunctions.isScaffoldingClass(ic));
+
+		interactionClasses.putIfAbsent(fqName, entry);
+		if (!entry.scaffolding()) {
+			definedInteractionClasses.putIfAbsent(fqName, entry);
+		}
+		interactionClassNames.put(ic, fqName);
+
+		for (InteractionClass child : ic.getInteractionClass()) {
+			addInteractionClass(module, child, fqName);
+		}
+	}
+
+	/**
+	 * Creates a class index for a single module.
+	 *
+	 * @param module the module
+	 * @return class index
+	 */
+	public static FomClassIndex of(ObjectModelType module) {
+		return new FomClassIndex(new ObjectModelType[]{module});
+	}
+
+	/**
+	 * Creates a class index for a module set. Use FomModuleSet.getClassIndex()
+	 * to obtain the cached index of a module set.
+	 *
+	 * @param modules the module set
+	 * @return class index
+	 */
+	static FomClassIndex of(FomModuleSet modules) {
+		return new FomClassIndex(modules.getModules());
+	}
+
+	public ObjectClass getObjectClass(String fqName) {
+		return getObjectClass(fqName, true);
+	}
+
+	/**
+	 * Looks up the ObjectClass for the given FQ OMT name. If nullOnScaffolding
+	 * is true then the first non-scaffolding definition of the class is
+	 * returned, otherwise the first definition is returned.
+	 *
+	 * @param fqName FQ OMT name
+	 * @param nullOnScaffolding setting for scaffolding classes
+	 * @return the ObjectClass or null
+	 */
+	public ObjectClass getObjectClass(String fqName, boolean nullOnScaffolding) {
+		Entry<ObjectClass> entry = (nullOnScaffolding ? definedObjectClasses : objectClasses).get(key(fqName));
+		return entry == null ? null : entry.node();
+	}
+
+	public ObjectModelType getObjectClassModule(String fqName) {
+		return getObjectClassModule(fqName, true);
+	}
+
+	public ObjectModelType getObjectClassModule(String fqName, boolean nullOnScaffolding) {
+		Entry<ObjectClass> entry = (nullOnScaffolding ? definedObjectClasses : objectClasses).get(key(fqName));
+		return entry == null ? null : entry.module();
+	}
+
+	/**
+	 * Returns true if the object class is known, but is only defined as a
+	 * scaffolding class.
+	 *
+	 * @param fqName FQ OMT name
+	 * @return true if scaffolding only
+	 */
+	public boolean isScaffoldingObjectClass(String fqName) {
+		String key = key(fqName);
+		return objectClasses.containsKey(key) && !definedObjectClasses.containsKey(key);
+	}
+
+	/**
+	 * Returns the FQ OMT name of an object class node in this index.
+	 *
+	 * @param oc object class
+	 * @return FQ name or null if the node is not part of this index
+	 */
+	public String getObjectClassName(ObjectClass oc) {
+		return objectClassNames.get(oc);
+	}
+
+	/**
+	 * Returns the FQ names of all object classes, scaffolding or not, in
+	 * depth-first order of first occurrence.
+	 *
+	 * @return FQ names
+	 */
+	public Set<String> getObjectClassNames() {
+		return Collections.unmodifiableSet(objectClasses.keySet());
+	}
+
+	public InteractionClass getInteractionClass(String fqName) {
+		return getInteractionClass(fqName, true);
+	}
+
+	/**
+	 * Looks up the InteractionClass for the given FQ OMT name. If
+	 * nullOnScaffolding is true then the first non-scaffolding definition of
+	 * the class is returned, otherwise the first definition is returned.
+	 *
+	 * @param fqName FQ OMT name
+	 * @param nullOnScaffolding setting for scaffolding classes
+	 * @return the InteractionClass or null
+	 */
+	public InteractionClass getInteractionClass(String fqName, boolean nullOnScaffolding) {
+		Entry<InteractionClass> entry = (nullOnScaffolding ? definedInteractionClasses : interactionClasses).get(key(fqName));
+		return entry == null ? null : entry.node();
+	}
+
+	public ObjectModelType getInteractionClassModule(String fqName) {
+		return getInteractionClassModule(fqName, true);
+	}
+
+	public ObjectModelType getInteractionClassModule(String fqName, boolean nullOnScaffolding) {
+		Entry<InteractionClass> entry = (nullOnScaffolding ? definedInteractionClasses : interactionClasses).get(key(fqName));
+		return entry == null ? null : entry.module();
+	}
+
+	/**
+	 * Returns true if the interaction class is known, but is only defined as a
+	 * scaffolding class.
+	 *
+	 * @param fqName FQ OMT name
+	 * @return true if scaffolding only
+	 */
+	public boolean isScaffoldingInteractionClass(String fqName) {
+		String key = key(fqName);
+		return interactionClasses.containsKey(key) && !definedInteractionClasses.containsKey(key);
+	}
+
+	/**
+	 * Returns the FQ OMT name of an interaction class node in this index.
+	 *
+	 * @param ic interaction class
+	 * @return FQ name or null if the node is not part of this index
+	 */
+	public String getInteractionClassName(InteractionClass ic) {
+		return interactionClassNames.get(ic);
+	}
+
+	/**
+	 * Returns the FQ names of all interaction classes, scaffolding or not, in
+	 * depth-first order of first occurrence.
+	 *
+	 * @return FQ names
+	 */
+	public Set<String> getInteractionClassNames() {
+		return Collections.unmodifiableSet(interactionClasses.keySet());
+	}
+}
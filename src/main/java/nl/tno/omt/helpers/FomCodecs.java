@@ -0,0 +1,355 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.BasicDataRepresentationsType.BasicData;
+import nl.tno.omt.EndianEnumerations;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.HLAString;
+import nl.tno.omt.ReferenceType;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+import nl.tno.omt.helpers.HlaCodec.ArrayCodec;
+import nl.tno.omt.helpers.HlaCodec.Enumerated;
+import nl.tno.omt.helpers.HlaCodec.FixedRecord;
+import nl.tno.omt.helpers.HlaCodec.Scalar;
+import nl.tno.omt.helpers.HlaCodec.VariantRecord;
+
+/**
+ * Compiler and cache of the HLA codecs of the datatypes of a module set.
+ *
+ * A datatype is compiled on first use, together with the datatypes it depends
+ * on; the compiled codecs are shared by all users of the module set. Different
+ * datatypes can be compiled concurrently, and each is compiled only once. The
+ * standard encodings of IEEE 1516.2-2010 are supported: HLAfixedArray,
+ * HLAvariableArray, HLAfixedRecord, HLAvariantRecord and
+ * HLAextendableVariantRecord. Basic datatypes must have a size of 8, 16, 32 or
+ * 64 bits. The standard basic data representations of the MIM are decoded by
+ * name. The OMT has no field for the kind of number of other basic datatypes,
+ * so it is derived from their interpretation: a floating point number if it
+ * mentions float or IEEE 754, an unsigned integer if it mentions unsigned or
+ * its range starts at 0, and a signed integer otherwise.
+ *
+ * Datatypes with other encodings, e.g. the RPR lengthless arrays, and
+ * recursive datatypes cannot be compiled.
+ *
+ * @author bergtwvd
+ */
+public final class FomCodecs {
+
+	// variant record alternative that carries no data, and alternative for all other values
+	private static final String NA = "NA";
+	private static final String HLAOTHER = "HLAother";
+
+	// kind of number of a basic data representation
+	private enum Kind {
+		SIGNED, UNSIGNED, FLOATING_POINT
+	}
+
+	// the standard basic data representations
+	private static final Map<String, Kind> STANDARD_KINDS = Map.ofEntries(
+			Map.entry(OmtMimConstants.HLAOCTET, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAOCTETPAIRBE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAOCTETPAIRLE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAINTEGER16BE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAINTEGER16LE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAINTEGER32BE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAINTEGER32LE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAINTEGER64BE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAINTEGER64LE, Kind.SIGNED),
+			Map.entry(OmtMimConstants.HLAUNSIGNEDINTEGER16BE, Kind.UNSIGNED),
+			Map.entry(OmtMimConstants.HLAUNSIGNEDINTEGER32BE, Kind.UNSIGNED),
+			Map.entry(OmtMimConstants.HLAUNSIGNEDINTEGER64BE, Kind.UNSIGNED),
+			Map.entry(OmtMimConstants.HLAFLOAT32BE, Kind.FLOATING_POINT),
+			Map.entry(OmtMimConstants.HLAFLOAT32LE, Kind.FLOATING_POINT),
+			Map.entry(OmtMimConstants.HLAFLOAT64BE, Kind.FLOATING_POINT),
+			Map.entry(OmtMimConstants.HLAFLOAT64LE, Kind.FLOATING_POINT));
+
+	private final FomModuleSet modules;
+	private final Map<String, HlaCodec> codecs = new ConcurrentHashMap<>();
+
+	private FomCodecs(FomModuleSet modules) {
+		this.modules = modules;
+	}
+
+	static FomCodecs of(FomModuleSet modules) {
+		return new FomCodecs(modules);
+	}
+
+	/**
+	 * Returns the codec of a datatype, compiling it on first use.
+	 *
+	 * @param datatypeName OMT datatype name
+	 * @return the codec
+	 * @throws IOException if the datatype is not defined in the module set or
+	 * cannot be compiled
+	 */
+	public HlaCodec getCodec(String datatypeName) throws IOException {
+		HlaCodec codec = codecs.get(datatypeName);
+		if (codec != null) {
+			return codec;
+		}
+
+		FomDatatypeGraph graph = modules.getDatatypeGraph();
+		FomDatatypeGraph.Category category = graph.getCategory(datatypeName);
+		if (category == null) {
+			throw new IOException("Unknown datatype " + datatypeName);
+		}
+		if (graph.isCyclic(datatypeName)) {
+			throw new IOException("Recursive datatype " + datatypeName + " is not supported");
+		}
+
+		// the dependencies are compiled first, outside the map, so that only
+		// this codec is built while its map entry is locked
+		for (String dependency : graph.getDependencies(datatypeName)) {
+			getCodec(dependency);
+		}
+		try {
+			return codecs.computeIfAbsent(datatypeName, name -> {
+				try {
+					return compile(name, category);
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private HlaCodec compile(String name, FomDatatypeGraph.Category category) throws IOException {
+		return switch (category) {
+			case BASIC ->
+				compile(modules.getBasicDataByName(name));
+			case SIMPLE ->
+				compile(modules.getSimpleDataByName(name));
+			case ENUMERATED ->
+				compile(modules.getEnumeratedDataByName(name));
+			case ARRAY ->
+				compile(modules.getArrayDataByName(name));
+			case FIXED_RECORD ->
+				compile(modules.getFixedRecordDataByName(name));
+			case VARIANT_RECORD ->
+				compile(modules.getVariantRecordDataByName(name));
+		};
+	}
+
+	// the codec of a dependency, compiled before the codec that refers to it
+	private HlaCodec dependency(String name) throws IOException {
+		HlaCodec codec = codecs.get(name);
+		if (codec == null) {
+			throw new IOException("Unknown datatype " + name);
+		}
+		return codec;
+	}
+
+	private static String text(HLAString s) {
+		return s == null || s.getValue() == null ? "" : s.getValue();
+	}
+
+	private static String reference(ReferenceType reference) {
+		return reference == null ? null : reference.getValue();
+	}
+
+	private Scalar scalar(String name, String reference) throws IOException {
+		if (reference == null) {
+			throw new IOException("Datatype " + name + " has no representation");
+		}
+		HlaCodec codec = dependency(reference);
+		if (!(codec instanceof Scalar scalar) || codec instanceof Enumerated) {
+			throw new IOException("Representation " + reference + " of datatype " + name + " is not a basic datatype");
+		}
+		return scalar;
+	}
+
+	private HlaCodec compile(BasicData data) throws IOException {
+		String name = data.getName().getValue();
+		int bits = data.getSize() == null || data.getSize().getValue() == null ? 0 : data.getSize().getValue().intValue();
+		if (bits != 8 && bits != 16 && bits != 32 && bits != 64) {
+			throw new IOException("Basic datatype " + name + " has an unsupported size of " + bits + " bits");
+		}
+		ByteOrder order = data.getEndian() != null && data.getEndian().getValue() == EndianEnumerations.LITTLE ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+		Kind kind = STANDARD_KINDS.get(name);
+		if (kind == null) {
+			kind = kind(text(data.getInterpretation()));
+		}
+		if (kind == Kind.FLOATING_POINT && bits != 32 && bits != 64) {
+			throw new IOException("Basic datatype " + name + " has an unsupported floating point size of " + bits + " bits");
+		}
+		return new Scalar(name, bits / 8, order, kind == Kind.FLOATING_POINT, kind == Kind.UNSIGNED);
+	}
+
+	// kind of number of a non-standard basic datatype, derived from its interpretation
+	private static Kind kind(String interpretation) {
+		String text = interpretation.toLowerCase();
+		if (text.contains("float") || text.contains("ieee 754") || text.contains("ieee754")) {
+			return Kind.FLOATING_POINT;
+		}
+		if (text.contains("unsigned") || text.replace(" ", "").contains("[0,")) {
+			return Kind.UNSIGNED;
+		}
+		return Kind.SIGNED;
+	}
+
+	private HlaCodec compile(SimpleData data) throws IOException {
+		String name = data.getName().getValue();
+		return new Scalar(name, scalar(name, reference(data.getRepresentation())));
+	}
+
+	// enumerator values by enumerator name; an enumerator can have more than one value
+	private static Map<String, List<Long>> enumerators(EnumeratedData data) throws IOException {
+		Map<String, List<Long>> enumerators = new LinkedHashMap<>();
+		for (EnumeratedData.Enumerator enumerator : data.getEnumerator()) {
+			List<Long> values = new ArrayList<>();
+			for (HLAString value : enumerator.getValue()) {
+				try {
+					values.add(Long.parseLong(text(value).trim()));
+				} catch (NumberFormatException ex) {
+					throw new IOException("Enumerator " + enumerator.getName().getValue() + " of datatype " + data.getName().getValue() + " has an invalid value " + text(value));
+				}
+			}
+			enumerators.put(enumerator.getName().getValue(), values);
+		}
+		return enumerators;
+	}
+
+	private HlaCodec compile(EnumeratedData data) throws IOException {
+		String name = data.getName().getValue();
+		Map<String, Long> values = new LinkedHashMap<>();
+		for (Map.Entry<String, List<Long>> e : enumerators(data).entrySet()) {
+			if (!e.getValue().isEmpty()) {
+				values.put(e.getKey(), e.getValue().get(0));
+			}
+		}
+		return new Enumerated(name, scalar(name, reference(data.getRepresentation())), values);
+	}
+
+	static Cardinality cardinality(ArrayData data) throws IOException {
+		try {
+			return Cardinality.of(data);
+		} catch (IllegalArgumentException ex) {
+			throw new IOException(ex.getMessage(), ex);
+		}
+	}
+
+	private HlaCodec compile(ArrayData data) throws IOException {
+		String name = data.getName().getValue();
+		String encoding = data.getEncoding() == null ? null : data.getEncoding().getValue();
+		boolean variable;
+		if (OmtMimConstants.HLAVARIABLEARRAY.equals(encoding)) {
+			variable = true;
+		} else if (OmtMimConstants.HLAFIXEDARRAY.equals(encoding)) {
+			variable = false;
+		} else {
+			throw new IOException("Array datatype " + name + " has an unsupported encoding " + encoding);
+		}
+
+		int cardinality = -1;
+		if (!variable) {
+			// the elements of a multidimensional fixed array are encoded consecutively
+			Cardinality value = cardinality(data);
+			if (!value.isFixed() || value.getMaxElements() > Integer.MAX_VALUE) {
+				throw new IOException("Fixed array datatype " + name + " has an invalid cardinality " + value);
+			}
+			cardinality = (int) value.getMaxElements();
+		}
+
+		String element = reference(data.getDataType());
+		if (element == null) {
+			throw new IOException("Array datatype " + name + " has no element datatype");
+		}
+		return new ArrayCodec(name, dependency(element), variable, cardinality, element);
+	}
+
+	private HlaCodec compile(FixedRecordData data) throws IOException {
+		String name = data.getName().getValue();
+		String encoding = data.getEncoding() == null ? null : data.getEncoding().getValue();
+		if (encoding != null && !encoding.equals(OmtMimConstants.HLAFIXEDRECORD)) {
+			throw new IOException("Fixed record datatype " + name + " has an unsupported encoding " + encoding);
+		}
+
+		List<String> fieldNames = new ArrayList<>();
+		HlaCodec[] fields = new HlaCodec[data.getField().size()];
+		for (int i = 0; i < fields.length; i++) {
+			FixedRecordData.Field field = data.getField().get(i);
+			fieldNames.add(field.getName().getValue());
+			String type = reference(field.getDataType());
+			if (type == null) {
+				throw new IOException("Field " + field.getName().getValue() + " of datatype " + name + " has no datatype");
+			}
+			fields[i] = dependency(type);
+		}
+		return new FixedRecord(name, fieldNames, fields);
+	}
+
+	private HlaCodec compile(VariantRecordData data) throws IOException {
+		String name = data.getName().getValue();
+		String encoding = data.getEncoding() == null ? null : data.getEncoding().getValue();
+		boolean extendable;
+		if (encoding == null || encoding.equals(OmtMimConstants.HLAVARIANTRECORD)) {
+			extendable = false;
+		} else if (encoding.equals(OmtMimConstants.HLAEXTENDABLEVARIANTRECORD)) {
+			extendable = true;
+		} else {
+			throw new IOException("Variant record datatype " + name + " has an unsupported encoding " + encoding);
+		}
+
+		String discriminantType = reference(data.getDataType());
+		if (discriminantType == null || !(dependency(discriminantType) instanceof Enumerated discriminant)) {
+			throw new IOException("Discriminant of variant record datatype " + name + " is not an enumerated datatype");
+		}
+		Map<String, List<Long>> enumerators = enumerators(modules.getEnumeratedDataByName(discriminantType));
+		List<String> names = new ArrayList<>(enumerators.keySet());
+
+		List<String> alternativeNames = new ArrayList<>();
+		HlaCodec[] alternatives = new HlaCodec[data.getAlternative().size()];
+		Map<Long, Integer> alternativeIndex = new HashMap<>();
+		int other = -1;
+		for (int i = 0; i < alternatives.length; i++) {
+			VariantRecordData.Alternative alternative = data.getAlternative().get(i);
+			String alternativeName = alternative.getName() == null ? null : alternative.getName().getValue();
+			alternativeNames.add(alternativeName);
+			String type = reference(alternative.getDataType());
+			if (type != null && !type.isEmpty() && !type.equals(NA)) {
+				alternatives[i] = dependency(type);
+			}
+
+			// a comma separated list of enumerators and enumerator ranges
+			String spec = alternative.getEnumerator() == null ? "" : alternative.getEnumerator().getValue();
+			for (String item : spec.split(",")) {
+				item = item.trim();
+				if (item.equals(HLAOTHER)) {
+					other = i;
+				} else if (item.startsWith("[") && item.endsWith("]") && item.contains("..")) {
+					String[] bounds = item.substring(1, item.length() - 1).split("\\.\\.");
+					int from = names.indexOf(bounds[0].trim());
+					int to = bounds.length == 2 ? names.indexOf(bounds[1].trim()) : -1;
+					if (from == -1 || to == -1) {
+						throw new IOException("Alternative " + alternativeName + " of datatype " + name + " has an invalid enumerator range " + item);
+					}
+					for (int j = from; j <= to; j++) {
+						for (Long value : enumerators.get(names.get(j))) {
+							alternativeIndex.putIfAbsent(value, i);
+						}
+					}
+				} else if (enumerators.containsKey(item)) {
+					for (Long value : enumerators.get(item)) {
+						alternativeIndex.putIfAbsent(value, i);
+					}
+				} else {
+					throw new IOException("Alternative " + alternativeName + " of datatype " + name + " has an unknown enumerator " + item);
+				}
+			}
+		}
+		return new VariantRecord(name, data.getDiscriminant() == null ? null : data.getDiscriminant().getValue(), discriminant, alternativeNames, alternatives, alternativeIndex, other, extendable);
+	}
+}
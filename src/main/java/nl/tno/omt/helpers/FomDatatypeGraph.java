@@ -0,0 +1,451 @@
+package nl.tno.omt.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.BasicDataRepresentationsType.BasicData;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.ReferenceType;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+
+/**
+ * Dependency graph of the datatypes of a module set.
+ *
+ * A datatype depends on the datatypes it refers to: the representation of a
+ * simple or enumerated datatype, the element type of an array, the field types
+ * of a fixed record, and the discriminant and alternative types of a variant
+ * record. Each name refers to the definition that a module set lookup
+ * returns; if a name is defined in more than one category, the first of basic,
+ * simple, enumerated, array, fixed record and variant record is used.
+ *
+ * The graph is built once, in linear time, with Tarjan's strongly connected
+ * components algorithm. It provides the datatypes in dependency order, the
+ * cycles and the references that do not resolve to a datatype in the module
+ * set. The transitive dependencies are computed on first use.
+ *
+ * @author bergtwvd
+ */
+public final class FomDatatypeGraph {
+
+	public enum Category {
+		BASIC,
+		SIMPLE,
+		ENUMERATED,
+		ARRAY,
+		FIXED_RECORD,
+		VARIANT_RECORD
+	}
+
+	/**
+	 * Reference from a datatype to a name that is not a datatype in the module
+	 * set.
+	 *
+	 * @param datatype name of the referring datatype
+	 * @param reference the unresolved name
+	 */
+	public record UnresolvedReference(String datatype, String reference) {
+	}
+
+	// the variant record alternative that carries no data refers to NA
+	private static final String NA = "NA";
+
+	// datatype names and categories, by node number in order of first definition
+	private final List<String> names = new ArrayList<>();
+	private final List<Category> categories = new ArrayList<>();
+	private final Map<String, Integer> nodes = new HashMap<>();
+
+	// resolved dependencies and dependents by node number
+	private final int[][] dependencies;
+	private final int[][] dependents;
+
+	private final List<UnresolvedReference> unresolved = new ArrayList<>();
+
+	// node numbers in dependency order, and the strongly connected component of each node
+	private final int[] order;
+	private final int[] components;
+	private final List<List<String>> cycles = new ArrayList<>();
+
+	private final Lazy<BitSet[]> closures = new Lazy<>(this::computeClosures);
+
+	private FomDatatypeGraph(FomModuleSet set) {
+		for (ObjectModelType module : set.getModuleList()) {
+			DataTypesType dt = module.getDataTypes();
+			if (dt == null) {
+				continue;
+			}
+			if (dt.getBasicDataRepresentations() != null) {
+				addNodes(set, dt.getBasicDataRepresentations().getBasicData(), BasicData::getName);
+			}
+			if (dt.getSimpleDataTypes() != null) {
+				addNodes(set, dt.getSimpleDataTypes().getSimpleData(), SimpleData::getName);
+			}
+			if (dt.getEnumeratedDataTypes() != null) {
+				addNodes(set, dt.getEnumeratedDataTypes().getEnumeratedData(), EnumeratedData::getName);
+			}
+			if (dt.getArrayDataTypes() != null) {
+				addNodes(set, dt.getArrayDataTypes().getArrayData(), ArrayData::getName);
+			}
+			if (dt.getFixedRecordDataTypes() != null) {
+				addNodes(set, dt.getFixedRecordDataTypes().getFixedRecordData(), FixedRecordData::getName);
+			}
+			if (dt.getVariantRecordDataTypes() != null) {
+				addNodes(set, dt.getVariantRecordDataTypes().getVariantRecordData(), VariantRecordData::getName);
+			}
+		}
+
+		int n = names.size();
+		dependencies = new int[n][];
+		List<List<Integer>> reverse = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			reverse.add(new ArrayList<>());
+		}
+		for (int i = 0; i < n; i++) {
+			dependencies[i] = resolve(i, references(set, names.get(i), categories.get(i)));
+			for (int d : dependencies[i]) {
+				reverse.get(d).add(i);
+			}
+		}
+		dependents = new int[n][];
+		for (int i = 0; i < n; i++) {
+			dependents[i] = reverse.get(i).stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		order = new int[n];
+		components = new int[n];
+		new Tarjan().run();
+	}
+
+	static FomDatatypeGraph of(FomModuleSet set) {
+		return new FomDatatypeGraph(set);
+	}
+
+	private static Category category(FomModuleSet set, String name) {
+		if (set.getBasicDataByName(name) != null) {
+			return Category.BASIC;
+		} else if (set.getSimpleDataByName(name) != null) {
+			return Category.SIMPLE;
+		} else if (set.getEnumeratedDataByName(name) != null) {
+			return Category.ENUMERATED;
+		} else if (set.getArrayDataByName(name) != null) {
+			return Category.ARRAY;
+		} else if (set.getFixedRecordDataByName(name) != null) {
+			return Category.FIXED_RECORD;
+		} else if (set.getVariantRecordDataByName(name) != null) {
+			return Category.VARIANT_RECORD;
+		}
+		return null;
+	}
+
+	private <T> void addNodes(FomModuleSet set, List<T> datatypes, Function<T, IdentifierType> name) {
+		for (T datatype : datatypes) {
+			IdentifierType id = name.apply(datatype);
+			if (id != null && id.getValue() != null && !nodes.containsKey(id.getValue())) {
+				nodes.put(id.getValue(), names.size());
+				names.add(id.getValue());
+				categories.add(category(set, id.getValue()));
+			}
+		}
+	}
+
+	private static void add(List<String> references, ReferenceType reference) {
+		if (reference != null && reference.getValue() != null && !reference.getValue().isEmpty() && !reference.getValue().equals(NA)) {
+			references.add(reference.getValue());
+		}
+	}
+
+	// the names referred to by the definition of a datatype
+	private static List<String> references(FomModuleSet set, String name, Category category) {
+		List<String> references = new ArrayList<>();
+		switch (category) {
+			case SIMPLE ->
+				add(references, set.getSimpleDataByName(name).getRepresentation());
+			case ENUMERATED ->
+				add(references, set.getEnumeratedDataByName(name).getRepresentation());
+			case ARRAY ->
+				add(references, set.getArrayDataByName(name).getDataType());
+			case FIXED_RECORD -> {
+				for (FixedRecordData.Field field : set.getFixedRecordDataByName(name).getField()) {
+					add(references, field.getDataType());
+				}
+			}
+			case VARIANT_RECORD -> {
+				VariantRecordData data = set.getVariantRecordDataByName(name);
+				add(references, data.getDataType());
+				for (VariantRecordData.Alternative alternative : data.getAlternative()) {
+					add(references, alternative.getDataType());
+				}
+			}
+			default -> {
+			}
+		}
+		return references;
+	}
+
+	private int[] resolve(int node, List<String> references) {
+		int[] resolved = new int[references.size()];
+		int n = 0;
+		// a record can refer to the same datatype several times
+		Set<Integer> seen = new HashSet<>();
+		for (String reference : references) {
+			Integer d = nodes.get(reference);
+			if (d == null) {
+				unresolved.add(new UnresolvedReference(names.get(node), reference));
+			} else if (seen.add(d)) {
+				resolved[n++] = d;
+			}
+		}
+		return Arrays.copyOf(resolved, n);
+	}
+
+	// Tarjan's algorithm; components are completed after the components they depend on
+	private final class Tarjan {
+
+		private final int[] index = new int[names.size()];
+		private final int[] lowLink = new int[names.size()];
+		private final boolean[] onStack = new boolean[names.size()];
+		private final int[] stack = new int[names.size()];
+		// iterative depth-first traversal, long chains of datatypes do not overflow the stack
+		private final int[] path = new int[names.size()];
+		private final int[] next = new int[names.size()];
+		private int stackSize;
+		private int counter;
+		private int ordered;
+		private int component;
+
+		void run() {
+			Arrays.fill(index, -1);
+			for (int i = 0; i < names.size(); i++) {
+				if (index[i] == -1) {
+					visit(i);
+				}
+			}
+		}
+
+		private void visit(int root) {
+			int top = 0;
+			path[0] = root;
+			enter(root);
+			while (top >= 0) {
+				int node = path[top];
+				if (next[node] < dependencies[node].length) {
+					int d = dependencies[node][next[node]++];
+					if (index[d] == -1) {
+						path[++top] = d;
+						enter(d);
+					} else if (onStack[d]) {
+						lowLink[node] = Math.min(lowLink[node], index[d]);
+					}
+				} else {
+					leave(node);
+					top--;
+					if (top >= 0) {
+						lowLink[path[top]] = Math.min(lowLink[path[top]], lowLink[node]);
+					}
+				}
+			}
+		}
+
+		private void enter(int node) {
+			index[node] = counter;
+			lowLink[node] = counter;
+			counter++;
+			stack[stackSize++] = node;
+			onStack[node] = true;
+		}
+
+		// completes the component of the node if it is the root of the component
+		private void leave(int node) {
+			if (lowLink[node] == index[node]) {
+				int first = ordered;
+				int member;
+				do {
+					member = stack[--stackSize];
+					onStack[member] = false;
+					components[member] = component;
+					order[ordered++] = member;
+				} while (member != node);
+				component++;
+
+				int size = ordered - first;
+				if (size > 1 || Arrays.stream(dependencies[node]).anyMatch(d -> d == node)) {
+					List<String> cycle = new ArrayList<>(size);
+					for (int i = first; i < ordered; i++) {
+						cycle.add(names.get(order[i]));
+					}
+					cycles.add(Collections.unmodifiableList(cycle));
+				}
+			}
+		}
+	}
+
+	// transitive dependencies per node, computed per component in dependency order
+	private BitSet[] computeClosures() {
+		BitSet[] result = new BitSet[names.size()];
+		int i = 0;
+		while (i < order.length) {
+			int component = components[order[i]];
+			int end = i;
+			BitSet closure = new BitSet(names.size());
+			while (end < order.length && components[order[end]] == component) {
+				int node = order[end];
+				for (int d : dependencies[node]) {
+					closure.set(d);
+					if (components[d] != component) {
+						closure.or(result[d]);
+					}
+				}
+				end++;
+			}
+			// the members of a component share their closure
+			for (int j = i; j < end; j++) {
+				result[order[j]] = closure;
+			}
+			i = end;
+		}
+		return result;
+	}
+
+	private int node(String name) {
+		Integer node = nodes.get(name);
+		return node == null ? -1 : node;
+	}
+
+	private List<String> toNames(int[] nodes) {
+		List<String> list = new ArrayList<>(nodes.length);
+		for (int node : nodes) {
+			list.add(names.get(node));
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	public int size() {
+		return names.size();
+	}
+
+	public boolean contains(String name) {
+		return nodes.containsKey(name);
+	}
+
+	/**
+	 * Returns the category of the definition of a datatype.
+	 *
+	 * @param name datatype name
+	 * @return category, or null if the name is not a datatype in the module set
+	 */
+	public Category getCategory(String name) {
+		int node = node(name);
+		return node == -1 ? null : categories.get(node);
+	}
+
+	/**
+	 * Returns all datatypes in dependency order: a datatype comes after the
+	 * datatypes it depends on. The datatypes of a cycle are adjacent, in no
+	 * particular order.
+	 *
+	 * @return datatype names
+	 */
+	public List<String> getDatatypeNames() {
+		return toNames(order);
+	}
+
+	/**
+	 * Returns the datatypes that a datatype refers to directly, in order of
+	 * reference. Unresolved references are not included.
+	 *
+	 * @param name datatype name
+	 * @return datatype names, empty if the name is not a datatype
+	 */
+	public List<String> getDependencies(String name) {
+		int node = node(name);
+		return node == -1 ? List.of() : toNames(dependencies[node]);
+	}
+
+	/**
+	 * Returns the datatypes that refer to a datatype directly.
+	 *
+	 * @param name datatype name
+	 * @return datatype names, empty if the name is not a datatype
+	 */
+	public List<String> getDependents(String name) {
+		int node = node(name);
+		return node == -1 ? List.of() : toNames(dependents[node]);
+	}
+
+	/**
+	 * Returns the datatypes that a datatype depends on directly or indirectly,
+	 * in dependency order. A datatype in a cycle depends on itself.
+	 *
+	 * @param name datatype name
+	 * @return datatype names, empty if the name is not a datatype
+	 */
+	public List<String> getTransitiveDependencies(String name) {
+		int node = node(name);
+		if (node == -1) {
+			return List.of();
+		}
+		BitSet closure = closures.get()[node];
+		List<String> list = new ArrayList<>(closure.cardinality());
+		for (int n : order) {
+			if (closure.get(n)) {
+				list.add(names.get(n));
+			}
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Returns whether a datatype depends on another datatype directly or
+	 * indirectly.
+	 *
+	 * @param name datatype name
+	 * @param dependency name of the possible dependency
+	 * @return true if name depends on dependency
+	 */
+	public boolean dependsOn(String name, String dependency) {
+		int node = node(name);
+		int d = node(dependency);
+		return node != -1 && d != -1 && closures.get()[node].get(d);
+	}
+
+	/**
+	 * Returns the cycles in the graph. Each cycle is a strongly connected set of
+	 * datatypes, e.g. a record that contains an array of itself.
+	 *
+	 * @return cycles
+	 */
+	public List<List<String>> getCycles() {
+		return Collections.unmodifiableList(cycles);
+	}
+
+	public boolean isAcyclic() {
+		return cycles.isEmpty();
+	}
+
+	public boolean isCyclic(String name) {
+		int node = node(name);
+		return node != -1 && closures.get()[node].get(node);
+	}
+
+	/**
+	 * Returns the references to names that are not a datatype in the module set,
+	 * in order of the referring datatypes.
+	 *
+	 * @return unresolved references
+	 */
+	public List<UnresolvedReference> getUnresolvedReferences() {
+		return Collections.unmodifiableList(unresolved);
+	}
+}
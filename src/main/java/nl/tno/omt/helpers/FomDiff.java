@@ -0,0 +1,785 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.BasicDataRepresentationsType;
+import nl.tno.omt.BasicDataRepresentationsType.BasicData;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.DimensionsType;
+import nl.tno.omt.DimensionsType.Dimension;
+import nl.tno.omt.EnumeratedDataTypesType;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.FixedRecordDataTypesType;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.InteractionsType;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.ObjectsType;
+import nl.tno.omt.Parameter;
+import nl.tno.omt.SimpleDataTypesType;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.TransportationsType;
+import nl.tno.omt.TransportationsType.Transportation;
+import nl.tno.omt.UpdateRateType;
+import nl.tno.omt.UpdateRatesType;
+import nl.tno.omt.VariantRecordDataTypesType;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+
+/**
+ * Structural difference between two versions of a FOM module.
+ *
+ * Object classes and interaction classes are aligned by FQ name, attributes
+ * and parameters by name within their class, and datatypes, dimensions,
+ * transportations and update rates by name. Alignment uses hash maps, so a
+ * diff takes linear time in the size of the modules. Changed elements are
+ * detected by comparing their snapshot encoding; a change lists the
+ * properties that differ, e.g. dataType for an attribute or cardinality for
+ * an array datatype.
+ *
+ * An added or removed class is reported once, including its subclasses and
+ * members. A changed class only reports its own properties; changed members
+ * and subclasses are reported separately. All other content of the module,
+ * such as the model identification, time, tags, switches and notes, is
+ * reported as a single change of kind MODEL.
+ *
+ * An element that is present in both versions, but at another position
+ * relative to its siblings, is reported as moved. The moved elements are the
+ * elements outside a longest increasing subsequence of the aligned positions,
+ * i.e. the smallest set of elements that explains the new order.
+ *
+ * A diff can be applied as a patch to the first version, which results in the
+ * second version. Elements that are added are inserted at their position in
+ * the second version.
+ *
+ * @author bergtwvd
+ */
+public final class FomDiff {
+
+	public enum ChangeType {
+		ADDED,
+		REMOVED,
+		CHANGED,
+		MOVED
+	}
+
+	public enum Kind {
+		OBJECT_CLASS,
+		ATTRIBUTE,
+		INTERACTION_CLASS,
+		PARAMETER,
+		BASIC_DATA,
+		SIMPLE_DATA,
+		ENUMERATED_DATA,
+		ARRAY_DATA,
+		FIXED_RECORD_DATA,
+		VARIANT_RECORD_DATA,
+		DIMENSION,
+		TRANSPORTATION,
+		UPDATE_RATE,
+		MODEL
+	}
+
+	/**
+	 * Change of a single element.
+	 *
+	 * @param type type of change
+	 * @param kind kind of element
+	 * @param owner FQ name of the owning class for classes, attributes and
+	 * parameters, null for root classes and other elements
+	 * @param name FQ name for classes, name for other elements, null for the
+	 * model
+	 * @param index position of the element in the second version, -1 for a
+	 * removed element or the model
+	 * @param properties names of the changed properties of a changed element
+	 * @param oldValue the element in the first version, null if added; for the
+	 * model the module without classes and named elements
+	 * @param newValue the element in the second version, null if removed
+	 */
+	public record Change(ChangeType type, Kind kind, String owner, String name, int index, List<String> properties, Object oldValue, Object newValue) {
+	}
+
+	// access to the class tree and class members of objects or interactions
+	private static final class ClassTree<T, M> {
+
+		final Kind classKind;
+		final Kind memberKind;
+		final Function<ObjectModelType, T> root;
+		final BiConsumer<ObjectModelType, T> setRoot;
+		final Function<T, List<T>> children;
+		final Function<T, List<M>> members;
+		final Function<T, String> className;
+		final Function<M, String> memberName;
+		// fields of a class that are compared as separate elements
+		final String[] structure;
+
+		ClassTree(Kind classKind, Kind memberKind, Function<ObjectModelType, T> root, BiConsumer<ObjectModelType, T> setRoot,
+			Function<T, List<T>> children, Function<T, List<M>> members, Function<T, String> className, Function<M, String> memberName, String... structure) {
+			this.classKind = classKind;
+			this.memberKind = memberKind;
+			this.root = root;
+			this.setRoot = setRoot;
+			this.children = children;
+			this.members = members;
+			this.className = className;
+			this.memberName = memberName;
+			this.structure = structure;
+		}
+	}
+
+	private static final ClassTree<ObjectClass, Attribute> OBJECTS = new ClassTree<>(Kind.OBJECT_CLASS, Kind.ATTRIBUTE,
+		m -> m.getObjects() == null ? null : m.getObjects().getObjectClass(),
+		(m, oc) -> {
+			if (m.getObjects() == null) {
+				m.setObjects(new ObjectsType());
+			}
+			m.getObjects().setObjectClass(oc);
+		},
+		ObjectClass::getObjectClass, ObjectClass::getAttribute, oc -> oc.getName().getValue(), a -> a.getName().getValue(),
+		"objectClass", "attribute");
+
+	private static final ClassTree<InteractionClass, Parameter> INTERACTIONS = new ClassTree<>(Kind.INTERACTION_CLASS, Kind.PARAMETER,
+		m -> m.getInteractions() == null ? null : m.getInteractions().getInteractionClass(),
+		(m, ic) -> {
+			if (m.getInteractions() == null) {
+				m.setInteractions(new InteractionsType());
+			}
+			m.getInteractions().setInteractionClass(ic);
+		},
+		InteractionClass::getInteractionClass, InteractionClass::getParameter, ic -> ic.getName().getValue(), p -> p.getName().getValue(),
+		"interactionClass", "parameter");
+
+	// named elements that are compared by name, in report order
+	private static final Kind[] NAMED = {
+		Kind.BASIC_DATA, Kind.SIMPLE_DATA, Kind.ENUMERATED_DATA, Kind.ARRAY_DATA, Kind.FIXED_RECORD_DATA,
+		Kind.VARIANT_RECORD_DATA, Kind.DIMENSION, Kind.TRANSPORTATION, Kind.UPDATE_RATE
+	};
+
+	private final List<Change> changes = new ArrayList<>();
+
+	private FomDiff() {
+	}
+
+	/**
+	 * Computes the difference between two versions of a module.
+	 *
+	 * @param from first version
+	 * @param to second version
+	 * @return the difference
+	 * @throws IOException on unsupported content
+	 */
+	public static FomDiff of(ObjectModelType from, ObjectModelType to) throws IOException {
+		FomDiff diff = new FomDiff();
+		diff.diffClasses(OBJECTS, from, to);
+		diff.diffClasses(INTERACTIONS, from, to);
+		for (Kind kind : NAMED) {
+			diff.diffNamed(kind, null, elements(from, kind, false), elements(to, kind, false), FomDiff::nameOf);
+		}
+
+		ObjectModelType fromShell = shell(from);
+		ObjectModelType toShell = shell(to);
+		List<String> properties = OmtSnapshot.changedFields(fromShell, toShell);
+		if (!properties.isEmpty()) {
+			diff.changes.add(new Change(ChangeType.CHANGED, Kind.MODEL, null, null, -1, properties, fromShell, toShell));
+		}
+		return diff;
+	}
+
+	/**
+	 * Returns the changes: first the class changes in class tree order, then
+	 * the changes of the other elements by kind.
+	 *
+	 * @return changes
+	 */
+	public List<Change> getChanges() {
+		return Collections.unmodifiableList(changes);
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 * Returns the changes of the given type and kind.
+	 *
+	 * @param type type of change
+	 * @param kind kind of element
+	 * @return changes
+	 */
+	public List<Change> getChanges(ChangeType type, Kind kind) {
+		List<Change> selected = new ArrayList<>();
+		for (Change change : changes) {
+			if (change.type() == type && change.kind() == kind) {
+				selected.add(change);
+			}
+		}
+		return selected;
+	}
+
+	private static String fqName(String parent, String name) {
+		return parent == null ? name : parent + "." + name;
+	}
+
+	private static <T> void indexClasses(Map<String, T> index, ClassTree<T, ?> tree, T node, String parent) {
+		String fqName = fqName(parent, tree.className.apply(node));
+		index.putIfAbsent(fqName, node);
+		for (T child : tree.children.apply(node)) {
+			indexClasses(index, tree, child, fqName);
+		}
+	}
+
+	private <T, M> void diffClasses(ClassTree<T, M> tree, ObjectModelType from, ObjectModelType to) throws IOException {
+		Map<String, T> fromClasses = new HashMap<>();
+		Map<String, T> toClasses = new HashMap<>();
+		T fromRoot = tree.root.apply(from);
+		T toRoot = tree.root.apply(to);
+		if (fromRoot != null) {
+			indexClasses(fromClasses, tree, fromRoot, null);
+		}
+		if (toRoot != null) {
+			indexClasses(toClasses, tree, toRoot, null);
+		}
+
+		if (fromRoot != null) {
+			removedClasses(tree, toClasses, fromRoot, null);
+		}
+		if (toRoot != null) {
+			addedOrChangedClasses(tree, fromClasses, toRoot, null, 0);
+		}
+	}
+
+	private <T, M> void removedClasses(ClassTree<T, M> tree, Map<String, T> toClasses, T node, String parent) {
+		String fqName = fqName(parent, tree.className.apply(node));
+		if (!toClasses.containsKey(fqName)) {
+			changes.add(new Change(ChangeType.REMOVED, tree.classKind, parent, fqName, -1, List.of(), node, null));
+			return;
+		}
+		for (T child : tree.children.apply(node)) {
+			removedClasses(tree, toClasses, child, fqName);
+		}
+	}
+
+	private <T, M> void addedOrChangedClasses(ClassTree<T, M> tree, Map<String, T> fromClasses, T node, String parent, int index) throws IOException {
+		String fqName = fqName(parent, tree.className.apply(node));
+		T old = fromClasses.get(fqName);
+		if (old == null) {
+			changes.add(new Change(ChangeType.ADDED, tree.classKind, parent, fqName, index, List.of(), null, node));
+			return;
+		}
+
+		List<String> properties = OmtSnapshot.changedFields(old, node, tree.structure);
+		if (!properties.isEmpty()) {
+			changes.add(new Change(ChangeType.CHANGED, tree.classKind, parent, fqName, index, properties, old, node));
+		}
+		diffNamed(tree.memberKind, fqName, tree.members.apply(old), tree.members.apply(node), tree.memberName);
+
+		Map<String, Integer> fromIndex = new HashMap<>();
+		List<T> fromChildren = tree.children.apply(old);
+		for (int i = 0; i < fromChildren.size(); i++) {
+			fromIndex.putIfAbsent(tree.className.apply(fromChildren.get(i)), i);
+		}
+		List<T> children = tree.children.apply(node);
+		boolean[] moved = moved(children, tree.className, fromIndex);
+		for (int i = 0, j = 0; i < children.size(); i++) {
+			T child = children.get(i);
+			Integer k = fromIndex.get(tree.className.apply(child));
+			if (k != null && moved[j++]) {
+				changes.add(new Change(ChangeType.MOVED, tree.classKind, fqName, fqName(fqName, tree.className.apply(child)), i, List.of(), fromChildren.get(k), child));
+			}
+			addedOrChangedClasses(tree, fromClasses, child, fqName, i);
+		}
+	}
+
+	private <E> void diffNamed(Kind kind, String owner, List<E> from, List<E> to, Function<E, String> name) throws IOException {
+		Map<String, Integer> fromIndex = new HashMap<>();
+		for (int i = 0; i < from.size(); i++) {
+			fromIndex.putIfAbsent(name.apply(from.get(i)), i);
+		}
+		Map<String, E> toElements = new HashMap<>();
+		for (E e : to) {
+			toElements.putIfAbsent(name.apply(e), e);
+		}
+
+		for (E e : from) {
+			if (!toElements.containsKey(name.apply(e))) {
+				changes.add(new Change(ChangeType.REMOVED, kind, owner, name.apply(e), -1, List.of(), e, null));
+			}
+		}
+		boolean[] moved = moved(to, name, fromIndex);
+		for (int i = 0, j = 0; i < to.size(); i++) {
+			E e = to.get(i);
+			Integer k = fromIndex.get(name.apply(e));
+			if (k == null) {
+				changes.add(new Change(ChangeType.ADDED, kind, owner, name.apply(e), i, List.of(), null, e));
+			} else {
+				E old = from.get(k);
+				if (moved[j++]) {
+					changes.add(new Change(ChangeType.MOVED, kind, owner, name.apply(e), i, List.of(), old, e));
+				}
+				List<String> properties = OmtSnapshot.changedFields(old, e);
+				if (!properties.isEmpty()) {
+					changes.add(new Change(ChangeType.CHANGED, kind, owner, name.apply(e), i, properties, old, e));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns which of the elements that are present in both versions are
+	 * moved, in the order of the second version. An element is not moved if it
+	 * is part of a longest increasing subsequence of positions in the first
+	 * version.
+	 */
+	private static <E> boolean[] moved(List<E> to, Function<E, String> name, Map<String, Integer> fromIndex) {
+		int[] positions = new int[to.size()];
+		int n = 0;
+		for (E e : to) {
+			Integer k = fromIndex.get(name.apply(e));
+			if (k != null) {
+				positions[n++] = k;
+			}
+		}
+
+		// tails[l] is the last element of the smallest tail of an increasing subsequence of length l + 1
+		int[] tails = new int[n];
+		int[] previous = new int[n];
+		int length = 0;
+		for (int i = 0; i < n; i++) {
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (positions[tails[mid]] < positions[i]) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) {
+				length++;
+			}
+		}
+
+		boolean[] moved = new boolean[n];
+		Arrays.fill(moved, true);
+		for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i]) {
+			moved[i] = false;
+		}
+		return moved;
+	}
+
+	private static String nameOf(Object element) {
+		if (element instanceof BasicData e) {
+			return e.getName().getValue();
+		} else if (element instanceof SimpleData e) {
+			return e.getName().getValue();
+		} else if (element instanceof EnumeratedData e) {
+			return e.getName().getValue();
+		} else if (element instanceof ArrayData e) {
+			return e.getName().getValue();
+		} else if (element instanceof FixedRecordData e) {
+			return e.getName().getValue();
+		} else if (element instanceof VariantRecordData e) {
+			return e.getName().getValue();
+		} else if (element instanceof Dimension e) {
+			return e.getName().getValue();
+		} else if (element instanceof Transportation e) {
+			return e.getName().getValue();
+		} else if (element instanceof UpdateRateType e) {
+			return e.getName().getValue();
+		}
+		throw new IllegalArgumentException("Unexpected element " + element.getClass().getName());
+	}
+
+	/**
+	 * Returns a copy of a model without classes and named elements. The
+	 * containers of the classes and named elements are retained.
+	 */
+	private static ObjectModelType shell(ObjectModelType model) throws IOException {
+		ObjectModelType shell = OmtSnapshot.copy(model);
+		if (shell.getObjects() != null) {
+			shell.getObjects().setObjectClass(null);
+		}
+		if (shell.getInteractions() != null) {
+			shell.getInteractions().setInteractionClass(null);
+		}
+		for (Kind kind : NAMED) {
+			List<Object> elements = elements(shell, kind, false);
+			if (!elements.isEmpty()) {
+				elements.clear();
+			}
+		}
+		return shell;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> List<E> cast(List<?> list) {
+		return (List<E>) list;
+	}
+
+	/**
+	 * Returns the list of named elements of a kind in a model. If create is
+	 * false and the model has no list, an empty list is returned; otherwise the
+	 * missing containers are created.
+	 */
+	private static List<Object> elements(ObjectModelType model, Kind kind, boolean create) {
+		if (kind == Kind.DIMENSION || kind == Kind.TRANSPORTATION || kind == Kind.UPDATE_RATE) {
+			switch (kind) {
+				case DIMENSION -> {
+					if (model.getDimensions() == null) {
+						if (!create) {
+							return List.of();
+						}
+						model.setDimensions(new DimensionsType());
+					}
+					return cast(model.getDimensions().getDimension());
+				}
+				case TRANSPORTATION -> {
+					if (model.getTransportations() == null) {
+						if (!create) {
+							return List.of();
+						}
+						model.setTransportations(new TransportationsType());
+					}
+					return cast(model.getTransportations().getTransportation());
+				}
+				default -> {
+					if (model.getUpdateRates() == null) {
+						if (!create) {
+							return List.of();
+						}
+						model.setUpdateRates(new UpdateRatesType());
+					}
+					return cast(model.getUpdateRates().getUpdateRate());
+				}
+			}
+		}
+
+		if (model.getDataTypes() == null) {
+			if (!create) {
+				return List.of();
+			}
+			model.setDataTypes(new DataTypesType());
+		}
+		DataTypesType dataTypes = model.getDataTypes();
+
+		switch (kind) {
+			case BASIC_DATA -> {
+				if (dataTypes.getBasicDataRepresentations() == null) {
+					if (!create) {
+						return List.of();
+					}
+					dataTypes.setBasicDataRepresentations(new BasicDataRepresentationsType());
+				}
+				return cast(dataTypes.getBasicDataRepresentations().getBasicData());
+			}
+			case SIMPLE_DATA -> {
+				if (dataTypes.getSimpleDataTypes() == null) {
+					if (!create) {
+						return List.of();
+					}
+					dataTypes.setSimpleDataTypes(new SimpleDataTypesType());
+				}
+				return cast(dataTypes.getSimpleDataTypes().getSimpleData());
+			}
+			case ENUMERATED_DATA -> {
+				if (dataTypes.getEnumeratedDataTypes() == null) {
+					if (!create) {
+						return List.of();
+					}
+					dataTypes.setEnumeratedDataTypes(new EnumeratedDataTypesType());
+				}
+				return cast(dataTypes.getEnumeratedDataTypes().getEnumeratedData());
+			}
+			case ARRAY_DATA -> {
+				if (dataTypes.getArrayDataTypes() == null) {
+					if (!create) {
+						return List.of();
+					}
+					dataTypes.setArrayDataTypes(new DataTypesType.ArrayDataTypes());
+				}
+				return cast(dataTypes.getArrayDataTypes().getArrayData());
+			}
+			case FIXED_RECORD_DATA -> {
+				if (dataTypes.getFixedRecordDataTypes() == null) {
+					if (!create) {
+						return List.of();
+					}
+					dataTypes.setFixedRecordDataTypes(new FixedRecordDataTypesType());
+				}
+				return cast(dataTypes.getFixedRecordDataTypes().getFixedRecordData());
+			}
+			case VARIANT_RECORD_DATA -> {
+				if (dataTypes.getVariantRecordDataTypes() == null) {
+					if (!create) {
+						return List.of();
+					}
+					dataTypes.setVariantRecordDataTypes(new VariantRecordDataTypesType());
+				}
+				return cast(dataTypes.getVariantRecordDataTypes().getVariantRecordData());
+			}
+			default ->
+				throw new IllegalArgumentException("Not a named element kind: " + kind);
+		}
+	}
+
+	/**
+	 * Applies this diff as a patch. The base model is not modified.
+	 *
+	 * The changes are recorded per element list, using an index of the list by
+	 * name, and each list is then rebuilt in a single pass. A patch therefore
+	 * takes linear time in the size of the model and the number of changes.
+	 *
+	 * @param base the first version, or a model with the same elements
+	 * @return the patched model
+	 * @throws IOException if the patch does not apply to the base model
+	 */
+	public ObjectModelType apply(ObjectModelType base) throws IOException {
+		ObjectModelType result = OmtSnapshot.copy(base);
+		ObjectModelType shell = null;
+		// edits of the element lists of the patched model, by list
+		Map<List<?>, ListEdit> edits = new IdentityHashMap<>();
+		Patch<ObjectClass, Attribute> objects = new Patch<>(OBJECTS, result, edits);
+		Patch<InteractionClass, Parameter> interactions = new Patch<>(INTERACTIONS, result, edits);
+
+		// changed elements are replaced first, so that an element that is also moved is found by name
+		for (int phase = 0; phase < 2; phase++) {
+			for (Change change : changes) {
+				if ((change.type() == ChangeType.CHANGED) != (phase == 0)) {
+					continue;
+				}
+				switch (change.kind()) {
+					case OBJECT_CLASS ->
+						objects.applyClass(change);
+					case INTERACTION_CLASS ->
+						interactions.applyClass(change);
+					case ATTRIBUTE ->
+						objects.applyMember(change);
+					case PARAMETER ->
+						interactions.applyMember(change);
+					case MODEL ->
+						shell = (ObjectModelType) change.newValue();
+					default ->
+						edit(edits, elements(result, change.kind(), true), FomDiff::nameOf).apply(change, change.name());
+				}
+			}
+		}
+		for (ListEdit edit : edits.values()) {
+			edit.rebuild();
+		}
+
+		// the patched classes and named elements are moved into the other content of the second version
+		if (shell != null) {
+			ObjectModelType patched = result;
+			result = OmtSnapshot.copy(shell);
+			if (OBJECTS.root.apply(patched) != null) {
+				OBJECTS.setRoot.accept(result, OBJECTS.root.apply(patched));
+			}
+			if (INTERACTIONS.root.apply(patched) != null) {
+				INTERACTIONS.setRoot.accept(result, INTERACTIONS.root.apply(patched));
+			}
+			for (Kind kind : NAMED) {
+				List<Object> elements = elements(patched, kind, false);
+				if (!elements.isEmpty()) {
+					elements(result, kind, true).addAll(elements);
+				}
+			}
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ListEdit edit(Map<List<?>, ListEdit> edits, List<?> elements, Function<?, String> nameOf) {
+		ListEdit edit = edits.get(elements);
+		if (edit == null) {
+			edit = new ListEdit((List<Object>) elements, (Function<Object, String>) nameOf);
+			edits.put(elements, edit);
+		}
+		return edit;
+	}
+
+	/**
+	 * Changes of a single element list. An element is found by name in an
+	 * index of the list; removed, moved and added elements are recorded, and
+	 * the list is rebuilt once all changes are recorded. As with repeated
+	 * removes and inserts, a change applies to the first remaining element
+	 * with its name, and elements are inserted in the order of the second
+	 * version at their position in the second version.
+	 */
+	private static final class ListEdit {
+
+		// an added element, or a moved element at its position in the list
+		private record Insert(int index, Object element, int position) {
+		}
+
+		private final List<Object> elements;
+		// position of the first remaining element by name, and of the next element with the same name
+		private final Map<String, Integer> first = new HashMap<>();
+		private final int[] next;
+		private final Object[] replaced;
+		private final boolean[] taken;
+		private final Set<String> added = new HashSet<>();
+		private final List<Insert> inserts = new ArrayList<>();
+
+		ListEdit(List<Object> elements, Function<Object, String> nameOf) {
+			this.elements = elements;
+			int n = elements.size();
+			next = new int[n];
+			replaced = new Object[n];
+			taken = new boolean[n];
+			for (int i = n - 1; i >= 0; i--) {
+				Integer j = first.put(nameOf.apply(elements.get(i)), i);
+				next[i] = j == null ? -1 : j;
+			}
+		}
+
+		private int find(Change change, String name) throws IOException {
+			Integer i = first.get(name);
+			if (i == null) {
+				throw new IOException("Patch does not apply: " + change.kind() + " " + change.name() + " not found");
+			}
+			return i;
+		}
+
+		// takes the element out of the list
+		private int take(Change change, String name) throws IOException {
+			int i = find(change, name);
+			taken[i] = true;
+			if (next[i] == -1) {
+				first.remove(name);
+			} else {
+				first.put(name, next[i]);
+			}
+			return i;
+		}
+
+		void apply(Change change, String name) throws IOException {
+			switch (change.type()) {
+				case REMOVED ->
+					take(change, name);
+				case CHANGED ->
+					replaced[find(change, name)] = OmtSnapshot.copy(change.newValue());
+				case ADDED ->
+					add(change, name, OmtSnapshot.copy(change.newValue()));
+				case MOVED ->
+					inserts.add(new Insert(change.index(), null, take(change, name)));
+			}
+		}
+
+		void add(Change change, String name, Object element) throws IOException {
+			if (first.containsKey(name) || !added.add(name)) {
+				throw new IOException("Patch does not apply: " + change.kind() + " " + change.name() + " already exists");
+			}
+			inserts.add(new Insert(change.index(), element, -1));
+		}
+
+		void rebuild() {
+			List<Object> result = new ArrayList<>(elements.size() + inserts.size());
+			int i = 0;
+			for (Insert insert : inserts) {
+				for (; result.size() < insert.index() && i < elements.size(); i++) {
+					if (!taken[i]) {
+						result.add(element(i));
+					}
+				}
+				result.add(insert.position() == -1 ? insert.element() : element(insert.position()));
+			}
+			for (; i < elements.size(); i++) {
+				if (!taken[i]) {
+					result.add(element(i));
+				}
+			}
+			elements.clear();
+			elements.addAll(result);
+		}
+
+		private Object element(int i) {
+			return replaced[i] == null ? elements.get(i) : replaced[i];
+		}
+	}
+
+	// patch state of a class tree: the classes of the patched model by FQ name
+	private static final class Patch<T, M> {
+
+		private final ClassTree<T, M> tree;
+		private final ObjectModelType model;
+		private final Map<List<?>, ListEdit> edits;
+		private final Map<String, T> classes = new HashMap<>();
+
+		Patch(ClassTree<T, M> tree, ObjectModelType model, Map<List<?>, ListEdit> edits) {
+			this.tree = tree;
+			this.model = model;
+			this.edits = edits;
+			if (tree.root.apply(model) != null) {
+				indexClasses(classes, tree, tree.root.apply(model), null);
+			}
+		}
+
+		private T find(String fqName) throws IOException {
+			T node = classes.get(fqName);
+			if (node == null) {
+				throw new IOException("Patch does not apply: " + tree.classKind + " " + fqName + " not found");
+			}
+			return node;
+		}
+
+		// removes the classes of a subtree from the index
+		private void unindexClasses(T node, String fqName) {
+			classes.remove(fqName, node);
+			for (T child : tree.children.apply(node)) {
+				unindexClasses(child, fqName(fqName, tree.className.apply(child)));
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		void applyClass(Change change) throws IOException {
+			switch (change.type()) {
+				case REMOVED -> {
+					T node = find(change.name());
+					if (change.owner() == null) {
+						tree.setRoot.accept(model, null);
+					} else {
+						edit(edits, tree.children.apply(find(change.owner())), tree.className).apply(change, tree.className.apply(node));
+					}
+					unindexClasses(node, change.name());
+				}
+				case CHANGED ->
+					OmtSnapshot.copyFields(OmtSnapshot.copy(change.newValue()), find(change.name()), tree.structure);
+				case ADDED -> {
+					if (classes.containsKey(change.name())) {
+						throw new IOException("Patch does not apply: " + tree.classKind + " " + change.name() + " already exists");
+					}
+					T node = OmtSnapshot.copy((T) change.newValue());
+					if (change.owner() == null) {
+						tree.setRoot.accept(model, node);
+					} else {
+						edit(edits, tree.children.apply(find(change.owner())), tree.className).add(change, tree.className.apply(node), node);
+					}
+					indexClasses(classes, tree, node, change.owner());
+				}
+				case MOVED -> {
+					T node = find(change.name());
+					edit(edits, tree.children.apply(find(change.owner())), tree.className).apply(change, tree.className.apply(node));
+				}
+			}
+		}
+
+		void applyMember(Change change) throws IOException {
+			edit(edits, tree.members.apply(find(change.owner())), tree.memberName).apply(change, change.name());
+		}
+	}
+}
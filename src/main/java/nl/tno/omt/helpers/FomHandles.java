@@ -0,0 +1,344 @@
+package nl.tno.omt.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.Parameter;
+
+/**
+ * Dense integer handles of the object classes, interaction classes,
+ * attributes and parameters of a module set.
+ *
+ * Classes are numbered from 0 in the depth-first order of the class index,
+ * so a superclass has a lower handle than its subclasses. Attributes and
+ * parameters are numbered from 0 in the order of their declaring classes,
+ * so the own members of a class have consecutive handles. Handles are
+ * stable for a module set; a different module set can number differently.
+ *
+ * The members of a class, including the inherited members, are available
+ * as a BitSet of member handles, so member sets of classes can be combined
+ * with word-level bit operations. Classes without a member closure, see
+ * FomMemberIndex, have no members.
+ *
+ * Lookups by handle are array lookups; lookups by FQ class name and by
+ * member name are hash lookups that do not allocate.
+ *
+ * @author bergtwvd
+ */
+public final class FomHandles {
+
+	/**
+	 * Handles of a class hierarchy and its members.
+	 *
+	 * @param <C> ObjectClass or InteractionClass
+	 * @param <M> Attribute or Parameter
+	 */
+	public static final class Classes<C, M> {
+
+		private final String[] classNames;
+		private final List<C> classes;
+		private final int[] parents;
+		private final NameTable classHandles;
+		// member handles of each class, inherited members first
+		private final int[][] memberHandles;
+		private final BitSet[] memberSets;
+		// member handles of each class by member name, own members hide inherited members
+		private final NameTable[] memberTables;
+
+		private final String[] memberNames;
+		private final List<M> members;
+		private final int[] declaringClasses;
+
+		private Classes(Set<String> fqNames, Function<String, C> node, Function<String, InheritedMembers<M>> closure, Function<M, IdentifierType> name) {
+			int n = fqNames.size();
+			classNames = fqNames.toArray(new String[n]);
+			classes = new ArrayList<>(n);
+			parents = new int[n];
+			classHandles = new NameTable(n);
+			memberHandles = new int[n][];
+			memberSets = new BitSet[n];
+			memberTables = new NameTable[n];
+			List<String> names = new ArrayList<>();
+			List<M> nodes = new ArrayList<>();
+			List<Integer> declaring = new ArrayList<>();
+
+			for (int i = 0; i < n; i++) {
+				String fqName = classNames[i];
+				classHandles.put(fqName, i);
+				classes.add(node.apply(fqName));
+				int dot = fqName.lastIndexOf('.');
+				parents[i] = dot == -1 ? -1 : classHandles.get(fqName, 0, dot);
+
+				InheritedMembers<M> inherited = closure.apply(fqName);
+				if (inherited == null) {
+					memberHandles[i] = new int[0];
+					memberSets[i] = new BitSet();
+					memberTables[i] = NameTable.EMPTY;
+					continue;
+				}
+				// superclasses come first, so the closure of the superclass is known
+				int[] parent = parents[i] == -1 ? new int[0] : memberHandles[parents[i]];
+				int[] handles = Arrays.copyOf(parent, parent.length + inherited.getOwn().size());
+				BitSet set = parents[i] == -1 ? new BitSet() : (BitSet) memberSets[parents[i]].clone();
+				int k = parent.length;
+				for (M member : inherited.getOwn()) {
+					IdentifierType id = name.apply(member);
+					handles[k++] = nodes.size();
+					set.set(nodes.size());
+					names.add(id == null ? null : id.getValue());
+					nodes.add(member);
+					declaring.add(i);
+				}
+				memberHandles[i] = handles;
+				memberSets[i] = set;
+
+				// a class without own members shares the table of its superclass
+				if (parents[i] != -1 && handles.length == parent.length) {
+					memberTables[i] = memberTables[parents[i]];
+				} else {
+					NameTable table = new NameTable(handles.length);
+					for (int handle : handles) {
+						String memberName = names.get(handle);
+						if (memberName != null) {
+							table.put(memberName, handle);
+						}
+					}
+					memberTables[i] = table;
+				}
+			}
+
+			memberNames = names.toArray(new String[0]);
+			members = List.copyOf(nodes);
+			declaringClasses = declaring.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		public int getClassCount() {
+			return classNames.length;
+		}
+
+		/**
+		 * Returns the handle of a class.
+		 *
+		 * @param fqName FQ OMT class name
+		 * @return class handle, or -1 if the class is not in the module set
+		 */
+		public int getClassHandle(String fqName) {
+			return classHandles.get(fqName, 0, fqName.length());
+		}
+
+		public String getClassName(int classHandle) {
+			return classNames[classHandle];
+		}
+
+		/**
+		 * Returns the first non-scaffolding definition of a class, or the first
+		 * definition if the class only has scaffolding definitions.
+		 *
+		 * @param classHandle class handle
+		 * @return class
+		 */
+		public C getClassNode(int classHandle) {
+			return classes.get(classHandle);
+		}
+
+		/**
+		 * Returns the superclass of a class.
+		 *
+		 * @param classHandle class handle
+		 * @return class handle, or -1 for the root class
+		 */
+		public int getParent(int classHandle) {
+			return parents[classHandle];
+		}
+
+		public int getMemberCount() {
+			return members.size();
+		}
+
+		/**
+		 * Returns the handle of a member of a class, including the inherited
+		 * members. An own member hides an inherited member with the same name.
+		 * The lookup is a hash lookup in a member name table of the class.
+		 *
+		 * @param classHandle class handle
+		 * @param memberName member name
+		 * @return member handle, or -1 if the class has no such member
+		 */
+		public int getMemberHandle(int classHandle, String memberName) {
+			return memberTables[classHandle].get(memberName, 0, memberName.length());
+		}
+
+		public String getMemberName(int memberHandle) {
+			return memberNames[memberHandle];
+		}
+
+		public M getMember(int memberHandle) {
+			return members.get(memberHandle);
+		}
+
+		/**
+		 * Returns the class that declares a member.
+		 *
+		 * @param memberHandle member handle
+		 * @return class handle
+		 */
+		public int getDeclaringClass(int memberHandle) {
+			return declaringClasses[memberHandle];
+		}
+
+		/**
+		 * Returns the handles of the members of a class, including the inherited
+		 * members, in declaration order.
+		 *
+		 * @param classHandle class handle
+		 * @return member handles
+		 */
+		public int[] getMemberHandles(int classHandle) {
+			return memberHandles[classHandle].clone();
+		}
+
+		/**
+		 * Returns the members of a class, including the inherited members.
+		 *
+		 * @param classHandle class handle
+		 * @return a new set of member handles
+		 */
+		public BitSet getMemberSet(int classHandle) {
+			return (BitSet) memberSets[classHandle].clone();
+		}
+
+		/**
+		 * Returns true if a member is declared by the class or one of its
+		 * superclasses.
+		 *
+		 * @param classHandle class handle
+		 * @param memberHandle member handle
+		 * @return true if the class has the member
+		 */
+		public boolean hasMember(int classHandle, int memberHandle) {
+			return memberSets[classHandle].get(memberHandle);
+		}
+	}
+
+	// open addressing hash table of names, lookups on a range of a name do not allocate
+	private static final class NameTable {
+
+		static final NameTable EMPTY = new NameTable(0);
+
+		private final String[] keys;
+		private final int[] values;
+		private final int mask;
+
+		NameTable(int size) {
+			int capacity = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+			keys = new String[capacity];
+			values = new int[capacity];
+			mask = capacity - 1;
+		}
+
+		private static int hash(String s, int from, int to) {
+			int h = 0;
+			for (int i = from; i < to; i++) {
+				h = 31 * h + s.charAt(i);
+			}
+			return h ^ (h >>> 16);
+		}
+
+		void put(String key, int value) {
+			int i = hash(key, 0, key.length()) & mask;
+			while (keys[i] != null && !keys[i].equals(key)) {
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = value;
+		}
+
+		int get(String s, int from, int to) {
+			int i = hash(s, from, to) & mask;
+			for (String key = keys[i]; key != null; key = keys[i]) {
+				if (key.length() == to - from && key.regionMatches(0, s, from, to - from)) {
+					return values[i];
+				}
+				i = (i + 1) & mask;
+			}
+			return -1;
+		}
+	}
+
+	private final Classes<ObjectClass, Attribute> objectClasses;
+	private final Classes<InteractionClass, Parameter> interactionClasses;
+
+	private FomHandles(FomModuleSet modules) {
+		FomClassIndex index = modules.getClassIndex();
+		FomMemberIndex members = modules.getMemberIndex();
+		objectClasses = new Classes<>(index.getObjectClassNames(),
+			fqName -> index.getObjectClass(fqName, !index.isScaffoldingObjectClass(fqName)),
+			members::getObjectClassAttributes, Attribute::getName);
+		interactionClasses = new Classes<>(index.getInteractionClassNames(),
+			fqName -> index.getInteractionClass(fqName, !index.isScaffoldingInteractionClass(fqName)),
+			members::getInteractionClassParameters, Parameter::getName);
+	}
+
+	static FomHandles of(FomModuleSet modules) {
+		return new FomHandles(modules);
+	}
+
+	/**
+	 * Returns the handles of the object classes and their attributes.
+	 *
+	 * @return object class handles
+	 */
+	public Classes<ObjectClass, Attribute> getObjectClasses() {
+		return objectClasses;
+	}
+
+	/**
+	 * Returns the handles of the interaction classes and their parameters.
+	 *
+	 * @return interaction class handles
+	 */
+	public Classes<InteractionClass, Parameter> getInteractionClasses() {
+		return interactionClasses;
+	}
+
+	public int getObjectClassHandle(String fqName) {
+		return objectClasses.getClassHandle(fqName);
+	}
+
+	public int getInteractionClassHandle(String fqName) {
+		return interactionClasses.getClassHandle(fqName);
+	}
+
+	/**
+	 * Returns the handle of an attribute of an object class, including the
+	 * inherited attributes.
+	 *
+	 * @param fqName FQ OMT object class name
+	 * @param attributeName attribute name
+	 * @return attribute handle, or -1 if the class or attribute is unknown
+	 */
+	public int getAttributeHandle(String fqName, String attributeName) {
+		int handle = objectClasses.getClassHandle(fqName);
+		return handle == -1 ? -1 : objectClasses.getMemberHandle(handle, attributeName);
+	}
+
+	/**
+	 * Returns the handle of a parameter of an interaction class, including the
+	 * inherited parameters.
+	 *
+	 * @param fqName FQ OMT interaction class name
+	 * @param parameterName parameter name
+	 * @return parameter handle, or -1 if the class or parameter is unknown
+	 */
+	public int getParameterHandle(String fqName, String parameterName) {
+		int handle = interactionClasses.getClassHandle(fqName);
+		return handle == -1 ? -1 : interactionClasses.getMemberHandle(handle, parameterName);
+	}
+}
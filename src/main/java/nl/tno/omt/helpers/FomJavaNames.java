@@ -0,0 +1,139 @@
+package nl.tno.omt.helpers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.Parameter;
+
+/**
+ * Java names of the class, attribute, parameter and datatype names of a
+ * module set, as converted by OmtJavaMapping.toJavaName.
+ *
+ * All names are converted in a single pass when the table is built; lookups
+ * in both directions are hash lookups. Class names are the unqualified names
+ * of the classes. Since '.' is not escaped, the Java name of an FQ class name
+ * is the '.' separated Java names of its parts.
+ *
+ * The escaping of toJavaName is not one-to-one: OMT names that only differ in
+ * the order of '-' and '_', e.g. "a--b" and "a_-b", have the same Java name.
+ * Such collisions are reported by getCollisions.
+ *
+ * @author bergtwvd
+ */
+public final class FomJavaNames {
+
+	private final Map<String, String> javaNames;
+	private final Map<String, String> omtNames;
+	private final Map<String, Set<String>> collisions;
+
+	private FomJavaNames(FomModuleSet modules) {
+		Map<String, String> names = new HashMap<>();
+		FomClassIndex index = modules.getClassIndex();
+		for (String fqName : index.getObjectClassNames()) {
+			add(names, fqName.substring(fqName.lastIndexOf('.') + 1));
+			ObjectClass oc = index.getObjectClass(fqName, true);
+			if (oc != null) {
+				for (Attribute attribute : oc.getAttribute()) {
+					add(names, attribute.getName());
+				}
+			}
+		}
+		for (String fqName : index.getInteractionClassNames()) {
+			add(names, fqName.substring(fqName.lastIndexOf('.') + 1));
+			InteractionClass ic = index.getInteractionClass(fqName, true);
+			if (ic != null) {
+				for (Parameter parameter : ic.getParameter()) {
+					add(names, parameter.getName());
+				}
+			}
+		}
+		for (String datatype : modules.getDatatypeGraph().getDatatypeNames()) {
+			add(names, datatype);
+		}
+
+		// different OMT names can have the same Java name, e.g. "a--b" and "a_-b"
+		Map<String, String> reverse = new HashMap<>();
+		Map<String, Set<String>> collisions = new TreeMap<>();
+		for (Map.Entry<String, String> e : names.entrySet()) {
+			String other = reverse.putIfAbsent(e.getValue(), e.getKey());
+			if (other != null) {
+				collisions.computeIfAbsent(e.getValue(), k -> new TreeSet<>(Set.of(other))).add(e.getKey());
+			}
+		}
+		reverse.keySet().removeAll(collisions.keySet());
+		javaNames = Map.copyOf(names);
+		omtNames = Map.copyOf(reverse);
+		Map<String, Set<String>> sets = new TreeMap<>();
+		for (Map.Entry<String, Set<String>> e : collisions.entrySet()) {
+			sets.put(e.getKey(), Collections.unmodifiableSet(e.getValue()));
+		}
+		this.collisions = Collections.unmodifiableMap(sets);
+	}
+
+	private static void add(Map<String, String> names, IdentifierType name) {
+		add(names, name == null ? null : name.getValue());
+	}
+
+	private static void add(Map<String, String> names, String omtName) {
+		if (omtName != null && !names.containsKey(omtName)) {
+			names.put(omtName, OmtJavaMapping.toJavaName(omtName));
+		}
+	}
+
+	static FomJavaNames of(FomModuleSet modules) {
+		return new FomJavaNames(modules);
+	}
+
+	/**
+	 * Returns the Java name of an OMT name of the module set.
+	 *
+	 * @param omtName OMT name
+	 * @return Java name, or null if the name is not used in the module set
+	 */
+	public String getJavaName(String omtName) {
+		return javaNames.get(omtName);
+	}
+
+	/**
+	 * Returns the OMT name of the Java name of a name of the module set.
+	 *
+	 * @param javaName Java name
+	 * @return OMT name, or null if the Java name is not the name of a class,
+	 * member or datatype in the module set, or is the Java name of more than one
+	 * OMT name
+	 */
+	public String getOmtName(String javaName) {
+		return omtNames.get(javaName);
+	}
+
+	/**
+	 * Returns the Java names by OMT name.
+	 *
+	 * @return unmodifiable map
+	 */
+	public Map<String, String> getJavaNames() {
+		return javaNames;
+	}
+
+	/**
+	 * Returns the Java names that are the Java name of more than one OMT name in
+	 * the module set, e.g. "a_____b" for "a--b" and "a_-b". These Java names have
+	 * no OMT name in this table.
+	 *
+	 * @return OMT names by Java name, sorted by name
+	 */
+	public Map<String, Set<String>> getCollisions() {
+		return collisions;
+	}
+
+	public int size() {
+		return javaNames.size();
+	}
+}
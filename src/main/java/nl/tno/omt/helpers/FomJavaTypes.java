@@ -0,0 +1,203 @@
+package nl.tno.omt.helpers;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.helpers.OmtJavaMapping.JavaDataType;
+import nl.tno.omt.helpers.OmtJavaMapping.JavaPrimitiveType;
+
+/**
+ * Java type names of the datatypes of a module set, as determined by
+ * OmtJavaMapping.getJavaDatatypeName.
+ *
+ * The category of a datatype is found with a single lookup in the datatype
+ * graph of the module set, and every result is cached by datatype name,
+ * dimension, useList and useBoxed. A datatype without a Java type does not
+ * throw an exception: its Java type name is null and the reason is available
+ * with getProblem.
+ *
+ * The Java types are resolved with a JavaTypeMapping. A resolver without
+ * mapping uses the default mapping of OmtJavaMapping, and starts a new cache
+ * when a mapping is added to OmtJavaMapping. The mapping and its cache are
+ * replaced together, so a lookup that is still running with the old mapping
+ * cannot add a stale result to the new cache.
+ *
+ * @author bergtwvd
+ */
+public final class FomJavaTypes {
+
+	// cache key of a Java type name
+	private record Key(String omtDatatypeName, int dimension, boolean useList, boolean useBoxed) {
+	}
+
+	// Java type name, or the reason there is none
+	private record Result(String javaDatatypeName, String problem) {
+	}
+
+	// a mapping with the cache of its results, replaced as a whole when the default mapping changes
+	private record State(JavaTypeMapping mapping, Map<Key, Result> cache) {
+
+		State(JavaTypeMapping mapping) {
+			this(mapping, new ConcurrentHashMap<>());
+		}
+	}
+
+	private final FomModuleSet modules;
+	// the mapping, or null to use the default mapping
+	private final JavaTypeMapping fixedMapping;
+	private volatile State state;
+
+	private FomJavaTypes(FomModuleSet modules, JavaTypeMapping fixedMapping) {
+		this.modules = modules;
+		this.fixedMapping = fixedMapping;
+		this.state = new State(fixedMapping == null ? OmtJavaMapping.getDefaultMapping() : fixedMapping);
+	}
+
+	static FomJavaTypes of(FomModuleSet modules, JavaTypeMapping mapping) {
+		return new FomJavaTypes(modules, mapping);
+	}
+
+	// the current state; a lookup that still uses a replaced state only fills the cache of that state
+	private State state() {
+		State current = state;
+		if (fixedMapping == null && current.mapping() != OmtJavaMapping.getDefaultMapping()) {
+			current = new State(OmtJavaMapping.getDefaultMapping());
+			state = current;
+		}
+		return current;
+	}
+
+	private Result result(String omtDatatypeName, int dimension, boolean useList, boolean useBoxed) {
+		return result(state(), omtDatatypeName, dimension, useList, useBoxed);
+	}
+
+	private Result result(State state, String omtDatatypeName, int dimension, boolean useList, boolean useBoxed) {
+		Key key = new Key(omtDatatypeName, dimension, useList, useBoxed);
+		Result result = state.cache().get(key);
+		if (result == null) {
+			if (dimension == 0) {
+				result = resolve(state.mapping(), omtDatatypeName, useBoxed);
+			} else {
+				// for List we must use a Boxed type for the array component
+				Result component = result(state, omtDatatypeName, 0, false, useList);
+				result = component.problem() != null ? component
+					: new Result(OmtJavaMapping.toArrayTypeName(component.javaDatatypeName(), dimension, useList), null);
+			}
+			state.cache().put(key, result);
+		}
+		return result;
+	}
+
+	private Result resolve(JavaTypeMapping mapping, String omtDatatypeName, boolean useBoxed) {
+		// check for specific mapping first
+		JavaDataType javaDatatype = mapping.getDatatype(omtDatatypeName);
+		if (javaDatatype != null) {
+			return new Result(javaDatatype.getDatatypeName(), null);
+		}
+
+		FomDatatypeGraph.Category category = modules.getDatatypeGraph().getCategory(omtDatatypeName);
+		if (category == null) {
+			return new Result(null, "Unknown datatype " + omtDatatypeName);
+		}
+		switch (category) {
+			case SIMPLE -> {
+				SimpleData simpleData = modules.getSimpleDataByName(omtDatatypeName);
+				String representation = simpleData.getRepresentation() == null ? null : simpleData.getRepresentation().getValue();
+				JavaPrimitiveType javaType = mapping.getRepresentation(representation);
+				if (javaType == null) {
+					return new Result(null, "Unknown representation " + representation);
+				}
+				return new Result(useBoxed ? javaType.getBoxdedType() : javaType.getUnboxedType(), null);
+			}
+			case FIXED_RECORD, VARIANT_RECORD -> {
+				return new Result(omtDatatypeName, null);
+			}
+			case ENUMERATED -> {
+				// OMT HLABOOLEAN is mapped to Java boolean
+				if (omtDatatypeName.equals(OmtMimConstants.HLABOOLEAN)) {
+					return new Result(useBoxed ? "Boolean" : "boolean", null);
+				}
+				return new Result(omtDatatypeName, null);
+			}
+			case ARRAY -> {
+				// an array of char - regardless of the cardinality - is mapped to Java String
+				ArrayData arrayData = modules.getArrayDataByName(omtDatatypeName);
+				String element = arrayData.getDataType() == null ? null : arrayData.getDataType().getValue();
+				if (OmtMimConstants.HLAUNICODECHAR.equals(element) || OmtMimConstants.HLAASCIICHAR.equals(element)) {
+					return new Result("String", null);
+				}
+				return new Result(null, "Expected character type, but got " + omtDatatypeName);
+			}
+			default -> {
+				return new Result(null, "Unknown datatype " + omtDatatypeName);
+			}
+		}
+	}
+
+	/**
+	 * Returns the Java type name for the provided OMT datatype name.
+	 *
+	 * @param omtDatatypeName OMT datatype name
+	 * @param useBoxed Return boxed or unboxed Java type name
+	 * @return Java type name, or null if there is no mapping
+	 */
+	public String getJavaDatatypeName(String omtDatatypeName, boolean useBoxed) {
+		return result(omtDatatypeName, 0, false, useBoxed).javaDatatypeName();
+	}
+
+	/**
+	 * Returns the Java type name for the provided OMT datatype name.
+	 *
+	 * @param omtDatatypeName OMT datatype name
+	 * @param dimension OMT Array dimension (must be >= 0)
+	 * @param useList Use Java List datatype for array (i.e. dimension > 0)
+	 * @param useBoxed Return boxed or unboxed name
+	 * @return Java type name, or null if there is no mapping
+	 */
+	public String getJavaDatatypeName(String omtDatatypeName, int dimension, boolean useList, boolean useBoxed) {
+		if (dimension < 0) {
+			throw new IllegalArgumentException("Negative dimension " + dimension);
+		}
+		return dimension == 0
+			? getJavaDatatypeName(omtDatatypeName, useBoxed)
+			: result(omtDatatypeName, dimension, useList, false).javaDatatypeName();
+	}
+
+	/**
+	 * Returns the reason an OMT datatype has no Java type name.
+	 *
+	 * @param omtDatatypeName OMT datatype name
+	 * @return the reason, or null if the datatype has a Java type name
+	 */
+	public String getProblem(String omtDatatypeName) {
+		return result(omtDatatypeName, 0, false, false).problem();
+	}
+
+	/**
+	 * Returns the mapping used by this resolver.
+	 *
+	 * @return mapping
+	 */
+	public JavaTypeMapping getMapping() {
+		return state().mapping();
+	}
+
+	/**
+	 * Returns the datatypes without a Java type name that were looked up so
+	 * far, with the reason.
+	 *
+	 * @return problems by OMT datatype name
+	 */
+	public Map<String, String> getUnresolved() {
+		Map<String, String> unresolved = new TreeMap<>();
+		for (Map.Entry<Key, Result> e : state().cache().entrySet()) {
+			if (e.getValue().problem() != null) {
+				unresolved.put(e.getKey().omtDatatypeName(), e.getValue().problem());
+			}
+		}
+		return Collections.unmodifiableMap(unresolved);
+	}
+}
@@ -0,0 +1,55 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception thrown when one or more modules of a module set could not be
+ * read. The exception reports the failure of every module, not only the
+ * first; each cause is also added as suppressed exception.
+ *
+ * @author bergtwvd
+ */
+public class FomLoadException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Failure to read a single module.
+	 *
+	 * @param index position of the module in the requested module list
+	 * @param module module name, e.g. the URL or path of the module
+	 * @param cause the exception that occurred
+	 */
+	public record Failure(int index, String module, Throwable cause) {
+	}
+
+	private final transient List<Failure> failures;
+
+	public FomLoadException(int moduleCount, List<Failure> failures) {
+		super(createMessage(moduleCount, failures));
+		this.failures = Collections.unmodifiableList(failures);
+		for (Failure failure : failures) {
+			addSuppressed(failure.cause());
+		}
+	}
+
+	private static String createMessage(int moduleCount, List<Failure> failures) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Failed to read ").append(failures.size()).append(" of ").append(moduleCount).append(" modules");
+		for (Failure failure : failures) {
+			sb.append("\n  ").append(failure.module()).append(": ").append(failure.cause());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the failures, in module order.
+	 *
+	 * @return failures
+	 */
+	public List<Failure> getFailures() {
+		return failures;
+	}
+}
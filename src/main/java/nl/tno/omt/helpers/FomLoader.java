@@ -0,0 +1,290 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import nl.tno.omt.ObjectModelType;
+
+/**
+ * Reads the modules of a module set in parallel.
+ *
+ * The modules are parsed concurrently, either on virtual threads or on a
+ * caller supplied executor. The returned modules are always in the order of
+ * the requested modules. If one or more modules cannot be read, all modules
+ * are still attempted and a FomLoadException is thrown that reports every
+ * failed module.
+ *
+ * Modules can be validated against the OMT schema, either while reading or
+ * without reading. All problems of all modules are collected.
+ *
+ * @author bergtwvd
+ */
+public final class FomLoader {
+
+	private FomLoader() {
+	}
+
+	/**
+	 * Reads the modules in parallel on virtual threads.
+	 *
+	 * @param modules module URLs
+	 * @return modules, in the order of the URLs
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static ObjectModelType[] readModules(List<URL> modules) throws IOException {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			return readModules(modules, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the modules in parallel on the provided executor.
+	 *
+	 * @param modules module URLs
+	 * @param executor executor to parse the modules on
+	 * @return modules, in the order of the URLs
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static ObjectModelType[] readModules(List<URL> modules, Executor executor) throws IOException {
+		List<String> names = new ArrayList<>(modules.size());
+		List<Callable<ObjectModelType>> tasks = new ArrayList<>(modules.size());
+		for (URL module : modules) {
+			names.add(module.toString());
+			tasks.add(() -> OmtFunctions.readOmt(module));
+		}
+		return execute(names, tasks, executor).toArray(new ObjectModelType[0]);
+	}
+
+	/**
+	 * Reads the module files in parallel on virtual threads.
+	 *
+	 * @param modules module file paths
+	 * @return modules, in the order of the paths
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static ObjectModelType[] readModulePaths(List<Path> modules) throws IOException {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			return readModulePaths(modules, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the module files in parallel on the provided executor.
+	 *
+	 * @param modules module file paths
+	 * @param executor executor to parse the modules on
+	 * @return modules, in the order of the paths
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static ObjectModelType[] readModulePaths(List<Path> modules, Executor executor) throws IOException {
+		List<String> names = new ArrayList<>(modules.size());
+		List<Callable<ObjectModelType>> tasks = new ArrayList<>(modules.size());
+		for (Path module : modules) {
+			names.add(module.toString());
+			tasks.add(() -> OmtFunctions.readOmt(Files.newInputStream(module)));
+		}
+		return execute(names, tasks, executor).toArray(new ObjectModelType[0]);
+	}
+
+	/**
+	 * Reads the module streams in parallel on virtual threads. The streams are
+	 * closed after reading.
+	 *
+	 * @param modules module input streams
+	 * @return modules, in the order of the streams
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static ObjectModelType[] readModuleStreams(List<? extends InputStream> modules) throws IOException {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			return readModuleStreams(modules, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the module streams in parallel on the provided executor. The
+	 * streams are closed after reading.
+	 *
+	 * @param modules module input streams
+	 * @param executor executor to parse the modules on
+	 * @return modules, in the order of the streams
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static ObjectModelType[] readModuleStreams(List<? extends InputStream> modules, Executor executor) throws IOException {
+		List<String> names = new ArrayList<>(modules.size());
+		List<Callable<ObjectModelType>> tasks = new ArrayList<>(modules.size());
+		for (int i = 0; i < modules.size(); i++) {
+			InputStream module = modules.get(i);
+			names.add("stream " + i);
+			tasks.add(() -> OmtFunctions.readOmt(module));
+		}
+		return execute(names, tasks, executor).toArray(new ObjectModelType[0]);
+	}
+
+	/**
+	 * Reads the modules in parallel on virtual threads and returns them as
+	 * indexed module set.
+	 *
+	 * @param modules module URLs, in order of precedence
+	 * @return module set
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static FomModuleSet readModuleSet(List<URL> modules) throws IOException {
+		return FomModuleSet.of(readModules(modules));
+	}
+
+	/**
+	 * Reads the modules in parallel on the provided executor and returns them
+	 * as indexed module set.
+	 *
+	 * @param modules module URLs, in order of precedence
+	 * @param executor executor to parse the modules on
+	 * @return module set
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static FomModuleSet readModuleSet(List<URL> modules, Executor executor) throws IOException {
+		return FomModuleSet.of(readModules(modules, executor));
+	}
+
+	/**
+	 * Reads the modules in parallel on virtual threads and validates them
+	 * against the OMT schema while reading.
+	 *
+	 * @param modules module URLs
+	 * @return modules, in the order of the URLs
+	 * @throws IOException when one or more modules cannot be read or are not
+	 * valid; the failure of an invalid module is an OmtValidationException
+	 * with all problems of the module
+	 */
+	public static ObjectModelType[] readValidatedModules(List<URL> modules) throws IOException {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			return readValidatedModules(modules, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the modules in parallel on the provided executor and validates
+	 * them against the OMT schema while reading.
+	 *
+	 * @param modules module URLs
+	 * @param executor executor to parse the modules on
+	 * @return modules, in the order of the URLs
+	 * @throws IOException when one or more modules cannot be read or are not
+	 * valid; the failure of an invalid module is an OmtValidationException
+	 * with all problems of the module
+	 */
+	public static ObjectModelType[] readValidatedModules(List<URL> modules, Executor executor) throws IOException {
+		List<String> names = new ArrayList<>(modules.size());
+		List<Callable<ObjectModelType>> tasks = new ArrayList<>(modules.size());
+		for (URL module : modules) {
+			names.add(module.toString());
+			tasks.add(() -> OmtFunctions.readOmtValidated(module));
+		}
+		return execute(names, tasks, executor).toArray(new ObjectModelType[0]);
+	}
+
+	/**
+	 * Validates the modules against the OMT schema in parallel on virtual
+	 * threads, without reading the models.
+	 *
+	 * @param modules module URLs
+	 * @return all problems of all modules, in the order of the URLs
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static List<OmtValidationException.Problem> validateModules(List<URL> modules) throws IOException {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			return validateModules(modules, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Validates the modules against the OMT schema in parallel on the provided
+	 * executor, without reading the models.
+	 *
+	 * @param modules module URLs
+	 * @param executor executor to validate the modules on
+	 * @return all problems of all modules, in the order of the URLs
+	 * @throws IOException when one or more modules cannot be read
+	 */
+	public static List<OmtValidationException.Problem> validateModules(List<URL> modules, Executor executor) throws IOException {
+		List<String> names = new ArrayList<>(modules.size());
+		List<Callable<List<OmtValidationException.Problem>>> tasks = new ArrayList<>(modules.size());
+		for (URL module : modules) {
+			names.add(module.toString());
+			tasks.add(() -> OmtFunctions.validateOmt(module));
+		}
+		List<OmtValidationException.Problem> problems = new ArrayList<>();
+		for (List<OmtValidationException.Problem> moduleProblems : execute(names, tasks, executor)) {
+			problems.addAll(moduleProblems);
+		}
+		return problems;
+	}
+
+	private static <T> List<T> execute(List<String> names, List<Callable<T>> tasks, Executor executor) throws IOException {
+		List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+		// a module that the executor rejects is reported as failed module
+		Throwable[] rejected = new Throwable[tasks.size()];
+		for (int i = 0; i < tasks.size(); i++) {
+			FutureTask<T> future = new FutureTask<>(tasks.get(i));
+			futures.add(future);
+			try {
+				executor.execute(future);
+			} catch (RejectedExecutionException ex) {
+				rejected[i] = ex;
+				future.cancel(false);
+			}
+		}
+
+		List<T> results = new ArrayList<>(futures.size());
+		List<FomLoadException.Failure> failures = new ArrayList<>();
+		for (int i = 0; i < futures.size(); i++) {
+			if (rejected[i] != null) {
+				failures.add(new FomLoadException.Failure(i, names.get(i), rejected[i]));
+				continue;
+			}
+			try {
+				results.add(futures.get(i).get());
+			} catch (ExecutionException ex) {
+				failures.add(new FomLoadException.Failure(i, names.get(i), ex.getCause()));
+			} catch (InterruptedException ex) {
+				for (FutureTask<T> future : futures) {
+					future.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while reading modules");
+			}
+		}
+
+		if (!failures.isEmpty()) {
+			throw new FomLoadException(futures.size(), failures);
+		}
+
+		return results;
+	}
+}
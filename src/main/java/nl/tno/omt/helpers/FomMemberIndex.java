@@ -0,0 +1,80 @@
+package nl.tno.omt.helpers;
+
+import java.util.HashMap;
+import java.util.Map;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.Parameter;
+
+/**
+ * Inherited attributes of all object classes and inherited parameters of all
+ * interaction classes of a module set.
+ *
+ * The closures of all classes are computed in a single pass over the class
+ * index: superclasses are visited before their subclasses, so each class
+ * extends the already computed closure of its superclass. The class members
+ * are taken from the first non-scaffolding definition of each class, as in
+ * OmtFunctions.getObjectClassAttributes and
+ * OmtFunctions.getInteractionClassParameters. As there, trailing dots of an
+ * FQ name are ignored.
+ *
+ * @author bergtwvd
+ */
+public final class FomMemberIndex {
+
+	private final Map<String, InheritedMembers<Attribute>> attributes = new HashMap<>();
+	private final Map<String, InheritedMembers<Parameter>> parameters = new HashMap<>();
+
+	private FomMemberIndex(FomClassIndex index) {
+		for (String fqName : index.getObjectClassNames()) {
+			ObjectClass oc = index.getObjectClass(fqName, true);
+			InheritedMembers<Attribute> parent = attributes.get(parentName(fqName));
+			// classes without a definition, or with an undefined superclass, have no closure
+			if (oc != null && (parent != null || fqName.indexOf('.') == -1)) {
+				attributes.put(fqName, new InheritedMembers<>(fqName, parent, oc.getAttribute()));
+			}
+		}
+
+		for (String fqName : index.getInteractionClassNames()) {
+			InteractionClass ic = index.getInteractionClass(fqName, true);
+			InheritedMembers<Parameter> parent = parameters.get(parentName(fqName));
+			if (ic != null && (parent != null || fqName.indexOf('.') == -1)) {
+				parameters.put(fqName, new InheritedMembers<>(fqName, parent, ic.getParameter()));
+			}
+		}
+	}
+
+	private static String parentName(String fqName) {
+		int i = fqName.lastIndexOf('.');
+		return i == -1 ? null : fqName.substring(0, i);
+	}
+
+	static FomMemberIndex of(FomModuleSet modules) {
+		return new FomMemberIndex(modules.getClassIndex());
+	}
+
+	/**
+	 * Returns the attributes of an object class, including the inherited
+	 * attributes. Returns null if the class or one of its superclasses is not
+	 * defined by a non-scaffolding class in the module set.
+	 *
+	 * @param fqName FQ OMT object class name
+	 * @return attributes or null
+	 */
+	public InheritedMembers<Attribute> getObjectClassAttributes(String fqName) {
+		return attributes.get(FomClassIndex.key(fqName));
+	}
+
+	/**
+	 * Returns the parameters of an interaction class, including the inherited
+	 * parameters. Returns null if the class or one of its superclasses is not
+	 * defined by a non-scaffolding class in the module set.
+	 *
+	 * @param fqName FQ OMT interaction class name
+	 * @return parameters or null
+	 */
+	public InheritedMembers<Parameter> getInteractionClassParameters(String fqName) {
+		return parameters.get(FomClassIndex.key(fqName));
+	}
+}
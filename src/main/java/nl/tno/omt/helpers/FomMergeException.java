@@ -0,0 +1,41 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception thrown when modules cannot be merged because of conflicting
+ * definitions. The exception reports all conflicts, not only the first.
+ *
+ * @author bergtwvd
+ */
+public class FomMergeException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient List<FomMerger.Conflict> conflicts;
+
+	public FomMergeException(List<FomMerger.Conflict> conflicts) {
+		super(createMessage(conflicts));
+		this.conflicts = Collections.unmodifiableList(conflicts);
+	}
+
+	private static String createMessage(List<FomMerger.Conflict> conflicts) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Failed to merge modules: ").append(conflicts.size()).append(" conflicts");
+		for (FomMerger.Conflict conflict : conflicts) {
+			sb.append("\n  module ").append(conflict.module()).append(", ").append(conflict.category()).append(' ').append(conflict.name()).append(": ").append(conflict.message());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the conflicts, in the order found.
+	 *
+	 * @return conflicts
+	 */
+	public List<FomMerger.Conflict> getConflicts() {
+		return conflicts;
+	}
+}
@@ -0,0 +1,492 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.InteractionsType;
+import nl.tno.omt.NotesType;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.ObjectsType;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Merges FOM modules into a single object model, following the module merging
+ * rules of IEEE 1516-2010:
+ *
+ * - Object classes and interaction classes are matched by FQ name. A class
+ * may be defined in one module and appear as scaffolding class in the other
+ * modules; the merged class is the defining class with the subclasses of all
+ * modules. A class that is defined differently in two modules is a conflict.
+ *
+ * - Datatypes are matched by name over all datatype categories. Identical
+ * datatypes are merged into one; datatypes with the same name but a
+ * different definition are a conflict.
+ *
+ * - Dimensions, transportations, update rates, synchronization points and
+ * notes are matched by name or label in the same way. Time, tag and switch
+ * definitions are taken from the first module that defines them; a different
+ * definition in a later module is a conflict.
+ *
+ * - The model identification and service utilization are those of the first
+ * module.
+ *
+ * The merge is a single pass over each module with hash map matching;
+ * definitions are compared by their snapshot encoding. Modules can be added
+ * one at a time; adding a module only processes that module. The merged
+ * model is built from copies, the added modules are not modified. On a
+ * conflict the first definition is kept and the conflict is reported.
+ *
+ * @author bergtwvd
+ */
+public final class FomMerger {
+
+	/**
+	 * Element category of a conflict.
+	 */
+	public enum Category {
+		OBJECT_CLASS,
+		INTERACTION_CLASS,
+		DATATYPE,
+		DIMENSION,
+		TRANSPORTATION,
+		UPDATE_RATE,
+		SYNCHRONIZATION,
+		NOTE,
+		TIME,
+		TAG,
+		SWITCH
+	}
+
+	/**
+	 * Merge conflict.
+	 *
+	 * @param category element category
+	 * @param name FQ name, name or label of the element
+	 * @param module position of the module that has the conflicting definition
+	 * @param message description of the conflict
+	 */
+	public record Conflict(Category category, String name, int module, String message) {
+	}
+
+	// merged definition of a named element
+	private record Definition(String kind, byte[] encoding) {
+	}
+
+	// merged class, with the FQ name of its parent class
+	private static final class ClassEntry<T> {
+
+		T node;
+		final String parent;
+		boolean scaffolding;
+		byte[] encoding;
+
+		ClassEntry(T node, String parent, boolean scaffolding) {
+			this.node = node;
+			this.parent = parent;
+			this.scaffolding = scaffolding;
+		}
+	}
+
+	private final ObjectModelType merged = new ObjectModelType();
+	private final List<Conflict> conflicts = new ArrayList<>();
+	private int moduleCount;
+
+	private final Map<String, ClassEntry<ObjectClass>> objectClasses = new HashMap<>();
+	private final Map<String, ClassEntry<InteractionClass>> interactionClasses = new HashMap<>();
+	private final Map<String, Definition> datatypes = new HashMap<>();
+	private final Map<String, Definition> dimensions = new HashMap<>();
+	private final Map<String, Definition> transportations = new HashMap<>();
+	private final Map<String, Definition> updateRates = new HashMap<>();
+	private final Map<String, Definition> synchronizations = new HashMap<>();
+	private final Map<String, Definition> notes = new HashMap<>();
+	private final Map<String, Element> noteElements = new HashMap<>();
+
+	/**
+	 * Merges the modules.
+	 *
+	 * @param modules the modules
+	 * @return the merged model
+	 * @throws FomMergeException if the modules have conflicting definitions
+	 * @throws IOException on unsupported content
+	 */
+	public static ObjectModelType merge(ObjectModelType... modules) throws IOException {
+		FomMerger merger = new FomMerger();
+		for (ObjectModelType module : modules) {
+			merger.add(module);
+		}
+		if (!merger.getConflicts().isEmpty()) {
+			throw new FomMergeException(merger.getConflicts());
+		}
+		return merger.getMerged();
+	}
+
+	/**
+	 * Adds a module to the merged model. Conflicts are reported by
+	 * getConflicts().
+	 *
+	 * @param module the module, not modified
+	 * @return this merger
+	 * @throws IOException on unsupported content
+	 */
+	public FomMerger add(ObjectModelType module) throws IOException {
+		ObjectModelType source = OmtSnapshot.copy(module);
+		int index = moduleCount++;
+
+		if (index == 0) {
+			merged.setModelIdentification(source.getModelIdentification());
+			merged.setNotes(source.getNotes());
+			merged.setIdtag(source.getIdtag());
+			merged.getOtherAttributes().putAll(source.getOtherAttributes());
+		}
+		if (merged.getServiceUtilization() == null) {
+			merged.setServiceUtilization(source.getServiceUtilization());
+		}
+
+		if (source.getObjects() != null && source.getObjects().getObjectClass() != null) {
+			if (merged.getObjects() == null) {
+				merged.setObjects(new ObjectsType());
+			}
+			ObjectsType objects = merged.getObjects();
+			mergeClass(index, Category.OBJECT_CLASS, objectClasses, source.getObjects().getObjectClass(), null,
+				ObjectClass::getObjectClass, oc -> oc.getName().getValue(), OmtFunctions::isScaffoldingClass,
+				objects::getObjectClass, objects::setObjectClass);
+		}
+
+		if (source.getInteractions() != null && source.getInteractions().getInteractionClass() != null) {
+			if (merged.getInteractions() == null) {
+				merged.setInteractions(new InteractionsType());
+			}
+			InteractionsType interactions = merged.getInteractions();
+			mergeClass(index, Category.INTERACTION_CLASS, interactionClasses, source.getInteractions().getInteractionClass(), null,
+				InteractionClass::getInteractionClass, ic -> ic.getName().getValue(), OmtFunctions::isScaffoldingClass,
+				interactions::getInteractionClass, interactions::setInteractionClass);
+		}
+
+		if (source.getDimensions() != null) {
+			if (merged.getDimensions() == null) {
+				merged.setDimensions(source.getDimensions());
+			}
+			mergeNamed(index, Category.DIMENSION, dimensions, "dimension", source.getDimensions().getDimension(),
+				merged.getDimensions().getDimension(), e -> e.getName().getValue());
+		}
+
+		if (source.getTime() != null) {
+			if (merged.getTime() == null) {
+				merged.setTime(source.getTime());
+			} else {
+				mergeFields(index, Category.TIME, merged.getTime(), source.getTime());
+			}
+		}
+
+		if (source.getTags() != null) {
+			if (merged.getTags() == null) {
+				merged.setTags(source.getTags());
+			} else {
+				mergeFields(index, Category.TAG, merged.getTags(), source.getTags());
+			}
+		}
+
+		if (source.getSynchronizations() != null) {
+			if (merged.getSynchronizations() == null) {
+				merged.setSynchronizations(source.getSynchronizations());
+			}
+			mergeNamed(index, Category.SYNCHRONIZATION, synchronizations, "synchronization", source.getSynchronizations().getSynchronizationPoint(),
+				merged.getSynchronizations().getSynchronizationPoint(), e -> e.getLabel().getValue());
+		}
+
+		if (source.getTransportations() != null) {
+			if (merged.getTransportations() == null) {
+				merged.setTransportations(source.getTransportations());
+			}
+			mergeNamed(index, Category.TRANSPORTATION, transportations, "transportation", source.getTransportations().getTransportation(),
+				merged.getTransportations().getTransportation(), e -> e.getName().getValue());
+		}
+
+		if (source.getSwitches() != null) {
+			if (merged.getSwitches() == null) {
+				merged.setSwitches(source.getSwitches());
+			} else {
+				mergeFields(index, Category.SWITCH, merged.getSwitches(), source.getSwitches());
+			}
+		}
+
+		if (source.getUpdateRates() != null) {
+			if (merged.getUpdateRates() == null) {
+				merged.setUpdateRates(source.getUpdateRates());
+			}
+			mergeNamed(index, Category.UPDATE_RATE, updateRates, "update rate", source.getUpdateRates().getUpdateRate(),
+				merged.getUpdateRates().getUpdateRate(), e -> e.getName().getValue());
+		}
+
+		if (source.getDataTypes() != null) {
+			mergeDataTypes(index, source.getDataTypes());
+		}
+
+		if (source.getNotes2() != null) {
+			if (merged.getNotes2() == null) {
+				merged.setNotes2(source.getNotes2());
+			}
+			mergeNamed(index, Category.NOTE, notes, "note", source.getNotes2().getNote(),
+				merged.getNotes2().getNote(), NotesType.Note::getLabel);
+		}
+
+		if (source.getAny() instanceof Element element) {
+			mergeNotesElement(index, element);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Returns the merged model. The model is updated when modules are added.
+	 *
+	 * @return merged model
+	 */
+	public ObjectModelType getMerged() {
+		return merged;
+	}
+
+	/**
+	 * Returns the conflicts found so far, in the order found.
+	 *
+	 * @return conflicts
+	 */
+	public List<Conflict> getConflicts() {
+		return Collections.unmodifiableList(conflicts);
+	}
+
+	/**
+	 * Returns the number of modules added.
+	 *
+	 * @return number of modules
+	 */
+	public int size() {
+		return moduleCount;
+	}
+
+	private static byte[] encode(Object node) throws IOException {
+		return OmtSnapshot.toBytes(node);
+	}
+
+	private void conflict(Category category, String name, int module, String message) {
+		conflicts.add(new Conflict(category, name, module, message));
+	}
+
+	private <T> void mergeClass(int module, Category category, Map<String, ClassEntry<T>> classes, T node, String parent,
+		Function<T, List<T>> children, Function<T, String> name, Predicate<T> isScaffolding,
+		Supplier<T> root, Consumer<T> setRoot) throws IOException {
+
+		String fqName = parent == null ? name.apply(node) : parent + "." + name.apply(node);
+
+		// the subclasses are merged separately
+		List<T> subclasses = new ArrayList<>(children.apply(node));
+		children.apply(node).clear();
+
+		boolean scaffolding = isScaffolding.test(node);
+		ClassEntry<T> entry = classes.get(fqName);
+
+		if (entry == null) {
+			if (parent == null && root.get() != null) {
+				conflict(category, fqName, module, "Root class differs from " + name.apply(root.get()));
+				return;
+			}
+
+			entry = new ClassEntry<>(node, parent, scaffolding);
+			entry.encoding = scaffolding ? null : encode(node);
+			classes.put(fqName, entry);
+			if (parent == null) {
+				setRoot.accept(node);
+			} else {
+				children.apply(classes.get(parent).node).add(node);
+			}
+		} else if (!scaffolding) {
+			byte[] encoding = encode(node);
+			if (entry.scaffolding) {
+				// the defining class replaces the scaffolding class
+				children.apply(node).addAll(children.apply(entry.node));
+				if (parent == null) {
+					setRoot.accept(node);
+				} else {
+					List<T> siblings = children.apply(classes.get(parent).node);
+					siblings.set(siblings.indexOf(entry.node), node);
+				}
+				entry.node = node;
+				entry.scaffolding = false;
+				entry.encoding = encoding;
+			} else if (!Arrays.equals(entry.encoding, encoding)) {
+				conflict(category, fqName, module, "Class is defined differently in an earlier module");
+			}
+		}
+
+		for (T subclass : subclasses) {
+			mergeClass(module, category, classes, subclass, fqName, children, name, isScaffolding, root, setRoot);
+		}
+	}
+
+	private <T> void mergeNamed(int module, Category category, Map<String, Definition> definitions, String kind,
+		List<T> source, List<T> target, Function<T, String> name) throws IOException {
+
+		// the target is the source list if the merged model uses the source container
+		List<T> elements = new ArrayList<>(source);
+		if (source == target) {
+			target.clear();
+		}
+
+		for (T element : elements) {
+			String key = name.apply(element);
+			Definition definition = new Definition(kind, encode(element));
+			Definition existing = definitions.putIfAbsent(key, definition);
+			if (existing == null) {
+				target.add(element);
+			} else if (!existing.kind().equals(kind)) {
+				conflict(category, key, module, "Name is already used by " + existing.kind() + " " + key);
+			} else if (!Arrays.equals(existing.encoding(), definition.encoding())) {
+				conflict(category, key, module, kind.substring(0, 1).toUpperCase() + kind.substring(1) + " is defined differently in an earlier module");
+			}
+		}
+	}
+
+	private void mergeDataTypes(int module, DataTypesType source) throws IOException {
+		if (merged.getDataTypes() == null) {
+			DataTypesType dataTypes = new DataTypesType();
+			dataTypes.setNotes(source.getNotes());
+			dataTypes.setIdtag(source.getIdtag());
+			dataTypes.setAny(source.getAny());
+			dataTypes.getOtherAttributes().putAll(source.getOtherAttributes());
+			merged.setDataTypes(dataTypes);
+		}
+		DataTypesType target = merged.getDataTypes();
+
+		if (source.getBasicDataRepresentations() != null) {
+			if (target.getBasicDataRepresentations() == null) {
+				target.setBasicDataRepresentations(source.getBasicDataRepresentations());
+			}
+			mergeNamed(module, Category.DATATYPE, datatypes, "basic data representation", source.getBasicDataRepresentations().getBasicData(),
+				target.getBasicDataRepresentations().getBasicData(), e -> e.getName().getValue());
+		}
+		if (source.getSimpleDataTypes() != null) {
+			if (target.getSimpleDataTypes() == null) {
+				target.setSimpleDataTypes(source.getSimpleDataTypes());
+			}
+			mergeNamed(module, Category.DATATYPE, datatypes, "simple datatype", source.getSimpleDataTypes().getSimpleData(),
+				target.getSimpleDataTypes().getSimpleData(), e -> e.getName().getValue());
+		}
+		if (source.getEnumeratedDataTypes() != null) {
+			if (target.getEnumeratedDataTypes() == null) {
+				target.setEnumeratedDataTypes(source.getEnumeratedDataTypes());
+			}
+			mergeNamed(module, Category.DATATYPE, datatypes, "enumerated datatype", source.getEnumeratedDataTypes().getEnumeratedData(),
+				target.getEnumeratedDataTypes().getEnumeratedData(), e -> e.getName().getValue());
+		}
+		if (source.getArrayDataTypes() != null) {
+			if (target.getArrayDataTypes() == null) {
+				target.setArrayDataTypes(source.getArrayDataTypes());
+			}
+			mergeNamed(module, Category.DATATYPE, datatypes, "array datatype", source.getArrayDataTypes().getArrayData(),
+				target.getArrayDataTypes().getArrayData(), e -> e.getName().getValue());
+		}
+		if (source.getFixedRecordDataTypes() != null) {
+			if (target.getFixedRecordDataTypes() == null) {
+				target.setFixedRecordDataTypes(source.getFixedRecordDataTypes());
+			}
+			mergeNamed(module, Category.DATATYPE, datatypes, "fixed record datatype", source.getFixedRecordDataTypes().getFixedRecordData(),
+				target.getFixedRecordDataTypes().getFixedRecordData(), e -> e.getName().getValue());
+		}
+		if (source.getVariantRecordDataTypes() != null) {
+			if (target.getVariantRecordDataTypes() == null) {
+				target.setVariantRecordDataTypes(source.getVariantRecordDataTypes());
+			}
+			mergeNamed(module, Category.DATATYPE, datatypes, "variant record datatype", source.getVariantRecordDataTypes().getVariantRecordData(),
+				target.getVariantRecordDataTypes().getVariantRecordData(), e -> e.getName().getValue());
+		}
+	}
+
+	// merges single-valued definitions, such as the time stamp or a switch, field by field
+	private void mergeFields(int module, Category category, Object target, Object source) throws IOException {
+		try {
+			for (Field field : target.getClass().getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.getType().getPackage() != ObjectModelType.class.getPackage()) {
+					continue;
+				}
+				field.setAccessible(true);
+				Object t = field.get(target);
+				Object s = field.get(source);
+				if (t == null) {
+					field.set(target, s);
+				} else if (s != null && !Arrays.equals(encode(t), encode(s))) {
+					conflict(category, field.getName(), module, "Defined differently in an earlier module");
+				}
+			}
+		} catch (IllegalAccessException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	// notes that are read as wildcard DOM content are merged by label
+	private void mergeNotesElement(int module, Element source) {
+		if (!(merged.getAny() instanceof Element)) {
+			if (merged.getAny() != null) {
+				return;
+			}
+			merged.setAny(source);
+			for (Element note : childElements(source)) {
+				noteElements.putIfAbsent(noteLabel(note), note);
+			}
+			return;
+		}
+
+		Element target = (Element) merged.getAny();
+		if (!target.getLocalName().equals(source.getLocalName())) {
+			return;
+		}
+
+		for (Element note : childElements(source)) {
+			String label = noteLabel(note);
+			Element existing = noteElements.get(label);
+			if (existing == null) {
+				Node imported = target.getOwnerDocument().importNode(note, true);
+				target.appendChild(imported);
+				noteElements.put(label, (Element) imported);
+			} else if (!normalize(existing.getTextContent()).equals(normalize(note.getTextContent()))) {
+				conflict(Category.NOTE, label, module, "Note is defined differently in an earlier module");
+			}
+		}
+	}
+
+	private static List<Element> childElements(Element element) {
+		List<Element> elements = new ArrayList<>();
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child instanceof Element e) {
+				elements.add(e);
+			}
+		}
+		return elements;
+	}
+
+	private static String noteLabel(Element note) {
+		for (Element child : childElements(note)) {
+			if ("label".equals(child.getLocalName())) {
+				return child.getTextContent().trim();
+			}
+		}
+		return "";
+	}
+
+	private static String normalize(String text) {
+		return text.trim().replaceAll("\\s+", " ");
+	}
+}
@@ -0,0 +1,382 @@
+package nl.tno.omt.helpers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.BasicDataRepresentationsType.BasicData;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.DimensionsType.Dimension;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.NotesType.Note;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.Parameter;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.TransportationsType.Transportation;
+import nl.tno.omt.UpdateRateType;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+
+/**
+ * Immutable, indexed set of FOM modules.
+ *
+ * The indexes are built once when the set is created. Lookups have the same
+ * first-match-wins semantics as the ObjectModelType[] overloads in
+ * OmtFunctions: if a name is defined in more than one module, the definition
+ * in the module that comes first in the module array is returned.
+ *
+ * The modules must not be modified after the set has been created.
+ *
+ * @author bergtwvd
+ */
+public final class FomModuleSet {
+
+	// indexed value, together with the module that defines it
+	private record Entry<T>(T value, ObjectModelType module) {
+	}
+
+	private final ObjectModelType[] modules;
+
+	private final Map<String, Entry<BasicData>> basicData = new HashMap<>();
+	private final Map<String, Entry<SimpleData>> simpleData = new HashMap<>();
+	private final Map<String, Entry<EnumeratedData>> enumeratedData = new HashMap<>();
+	private final Map<String, Entry<ArrayData>> arrayData = new HashMap<>();
+	private final Map<String, Entry<FixedRecordData>> fixedRecordData = new HashMap<>();
+	private final Map<String, Entry<VariantRecordData>> variantRecordData = new HashMap<>();
+	private final Map<String, Entry<Transportation>> transportations = new HashMap<>();
+	private final Map<String, Entry<UpdateRateType>> updateRates = new HashMap<>();
+	private final Map<String, Entry<Dimension>> dimensions = new HashMap<>();
+	private final Map<String, Entry<Note>> notes = new HashMap<>();
+
+	// lazily built indexes
+	private final Lazy<FomClassIndex> classIndex = new Lazy<>(() -> FomClassIndex.of(this));
+	private final Lazy<FomMemberIndex> memberIndex = new Lazy<>(() -> FomMemberIndex.of(this));
+	private final Lazy<FomDatatypeGraph> datatypeGraph = new Lazy<>(() -> FomDatatypeGraph.of(this));
+	private final Lazy<FomCodecs> codecs = new Lazy<>(() -> FomCodecs.of(this));
+	private final Lazy<FomWireSizes> wireSizes = new Lazy<>(() -> FomWireSizes.of(this));
+	private final Lazy<FomJavaTypes> javaTypes = new Lazy<>(() -> FomJavaTypes.of(this, null));
+	private final Lazy<FomJavaNames> javaNames = new Lazy<>(() -> FomJavaNames.of(this));
+	private final Lazy<FomHandles> handles = new Lazy<>(() -> FomHandles.of(this));
+	private final Lazy<FomClassHierarchy> classHierarchy = new Lazy<>(() -> FomClassHierarchy.of(this));
+
+	private FomModuleSet(ObjectModelType[] modules) {
+		this.modules = modules;
+
+		for (ObjectModelType module : modules) {
+			DataTypesType dt = module.getDataTypes();
+			if (dt != null) {
+				if (dt.getBasicDataRepresentations() != null) {
+					index(basicData, module, dt.getBasicDataRepresentations().getBasicData(), BasicData::getName);
+				}
+				if (dt.getSimpleDataTypes() != null) {
+					index(simpleData, module, dt.getSimpleDataTypes().getSimpleData(), SimpleData::getName);
+				}
+				if (dt.getEnumeratedDataTypes() != null) {
+					index(enumeratedData, module, dt.getEnumeratedDataTypes().getEnumeratedData(), EnumeratedData::getName);
+				}
+				if (dt.getArrayDataTypes() != null) {
+					index(arrayData, module, dt.getArrayDataTypes().getArrayData(), ArrayData::getName);
+				}
+				if (dt.getFixedRecordDataTypes() != null) {
+					index(fixedRecordData, module, dt.getFixedRecordDataTypes().getFixedRecordData(), FixedRecordData::getName);
+				}
+				if (dt.getVariantRecordDataTypes() != null) {
+					index(variantRecordData, module, dt.getVariantRecordDataTypes().getVariantRecordData(), VariantRecordData::getName);
+				}
+			}
+
+			if (module.getTransportations() != null) {
+				index(transportations, module, module.getTransportations().getTransportation(), Transportation::getName);
+			}
+
+			if (module.getUpdateRates() != null) {
+				index(updateRates, module, module.getUpdateRates().getUpdateRate(), UpdateRateType::getName);
+			}
+
+			if (module.getDimensions() != null) {
+				index(dimensions, module, module.getDimensions().getDimension(), Dimension::getName);
+			}
+
+			if (module.getNotes2() != null) {
+				for (Note note : module.getNotes2().getNote()) {
+					if (note.getLabel() != null) {
+						notes.putIfAbsent(note.getLabel(), new Entry<>(note, module));
+					}
+				}
+			}
+		}
+	}
+
+	private static <T> void index(Map<String, Entry<T>> map, ObjectModelType module, List<? extends T> list, Function<T, IdentifierType> name) {
+		for (T e : list) {
+			IdentifierType id = name.apply(e);
+			if (id != null && id.getValue() != null) {
+				// first module wins
+				map.putIfAbsent(id.getValue(), new Entry<>(e, module));
+			}
+		}
+	}
+
+	private static <T> T value(Entry<T> entry) {
+		return entry == null ? null : entry.value();
+	}
+
+	private static ObjectModelType module(Entry<?> entry) {
+		return entry == null ? null : entry.module();
+	}
+
+	/**
+	 * Creates an indexed module set. The order of the modules determines which
+	 * definition is returned when a name is defined in more than one module.
+	 *
+	 * @param modules the modules, in order of precedence
+	 * @return indexed module set
+	 */
+	public static FomModuleSet of(ObjectModelType... modules) {
+		return new FomModuleSet(modules.clone());
+	}
+
+	/**
+	 * Returns a copy of the modules in this set.
+	 *
+	 * @return the modules
+	 */
+	public ObjectModelType[] getModules() {
+		return modules.clone();
+	}
+
+	/**
+	 * Returns the modules in this set as unmodifiable list.
+	 *
+	 * @return the modules
+	 */
+	public List<ObjectModelType> getModuleList() {
+		return Collections.unmodifiableList(Arrays.asList(modules));
+	}
+
+	public int size() {
+		return modules.length;
+	}
+
+	public BasicData getBasicDataByName(String representationName) {
+		return value(basicData.get(representationName));
+	}
+
+	public ObjectModelType getBasicDataModule(String representationName) {
+		return module(basicData.get(representationName));
+	}
+
+	public SimpleData getSimpleDataByName(String datatypeName) {
+		return value(simpleData.get(datatypeName));
+	}
+
+	public ObjectModelType getSimpleDataModule(String datatypeName) {
+		return module(simpleData.get(datatypeName));
+	}
+
+	public EnumeratedData getEnumeratedDataByName(String datatypeName) {
+		return value(enumeratedData.get(datatypeName));
+	}
+
+	public ObjectModelType getEnumeratedDataModule(String datatypeName) {
+		return module(enumeratedData.get(datatypeName));
+	}
+
+	public ArrayData getArrayDataByName(String datatypeName) {
+		return value(arrayData.get(datatypeName));
+	}
+
+	public ObjectModelType getArrayDataModule(String datatypeName) {
+		return module(arrayData.get(datatypeName));
+	}
+
+	public FixedRecordData getFixedRecordDataByName(String datatypeName) {
+		return value(fixedRecordData.get(datatypeName));
+	}
+
+	public ObjectModelType getFixedRecordDataModule(String datatypeName) {
+		return module(fixedRecordData.get(datatypeName));
+	}
+
+	public VariantRecordData getVariantRecordDataByName(String datatypeName) {
+		return value(variantRecordData.get(datatypeName));
+	}
+
+	public ObjectModelType getVariantRecordDataModule(String datatypeName) {
+		return module(variantRecordData.get(datatypeName));
+	}
+
+	public Transportation getTransportationByName(String name) {
+		return value(transportations.get(name));
+	}
+
+	public ObjectModelType getTransportationModule(String name) {
+		return module(transportations.get(name));
+	}
+
+	public UpdateRateType getUpdateRateByName(String name) {
+		return value(updateRates.get(name));
+	}
+
+	public ObjectModelType getUpdateRateModule(String name) {
+		return module(updateRates.get(name));
+	}
+
+	public Dimension getDimensionByName(String name) {
+		return value(dimensions.get(name));
+	}
+
+	public ObjectModelType getDimensionModule(String name) {
+		return module(dimensions.get(name));
+	}
+
+	/**
+	 * Looks up a note by its label. Note labels are XML IDs and are referenced
+	 * by the notes attribute of the other OMT elements.
+	 *
+	 * @param label note label
+	 * @return the note or null
+	 */
+	public Note getNoteByLabel(String label) {
+		return value(notes.get(label));
+	}
+
+	public ObjectModelType getNoteModule(String label) {
+		return module(notes.get(label));
+	}
+
+	/**
+	 * Returns the FQ class name index of this module set. The index is built on
+	 * first use.
+	 *
+	 * @return class index
+	 */
+	public FomClassIndex getClassIndex() {
+		return classIndex.get();
+	}
+
+	public ObjectClass getObjectClass(String fqName) {
+		return getClassIndex().getObjectClass(fqName, true);
+	}
+
+	public ObjectClass getObjectClass(String fqName, boolean nullOnScaffolding) {
+		return getClassIndex().getObjectClass(fqName, nullOnScaffolding);
+	}
+
+	public InteractionClass getInteractionClass(String fqName) {
+		return getClassIndex().getInteractionClass(fqName, true);
+	}
+
+	public InteractionClass getInteractionClass(String fqName, boolean nullOnScaffolding) {
+		return getClassIndex().getInteractionClass(fqName, nullOnScaffolding);
+	}
+
+	/**
+	 * Returns the inherited attribute and parameter closures of all classes in
+	 * this module set. The closures are computed on first use.
+	 *
+	 * @return member index
+	 */
+	public FomMemberIndex getMemberIndex() {
+		return memberIndex.get();
+	}
+
+	public InheritedMembers<Attribute> getObjectClassAttributes(String fqName) {
+		return getMemberIndex().getObjectClassAttributes(fqName);
+	}
+
+	public InheritedMembers<Parameter> getInteractionClassParameters(String fqName) {
+		return getMemberIndex().getInteractionClassParameters(fqName);
+	}
+
+	/**
+	 * Returns the dependency graph of the datatypes in this module set. The
+	 * graph is built on first use.
+	 *
+	 * @return datatype graph
+	 */
+	public FomDatatypeGraph getDatatypeGraph() {
+		return datatypeGraph.get();
+	}
+
+	/**
+	 * Returns the HLA codecs of the datatypes in this module set. The codecs are
+	 * compiled on first use.
+	 *
+	 * @return codecs
+	 */
+	public FomCodecs getCodecs() {
+		return codecs.get();
+	}
+
+	/**
+	 * Returns the static encoded sizes of the datatypes and classes in this
+	 * module set. The sizes are computed on first use.
+	 *
+	 * @return wire sizes
+	 */
+	public FomWireSizes getWireSizes() {
+		return wireSizes.get();
+	}
+
+	/**
+	 * Returns the Java type names of the datatypes in this module set. The names
+	 * are resolved with the default mapping of OmtJavaMapping and cached on
+	 * first use.
+	 *
+	 * @return Java types
+	 */
+	public FomJavaTypes getJavaTypes() {
+		return javaTypes.get();
+	}
+
+	/**
+	 * Returns a new resolver of the Java type names of the datatypes in this
+	 * module set, using the given mapping. The resolver caches the names it
+	 * resolves, so it should be kept for as long as the mapping is used.
+	 *
+	 * @param mapping type mapping
+	 * @return Java types
+	 */
+	public FomJavaTypes getJavaTypes(JavaTypeMapping mapping) {
+		return FomJavaTypes.of(this, Objects.requireNonNull(mapping));
+	}
+
+	/**
+	 * Returns the Java names of the class, member and datatype names in this
+	 * module set. The names are converted on first use.
+	 *
+	 * @return Java names
+	 */
+	public FomJavaNames getJavaNames() {
+		return javaNames.get();
+	}
+
+	/**
+	 * Returns the dense integer handles of the classes, attributes and
+	 * parameters in this module set. The handles are assigned on first use.
+	 *
+	 * @return handles
+	 */
+	public FomHandles getHandles() {
+		return handles.get();
+	}
+
+	/**
+	 * Returns the interval numbering of the class trees in this module set,
+	 * for constant time subclass checks. The numbering is computed on first use.
+	 *
+	 * @return class hierarchy
+	 */
+	public FomClassHierarchy getClassHierarchy() {
+		return classHierarchy.get();
+	}
+}
@@ -0,0 +1,827 @@
+package nl.tno.omt.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.BasicDataRepresentationsType.BasicData;
+import nl.tno.omt.EndianEnumerations;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.HLAString;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.NonEmptyString;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.OrderEnumerations;
+import nl.tno.omt.OrderType;
+import nl.tno.omt.ReferenceType;
+import nl.tno.omt.ReliableEnumerations;
+import nl.tno.omt.TransportationsType;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+
+/**
+ * Compact, immutable view of the datatypes, transportations and classes of a
+ * module set.
+ *
+ * The view holds the structure of the FOM only; semantics, notes and the other
+ * descriptive text are left out. It does not refer to the JAXB tree, so the
+ * modules can be dropped once the view is created. To keep the view small:
+ *
+ * - Names are interned, so a name that occurs in many places, or in many
+ * views, is stored once.
+ *
+ * - Lists are flattened into arrays, and the enumerator values of an
+ * enumerated datatype into a single long array.
+ *
+ * - References to datatypes and transportations are resolved to the view
+ * objects; a reference that does not resolve, or refers to NA, is null.
+ *
+ * - Lookups by name use binary search over sorted arrays, class lookups by FQ
+ * name walk the class tree without allocating; no hash maps are kept.
+ *
+ * The definitions are those that the module set returns: the first definition
+ * of a name, and the first non-scaffolding definition of a class. The view is
+ * safely published and can be shared between threads.
+ *
+ * @author bergtwvd
+ */
+public final class FomView {
+
+	private static final String NA = "NA";
+	private static final Datatype[] NO_DATATYPES = {};
+	private static final String[] NO_NAMES = {};
+	private static final ClassNode[] NO_CLASSES = {};
+	private static final Member[] NO_MEMBERS = {};
+
+	/**
+	 * Datatype of the view.
+	 */
+	public abstract static class Datatype {
+
+		private final String name;
+
+		private Datatype(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public abstract FomDatatypeGraph.Category getCategory();
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	public static final class Basic extends Datatype {
+
+		private final int size;
+		private final EndianEnumerations endian;
+
+		private Basic(String name, int size, EndianEnumerations endian) {
+			super(name);
+			this.size = size;
+			this.endian = endian;
+		}
+
+		@Override
+		public FomDatatypeGraph.Category getCategory() {
+			return FomDatatypeGraph.Category.BASIC;
+		}
+
+		/**
+		 * Returns the size in bits.
+		 *
+		 * @return size, or 0 if not specified
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		public EndianEnumerations getEndian() {
+			return endian;
+		}
+	}
+
+	public static final class Simple extends Datatype {
+
+		private Basic representation;
+
+		private Simple(String name) {
+			super(name);
+		}
+
+		@Override
+		public FomDatatypeGraph.Category getCategory() {
+			return FomDatatypeGraph.Category.SIMPLE;
+		}
+
+		public Basic getRepresentation() {
+			return representation;
+		}
+	}
+
+	public static final class Enumerated extends Datatype {
+
+		private Basic representation;
+		private String[] enumerators = NO_NAMES;
+		// values of enumerator i are values[first[i]] up to values[first[i + 1]]
+		private long[] values;
+		private int[] first;
+
+		private Enumerated(String name) {
+			super(name);
+		}
+
+		@Override
+		public FomDatatypeGraph.Category getCategory() {
+			return FomDatatypeGraph.Category.ENUMERATED;
+		}
+
+		public Basic getRepresentation() {
+			return representation;
+		}
+
+		public int getEnumeratorCount() {
+			return enumerators.length;
+		}
+
+		public String getEnumerator(int index) {
+			return enumerators[index];
+		}
+
+		/**
+		 * Returns the position of an enumerator.
+		 *
+		 * @param enumerator enumerator name
+		 * @return index, or -1 if the datatype has no such enumerator
+		 */
+		public int indexOf(String enumerator) {
+			for (int i = 0; i < enumerators.length; i++) {
+				if (enumerators[i].equals(enumerator)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Returns the values of an enumerator. Values that are not integers are
+		 * left out.
+		 *
+		 * @param index enumerator index
+		 * @return values
+		 */
+		public long[] getValues(int index) {
+			return Arrays.copyOfRange(values, first[index], first[index + 1]);
+		}
+	}
+
+	public static final class Array extends Datatype {
+
+		private Datatype elementType;
+		private Cardinality cardinality;
+		private String encoding;
+
+		private Array(String name) {
+			super(name);
+		}
+
+		@Override
+		public FomDatatypeGraph.Category getCategory() {
+			return FomDatatypeGraph.Category.ARRAY;
+		}
+
+		public Datatype getElementType() {
+			return elementType;
+		}
+
+		/**
+		 * Returns the cardinality.
+		 *
+		 * @return cardinality, or null if the cardinality is not valid
+		 */
+		public Cardinality getCardinality() {
+			return cardinality;
+		}
+
+		public String getEncoding() {
+			return encoding;
+		}
+	}
+
+	public static final class FixedRecord extends Datatype {
+
+		private String[] fieldNames = NO_NAMES;
+		private Datatype[] fieldTypes = NO_DATATYPES;
+		private String encoding;
+
+		private FixedRecord(String name) {
+			super(name);
+		}
+
+		@Override
+		public FomDatatypeGraph.Category getCategory() {
+			return FomDatatypeGraph.Category.FIXED_RECORD;
+		}
+
+		public int getFieldCount() {
+			return fieldNames.length;
+		}
+
+		public String getFieldName(int index) {
+			return fieldNames[index];
+		}
+
+		public Datatype getFieldType(int index) {
+			return fieldTypes[index];
+		}
+
+		public String getEncoding() {
+			return encoding;
+		}
+	}
+
+	public static final class VariantRecord extends Datatype {
+
+		private String discriminant;
+		private Datatype discriminantType;
+		private String[] alternativeNames = NO_NAMES;
+		private String[] alternativeEnumerators = NO_NAMES;
+		private Datatype[] alternativeTypes = NO_DATATYPES;
+		private String encoding;
+
+		private VariantRecord(String name) {
+			super(name);
+		}
+
+		@Override
+		public FomDatatypeGraph.Category getCategory() {
+			return FomDatatypeGraph.Category.VARIANT_RECORD;
+		}
+
+		public String getDiscriminant() {
+			return discriminant;
+		}
+
+		public Datatype getDiscriminantType() {
+			return discriminantType;
+		}
+
+		public int getAlternativeCount() {
+			return alternativeNames.length;
+		}
+
+		public String getAlternativeName(int index) {
+			return alternativeNames[index];
+		}
+
+		/**
+		 * Returns the enumerators of an alternative, as specified in the module:
+		 * a comma separated list of enumerators and enumerator ranges.
+		 *
+		 * @param index alternative index
+		 * @return enumerators
+		 */
+		public String getAlternativeEnumerators(int index) {
+			return alternativeEnumerators[index];
+		}
+
+		/**
+		 * Returns the datatype of an alternative.
+		 *
+		 * @param index alternative index
+		 * @return datatype, or null if the alternative carries no data
+		 */
+		public Datatype getAlternativeType(int index) {
+			return alternativeTypes[index];
+		}
+
+		public String getEncoding() {
+			return encoding;
+		}
+	}
+
+	public static final class Transportation {
+
+		private final String name;
+		private final ReliableEnumerations reliable;
+
+		private Transportation(String name, ReliableEnumerations reliable) {
+			this.name = name;
+			this.reliable = reliable;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public ReliableEnumerations getReliable() {
+			return reliable;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * Attribute of an object class or parameter of an interaction class. The
+	 * transportation and order of a parameter are those of its interaction
+	 * class, and are null.
+	 */
+	public static final class Member {
+
+		private final String name;
+		private final Datatype datatype;
+		private final Transportation transportation;
+		private final OrderEnumerations order;
+
+		private Member(String name, Datatype datatype, Transportation transportation, OrderEnumerations order) {
+			this.name = name;
+			this.datatype = datatype;
+			this.transportation = transportation;
+			this.order = order;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Datatype getDatatype() {
+			return datatype;
+		}
+
+		public Transportation getTransportation() {
+			return transportation;
+		}
+
+		public OrderEnumerations getOrder() {
+			return order;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * Object class or interaction class, with its own members. The transportation
+	 * and order are those of an interaction class, and are null for an object
+	 * class.
+	 */
+	public static final class ClassNode {
+
+		private final String name;
+		private final ClassNode parent;
+		private ClassNode[] subclasses = NO_CLASSES;
+		private Member[] members = NO_MEMBERS;
+		private Transportation transportation;
+		private OrderEnumerations order;
+
+		private ClassNode(String name, ClassNode parent) {
+			this.name = name;
+			this.parent = parent;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the FQ OMT name. The name is not stored, but built on each call.
+		 *
+		 * @return FQ name
+		 */
+		public String getFqName() {
+			return parent == null ? name : parent.getFqName() + "." + name;
+		}
+
+		/**
+		 * Returns the superclass.
+		 *
+		 * @return superclass, or null for a root class
+		 */
+		public ClassNode getParent() {
+			return parent;
+		}
+
+		public int getSubclassCount() {
+			return subclasses.length;
+		}
+
+		public ClassNode getSubclass(int index) {
+			return subclasses[index];
+		}
+
+		/**
+		 * Returns the number of members declared by the class itself.
+		 *
+		 * @return number of own members
+		 */
+		public int getMemberCount() {
+			return members.length;
+		}
+
+		public Member getMember(int index) {
+			return members[index];
+		}
+
+		/**
+		 * Looks up a member by name, in the class and its superclasses.
+		 *
+		 * @param memberName member name
+		 * @return the member or null
+		 */
+		public Member getMember(String memberName) {
+			for (ClassNode c = this; c != null; c = c.parent) {
+				for (Member member : c.members) {
+					if (member.name.equals(memberName)) {
+						return member;
+					}
+				}
+			}
+			return null;
+		}
+
+		public Transportation getTransportation() {
+			return transportation;
+		}
+
+		public OrderEnumerations getOrder() {
+			return order;
+		}
+
+		@Override
+		public String toString() {
+			return getFqName();
+		}
+	}
+
+	// sorted by name, for binary search
+	private final String[] datatypeNames;
+	private final Datatype[] datatypes;
+	private final String[] transportationNames;
+	private final Transportation[] transportations;
+
+	private final ClassNode[] objectRoots;
+	private final ClassNode[] interactionRoots;
+	private final int objectClassCount;
+	private final int interactionClassCount;
+
+	private FomView(FomModuleSet set) {
+		FomDatatypeGraph graph = set.getDatatypeGraph();
+
+		// create all datatypes first, the references between them can be cyclic
+		List<String> names = new ArrayList<>(graph.getDatatypeNames());
+		names.sort(null);
+		datatypeNames = new String[names.size()];
+		datatypes = new Datatype[names.size()];
+		for (int i = 0; i < datatypes.length; i++) {
+			String name = names.get(i).intern();
+			datatypeNames[i] = name;
+			datatypes[i] = switch (graph.getCategory(name)) {
+				case BASIC -> {
+					BasicData data = set.getBasicDataByName(name);
+					int size = data.getSize() == null || data.getSize().getValue() == null ? 0 : data.getSize().getValue().intValue();
+					yield new Basic(name, size, data.getEndian() == null ? null : data.getEndian().getValue());
+				}
+				case SIMPLE -> new Simple(name);
+				case ENUMERATED -> new Enumerated(name);
+				case ARRAY -> new Array(name);
+				case FIXED_RECORD -> new FixedRecord(name);
+				case VARIANT_RECORD -> new VariantRecord(name);
+			};
+		}
+		for (Datatype datatype : datatypes) {
+			resolve(set, datatype);
+		}
+
+		List<Transportation> transports = new ArrayList<>();
+		for (ObjectModelType module : set.getModuleList()) {
+			if (module.getTransportations() != null) {
+				for (TransportationsType.Transportation t : module.getTransportations().getTransportation()) {
+					String name = text(t.getName());
+					// first module wins
+					if (name != null && set.getTransportationByName(name) == t) {
+						transports.add(new Transportation(name, t.getReliable() == null ? null : t.getReliable().getValue()));
+					}
+				}
+			}
+		}
+		transports.sort((a, b) -> a.name.compareTo(b.name));
+		transportations = transports.toArray(new Transportation[0]);
+		transportationNames = new String[transportations.length];
+		for (int i = 0; i < transportations.length; i++) {
+			transportationNames[i] = transportations[i].name;
+		}
+
+		FomClassIndex index = set.getClassIndex();
+		objectClassCount = index.getObjectClassNames().size();
+		objectRoots = buildClasses(index.getObjectClassNames(),
+			fqName -> index.getObjectClass(fqName, !index.isScaffoldingObjectClass(fqName)),
+			(oc, node) -> node.members = members(oc.getAttribute(), a -> new Member(text(a.getName()),
+				datatype(a.getDataType()), transportation(a.getTransportation()), order(a.getOrder()))));
+		interactionClassCount = index.getInteractionClassNames().size();
+		interactionRoots = buildClasses(index.getInteractionClassNames(),
+			fqName -> index.getInteractionClass(fqName, !index.isScaffoldingInteractionClass(fqName)),
+			(ic, node) -> {
+				node.members = members(ic.getParameter(), p -> new Member(text(p.getName()), datatype(p.getDataType()), null, null));
+				node.transportation = transportation(ic.getTransportation());
+				node.order = order(ic.getOrder());
+			});
+	}
+
+	/**
+	 * Creates the view of a module set.
+	 *
+	 * @param set the module set
+	 * @return view
+	 */
+	public static FomView of(FomModuleSet set) {
+		return new FomView(set);
+	}
+
+	/**
+	 * Creates the view of modules. The order of the modules determines which
+	 * definition is used when a name is defined in more than one module.
+	 *
+	 * @param modules the modules, in order of precedence
+	 * @return view
+	 */
+	public static FomView of(ObjectModelType... modules) {
+		return new FomView(FomModuleSet.of(modules));
+	}
+
+	private static String intern(String s) {
+		return s == null ? null : s.intern();
+	}
+
+	private static String text(IdentifierType id) {
+		return id == null ? null : intern(id.getValue());
+	}
+
+	private static String text(NonEmptyString s) {
+		return s == null ? null : intern(s.getValue());
+	}
+
+	private static String reference(ReferenceType reference) {
+		return reference == null || reference.getValue() == null || reference.getValue().isEmpty() ? null : reference.getValue();
+	}
+
+	private static OrderEnumerations order(OrderType order) {
+		return order == null ? null : order.getValue();
+	}
+
+	private void resolve(FomModuleSet set, Datatype datatype) {
+		String name = datatype.name;
+		if (datatype instanceof Simple simple) {
+			simple.representation = basic(set.getSimpleDataByName(name).getRepresentation());
+		} else if (datatype instanceof Enumerated enumerated) {
+			EnumeratedData data = set.getEnumeratedDataByName(name);
+			enumerated.representation = basic(data.getRepresentation());
+			int n = data.getEnumerator().size();
+			String[] enumerators = new String[n];
+			int[] first = new int[n + 1];
+			long[] values = new long[n];
+			int count = 0;
+			for (int i = 0; i < n; i++) {
+				EnumeratedData.Enumerator enumerator = data.getEnumerator().get(i);
+				enumerators[i] = text(enumerator.getName());
+				first[i] = count;
+				for (HLAString value : enumerator.getValue()) {
+					try {
+						long v = Long.parseLong(value.getValue() == null ? "" : value.getValue().trim());
+						if (count == values.length) {
+							values = Arrays.copyOf(values, count * 2 + 1);
+						}
+						values[count++] = v;
+					} catch (NumberFormatException ex) {
+						// not an integer, reported by FomChecker
+					}
+				}
+			}
+			first[n] = count;
+			enumerated.enumerators = n == 0 ? NO_NAMES : enumerators;
+			enumerated.values = values.length == count ? values : Arrays.copyOf(values, count);
+			enumerated.first = first;
+		} else if (datatype instanceof Array array) {
+			ArrayData data = set.getArrayDataByName(name);
+			array.elementType = datatype(data.getDataType());
+			try {
+				array.cardinality = Cardinality.of(data);
+			} catch (IllegalArgumentException ex) {
+				// reported by FomChecker
+			}
+			array.encoding = data.getEncoding() == null ? null : intern(data.getEncoding().getValue());
+		} else if (datatype instanceof FixedRecord record) {
+			FixedRecordData data = set.getFixedRecordDataByName(name);
+			int n = data.getField().size();
+			if (n > 0) {
+				record.fieldNames = new String[n];
+				record.fieldTypes = new Datatype[n];
+				for (int i = 0; i < n; i++) {
+					record.fieldNames[i] = text(data.getField().get(i).getName());
+					record.fieldTypes[i] = datatype(data.getField().get(i).getDataType());
+				}
+			}
+			record.encoding = data.getEncoding() == null ? null : intern(data.getEncoding().getValue());
+		} else if (datatype instanceof VariantRecord record) {
+			VariantRecordData data = set.getVariantRecordDataByName(name);
+			record.discriminant = text(data.getDiscriminant());
+			record.discriminantType = datatype(data.getDataType());
+			int n = data.getAlternative().size();
+			if (n > 0) {
+				record.alternativeNames = new String[n];
+				record.alternativeEnumerators = new String[n];
+				record.alternativeTypes = new Datatype[n];
+				for (int i = 0; i < n; i++) {
+					VariantRecordData.Alternative alternative = data.getAlternative().get(i);
+					record.alternativeNames[i] = text(alternative.getName());
+					record.alternativeEnumerators[i] = text(alternative.getEnumerator());
+					record.alternativeTypes[i] = datatype(alternative.getDataType());
+				}
+			}
+			record.encoding = data.getEncoding() == null ? null : intern(data.getEncoding().getValue());
+		}
+	}
+
+	private Datatype datatype(ReferenceType reference) {
+		String name = reference(reference);
+		return name == null || name.equals(NA) ? null : getDatatype(name);
+	}
+
+	private Basic basic(ReferenceType reference) {
+		return datatype(reference) instanceof Basic basic ? basic : null;
+	}
+
+	private Transportation transportation(ReferenceType reference) {
+		String name = reference(reference);
+		return name == null ? null : getTransportation(name);
+	}
+
+	private static <T> Member[] members(List<T> list, Function<T, Member> member) {
+		if (list.isEmpty()) {
+			return NO_MEMBERS;
+		}
+		Member[] members = new Member[list.size()];
+		for (int i = 0; i < members.length; i++) {
+			members[i] = member.apply(list.get(i));
+		}
+		return members;
+	}
+
+	// class node under construction, with its subclasses
+	private record Builder(ClassNode node, List<ClassNode> subclasses) {
+	}
+
+	// builds the class trees from the FQ names in depth-first order
+	private static <C> ClassNode[] buildClasses(Iterable<String> fqNames, Function<String, C> definition, BiConsumer<C, ClassNode> members) {
+		Map<String, Builder> builders = new HashMap<>();
+		List<ClassNode> roots = new ArrayList<>();
+		for (String fqName : fqNames) {
+			int dot = fqName.lastIndexOf('.');
+			Builder parent = dot == -1 ? null : builders.get(fqName.substring(0, dot));
+			ClassNode node = new ClassNode(fqName.substring(dot + 1).intern(), parent == null ? null : parent.node());
+			(parent == null ? roots : parent.subclasses()).add(node);
+			builders.put(fqName, new Builder(node, new ArrayList<>()));
+
+			C c = definition.apply(fqName);
+			if (c != null) {
+				members.accept(c, node);
+			}
+		}
+		for (Builder builder : builders.values()) {
+			if (!builder.subclasses().isEmpty()) {
+				builder.node().subclasses = builder.subclasses().toArray(NO_CLASSES);
+			}
+		}
+		return roots.toArray(NO_CLASSES);
+	}
+
+	// looks up a class by FQ name, one name segment at a time; trailing dots are ignored, as by OmtFunctions
+	private static ClassNode findClass(ClassNode[] roots, String fqName) {
+		int length = OmtFunctions.nameLength(fqName);
+		ClassNode[] candidates = roots;
+		ClassNode found = null;
+		int from = 0;
+		while (from <= length) {
+			int to = fqName.indexOf('.', from);
+			if (to == -1 || to > length) {
+				to = length;
+			}
+			found = null;
+			for (ClassNode c : candidates) {
+				if (c.name.length() == to - from && fqName.regionMatches(from, c.name, 0, to - from)) {
+					found = c;
+					break;
+				}
+			}
+			if (found == null) {
+				return null;
+			}
+			candidates = found.subclasses;
+			from = to + 1;
+		}
+		return found;
+	}
+
+	public int getDatatypeCount() {
+		return datatypes.length;
+	}
+
+	/**
+	 * Returns a datatype by position, in order of name.
+	 *
+	 * @param index datatype index
+	 * @return datatype
+	 */
+	public Datatype getDatatype(int index) {
+		return datatypes[index];
+	}
+
+	/**
+	 * Looks up a datatype by name.
+	 *
+	 * @param name datatype name
+	 * @return the datatype or null
+	 */
+	public Datatype getDatatype(String name) {
+		int i = Arrays.binarySearch(datatypeNames, name);
+		return i < 0 ? null : datatypes[i];
+	}
+
+	public int getTransportationCount() {
+		return transportations.length;
+	}
+
+	public Transportation getTransportation(int index) {
+		return transportations[index];
+	}
+
+	/**
+	 * Looks up a transportation by name.
+	 *
+	 * @param name transportation name
+	 * @return the transportation or null
+	 */
+	public Transportation getTransportation(String name) {
+		int i = Arrays.binarySearch(transportationNames, name);
+		return i < 0 ? null : transportations[i];
+	}
+
+	/**
+	 * Returns the root object classes, normally only HLAobjectRoot.
+	 *
+	 * @return root classes
+	 */
+	public List<ClassNode> getObjectClassRoots() {
+		return List.of(objectRoots);
+	}
+
+	/**
+	 * Returns the root interaction classes, normally only HLAinteractionRoot.
+	 *
+	 * @return root classes
+	 */
+	public List<ClassNode> getInteractionClassRoots() {
+		return List.of(interactionRoots);
+	}
+
+	public int getObjectClassCount() {
+		return objectClassCount;
+	}
+
+	public int getInteractionClassCount() {
+		return interactionClassCount;
+	}
+
+	/**
+	 * Looks up an object class by FQ name.
+	 *
+	 * @param fqName FQ OMT object class name
+	 * @return the class or null
+	 */
+	public ClassNode getObjectClass(String fqName) {
+		return findClass(objectRoots, fqName);
+	}
+
+	/**
+	 * Looks up an interaction class by FQ name.
+	 *
+	 * @param fqName FQ OMT interaction class name
+	 * @return the class or null
+	 */
+	public ClassNode getInteractionClass(String fqName) {
+		return findClass(interactionRoots, fqName);
+	}
+}
@@ -0,0 +1,381 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.Parameter;
+import nl.tno.omt.ReferenceType;
+import nl.tno.omt.helpers.HlaCodec.ArrayCodec;
+import nl.tno.omt.helpers.HlaCodec.FixedRecord;
+import nl.tno.omt.helpers.HlaCodec.VariantRecord;
+
+/**
+ * Static encoded sizes of the datatypes, object classes and interaction
+ * classes of a module set.
+ *
+ * For every datatype the octet boundary and the minimum and maximum encoded
+ * size are computed from the compiled codecs of the module set and the
+ * cardinality of the variable arrays. Sizes include the padding of nested
+ * values, for a value that starts at its octet boundary. The maximum size of
+ * a datatype that contains a variable array with a Dynamic cardinality is
+ * UNBOUNDED. The maximum size of a variant record covers the alternatives
+ * of the datatype; an extendable variant record received from a later
+ * version of the datatype can be larger.
+ *
+ * The size of an object class is the total size of an update of all its
+ * attributes, including the inherited attributes; the size of an interaction
+ * class is the total size of all its parameters. Members without a datatype
+ * have size 0. Members whose datatype cannot be compiled are reported and
+ * not counted.
+ *
+ * @author bergtwvd
+ */
+public final class FomWireSizes {
+
+	/**
+	 * Maximum size of a datatype or class without an upper bound.
+	 */
+	public static final long UNBOUNDED = -1;
+
+	private static final String NA = "NA";
+
+	/**
+	 * Encoded size of a datatype. The sizes of a datatype that cannot be
+	 * compiled are 0, and its problem describes why.
+	 *
+	 * @param name datatype name
+	 * @param category datatype category
+	 * @param octetBoundary octet boundary
+	 * @param minSize minimum size in octets
+	 * @param maxSize maximum size in octets, or UNBOUNDED
+	 * @param problem reason the datatype cannot be compiled, or null
+	 */
+	public record DatatypeSize(String name, FomDatatypeGraph.Category category, int octetBoundary, long minSize, long maxSize, String problem) {
+
+		public boolean isSupported() {
+			return problem == null;
+		}
+
+		public boolean isBounded() {
+			return maxSize != UNBOUNDED;
+		}
+
+		public boolean isFixedSize() {
+			return isSupported() && minSize == maxSize;
+		}
+	}
+
+	/**
+	 * Encoded size of the attributes of an object class or the parameters of
+	 * an interaction class.
+	 *
+	 * @param fqName FQ OMT class name
+	 * @param memberCount number of members, including the inherited members
+	 * @param minSize total minimum size of all members
+	 * @param maxSize total maximum size of all members, or UNBOUNDED
+	 * @param maxMemberSize largest maximum size of a single member, or
+	 * UNBOUNDED
+	 * @param unboundedMembers names of the members without a maximum size
+	 * @param unsupportedMembers names of the members whose datatype cannot be
+	 * compiled
+	 */
+	public record ClassSize(String fqName, int memberCount, long minSize, long maxSize, long maxMemberSize,
+		List<String> unboundedMembers, List<String> unsupportedMembers) {
+
+		public boolean isBounded() {
+			return maxSize != UNBOUNDED;
+		}
+	}
+
+	private final Map<String, DatatypeSize> datatypes = new LinkedHashMap<>();
+	private final Map<String, ClassSize> objectClasses = new LinkedHashMap<>();
+	private final Map<String, ClassSize> interactionClasses = new LinkedHashMap<>();
+
+	private FomWireSizes(FomModuleSet modules) {
+		FomDatatypeGraph graph = modules.getDatatypeGraph();
+		FomCodecs codecs = modules.getCodecs();
+		Map<String, long[]> sizes = new HashMap<>();
+		for (String name : graph.getDatatypeNames()) {
+			DatatypeSize size;
+			try {
+				HlaCodec codec = codecs.getCodec(name);
+				long[] minMax = size(modules, codec, sizes);
+				size = new DatatypeSize(name, graph.getCategory(name), codec.getOctetBoundary(), minMax[0], minMax[1], null);
+			} catch (IOException ex) {
+				size = new DatatypeSize(name, graph.getCategory(name), 1, 0, 0, ex.getMessage());
+			}
+			datatypes.put(name, size);
+		}
+
+		FomClassIndex index = modules.getClassIndex();
+		for (String fqName : index.getObjectClassNames()) {
+			InheritedMembers<Attribute> attributes = modules.getObjectClassAttributes(fqName);
+			if (attributes != null) {
+				List<ReferenceType> types = new ArrayList<>();
+				List<String> names = new ArrayList<>();
+				for (Attribute attribute : attributes.getAll()) {
+					names.add(attribute.getName().getValue());
+					types.add(attribute.getDataType());
+				}
+				objectClasses.put(fqName, classSize(fqName, names, types));
+			}
+		}
+		for (String fqName : index.getInteractionClassNames()) {
+			InheritedMembers<Parameter> parameters = modules.getInteractionClassParameters(fqName);
+			if (parameters != null) {
+				List<ReferenceType> types = new ArrayList<>();
+				List<String> names = new ArrayList<>();
+				for (Parameter parameter : parameters.getAll()) {
+					names.add(parameter.getName().getValue());
+					types.add(parameter.getDataType());
+				}
+				interactionClasses.put(fqName, classSize(fqName, names, types));
+			}
+		}
+	}
+
+	static FomWireSizes of(FomModuleSet modules) {
+		return new FomWireSizes(modules);
+	}
+
+	private static long add(long a, long b) {
+		if (a == UNBOUNDED || b == UNBOUNDED) {
+			return UNBOUNDED;
+		}
+		try {
+			return Math.addExact(a, b);
+		} catch (ArithmeticException ex) {
+			return UNBOUNDED;
+		}
+	}
+
+	private static long multiply(long a, long b) {
+		if (a == 0 || b == 0) {
+			return 0;
+		}
+		if (a == UNBOUNDED || b == UNBOUNDED) {
+			return UNBOUNDED;
+		}
+		try {
+			return Math.multiplyExact(a, b);
+		} catch (ArithmeticException ex) {
+			return UNBOUNDED;
+		}
+	}
+
+	private static long align(long offset, int boundary) {
+		return offset == UNBOUNDED ? UNBOUNDED : (offset + boundary - 1) & -boundary;
+	}
+
+	// size of n consecutive elements, each starting at the element boundary
+	private static long elements(long n, long size, int boundary) {
+		if (n == UNBOUNDED) {
+			return UNBOUNDED;
+		}
+		return n == 0 ? 0 : add(multiply(n - 1, align(size, boundary)), size);
+	}
+
+	// minimum and maximum size of a codec, memoized by datatype name
+	private static long[] size(FomModuleSet modules, HlaCodec codec, Map<String, long[]> sizes) throws IOException {
+		long[] size = sizes.get(codec.getName());
+		if (size != null) {
+			return size;
+		}
+		if (codec.isFixedSize()) {
+			size = new long[]{codec.getFixedSize(), codec.getFixedSize()};
+		} else if (codec instanceof ArrayCodec array) {
+			HlaCodec element = array.getElement();
+			long[] e = size(modules, element, sizes);
+			if (array.isVariable()) {
+				Cardinality cardinality = FomCodecs.cardinality(modules.getArrayDataByName(array.getName()));
+				long[] n = new long[]{cardinality.getMinElements(), cardinality.getMaxElements()};
+				// the element count, followed by the elements from their octet boundary
+				long first = align(4, element.getOctetBoundary());
+				size = new long[]{
+					n[0] == 0 ? 4 : add(first, elements(n[0], e[0], element.getOctetBoundary())),
+					n[1] == 0 ? 4 : add(first, elements(n[1], e[1], element.getOctetBoundary()))
+				};
+			} else {
+				size = new long[]{
+					elements(array.getCardinality(), e[0], element.getOctetBoundary()),
+					elements(array.getCardinality(), e[1], element.getOctetBoundary())
+				};
+			}
+		} else if (codec instanceof FixedRecord record) {
+			size = new long[]{0, 0};
+			for (int i = 0; i < record.getFieldCount(); i++) {
+				HlaCodec field = record.getField(i);
+				long[] f = size(modules, field, sizes);
+				size[0] = add(align(size[0], field.getOctetBoundary()), f[0]);
+				size[1] = add(align(size[1], field.getOctetBoundary()), f[1]);
+			}
+		} else if (codec instanceof VariantRecord variant) {
+			long start = variant.getDiscriminant().getFixedSize();
+			if (variant.isExtendable()) {
+				// the discriminant, followed by the length of the alternative at a 4 octet boundary
+				start = align(start, 4) + 4;
+			}
+			size = new long[]{Long.MAX_VALUE, 0};
+			for (int i = 0; i < variant.getAlternativeNames().size(); i++) {
+				HlaCodec alternative = variant.getAlternative(i);
+				long[] a = alternative == null ? new long[]{0, 0} : size(modules, alternative, sizes);
+				long offset = alternative == null ? start : align(start, alternative.getOctetBoundary());
+				long min = add(offset, a[0]);
+				long max = add(offset, a[1]);
+				size[0] = Math.min(size[0], min);
+				size[1] = size[1] == UNBOUNDED || max == UNBOUNDED ? UNBOUNDED : Math.max(size[1], max);
+			}
+			if (size[0] == Long.MAX_VALUE) {
+				size[0] = start;
+			}
+		} else {
+			throw new IOException("Datatype " + codec.getName() + " has no static size");
+		}
+		sizes.put(codec.getName(), size);
+		return size;
+	}
+
+	private ClassSize classSize(String fqName, List<String> names, List<ReferenceType> types) {
+		long min = 0;
+		long max = 0;
+		long maxMember = 0;
+		List<String> unbounded = new ArrayList<>();
+		List<String> unsupported = new ArrayList<>();
+		for (int i = 0; i < names.size(); i++) {
+			String type = types.get(i) == null ? null : types.get(i).getValue();
+			if (type == null || type.isEmpty() || type.equals(NA)) {
+				continue;
+			}
+			DatatypeSize size = datatypes.get(type);
+			if (size == null || !size.isSupported()) {
+				unsupported.add(names.get(i));
+				continue;
+			}
+			if (!size.isBounded()) {
+				unbounded.add(names.get(i));
+			}
+			min = add(min, size.minSize());
+			max = add(max, size.maxSize());
+			maxMember = maxMember == UNBOUNDED || !size.isBounded() ? UNBOUNDED : Math.max(maxMember, size.maxSize());
+		}
+		return new ClassSize(fqName, names.size(), min, max, maxMember, List.copyOf(unbounded), List.copyOf(unsupported));
+	}
+
+	/**
+	 * Returns the size of a datatype.
+	 *
+	 * @param datatypeName OMT datatype name
+	 * @return size, or null if the datatype is not defined
+	 */
+	public DatatypeSize getDatatypeSize(String datatypeName) {
+		return datatypes.get(datatypeName);
+	}
+
+	/**
+	 * Returns the sizes of all datatypes, in dependency order.
+	 *
+	 * @return datatype sizes
+	 */
+	public List<DatatypeSize> getDatatypeSizes() {
+		return List.copyOf(datatypes.values());
+	}
+
+	/**
+	 * Returns the datatypes that can be compiled but have no maximum size.
+	 *
+	 * @return datatype sizes
+	 */
+	public List<DatatypeSize> getUnboundedDatatypes() {
+		List<DatatypeSize> list = new ArrayList<>();
+		for (DatatypeSize size : datatypes.values()) {
+			if (size.isSupported() && !size.isBounded()) {
+				list.add(size);
+			}
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Returns the size of an update of all attributes of an object class.
+	 *
+	 * @param fqName FQ OMT object class name
+	 * @return size, or null if the class has no attribute closure in the module
+	 * set
+	 */
+	public ClassSize getObjectClassSize(String fqName) {
+		return objectClasses.get(fqName);
+	}
+
+	public List<ClassSize> getObjectClassSizes() {
+		return List.copyOf(objectClasses.values());
+	}
+
+	/**
+	 * Returns the size of all parameters of an interaction class.
+	 *
+	 * @param fqName FQ OMT interaction class name
+	 * @return size, or null if the class has no parameter closure in the
+	 * module set
+	 */
+	public ClassSize getInteractionClassSize(String fqName) {
+		return interactionClasses.get(fqName);
+	}
+
+	public List<ClassSize> getInteractionClassSizes() {
+		return List.copyOf(interactionClasses.values());
+	}
+
+	private static String format(long size) {
+		return size == UNBOUNDED ? OmtMimConstants.DYNAMIC : Long.toString(size);
+	}
+
+	private static String quote(String s) {
+		return s.contains(",") || s.contains("\"") ? "\"" + s.replace("\"", "\"\"") + "\"" : s;
+	}
+
+	/**
+	 * Writes the sizes as CSV, one line per datatype, object class and
+	 * interaction class. Unbounded maximum sizes are written as Dynamic.
+	 *
+	 * @param output output
+	 * @return output
+	 * @throws IOException on error
+	 */
+	public Appendable writeReport(Appendable output) throws IOException {
+		output.append("kind,name,octetBoundary,minSize,maxSize,maxMemberSize,note\n");
+		for (DatatypeSize size : datatypes.values()) {
+			output.append(size.category().name()).append(',')
+				.append(quote(size.name())).append(',')
+				.append(size.isSupported() ? Integer.toString(size.octetBoundary()) : "").append(',')
+				.append(size.isSupported() ? format(size.minSize()) : "").append(',')
+				.append(size.isSupported() ? format(size.maxSize()) : "").append(",,")
+				.append(size.isSupported() ? "" : quote(size.problem())).append('\n');
+		}
+		writeReport(output, "OBJECT_CLASS", objectClasses);
+		writeReport(output, "INTERACTION_CLASS", interactionClasses);
+		return output;
+	}
+
+	private static void writeReport(Appendable output, String kind, Map<String, ClassSize> sizes) throws IOException {
+		for (ClassSize size : sizes.values()) {
+			List<String> note = new ArrayList<>();
+			if (!size.unboundedMembers().isEmpty()) {
+				note.add("unbounded: " + String.join(" ", size.unboundedMembers()));
+			}
+			if (!size.unsupportedMembers().isEmpty()) {
+				note.add("unsupported: " + String.join(" ", size.unsupportedMembers()));
+			}
+			output.append(kind).append(',')
+				.append(quote(size.fqName())).append(",,")
+				.append(format(size.minSize())).append(',')
+				.append(format(size.maxSize())).append(',')
+				.append(format(size.maxMemberSize())).append(',')
+				.append(quote(String.join("; ", note))).append('\n');
+		}
+	}
+}
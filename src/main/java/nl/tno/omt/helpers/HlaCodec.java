@@ -0,0 +1,1003 @@
+package nl.tno.omt.helpers;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled encoding and decoding plan of an OMT datatype, following the HLA
+ * encoding rules of IEEE 1516.2-2010.
+ *
+ * A codec reads and writes at absolute offsets in a ByteBuffer; the position,
+ * limit and byte order of the buffer are not used or modified. Padding is
+ * computed relative to index 0 of the buffer, which must be the start of the
+ * encoded attribute or parameter value. Padding octets are written as zero.
+ *
+ * The generic decode and encode methods convert between the encoding and Java
+ * objects:
+ * <ul>
+ * <li>basic, simple and enumerated datatypes: Byte, Short, Integer, Long,
+ * Float or Double, by size; unsigned integers use the next larger type</li>
+ * <li>arrays of HLAASCIIchar and HLAunicodeChar: String</li>
+ * <li>other arrays of 8-bit elements: byte[]</li>
+ * <li>other arrays: List</li>
+ * <li>fixed records: Map from field name to value, in field order</li>
+ * <li>variant records: Map from the discriminant name to the discriminant
+ * value, and from the alternative name to its value if the alternative has
+ * data</li>
+ * </ul>
+ * Encoding also accepts arrays for lists, lists and arrays for records in
+ * field order, and enumerator names for enumerated values.
+ *
+ * The hot path does not allocate: the scalar accessors getLong, getDouble,
+ * putLong and putDouble read and write primitives, and the offset methods of
+ * the array and record codecs locate elements, fields and alternatives
+ * without decoding. Offsets of fixed-size elements and fields are computed
+ * at compile time.
+ *
+ * Codecs are immutable and can be shared between threads. They are compiled
+ * with FomCodecs.
+ *
+ * @author bergtwvd
+ */
+public abstract class HlaCodec {
+
+	private final String name;
+	private final int octetBoundary;
+	private final int fixedSize;
+
+	HlaCodec(String name, int octetBoundary, int fixedSize) {
+		this.name = name;
+		this.octetBoundary = octetBoundary;
+		this.fixedSize = fixedSize;
+	}
+
+	/**
+	 * Returns the first offset at or after offset that is a multiple of the
+	 * octet boundary.
+	 *
+	 * @param offset offset
+	 * @param boundary octet boundary, a power of two
+	 * @return aligned offset
+	 */
+	public static int align(int offset, int boundary) {
+		return (offset + boundary - 1) & -boundary;
+	}
+
+	private static void pad(ByteBuffer buffer, int from, int to) {
+		for (int i = from; i < to; i++) {
+			buffer.put(i, (byte) 0);
+		}
+	}
+
+	/**
+	 * Returns the OMT datatype name.
+	 *
+	 * @return datatype name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the octet boundary of the datatype. An encoded value starts at a
+	 * multiple of its octet boundary.
+	 *
+	 * @return octet boundary
+	 */
+	public int getOctetBoundary() {
+		return octetBoundary;
+	}
+
+	/**
+	 * Returns the encoded size of a value that starts at its octet boundary, if
+	 * all values of the datatype have the same size.
+	 *
+	 * @return size in octets, or -1 if the size depends on the value
+	 */
+	public int getFixedSize() {
+		return fixedSize;
+	}
+
+	public boolean isFixedSize() {
+		return fixedSize != -1;
+	}
+
+	/**
+	 * Returns the end of the encoded value that starts at offset, without
+	 * decoding it.
+	 *
+	 * @param buffer buffer
+	 * @param offset aligned start of the value
+	 * @return offset after the last octet of the value
+	 */
+	public abstract int skip(ByteBuffer buffer, int offset);
+
+	/**
+	 * Decodes the value that starts at offset.
+	 *
+	 * @param buffer buffer
+	 * @param offset aligned start of the value
+	 * @return the value
+	 * @throws IllegalArgumentException if the encoding is not valid
+	 * @throws IndexOutOfBoundsException if the buffer is too short
+	 */
+	public abstract Object decode(ByteBuffer buffer, int offset);
+
+	/**
+	 * Encodes a value at offset.
+	 *
+	 * @param buffer buffer
+	 * @param offset aligned start of the value
+	 * @param value the value
+	 * @return offset after the last octet of the value
+	 * @throws IllegalArgumentException if the value does not match the datatype
+	 * @throws IndexOutOfBoundsException if the buffer is too short
+	 */
+	public abstract int encode(ByteBuffer buffer, int offset, Object value);
+
+	/**
+	 * Returns the end of the encoding of a value at offset, without encoding
+	 * it.
+	 *
+	 * @param value the value
+	 * @param offset aligned start of the value
+	 * @return offset after the last octet of the value
+	 * @throws IllegalArgumentException if the value does not match the datatype
+	 */
+	public abstract int measure(Object value, int offset);
+
+	/**
+	 * Decodes an attribute or parameter value.
+	 *
+	 * @param data the encoded value
+	 * @return the value
+	 */
+	public Object decode(byte[] data) {
+		return decode(ByteBuffer.wrap(data), 0);
+	}
+
+	/**
+	 * Encodes an attribute or parameter value.
+	 *
+	 * @param value the value
+	 * @return the encoded value
+	 */
+	public byte[] encode(Object value) {
+		byte[] data = new byte[measure(value, 0)];
+		encode(ByteBuffer.wrap(data), 0, value);
+		return data;
+	}
+
+	public long getLong(ByteBuffer buffer, int offset) {
+		throw new UnsupportedOperationException(name + " is not a scalar datatype");
+	}
+
+	public double getDouble(ByteBuffer buffer, int offset) {
+		throw new UnsupportedOperationException(name + " is not a scalar datatype");
+	}
+
+	public void putLong(ByteBuffer buffer, int offset, long value) {
+		throw new UnsupportedOperationException(name + " is not a scalar datatype");
+	}
+
+	public void putDouble(ByteBuffer buffer, int offset, double value) {
+		throw new UnsupportedOperationException(name + " is not a scalar datatype");
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + name + "]";
+	}
+
+	/**
+	 * Codec of a basic or simple datatype: an integer or floating point number
+	 * of 1, 2, 4 or 8 octets.
+	 */
+	public static class Scalar extends HlaCodec {
+
+		private final ByteOrder order;
+		private final boolean floatingPoint;
+		private final boolean unsigned;
+
+		Scalar(String name, int size, ByteOrder order, boolean floatingPoint, boolean unsigned) {
+			super(name, size, size);
+			this.order = order;
+			this.floatingPoint = floatingPoint;
+			this.unsigned = unsigned;
+		}
+
+		Scalar(String name, Scalar representation) {
+			this(name, representation.getFixedSize(), representation.order, representation.floatingPoint, representation.unsigned);
+		}
+
+		public ByteOrder getByteOrder() {
+			return order;
+		}
+
+		public boolean isFloatingPoint() {
+			return floatingPoint;
+		}
+
+		public boolean isUnsigned() {
+			return unsigned;
+		}
+
+		// the raw bits of the value, in the byte order of the datatype
+		private long getBits(ByteBuffer buffer, int offset) {
+			boolean swap = buffer.order() != order;
+			return switch (getFixedSize()) {
+				case 1 ->
+					buffer.get(offset);
+				case 2 ->
+					swap ? Short.reverseBytes(buffer.getShort(offset)) : buffer.getShort(offset);
+				case 4 ->
+					swap ? Integer.reverseBytes(buffer.getInt(offset)) : buffer.getInt(offset);
+				default ->
+					swap ? Long.reverseBytes(buffer.getLong(offset)) : buffer.getLong(offset);
+			};
+		}
+
+		private void putBits(ByteBuffer buffer, int offset, long bits) {
+			boolean swap = buffer.order() != order;
+			switch (getFixedSize()) {
+				case 1 ->
+					buffer.put(offset, (byte) bits);
+				case 2 ->
+					buffer.putShort(offset, swap ? Short.reverseBytes((short) bits) : (short) bits);
+				case 4 ->
+					buffer.putInt(offset, swap ? Integer.reverseBytes((int) bits) : (int) bits);
+				default ->
+					buffer.putLong(offset, swap ? Long.reverseBytes(bits) : bits);
+			}
+		}
+
+		@Override
+		public long getLong(ByteBuffer buffer, int offset) {
+			if (floatingPoint) {
+				return (long) getDouble(buffer, offset);
+			}
+			long bits = getBits(buffer, offset);
+			if (unsigned && getFixedSize() < 8) {
+				bits &= (1L << (8 * getFixedSize())) - 1;
+			}
+			return bits;
+		}
+
+		@Override
+		public double getDouble(ByteBuffer buffer, int offset) {
+			if (!floatingPoint) {
+				return getLong(buffer, offset);
+			}
+			long bits = getBits(buffer, offset);
+			return getFixedSize() == 4 ? Float.intBitsToFloat((int) bits) : Double.longBitsToDouble(bits);
+		}
+
+		@Override
+		public void putLong(ByteBuffer buffer, int offset, long value) {
+			if (floatingPoint) {
+				putDouble(buffer, offset, value);
+			} else {
+				putBits(buffer, offset, value);
+			}
+		}
+
+		@Override
+		public void putDouble(ByteBuffer buffer, int offset, double value) {
+			if (!floatingPoint) {
+				putBits(buffer, offset, (long) value);
+			} else if (getFixedSize() == 4) {
+				putBits(buffer, offset, Float.floatToRawIntBits((float) value));
+			} else {
+				putBits(buffer, offset, Double.doubleToRawLongBits(value));
+			}
+		}
+
+		@Override
+		public int skip(ByteBuffer buffer, int offset) {
+			return offset + getFixedSize();
+		}
+
+		@Override
+		public Object decode(ByteBuffer buffer, int offset) {
+			if (floatingPoint) {
+				return getFixedSize() == 4 ? (Object) (float) getDouble(buffer, offset) : (Object) getDouble(buffer, offset);
+			}
+			long value = getLong(buffer, offset);
+			return switch (getFixedSize() * (unsigned ? 2 : 1)) {
+				case 1 ->
+					(byte) value;
+				case 2 ->
+					(short) value;
+				case 4 ->
+					(int) value;
+				default ->
+					value;
+			};
+		}
+
+		@Override
+		public int encode(ByteBuffer buffer, int offset, Object value) {
+			if (floatingPoint) {
+				putDouble(buffer, offset, toNumber(value).doubleValue());
+			} else {
+				putLong(buffer, offset, toLong(value));
+			}
+			return offset + getFixedSize();
+		}
+
+		long toLong(Object value) {
+			return toNumber(value).longValue();
+		}
+
+		Number toNumber(Object value) {
+			if (value instanceof Number n) {
+				return n;
+			} else if (value instanceof Character c) {
+				return (int) c;
+			}
+			throw new IllegalArgumentException(getName() + ": expected a number, got " + describe(value));
+		}
+
+		@Override
+		public int measure(Object value, int offset) {
+			toNumber(value);
+			return offset + getFixedSize();
+		}
+	}
+
+	/**
+	 * Codec of an enumerated datatype. Values are the enumerator values of the
+	 * representation; enumerator names are accepted when encoding.
+	 */
+	public static final class Enumerated extends Scalar {
+
+		private final Map<String, Long> values;
+		private final Map<Long, String> names;
+
+		Enumerated(String name, Scalar representation, Map<String, Long> values) {
+			super(name, representation);
+			this.values = values;
+			this.names = new HashMap<>();
+			for (Map.Entry<String, Long> e : values.entrySet()) {
+				names.putIfAbsent(e.getValue(), e.getKey());
+			}
+		}
+
+		/**
+		 * Returns the value of an enumerator.
+		 *
+		 * @param enumerator enumerator name
+		 * @return value, or null if the enumerator is not defined
+		 */
+		public Long getValue(String enumerator) {
+			return values.get(enumerator);
+		}
+
+		/**
+		 * Returns the name of the enumerator with the given value.
+		 *
+		 * @param value enumerator value
+		 * @return enumerator name, or null if no enumerator has the value
+		 */
+		public String getEnumerator(long value) {
+			return names.get(value);
+		}
+
+		public Map<String, Long> getEnumerators() {
+			return Collections.unmodifiableMap(values);
+		}
+
+		@Override
+		long toLong(Object value) {
+			if (value instanceof String s) {
+				Long v = values.get(s);
+				if (v == null) {
+					throw new IllegalArgumentException(getName() + ": unknown enumerator " + s);
+				}
+				return v;
+			}
+			return super.toLong(value);
+		}
+
+		@Override
+		Number toNumber(Object value) {
+			return value instanceof String ? toLong(value) : super.toNumber(value);
+		}
+	}
+
+	/**
+	 * Codec of an HLAfixedArray or HLAvariableArray datatype.
+	 */
+	public static final class ArrayCodec extends HlaCodec {
+
+		// the kind of Java value of an array
+		private enum Value {
+			LIST,
+			BYTES,
+			ASCII,
+			UNICODE
+		}
+
+		private final HlaCodec element;
+		private final boolean variable;
+		private final int cardinality;
+		private final Value value;
+		// distance between fixed-size elements, or -1
+		private final int stride;
+
+		ArrayCodec(String name, HlaCodec element, boolean variable, int cardinality, String elementName) {
+			super(name,
+				variable ? Math.max(4, element.getOctetBoundary()) : element.getOctetBoundary(),
+				fixedSize(element, variable, cardinality));
+			this.element = element;
+			this.variable = variable;
+			this.cardinality = cardinality;
+			this.stride = element.isFixedSize() ? align(element.getFixedSize(), element.getOctetBoundary()) : -1;
+			if (elementName.equals(OmtMimConstants.HLAASCIICHAR) && element.getFixedSize() == 1) {
+				value = Value.ASCII;
+			} else if (elementName.equals(OmtMimConstants.HLAUNICODECHAR) && element.getFixedSize() == 2) {
+				value = Value.UNICODE;
+			} else if (element instanceof Scalar s && !(element instanceof Enumerated) && s.getFixedSize() == 1) {
+				value = Value.BYTES;
+			} else {
+				value = Value.LIST;
+			}
+		}
+
+		private static int fixedSize(HlaCodec element, boolean variable, int cardinality) {
+			if (variable || !element.isFixedSize()) {
+				return -1;
+			}
+			return cardinality == 0 ? 0 : (cardinality - 1) * align(element.getFixedSize(), element.getOctetBoundary()) + element.getFixedSize();
+		}
+
+		public HlaCodec getElement() {
+			return element;
+		}
+
+		public boolean isVariable() {
+			return variable;
+		}
+
+		/**
+		 * Returns the number of elements of a fixed array.
+		 *
+		 * @return cardinality, or -1 for a variable array
+		 */
+		public int getCardinality() {
+			return variable ? -1 : cardinality;
+		}
+
+		/**
+		 * Returns the number of elements of the array that starts at offset.
+		 *
+		 * @param buffer buffer
+		 * @param offset aligned start of the array
+		 * @return number of elements
+		 */
+		public int length(ByteBuffer buffer, int offset) {
+			if (!variable) {
+				return cardinality;
+			}
+			int n = buffer.order() == ByteOrder.BIG_ENDIAN ? buffer.getInt(offset) : Integer.reverseBytes(buffer.getInt(offset));
+			if (n < 0) {
+				throw new IllegalArgumentException(getName() + ": negative element count " + n);
+			}
+			return n;
+		}
+
+		// start of the first element
+		private int first(int offset) {
+			return variable ? align(offset + 4, element.getOctetBoundary()) : offset;
+		}
+
+		/**
+		 * Returns the start of an element of the array that starts at offset.
+		 * For fixed-size elements this takes constant time.
+		 *
+		 * @param buffer buffer
+		 * @param offset aligned start of the array
+		 * @param index element index
+		 * @return aligned start of the element
+		 */
+		public int elementOffset(ByteBuffer buffer, int offset, int index) {
+			int start = first(offset);
+			if (stride != -1) {
+				return start + index * stride;
+			}
+			for (int i = 0; i < index; i++) {
+				start = align(element.skip(buffer, start), element.getOctetBoundary());
+			}
+			return start;
+		}
+
+		@Override
+		public int skip(ByteBuffer buffer, int offset) {
+			int n = length(buffer, offset);
+			int start = first(offset);
+			if (n == 0) {
+				return variable ? offset + 4 : offset;
+			}
+			if (stride != -1) {
+				return start + (n - 1) * stride + element.getFixedSize();
+			}
+			int end = start;
+			for (int i = 0; i < n; i++) {
+				end = element.skip(buffer, align(end, element.getOctetBoundary()));
+			}
+			return end;
+		}
+
+		@Override
+		public Object decode(ByteBuffer buffer, int offset) {
+			int n = length(buffer, offset);
+			int start = first(offset);
+			switch (value) {
+				case ASCII, BYTES -> {
+					byte[] bytes = new byte[n];
+					buffer.get(start, bytes);
+					return value == Value.ASCII ? new String(bytes, StandardCharsets.ISO_8859_1) : bytes;
+				}
+				case UNICODE -> {
+					char[] chars = new char[n];
+					for (int i = 0; i < n; i++) {
+						chars[i] = (char) element.getLong(buffer, start + 2 * i);
+					}
+					return new String(chars);
+				}
+				default -> {
+					List<Object> list = new ArrayList<>(n);
+					int position = start;
+					for (int i = 0; i < n; i++) {
+						position = align(position, element.getOctetBoundary());
+						list.add(element.decode(buffer, position));
+						position = element.skip(buffer, position);
+					}
+					return list;
+				}
+			}
+		}
+
+		private int length(Object array) {
+			int n;
+			if (array instanceof String s) {
+				if (value != Value.ASCII && value != Value.UNICODE) {
+					throw new IllegalArgumentException(getName() + ": expected an array, got a string");
+				}
+				n = s.length();
+			} else if (array instanceof List<?> list) {
+				n = list.size();
+			} else if (array != null && array.getClass().isArray()) {
+				n = Array.getLength(array);
+			} else {
+				throw new IllegalArgumentException(getName() + ": expected an array, got " + describe(array));
+			}
+			if (!variable && n != cardinality) {
+				throw new IllegalArgumentException(getName() + ": expected " + cardinality + " elements, got " + n);
+			}
+			return n;
+		}
+
+		private static Object get(Object array, int index) {
+			if (array instanceof String s) {
+				return s.charAt(index);
+			} else if (array instanceof List<?> list) {
+				return list.get(index);
+			}
+			return Array.get(array, index);
+		}
+
+		@Override
+		public int encode(ByteBuffer buffer, int offset, Object array) {
+			int n = length(array);
+			if (variable) {
+				buffer.putInt(offset, buffer.order() == ByteOrder.BIG_ENDIAN ? n : Integer.reverseBytes(n));
+			}
+			if (n == 0) {
+				return variable ? offset + 4 : offset;
+			}
+			int start = first(offset);
+			pad(buffer, offset + (variable ? 4 : 0), start);
+			if (array instanceof byte[] bytes && (value == Value.BYTES || value == Value.ASCII)) {
+				buffer.put(start, bytes);
+				return start + n;
+			}
+			int position = start;
+			for (int i = 0; i < n; i++) {
+				int aligned = align(position, element.getOctetBoundary());
+				pad(buffer, position, aligned);
+				position = element.encode(buffer, aligned, get(array, i));
+			}
+			return position;
+		}
+
+		@Override
+		public int measure(Object array, int offset) {
+			int n = length(array);
+			if (n == 0) {
+				return variable ? offset + 4 : offset;
+			}
+			int start = first(offset);
+			if (stride != -1 && !(array instanceof List<?> || array instanceof Object[])) {
+				// strings and primitive arrays of scalar elements
+				return start + (n - 1) * stride + element.getFixedSize();
+			}
+			int position = start;
+			for (int i = 0; i < n; i++) {
+				position = element.measure(get(array, i), align(position, element.getOctetBoundary()));
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Codec of an HLAfixedRecord datatype.
+	 */
+	public static final class FixedRecord extends HlaCodec {
+
+		private final List<String> fieldNames;
+		private final HlaCodec[] fields;
+		private final Map<String, Integer> fieldIndex = new HashMap<>();
+		// offsets of the fields that follow only fixed-size fields
+		private final int[] fixedOffsets;
+
+		FixedRecord(String name, List<String> fieldNames, HlaCodec[] fields) {
+			super(name, boundary(fields), fixedSize(fields));
+			this.fieldNames = List.copyOf(fieldNames);
+			this.fields = fields;
+			for (int i = 0; i < fields.length; i++) {
+				fieldIndex.putIfAbsent(fieldNames.get(i), i);
+			}
+
+			int[] offsets = new int[fields.length];
+			int n = 0;
+			int position = 0;
+			for (HlaCodec field : fields) {
+				offsets[n++] = align(position, field.getOctetBoundary());
+				if (!field.isFixedSize()) {
+					break;
+				}
+				position = offsets[n - 1] + field.getFixedSize();
+			}
+			fixedOffsets = Arrays.copyOf(offsets, n);
+		}
+
+		private static int boundary(HlaCodec[] fields) {
+			int boundary = 1;
+			for (HlaCodec field : fields) {
+				boundary = Math.max(boundary, field.getOctetBoundary());
+			}
+			return boundary;
+		}
+
+		private static int fixedSize(HlaCodec[] fields) {
+			int position = 0;
+			for (HlaCodec field : fields) {
+				if (!field.isFixedSize()) {
+					return -1;
+				}
+				position = align(position, field.getOctetBoundary()) + field.getFixedSize();
+			}
+			return position;
+		}
+
+		public List<String> getFieldNames() {
+			return fieldNames;
+		}
+
+		public int getFieldCount() {
+			return fields.length;
+		}
+
+		public HlaCodec getField(int index) {
+			return fields[index];
+		}
+
+		/**
+		 * Returns the index of a field.
+		 *
+		 * @param fieldName field name
+		 * @return index, or -1 if the record has no such field
+		 */
+		public int getFieldIndex(String fieldName) {
+			return fieldIndex.getOrDefault(fieldName, -1);
+		}
+
+		/**
+		 * Returns the start of a field of the record that starts at offset. For a
+		 * field that follows only fixed-size fields this takes constant time.
+		 *
+		 * @param buffer buffer
+		 * @param offset aligned start of the record
+		 * @param index field index
+		 * @return aligned start of the field
+		 */
+		public int fieldOffset(ByteBuffer buffer, int offset, int index) {
+			if (index < fixedOffsets.length) {
+				return offset + fixedOffsets[index];
+			}
+			int i = fixedOffsets.length - 1;
+			int position = offset + fixedOffsets[i];
+			for (; i < index; i++) {
+				position = align(fields[i].skip(buffer, position), fields[i + 1].getOctetBoundary());
+			}
+			return position;
+		}
+
+		@Override
+		public int skip(ByteBuffer buffer, int offset) {
+			if (isFixedSize()) {
+				return offset + getFixedSize();
+			}
+			int last = fields.length - 1;
+			return fields[last].skip(buffer, fieldOffset(buffer, offset, last));
+		}
+
+		@Override
+		public Object decode(ByteBuffer buffer, int offset) {
+			Map<String, Object> record = new LinkedHashMap<>();
+			int position = offset;
+			for (int i = 0; i < fields.length; i++) {
+				position = align(position, fields[i].getOctetBoundary());
+				record.put(fieldNames.get(i), fields[i].decode(buffer, position));
+				position = fields[i].skip(buffer, position);
+			}
+			return record;
+		}
+
+		private Object field(Object record, int index) {
+			if (record instanceof Map<?, ?> map) {
+				if (!map.containsKey(fieldNames.get(index))) {
+					throw new IllegalArgumentException(getName() + ": missing field " + fieldNames.get(index));
+				}
+				return map.get(fieldNames.get(index));
+			} else if (record instanceof List<?> list && list.size() == fields.length) {
+				return list.get(index);
+			} else if (record instanceof Object[] array && array.length == fields.length) {
+				return array[index];
+			}
+			throw new IllegalArgumentException(getName() + ": expected a record with " + fields.length + " fields, got " + describe(record));
+		}
+
+		@Override
+		public int encode(ByteBuffer buffer, int offset, Object record) {
+			int position = offset;
+			for (int i = 0; i < fields.length; i++) {
+				int aligned = align(position, fields[i].getOctetBoundary());
+				pad(buffer, position, aligned);
+				position = fields[i].encode(buffer, aligned, field(record, i));
+			}
+			return position;
+		}
+
+		@Override
+		public int measure(Object record, int offset) {
+			int position = offset;
+			for (int i = 0; i < fields.length; i++) {
+				position = fields[i].measure(field(record, i), align(position, fields[i].getOctetBoundary()));
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Codec of an HLAvariantRecord or HLAextendableVariantRecord datatype.
+	 *
+	 * The alternative of an HLAextendableVariantRecord is preceded by its
+	 * length: an HLAinteger32BE with the number of octets that follow the
+	 * length, including the padding before the alternative. A receiver skips
+	 * an alternative with an unknown discriminant value.
+	 */
+	public static final class VariantRecord extends HlaCodec {
+
+		private final String discriminantName;
+		private final Enumerated discriminant;
+		private final List<String> alternativeNames;
+		// codec per alternative, null if the alternative has no data
+		private final HlaCodec[] alternatives;
+		private final Map<Long, Integer> alternativeIndex;
+		// alternative of HLAother, or -1
+		private final int other;
+		private final boolean extendable;
+
+		VariantRecord(String name, String discriminantName, Enumerated discriminant, List<String> alternativeNames, HlaCodec[] alternatives,
+			Map<Long, Integer> alternativeIndex, int other, boolean extendable) {
+			super(name, boundary(discriminant, alternatives, extendable), fixedSize(discriminant, alternatives, extendable));
+			this.discriminantName = discriminantName;
+			this.discriminant = discriminant;
+			this.alternativeNames = List.copyOf(alternativeNames);
+			this.alternatives = alternatives;
+			this.alternativeIndex = alternativeIndex;
+			this.other = other;
+			this.extendable = extendable;
+		}
+
+		private static int boundary(Enumerated discriminant, HlaCodec[] alternatives, boolean extendable) {
+			int boundary = Math.max(discriminant.getOctetBoundary(), extendable ? 4 : 1);
+			for (HlaCodec alternative : alternatives) {
+				if (alternative != null) {
+					boundary = Math.max(boundary, alternative.getOctetBoundary());
+				}
+			}
+			return boundary;
+		}
+
+		private static int fixedSize(Enumerated discriminant, HlaCodec[] alternatives, boolean extendable) {
+			// only a variant record whose alternatives all have no data has a fixed size
+			for (HlaCodec alternative : alternatives) {
+				if (alternative != null) {
+					return -1;
+				}
+			}
+			return extendable ? align(discriminant.getFixedSize(), 4) + 4 : discriminant.getFixedSize();
+		}
+
+		public String getDiscriminantName() {
+			return discriminantName;
+		}
+
+		public Enumerated getDiscriminant() {
+			return discriminant;
+		}
+
+		public boolean isExtendable() {
+			return extendable;
+		}
+
+		public List<String> getAlternativeNames() {
+			return alternativeNames;
+		}
+
+		/**
+		 * Returns the codec of an alternative.
+		 *
+		 * @param index alternative index
+		 * @return codec, or null if the alternative has no data
+		 */
+		public HlaCodec getAlternative(int index) {
+			return alternatives[index];
+		}
+
+		/**
+		 * Returns the alternative for a discriminant value.
+		 *
+		 * @param value discriminant value
+		 * @return alternative index, or -1 if no alternative matches
+		 */
+		public int getAlternativeIndex(long value) {
+			Integer index = alternativeIndex.get(value);
+			return index == null ? other : index;
+		}
+
+		/**
+		 * Returns the alternative of the variant record that starts at offset.
+		 *
+		 * @param buffer buffer
+		 * @param offset aligned start of the record
+		 * @return alternative index, or -1 if no alternative matches
+		 */
+		public int alternative(ByteBuffer buffer, int offset) {
+			return getAlternativeIndex(discriminant.getLong(buffer, offset));
+		}
+
+		// end of the length field of an extendable variant record
+		private int lengthEnd(int offset) {
+			return align(offset + discriminant.getFixedSize(), 4) + 4;
+		}
+
+		/**
+		 * Returns the start of the alternative of the variant record that starts
+		 * at offset.
+		 *
+		 * @param buffer buffer
+		 * @param offset aligned start of the record
+		 * @return aligned start of the alternative, or -1 if the alternative has
+		 * no data or is unknown
+		 */
+		public int valueOffset(ByteBuffer buffer, int offset) {
+			int index = alternative(buffer, offset);
+			if (index == -1 || alternatives[index] == null) {
+				return -1;
+			}
+			int position = extendable ? lengthEnd(offset) : offset + discriminant.getFixedSize();
+			return align(position, alternatives[index].getOctetBoundary());
+		}
+
+		private int index(ByteBuffer buffer, int offset) {
+			int index = alternative(buffer, offset);
+			if (index == -1 && !extendable) {
+				throw new IllegalArgumentException(getName() + ": no alternative for discriminant " + discriminant.getLong(buffer, offset));
+			}
+			return index;
+		}
+
+		@Override
+		public int skip(ByteBuffer buffer, int offset) {
+			if (extendable) {
+				int length = buffer.order() == ByteOrder.BIG_ENDIAN ? buffer.getInt(lengthEnd(offset) - 4) : Integer.reverseBytes(buffer.getInt(lengthEnd(offset) - 4));
+				return lengthEnd(offset) + length;
+			}
+			int index = index(buffer, offset);
+			if (alternatives[index] == null) {
+				return offset + discriminant.getFixedSize();
+			}
+			return alternatives[index].skip(buffer, valueOffset(buffer, offset));
+		}
+
+		@Override
+		public Object decode(ByteBuffer buffer, int offset) {
+			Map<String, Object> record = new LinkedHashMap<>();
+			record.put(discriminantName, discriminant.decode(buffer, offset));
+			int index = index(buffer, offset);
+			if (index != -1 && alternatives[index] != null) {
+				record.put(alternativeNames.get(index), alternatives[index].decode(buffer, valueOffset(buffer, offset)));
+			}
+			return record;
+		}
+
+		private int index(Object record) {
+			if (!(record instanceof Map<?, ?> map)) {
+				throw new IllegalArgumentException(getName() + ": expected a map, got " + describe(record));
+			}
+			Object value = map.get(discriminantName);
+			if (value == null) {
+				throw new IllegalArgumentException(getName() + ": missing discriminant " + discriminantName);
+			}
+			int index = getAlternativeIndex(discriminant.toLong(value));
+			if (index == -1) {
+				throw new IllegalArgumentException(getName() + ": no alternative for discriminant " + value);
+			}
+			if (alternatives[index] != null && !map.containsKey(alternativeNames.get(index))) {
+				throw new IllegalArgumentException(getName() + ": missing alternative " + alternativeNames.get(index));
+			}
+			return index;
+		}
+
+		@Override
+		public int encode(ByteBuffer buffer, int offset, Object record) {
+			int index = index(record);
+			Map<?, ?> map = (Map<?, ?>) record;
+			int position = discriminant.encode(buffer, offset, map.get(discriminantName));
+			// the start of the alternative, after the length field of an extendable record
+			int start = position;
+			if (extendable) {
+				start = lengthEnd(offset);
+				pad(buffer, position, start - 4);
+				position = start;
+			}
+			if (alternatives[index] != null) {
+				int aligned = align(position, alternatives[index].getOctetBoundary());
+				pad(buffer, position, aligned);
+				position = alternatives[index].encode(buffer, aligned, map.get(alternativeNames.get(index)));
+			}
+			if (extendable) {
+				int length = position - start;
+				buffer.putInt(start - 4, buffer.order() == ByteOrder.BIG_ENDIAN ? length : Integer.reverseBytes(length));
+			}
+			return position;
+		}
+
+		@Override
+		public int measure(Object record, int offset) {
+			int index = index(record);
+			int position = extendable ? lengthEnd(offset) : offset + discriminant.getFixedSize();
+			if (alternatives[index] != null) {
+				position = alternatives[index].measure(((Map<?, ?>) record).get(alternativeNames.get(index)), align(position, alternatives[index].getOctetBoundary()));
+			}
+			return position;
+		}
+	}
+
+	static String describe(Object value) {
+		return value == null ? "null" : value.getClass().getSimpleName();
+	}
+}
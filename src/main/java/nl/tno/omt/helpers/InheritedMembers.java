@@ -0,0 +1,73 @@
+package nl.tno.omt.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of the attributes of an object class, or the parameters of
+ * an interaction class, including the members inherited from its
+ * superclasses. Members are in declaration order: the members of the root
+ * class first and the own members of the class last.
+ *
+ * @param <T> Attribute or Parameter
+ * @author bergtwvd
+ */
+public final class InheritedMembers<T> {
+
+	private final String fqName;
+	private final List<T> all;
+	private final int inheritedCount;
+
+	InheritedMembers(String fqName, InheritedMembers<T> parent, List<T> own) {
+		List<T> list = new ArrayList<>((parent == null ? 0 : parent.all.size()) + own.size());
+		if (parent != null) {
+			list.addAll(parent.all);
+		}
+		list.addAll(own);
+
+		this.fqName = fqName;
+		this.all = Collections.unmodifiableList(list);
+		this.inheritedCount = parent == null ? 0 : parent.all.size();
+	}
+
+	/**
+	 * Returns the FQ OMT name of the class.
+	 *
+	 * @return FQ name
+	 */
+	public String getFqName() {
+		return fqName;
+	}
+
+	/**
+	 * Returns all members, inherited and own, in declaration order.
+	 *
+	 * @return all members
+	 */
+	public List<T> getAll() {
+		return all;
+	}
+
+	/**
+	 * Returns the members declared by the class itself.
+	 *
+	 * @return own members
+	 */
+	public List<T> getOwn() {
+		return all.subList(inheritedCount, all.size());
+	}
+
+	/**
+	 * Returns the members inherited from the superclasses.
+	 *
+	 * @return inherited members
+	 */
+	public List<T> getInherited() {
+		return all.subList(0, inheritedCount);
+	}
+
+	public int size() {
+		return all.size();
+	}
+}
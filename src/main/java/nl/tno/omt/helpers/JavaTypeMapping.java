@@ -0,0 +1,149 @@
+package nl.tno.omt.helpers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import nl.tno.omt.helpers.OmtJavaMapping.JavaDataType;
+import nl.tno.omt.helpers.OmtJavaMapping.JavaPrimitiveType;
+
+/**
+ * Immutable registry of the mappings of OMT representations and datatypes to Java types.
+ *
+ * <p>A registry is built with a Builder and can be shared between threads; lookups do not lock. A
+ * new builder contains the standard OMT representations. The static methods of OmtJavaMapping use
+ * a default registry, which is replaced by a new registry when a mapping is added.
+ *
+ * @author bergtwvd
+ */
+public final class JavaTypeMapping {
+
+  // map of OMT representation name to Java type
+  private final Map<String, JavaPrimitiveType> representationMap;
+
+  // specific OMT datatype mappings to Java types
+  private final Map<String, JavaDataType> datatypeMap;
+
+  private JavaTypeMapping(Builder builder) {
+    this.representationMap = Map.copyOf(builder.representationMap);
+    this.datatypeMap = Map.copyOf(builder.datatypeMap);
+  }
+
+  /**
+   * Returns a builder that contains the standard OMT representations.
+   *
+   * @return builder
+   */
+  public static Builder builder() {
+    return new Builder()
+        .addRepresentation(OmtMimConstants.HLAOCTET, JavaPrimitiveType.BYTE)
+        .addRepresentation(OmtMimConstants.HLAINTEGER16BE, JavaPrimitiveType.SHORT)
+        .addRepresentation(OmtMimConstants.HLAINTEGER32BE, JavaPrimitiveType.INTEGER)
+        .addRepresentation(OmtMimConstants.HLAINTEGER64BE, JavaPrimitiveType.LONG)
+        .addRepresentation(OmtMimConstants.HLAUNSIGNEDINTEGER16BE, JavaPrimitiveType.SHORT)
+        .addRepresentation(OmtMimConstants.HLAUNSIGNEDINTEGER32BE, JavaPrimitiveType.INTEGER)
+        .addRepresentation(OmtMimConstants.HLAUNSIGNEDINTEGER64BE, JavaPrimitiveType.LONG)
+        .addRepresentation(OmtMimConstants.HLAFLOAT32BE, JavaPrimitiveType.FLOAT)
+        .addRepresentation(OmtMimConstants.HLAFLOAT64BE, JavaPrimitiveType.DOUBLE)
+        .addRepresentation(OmtMimConstants.HLAOCTETPAIRBE, JavaPrimitiveType.CHARACTER);
+  }
+
+  /**
+   * Returns a builder that contains the mappings of this registry.
+   *
+   * @return builder
+   */
+  public Builder toBuilder() {
+    Builder builder = new Builder();
+    builder.representationMap.putAll(representationMap);
+    builder.datatypeMap.putAll(datatypeMap);
+    return builder;
+  }
+
+  /**
+   * Returns the Java type of an OMT representation.
+   *
+   * @param omtRepresentationName OMT representation name
+   * @return Java type or null
+   */
+  public JavaPrimitiveType getRepresentation(String omtRepresentationName) {
+    return omtRepresentationName == null ? null : representationMap.get(omtRepresentationName);
+  }
+
+  /**
+   * Returns the specific Java type of an OMT datatype.
+   *
+   * @param omtDatatypeName OMT datatype name
+   * @return Java type or null if none was mapped
+   */
+  public JavaDataType getDatatype(String omtDatatypeName) {
+    return omtDatatypeName == null ? null : datatypeMap.get(omtDatatypeName);
+  }
+
+  public Map<String, JavaPrimitiveType> getRepresentations() {
+    return representationMap;
+  }
+
+  public Map<String, JavaDataType> getDatatypes() {
+    return datatypeMap;
+  }
+
+  /** Builder of a JavaTypeMapping. A builder is not thread-safe. */
+  public static final class Builder {
+
+    private final Map<String, JavaPrimitiveType> representationMap = new HashMap<>();
+    private final Map<String, JavaDataType> datatypeMap = new HashMap<>();
+
+    private Builder() {}
+
+    /**
+     * Adds or replaces the Java type of an OMT representation. A null Java type removes the
+     * mapping, as a lookup of an unmapped representation returns null.
+     *
+     * @param omtRepresentationName OMT representation name
+     * @param javaType Java type, or null
+     * @return this builder
+     */
+    public Builder addRepresentation(String omtRepresentationName, JavaPrimitiveType javaType) {
+      if (omtRepresentationName != null) {
+        if (javaType == null) {
+          representationMap.remove(omtRepresentationName);
+        } else {
+          representationMap.put(omtRepresentationName, javaType);
+        }
+      }
+      return this;
+    }
+
+    /**
+     * Adds or replaces the Java types of OMT representations. Null Java types remove the mapping.
+     *
+     * @param representations Map with representations
+     * @return this builder
+     */
+    public Builder addRepresentations(Map<String, JavaPrimitiveType> representations) {
+      representations.forEach(this::addRepresentation);
+      return this;
+    }
+
+    /**
+     * Adds or replaces the Java type of an OMT datatype.
+     *
+     * @param omtDatatypeName OMT datatype name
+     * @param javaTypeName Java type name
+     * @param imports required Java import statements for datatype, or null if none
+     * @return this builder
+     */
+    public Builder addDatatype(String omtDatatypeName, String javaTypeName, Set<String> imports) {
+      if (omtDatatypeName != null) {
+        datatypeMap.put(
+            omtDatatypeName,
+            new JavaDataType(javaTypeName, imports == null ? Set.of() : Set.copyOf(imports)));
+      }
+      return this;
+    }
+
+    public JavaTypeMapping build() {
+      return new JavaTypeMapping(this);
+    }
+  }
+}
@@ -0,0 +1,403 @@
+package nl.tno.omt.helpers;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.IOException;
+import java.net.URL;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+import nl.tno.omt.ObjectModelType;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Bounded pools of JAXB marshallers and unmarshallers for ObjectModelType,
+ * and of validators of the OMT schema, XML readers and DOM document builders.
+ *
+ * The JAXB context and the compiled OMT schema are created once by the class
+ * loader (holder idiom), so obtaining them does not take a lock. Marshallers and unmarshallers
+ * are not thread-safe; a borrowed instance is owned by the caller until it
+ * is released. The pools are lock-free and do not use thread locals, so they
+ * can be used from platform threads and virtual threads alike. When a pool is
+ * empty a new instance is created; when a pool is full a released instance
+ * is dropped.
+ *
+ * @author bergtwvd
+ */
+final class JaxbPool {
+
+	// maximum number of idle instances kept per pool
+	private static final int MAX_IDLE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+	private static final Pool<Unmarshaller> unmarshallers = new Pool<>();
+	private static final Pool<Marshaller> marshallers = new Pool<>();
+	private static final Pool<Marshaller> formattedMarshallers = new Pool<>();
+	private static final Pool<Validator> validators = new Pool<>();
+	private static final Pool<ValidatorHandler> validatorHandlers = new Pool<>();
+	private static final Pool<XMLReader> xmlReaders = new Pool<>();
+	private static final Pool<DocumentBuilder> documentBuilders = new Pool<>();
+
+	// events of an empty element, unmarshalled before pooling an unmarshaller, see release(Unmarshaller)
+	private static final XMLEvent[] RESET_EVENTS;
+
+	// the parser factories are not thread-safe; new instances are created under a lock
+	private static final SAXParserFactory saxParserFactory;
+	private static final DocumentBuilderFactory documentBuilderFactory;
+
+	static {
+		// DOCTYPE declarations are rejected, and validateOmt does not access external DTDs either
+		saxParserFactory = SAXParserFactory.newInstance();
+		saxParserFactory.setNamespaceAware(true);
+		setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+		setFeature("http://xml.org/sax/features/external-general-entities", false);
+		setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+
+		documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		documentBuilderFactory.setNamespaceAware(true);
+
+		XMLEventFactory eventFactory = XMLEventFactory.newFactory();
+		RESET_EVENTS = new XMLEvent[]{eventFactory.createStartElement("", "", "reset"), eventFactory.createEndElement("", "", "reset")};
+	}
+
+	private JaxbPool() {
+	}
+
+	private static void setFeature(String name, boolean value) {
+		try {
+			saxParserFactory.setFeature(name, value);
+		} catch (ParserConfigurationException | SAXException ex) {
+			// not supported by the implementation
+		}
+	}
+
+	// static context for creating JAXB ObjectModelType marshallers, created on first use
+	private static class ContextHolder {
+
+		private static final JAXBContext context;
+		private static final JAXBException exception;
+
+		static {
+			JAXBContext c = null;
+			JAXBException e = null;
+			OmtInstrumentation.JaxbContextEvent event = OmtInstrumentation.beginJaxbContext();
+			try {
+				c = JAXBContext.newInstance(ObjectModelType.class);
+			} catch (JAXBException ex) {
+				e = ex;
+			}
+			OmtInstrumentation.end(event);
+			context = c;
+			exception = e;
+		}
+	}
+
+	// OMT schema, compiled on first use
+	private static class SchemaHolder {
+
+		private static final Schema schema;
+		private static final Exception exception;
+
+		static {
+			Schema s = null;
+			Exception e = null;
+			URL xsd = JaxbPool.class.getResource("/data/IEEE1516-OMT-2010.xsd");
+			try {
+				if (xsd == null) {
+					throw new IOException("OMT schema not found");
+				}
+				s = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(xsd);
+			} catch (IOException | SAXException ex) {
+				e = ex;
+			}
+			schema = s;
+			exception = e;
+		}
+	}
+
+	// reads the reset events, without parsing
+	private static final class ResetEventReader implements XMLEventReader {
+
+		private int next;
+
+		@Override
+		public XMLEvent nextEvent() {
+			if (next == RESET_EVENTS.length) {
+				throw new NoSuchElementException();
+			}
+			return RESET_EVENTS[next++];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < RESET_EVENTS.length;
+		}
+
+		@Override
+		public Object next() {
+			return nextEvent();
+		}
+
+		@Override
+		public XMLEvent peek() {
+			return next < RESET_EVENTS.length ? RESET_EVENTS[next] : null;
+		}
+
+		@Override
+		public String getElementText() throws XMLStreamException {
+			throw new XMLStreamException("Not supported");
+		}
+
+		@Override
+		public XMLEvent nextTag() {
+			return nextEvent();
+		}
+
+		@Override
+		public Object getProperty(String name) {
+			throw new IllegalArgumentException(name);
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private static final class Pool<T> {
+
+		private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger size = new AtomicInteger();
+
+		T poll() {
+			T t = idle.poll();
+			if (t != null) {
+				size.decrementAndGet();
+			}
+			return t;
+		}
+
+		void offer(T t) {
+			if (size.incrementAndGet() <= MAX_IDLE) {
+				idle.offer(t);
+			} else {
+				size.decrementAndGet();
+			}
+		}
+	}
+
+	static JAXBContext getContext() throws IOException {
+		if (ContextHolder.context == null) {
+			throw new IOException(ContextHolder.exception);
+		}
+		return ContextHolder.context;
+	}
+
+	static Schema getSchema() throws IOException {
+		if (SchemaHolder.schema == null) {
+			throw new IOException(SchemaHolder.exception);
+		}
+		return SchemaHolder.schema;
+	}
+
+	static Unmarshaller acquireUnmarshaller() throws IOException {
+		Unmarshaller unmarshaller = unmarshallers.poll();
+		if (unmarshaller == null) {
+			try {
+				unmarshaller = getContext().createUnmarshaller();
+			} catch (JAXBException ex) {
+				throw new IOException(ex);
+			}
+		}
+		return unmarshaller;
+	}
+
+	/**
+	 * Returns an unmarshaller to the pool. Only release instances that
+	 * completed normally; an instance that threw an exception is discarded by
+	 * not releasing it.
+	 *
+	 * The JAXB RI keeps a reference to the last unmarshalled model, which would
+	 * keep a model that the caller has dropped reachable from the pool. An
+	 * empty element, unmarshalled to a declared type from a constant sequence
+	 * of StAX events, replaces that reference for both the stream and the StAX
+	 * unmarshal paths before the instance is pooled. Nothing is parsed.
+	 *
+	 * @param unmarshaller the unmarshaller
+	 */
+	static void release(Unmarshaller unmarshaller) {
+		try {
+			unmarshaller.unmarshal(new ResetEventReader(), ObjectModelType.class);
+		} catch (JAXBException | RuntimeException ex) {
+			// not pooled
+			return;
+		}
+		unmarshallers.offer(unmarshaller);
+	}
+
+	static Marshaller acquireMarshaller(boolean formatted) throws IOException {
+		Marshaller marshaller = (formatted ? formattedMarshallers : marshallers).poll();
+		if (marshaller == null) {
+			try {
+				marshaller = getContext().createMarshaller();
+				if (formatted) {
+					marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+				}
+			} catch (JAXBException ex) {
+				throw new IOException(ex);
+			}
+		}
+		return marshaller;
+	}
+
+	/**
+	 * Returns a marshaller to the pool. Only release instances that completed
+	 * normally; an instance that threw an exception is discarded by not
+	 * releasing it.
+	 *
+	 * @param marshaller the marshaller
+	 * @param formatted the formatted setting the marshaller was acquired with
+	 */
+	static void release(Marshaller marshaller, boolean formatted) {
+		(formatted ? formattedMarshallers : marshallers).offer(marshaller);
+	}
+
+	/**
+	 * Returns a validator handler of the OMT schema, for validation while
+	 * parsing. The caller sets the content handler and error handler.
+	 *
+	 * @return validator handler
+	 * @throws IOException if the schema cannot be created
+	 */
+	static ValidatorHandler acquireValidatorHandler() throws IOException {
+		ValidatorHandler handler = validatorHandlers.poll();
+		return handler == null ? getSchema().newValidatorHandler() : handler;
+	}
+
+	/**
+	 * Returns a validator handler to the pool. The content handler and error
+	 * handler are removed.
+	 *
+	 * @param handler the validator handler
+	 */
+	static void release(ValidatorHandler handler) {
+		handler.setContentHandler(null);
+		handler.setErrorHandler(null);
+		validatorHandlers.offer(handler);
+	}
+
+	/**
+	 * Returns a namespace aware XML reader that does not resolve external
+	 * entities. The caller sets the content handler and error handler.
+	 *
+	 * @return XML reader
+	 * @throws IOException if the reader cannot be created
+	 */
+	static XMLReader acquireXmlReader() throws IOException {
+		XMLReader reader = xmlReaders.poll();
+		if (reader == null) {
+			try {
+				synchronized (saxParserFactory) {
+					reader = saxParserFactory.newSAXParser().getXMLReader();
+				}
+			} catch (ParserConfigurationException | SAXException ex) {
+				throw new IOException(ex);
+			}
+		}
+		return reader;
+	}
+
+	/**
+	 * Returns an XML reader to the pool. The content handler and error handler
+	 * are removed.
+	 *
+	 * @param reader the XML reader
+	 */
+	static void release(XMLReader reader) {
+		reader.setContentHandler(null);
+		reader.setErrorHandler(null);
+		xmlReaders.offer(reader);
+	}
+
+	/**
+	 * Returns a namespace aware DOM document builder.
+	 *
+	 * @return document builder
+	 * @throws IOException if the builder cannot be created
+	 */
+	static DocumentBuilder acquireDocumentBuilder() throws IOException {
+		DocumentBuilder builder = documentBuilders.poll();
+		if (builder == null) {
+			try {
+				synchronized (documentBuilderFactory) {
+					builder = documentBuilderFactory.newDocumentBuilder();
+				}
+			} catch (ParserConfigurationException ex) {
+				throw new IOException(ex);
+			}
+		}
+		return builder;
+	}
+
+	/**
+	 * Returns a document builder to the pool. The builder is reset; documents
+	 * created by the builder are not affected.
+	 *
+	 * @param builder the document builder
+	 */
+	static void release(DocumentBuilder builder) {
+		builder.reset();
+		documentBuilders.offer(builder);
+	}
+
+	/**
+	 * Returns a validator of the OMT schema. External DTDs and schemas are not
+	 * accessed. The caller sets the error handler.
+	 *
+	 * @return validator
+	 * @throws IOException if the schema cannot be created
+	 */
+	static Validator acquireValidator() throws IOException {
+		Validator validator = validators.poll();
+		if (validator == null) {
+			validator = getSchema().newValidator();
+			configure(validator);
+		}
+		return validator;
+	}
+
+	private static void configure(Validator validator) {
+		try {
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+		} catch (SAXException ex) {
+			// not supported by the implementation
+		}
+	}
+
+	/**
+	 * Returns a validator to the pool. The error handler is removed; the
+	 * validator is not reset, since a reset drops the access restrictions.
+	 *
+	 * @param validator the validator
+	 */
+	static void release(Validator validator) {
+		validator.setErrorHandler(null);
+		validators.offer(validator);
+	}
+}
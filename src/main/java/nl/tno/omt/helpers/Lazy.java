@@ -0,0 +1,34 @@
+package nl.tno.omt.helpers;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe lazily computed value. The supplier is called at most once;
+ * after initialization the value is read without locking.
+ *
+ * @author bergtwvd
+ */
+final class Lazy<T> implements Supplier<T> {
+
+	private final Supplier<T> supplier;
+	private volatile T value;
+
+	Lazy(Supplier<T> supplier) {
+		this.supplier = supplier;
+	}
+
+	@Override
+	public T get() {
+		T v = value;
+		if (v == null) {
+			synchronized (this) {
+				v = value;
+				if (v == null) {
+					v = supplier.get();
+					value = v;
+				}
+			}
+		}
+		return v;
+	}
+}
@@ -0,0 +1,119 @@
+package nl.tno.omt.helpers;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OmtMetrics implementation with counters and timers. Updates are lock-free
+ * and scale with the number of threads.
+ *
+ * @author bergtwvd
+ */
+public final class OmtCounters implements OmtMetrics {
+
+	private static final int LOOKUPS = Lookup.values().length;
+
+	private final LongAdder reads = new LongAdder();
+	private final LongAdder readSize = new LongAdder();
+	private final LongAdder readNanos = new LongAdder();
+
+	private final LongAdder writes = new LongAdder();
+	private final LongAdder writeSize = new LongAdder();
+	private final LongAdder writeNanos = new LongAdder();
+
+	private final LongAdder jaxbContextNanos = new LongAdder();
+
+	private final LongAdder[] lookupHits = adders(LOOKUPS);
+	private final LongAdder[] lookupMisses = adders(LOOKUPS);
+	private final LongAdder[] lookupNanos = adders(LOOKUPS);
+
+	private static LongAdder[] adders(int n) {
+		LongAdder[] adders = new LongAdder[n];
+		for (int i = 0; i < n; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	@Override
+	public void readOmt(String module, long size, long nanos) {
+		reads.increment();
+		readSize.add(size);
+		readNanos.add(nanos);
+	}
+
+	@Override
+	public void writeOmt(long size, boolean formatted, long nanos) {
+		writes.increment();
+		writeSize.add(size);
+		writeNanos.add(nanos);
+	}
+
+	@Override
+	public void jaxbContextCreated(long nanos) {
+		jaxbContextNanos.add(nanos);
+	}
+
+	@Override
+	public void lookup(Lookup lookup, boolean hit, long nanos) {
+		(hit ? lookupHits : lookupMisses)[lookup.ordinal()].increment();
+		lookupNanos[lookup.ordinal()].add(nanos);
+	}
+
+	public long getReadCount() {
+		return reads.sum();
+	}
+
+	public long getReadSize() {
+		return readSize.sum();
+	}
+
+	public long getReadNanos() {
+		return readNanos.sum();
+	}
+
+	public long getWriteCount() {
+		return writes.sum();
+	}
+
+	public long getWriteSize() {
+		return writeSize.sum();
+	}
+
+	public long getWriteNanos() {
+		return writeNanos.sum();
+	}
+
+	public long getJaxbContextNanos() {
+		return jaxbContextNanos.sum();
+	}
+
+	public long getLookupCount(Lookup lookup) {
+		return getLookupHits(lookup) + getLookupMisses(lookup);
+	}
+
+	public long getLookupHits(Lookup lookup) {
+		return lookupHits[lookup.ordinal()].sum();
+	}
+
+	public long getLookupMisses(Lookup lookup) {
+		return lookupMisses[lookup.ordinal()].sum();
+	}
+
+	public long getLookupNanos(Lookup lookup) {
+		return lookupNanos[lookup.ordinal()].sum();
+	}
+
+	/**
+	 * Resets all counters. Updates made while resetting may be lost.
+	 */
+	public void reset() {
+		for (LongAdder adder : new LongAdder[]{reads, readSize, readNanos, writes, writeSize, writeNanos, jaxbContextNanos}) {
+			adder.reset();
+		}
+		for (int i = 0; i < LOOKUPS; i++) {
+			lookupHits[i].reset();
+			lookupMisses[i].reset();
+			lookupNanos[i].reset();
+		}
+	}
+}
@@ -1,10 +1,10 @@
 package nl.tno.omt.helpers;
 
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.UnmarshallerHandler;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -12,9 +12,15 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 import nl.tno.omt.ArrayDataTypesType.ArrayData;
 import nl.tno.omt.Attribute;
 import nl.tno.omt.BasicDataRepresentationsType;
@@ -34,6 +40,14 @@ import nl.tno.omt.SimpleDataTypesType.SimpleData;
 import nl.tno.omt.TransportationsType.Transportation;
 import nl.tno.omt.VariantRecordDataTypesType;
 import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+import nl.tno.omt.helpers.OmtInstrumentation.LookupEvent;
+import nl.tno.omt.helpers.OmtInstrumentation.ReadOmtEvent;
+import nl.tno.omt.helpers.OmtInstrumentation.WriteOmtEvent;
+import nl.tno.omt.helpers.OmtMetrics.Lookup;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 /**
  *
@@ -41,68 +55,199 @@ import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
  */
 public class OmtFunctions {
 
-	// static context for creating JAXB ObjectModelType marshallers
-	private static JAXBContext jaxbContext = null;
-
 	// static factory for creating objects
 	private static final ObjectFactory objectFactory = new ObjectFactory();
 
-	private static synchronized JAXBContext getContext() throws IOException {
-		if (jaxbContext == null) {
+	private static ObjectModelType castObject(Object object) {
+		@SuppressWarnings("unchecked")
+		JAXBElement<ObjectModelType> element = (JAXBElement<ObjectModelType>) object;
+		return element.getValue();
+	}
+
+	public static ObjectModelType readOmt(URL module) throws IOException {
+		return readOmt(module.openStream(), module.toString());
+	}
+
+	public static ObjectModelType readOmt(InputStream input) throws IOException {
+		return readOmt(input, null);
+	}
+
+	private static ObjectModelType readOmt(InputStream input, String module) throws IOException {
+		ReadOmtEvent event = OmtInstrumentation.beginRead(module);
+		try (input) {
+			Unmarshaller unmarshaller = JaxbPool.acquireUnmarshaller();
+			boolean completed = false;
 			try {
-				jaxbContext = JAXBContext.newInstance(ObjectModelType.class);
-			} catch (JAXBException ex) {
-				throw new IOException(ex);
+				ObjectModelType omt = castObject(unmarshaller.unmarshal(OmtInstrumentation.count(event, input)));
+				completed = true;
+				return omt;
+			} finally {
+				// an unmarshaller that failed is dropped
+				if (completed) {
+					JaxbPool.release(unmarshaller);
+				}
+			}
+		} catch (JAXBException ex) {
+			throw new IOException(ex);
+		} finally {
+			OmtInstrumentation.end(event);
+		}
+	}
+
+	public static ObjectModelType readOmt(Reader input) throws IOException {
+		ReadOmtEvent event = OmtInstrumentation.beginRead(null);
+		try (input) {
+			Unmarshaller unmarshaller = JaxbPool.acquireUnmarshaller();
+			boolean completed = false;
+			try {
+				ObjectModelType omt = castObject(unmarshaller.unmarshal(OmtInstrumentation.count(event, input)));
+				completed = true;
+				return omt;
+			} finally {
+				// an unmarshaller that failed is dropped
+				if (completed) {
+					JaxbPool.release(unmarshaller);
+				}
 			}
+		} catch (JAXBException ex) {
+			throw new IOException(ex);
+		} finally {
+			OmtInstrumentation.end(event);
 		}
+	}
 
-		return jaxbContext;
+	/**
+	 * Reads a model and validates it against the OMT schema in the same pass.
+	 * The schema is compiled once; the unmarshallers, schema validators and
+	 * parsers of the pipeline are pooled. Schema warnings do not make a module
+	 * invalid.
+	 *
+	 * @param module the module
+	 * @return the model
+	 * @throws OmtValidationException if the module has errors, with all
+	 * problems found
+	 * @throws IOException on other errors
+	 */
+	public static ObjectModelType readOmtValidated(URL module) throws IOException {
+		return readOmtValidated(module.openStream(), module.toString());
 	}
 
-	private static Unmarshaller createUnmarshaller() throws JAXBException, IOException {
-		return getContext().createUnmarshaller();
+	public static ObjectModelType readOmtValidated(InputStream input) throws IOException {
+		return readOmtValidated(input, null);
 	}
 
-	private static Marshaller createMarshaller(boolean formatted) throws JAXBException, IOException {
-		Marshaller jaxbMarshaller = getContext().createMarshaller();
-		if (formatted) {
-			jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+	static ObjectModelType readOmtValidated(InputStream input, String module) throws IOException {
+		List<OmtValidationException.Problem> problems = new ArrayList<>();
+		ErrorHandler errors = OmtValidationException.collect(module, problems);
+		ObjectModelType omt;
+		ReadOmtEvent event = OmtInstrumentation.beginRead(module);
+		try (input) {
+			Unmarshaller unmarshaller = JaxbPool.acquireUnmarshaller();
+			ValidatorHandler validator = JaxbPool.acquireValidatorHandler();
+			XMLReader reader = JaxbPool.acquireXmlReader();
+			boolean completed = false;
+			try {
+				// parser, schema validator and unmarshaller in a single pass
+				UnmarshallerHandler handler = unmarshaller.getUnmarshallerHandler();
+				validator.setContentHandler(handler);
+				validator.setErrorHandler(errors);
+				reader.setContentHandler(validator);
+				reader.setErrorHandler(errors);
+				InputSource source = new InputSource(OmtInstrumentation.count(event, input));
+				source.setSystemId(module);
+				reader.parse(source);
+				omt = castObject(handler.getResult());
+				completed = true;
+			} finally {
+				// the pipeline of a parse that failed is dropped
+				if (completed) {
+					JaxbPool.release(reader);
+					JaxbPool.release(validator);
+					JaxbPool.release(unmarshaller);
+				}
+			}
+		} catch (JAXBException | SAXException ex) {
+			// a fatal error is reported as problem
+			if (!problems.isEmpty()) {
+				throw new OmtValidationException(module, problems);
+			}
+			throw new IOException(ex);
+		} finally {
+			OmtInstrumentation.end(event);
+		}
+
+		if (hasErrors(problems)) {
+			throw new OmtValidationException(module, problems);
 		}
-		return jaxbMarshaller;
+		return omt;
 	}
 
-	private static ObjectModelType castObject(Object object) {
-		@SuppressWarnings("unchecked")
-		JAXBElement<ObjectModelType> element = (JAXBElement<ObjectModelType>) object;
-		return element.getValue();
+	private static boolean hasErrors(List<OmtValidationException.Problem> problems) {
+		for (OmtValidationException.Problem problem : problems) {
+			if (problem.severity() != OmtValidationException.Severity.WARNING) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	public static ObjectModelType readOmt(URL module) throws IOException {
-		return readOmt(module.openStream());
+	/**
+	 * Validates a module against the OMT schema, without reading the model.
+	 * The schema is compiled once; validators are pooled.
+	 *
+	 * @param module the module
+	 * @return all problems found, empty if the module is valid
+	 * @throws IOException if the module cannot be read
+	 */
+	public static List<OmtValidationException.Problem> validateOmt(URL module) throws IOException {
+		return validateOmt(module.openStream(), module.toString());
 	}
 
-	public static ObjectModelType readOmt(InputStream input) throws IOException {
+	static List<OmtValidationException.Problem> validateOmt(InputStream input, String module) throws IOException {
+		List<OmtValidationException.Problem> problems = new ArrayList<>();
 		try (input) {
-			return castObject(createUnmarshaller().unmarshal(input));
-		} catch (JAXBException ex) {
-			throw new IOException(ex);
+			Validator validator = JaxbPool.acquireValidator();
+			validator.setErrorHandler(OmtValidationException.collect(module, problems));
+			validator.validate(new StreamSource(input, module));
+			JaxbPool.release(validator);
+		} catch (SAXException ex) {
+			// a fatal error is reported as problem
+			if (problems.isEmpty()) {
+				throw new IOException(ex);
+			}
 		}
+		return problems;
 	}
 
-	public static ObjectModelType readOmt(Reader input) throws IOException {
-		try (input) {
-			return castObject(createUnmarshaller().unmarshal(input));
+	// marshal call on a pooled marshaller
+	private interface MarshalOperation {
+
+		void marshal(Marshaller marshaller) throws JAXBException;
+	}
+
+	// runs the operation with a pooled marshaller; a marshaller that failed is dropped
+	private static void marshal(boolean formatted, MarshalOperation operation) throws IOException {
+		Marshaller marshaller = JaxbPool.acquireMarshaller(formatted);
+		boolean completed = false;
+		try {
+			operation.marshal(marshaller);
+			completed = true;
 		} catch (JAXBException ex) {
 			throw new IOException(ex);
+		} finally {
+			if (completed) {
+				JaxbPool.release(marshaller, formatted);
+			}
 		}
 	}
 
 	public static Writer writeOmt(ObjectModelType omt, Writer output, boolean formatted) throws IOException {
+		WriteOmtEvent event = OmtInstrumentation.beginWrite(formatted);
 		try {
-			createMarshaller(formatted).marshal(objectFactory.createObjectModel(omt), output);
+			marshal(formatted, m -> m.marshal(objectFactory.createObjectModel(omt), OmtInstrumentation.count(event, output)));
 			return output;
-		} catch (JAXBException ex) {
-			throw new IOException(ex);
+		} finally {
+			OmtInstrumentation.end(event);
 		}
 	}
 
@@ -111,11 +256,12 @@ public class OmtFunctions {
 	}
 
 	public static File writeOmt(ObjectModelType omt, File output, boolean formatted) throws IOException {
+		WriteOmtEvent event = OmtInstrumentation.beginWrite(formatted);
 		try {
-			createMarshaller(formatted).marshal(objectFactory.createObjectModel(omt), output);
+			marshal(formatted, m -> m.marshal(objectFactory.createObjectModel(omt), output));
 			return output;
-		} catch (JAXBException ex) {
-			throw new IOException(ex);
+		} finally {
+			OmtInstrumentation.end(event, event == null ? 0 : output.length());
 		}
 	}
 
@@ -124,11 +270,12 @@ public class OmtFunctions {
 	}
 
 	public static OutputStream writeOmt(ObjectModelType omt, OutputStream output, boolean formatted) throws IOException {
+		WriteOmtEvent event = OmtInstrumentation.beginWrite(formatted);
 		try {
-			createMarshaller(formatted).marshal(objectFactory.createObjectModel(omt), output);
+			marshal(formatted, m -> m.marshal(objectFactory.createObjectModel(omt), OmtInstrumentation.count(event, output)));
 			return output;
-		} catch (JAXBException ex) {
-			throw new IOException(ex);
+		} finally {
+			OmtInstrumentation.end(event);
 		}
 	}
 
@@ -136,6 +283,75 @@ public class OmtFunctions {
 		return writeOmt(omt, output, false);
 	}
 
+	/**
+	 * Writes the model to a file with OmtStreamWriter, without a JAXB
+	 * Marshaller. An existing file is replaced.
+	 *
+	 * @param omt the model
+	 * @param output output file
+	 * @param formatted write a formatted document
+	 * @return the output file
+	 * @throws IOException on error
+	 */
+	public static Path writeOmt(ObjectModelType omt, Path output, boolean formatted) throws IOException {
+		return (formatted ? OmtStreamWriter.formatted() : OmtStreamWriter.plain()).writeOmt(omt, output);
+	}
+
+	public static Path writeOmt(ObjectModelType omt, Path output) throws IOException {
+		return writeOmt(omt, output, false);
+	}
+
+	/**
+	 * Writes the model to a channel with OmtStreamWriter, without a JAXB
+	 * Marshaller.
+	 *
+	 * @param omt the model
+	 * @param output output channel, not closed
+	 * @param formatted write a formatted document
+	 * @return the output channel
+	 * @throws IOException on error
+	 */
+	public static WritableByteChannel writeOmt(ObjectModelType omt, WritableByteChannel output, boolean formatted) throws IOException {
+		return (formatted ? OmtStreamWriter.formatted() : OmtStreamWriter.plain()).writeOmt(omt, output);
+	}
+
+	public static WritableByteChannel writeOmt(ObjectModelType omt, WritableByteChannel output) throws IOException {
+		return writeOmt(omt, output, false);
+	}
+
+	/**
+	 * Reads a model from a binary snapshot written by writeOmtSnapshot. A
+	 * snapshot is read an order of magnitude faster than the XML document.
+	 *
+	 * @param snapshot the snapshot
+	 * @return the model
+	 * @throws IOException on error, or if the snapshot was written by another
+	 * version of this library
+	 */
+	public static ObjectModelType readOmtSnapshot(URL snapshot) throws IOException {
+		return readOmtSnapshot(snapshot.openStream());
+	}
+
+	public static ObjectModelType readOmtSnapshot(InputStream input) throws IOException {
+		try (input) {
+			return OmtSnapshot.read(input);
+		}
+	}
+
+	/**
+	 * Writes a binary snapshot of the model. The snapshot is lossless: the
+	 * model read back from the snapshot marshals to the same XML document.
+	 *
+	 * @param omt the model
+	 * @param output output stream, not closed
+	 * @return the output stream
+	 * @throws IOException on error
+	 */
+	public static OutputStream writeOmtSnapshot(ObjectModelType omt, OutputStream output) throws IOException {
+		OmtSnapshot.write(omt, output);
+		return output;
+	}
+
 	public static boolean isScaffoldingClass(ObjectClass oc) {
 		return ((oc.getAttribute() == null || oc.getAttribute().isEmpty()) && oc.getSemantics() == null && oc.getSharing() == null);
 	}
@@ -149,6 +365,11 @@ public class OmtFunctions {
 	}
 
 	public static ObjectModelType getObjectClassModule(ObjectModelType[] modules, String fqName, boolean nullOnScaffolding) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.OBJECT_CLASS, fqName, findObjectClassModule(modules, fqName, nullOnScaffolding));
+	}
+
+	private static ObjectModelType findObjectClassModule(ObjectModelType[] modules, String fqName, boolean nullOnScaffolding) {
 		for (ObjectModelType module : modules) {
 			if (getObjectClass(module, fqName, nullOnScaffolding) != null) {
 				return module;
@@ -163,8 +384,13 @@ public class OmtFunctions {
 	}
 
 	public static ObjectClass getObjectClass(ObjectModelType[] modules, String fqName, boolean nullOnScaffolding) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.OBJECT_CLASS, fqName, findObjectClass(modules, fqName, nameLength(fqName), nullOnScaffolding));
+	}
+
+	private static ObjectClass findObjectClass(ObjectModelType[] modules, String fqName, int length, boolean nullOnScaffolding) {
 		for (ObjectModelType module : modules) {
-			ObjectClass oc = getObjectClass(module, fqName, nullOnScaffolding);
+			ObjectClass oc = findObjectClass(module, fqName, length, nullOnScaffolding);
 			if (oc != null) {
 				return oc;
 			}
@@ -173,9 +399,11 @@ public class OmtFunctions {
 		return null;
 	}
 
-	private static ObjectClass selectObjectClass(List<ObjectClass> list, String name) {
-		for (ObjectClass oc : list) {
-			if (oc.getName().getValue().equals(name)) {
+	private static ObjectClass selectObjectClass(List<ObjectClass> list, String fqName, int start, int end) {
+		// indexed, so that the walk does not allocate an iterator per level
+		for (int i = 0; i < list.size(); i++) {
+			ObjectClass oc = list.get(i);
+			if (matchesName(oc.getName().getValue(), fqName, start, end)) {
 				return oc;
 			}
 		}
@@ -183,6 +411,26 @@ public class OmtFunctions {
 		return null;
 	}
 
+	// true if the name equals the region [start, end) of the FQ name
+	private static boolean matchesName(String name, String fqName, int start, int end) {
+		return name.length() == end - start && fqName.regionMatches(start, name, 0, end - start);
+	}
+
+	// length of the FQ name without trailing dots, which are ignored as String.split ignored them
+	static int nameLength(String fqName) {
+		int length = fqName.length();
+		while (length > 0 && fqName.charAt(length - 1) == '.') {
+			length--;
+		}
+		return length;
+	}
+
+	// end of the name part that starts at start, within the FQ name prefix [0, length)
+	private static int nameEnd(String fqName, int start, int length) {
+		int end = fqName.indexOf('.', start);
+		return end == -1 || end > length ? length : end;
+	}
+
 	public static ObjectClass getObjectClass(ObjectModelType module, String fqName) {
 		return getObjectClass(module, fqName, true);
 	}
@@ -201,22 +449,26 @@ public class OmtFunctions {
 	 * @return the ObjectClass or null
 	 */
 	public static ObjectClass getObjectClass(ObjectModelType module, String fqName, boolean nullOnScaffolding) {
-		if (module.getObjects() == null) {
-			return null;
-		}
+		return findObjectClass(module, fqName, nameLength(fqName), nullOnScaffolding);
+	}
 
-		String[] v = fqName.split("\\.");
-		if (v.length == 0) {
+	// looks up the class named by the FQ name prefix [0, length), without creating the prefix
+	private static ObjectClass findObjectClass(ObjectModelType module, String fqName, int length, boolean nullOnScaffolding) {
+		if (module.getObjects() == null) {
 			return null;
 		}
 
+		// walk the FQ name parts without splitting the name
+		int end = nameEnd(fqName, 0, length);
 		ObjectClass oc = module.getObjects().getObjectClass();
-		if (!oc.getName().getValue().equals(v[0])) {
+		if (!matchesName(oc.getName().getValue(), fqName, 0, end)) {
 			return null;
 		}
 
-		for (int i = 1; i < v.length; i++) {
-			oc = selectObjectClass(oc.getObjectClass(), v[i]);
+		while (end < length) {
+			int start = end + 1;
+			end = nameEnd(fqName, start, length);
+			oc = selectObjectClass(oc.getObjectClass(), fqName, start, end);
 			if (oc == null) {
 				return null;
 			}
@@ -226,21 +478,27 @@ public class OmtFunctions {
 	}
 
 	public static Set<Attribute> getObjectClassAttributes(ObjectModelType[] modules, String fqName) {
-		Set<Attribute> attributes = new HashSet<>();
-		String name = null;
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.OBJECT_CLASS_ATTRIBUTES, fqName, findObjectClassAttributes(modules, fqName));
+	}
 
-		for (String part : fqName.split("\\.")) {
-			name = (name == null) ? part : name + "." + part;
+	private static Set<Attribute> findObjectClassAttributes(ObjectModelType[] modules, String fqName) {
+		Set<Attribute> attributes = new HashSet<>();
 
-			ObjectClass oc = OmtFunctions.getObjectClass(modules, name);
+		// look up each FQ name prefix, from the root class down to the class itself
+		int length = nameLength(fqName);
+		for (int end = nameEnd(fqName, 0, length);; end = nameEnd(fqName, end + 1, length)) {
+			ObjectClass oc = findObjectClass(modules, fqName, end, true);
 			if (oc != null) {
 				attributes.addAll(oc.getAttribute());
 			} else {
 				return null;
 			}
-		}
 
-		return attributes;
+			if (end == length) {
+				return attributes;
+			}
+		}
 	}
 
 	public static ObjectModelType getInteractionClassModule(ObjectModelType[] modules, String fqName) {
@@ -248,6 +506,11 @@ public class OmtFunctions {
 	}
 
 	public static ObjectModelType getInteractionClassModule(ObjectModelType[] modules, String fqName, boolean nullOnScaffolding) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.INTERACTION_CLASS, fqName, findInteractionClassModule(modules, fqName, nullOnScaffolding));
+	}
+
+	private static ObjectModelType findInteractionClassModule(ObjectModelType[] modules, String fqName, boolean nullOnScaffolding) {
 		for (ObjectModelType module : modules) {
 			if (getInteractionClass(module, fqName, nullOnScaffolding) != null) {
 				return module;
@@ -262,8 +525,13 @@ public class OmtFunctions {
 	}
 
 	public static InteractionClass getInteractionClass(ObjectModelType[] modules, String fqName, boolean nullOnScaffolding) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.INTERACTION_CLASS, fqName, findInteractionClass(modules, fqName, nameLength(fqName), nullOnScaffolding));
+	}
+
+	private static InteractionClass findInteractionClass(ObjectModelType[] modules, String fqName, int length, boolean nullOnScaffolding) {
 		for (ObjectModelType module : modules) {
-			InteractionClass ic = getInteractionClass(module, fqName, nullOnScaffolding);
+			InteractionClass ic = findInteractionClass(module, fqName, length, nullOnScaffolding);
 			if (ic != null) {
 				return ic;
 			}
@@ -272,9 +540,11 @@ public class OmtFunctions {
 		return null;
 	}
 
-	private static InteractionClass selectInteractionClass(List<InteractionClass> list, String name) {
-		for (InteractionClass ic : list) {
-			if (ic.getName().getValue().equals(name)) {
+	private static InteractionClass selectInteractionClass(List<InteractionClass> list, String fqName, int start, int end) {
+		// indexed, so that the walk does not allocate an iterator per level
+		for (int i = 0; i < list.size(); i++) {
+			InteractionClass ic = list.get(i);
+			if (matchesName(ic.getName().getValue(), fqName, start, end)) {
 				return ic;
 			}
 		}
@@ -300,22 +570,26 @@ public class OmtFunctions {
 	 * @return the ObjectClass or null
 	 */
 	public static InteractionClass getInteractionClass(ObjectModelType module, String fqName, boolean nullOnScaffolding) {
-		if (module.getInteractions() == null) {
-			return null;
-		}
+		return findInteractionClass(module, fqName, nameLength(fqName), nullOnScaffolding);
+	}
 
-		String[] v = fqName.split("\\.");
-		if (v.length == 0) {
+	// looks up the class named by the FQ name prefix [0, length), without creating the prefix
+	private static InteractionClass findInteractionClass(ObjectModelType module, String fqName, int length, boolean nullOnScaffolding) {
+		if (module.getInteractions() == null) {
 			return null;
 		}
 
+		// walk the FQ name parts without splitting the name
+		int end = nameEnd(fqName, 0, length);
 		InteractionClass ic = module.getInteractions().getInteractionClass();
-		if (!ic.getName().getValue().equals(v[0])) {
+		if (!matchesName(ic.getName().getValue(), fqName, 0, end)) {
 			return null;
 		}
 
-		for (int i = 1; i < v.length; i++) {
-			ic = selectInteractionClass(ic.getInteractionClass(), v[i]);
+		while (end < length) {
+			int start = end + 1;
+			end = nameEnd(fqName, start, length);
+			ic = selectInteractionClass(ic.getInteractionClass(), fqName, start, end);
 			if (ic == null) {
 				return null;
 			}
@@ -325,24 +599,35 @@ public class OmtFunctions {
 	}
 
 	public static Set<Parameter> getInteractionClassParameters(ObjectModelType[] modules, String fqName) {
-		Set<Parameter> parameters = new HashSet<>();
-		String name = null;
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.INTERACTION_CLASS_PARAMETERS, fqName, findInteractionClassParameters(modules, fqName));
+	}
 
-		for (String v : fqName.split("\\.")) {
-			name = (name == null) ? v : name + "." + v;
+	private static Set<Parameter> findInteractionClassParameters(ObjectModelType[] modules, String fqName) {
+		Set<Parameter> parameters = new HashSet<>();
 
-			InteractionClass ic = OmtFunctions.getInteractionClass(modules, name);
+		// look up each FQ name prefix, from the root class down to the class itself
+		int length = nameLength(fqName);
+		for (int end = nameEnd(fqName, 0, length);; end = nameEnd(fqName, end + 1, length)) {
+			InteractionClass ic = findInteractionClass(modules, fqName, end, true);
 			if (ic != null) {
 				parameters.addAll(ic.getParameter());
 			} else {
 				return null;
 			}
-		}
 
-		return parameters;
+			if (end == length) {
+				return parameters;
+			}
+		}
 	}
 
 	public static BasicData getBasicDataByName(ObjectModelType[] modules, String representationName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.BASIC_DATA, representationName, findBasicDataByName(modules, representationName));
+	}
+
+	private static BasicData findBasicDataByName(ObjectModelType[] modules, String representationName) {
 		for (ObjectModelType module : modules) {
 			BasicData basicData = getBasicDataByName(module, representationName);
 			if (basicData != null) {
@@ -370,6 +655,11 @@ public class OmtFunctions {
 	}
 
 	public static ObjectModelType getSimpleDataModule(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.SIMPLE_DATA, datatypeName, findSimpleDataModule(modules, datatypeName));
+	}
+
+	private static ObjectModelType findSimpleDataModule(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			if (getSimpleDataByName(module, datatypeName) != null) {
 				return module;
@@ -380,6 +670,11 @@ public class OmtFunctions {
 	}
 
 	public static SimpleData getSimpleDataByName(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.SIMPLE_DATA, datatypeName, findSimpleDataByName(modules, datatypeName));
+	}
+
+	private static SimpleData findSimpleDataByName(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			SimpleData simpleData = getSimpleDataByName(module, datatypeName);
 			if (simpleData != null) {
@@ -407,6 +702,11 @@ public class OmtFunctions {
 	}
 
 	public static ObjectModelType getFixedRecordDataModule(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.FIXED_RECORD_DATA, datatypeName, findFixedRecordDataModule(modules, datatypeName));
+	}
+
+	private static ObjectModelType findFixedRecordDataModule(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			if (getFixedRecordDataByName(module, datatypeName) != null) {
 				return module;
@@ -417,6 +717,11 @@ public class OmtFunctions {
 	}
 
 	public static FixedRecordData getFixedRecordDataByName(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.FIXED_RECORD_DATA, datatypeName, findFixedRecordDataByName(modules, datatypeName));
+	}
+
+	private static FixedRecordData findFixedRecordDataByName(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			FixedRecordData fixedRecordData = getFixedRecordDataByName(module, datatypeName);
 			if (fixedRecordData != null) {
@@ -444,6 +749,11 @@ public class OmtFunctions {
 	}
 
 	public static ObjectModelType getVariantRecordDataModule(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.VARIANT_RECORD_DATA, datatypeName, findVariantRecordDataModule(modules, datatypeName));
+	}
+
+	private static ObjectModelType findVariantRecordDataModule(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			if (getVariantRecordDataByName(module, datatypeName) != null) {
 				return module;
@@ -454,6 +764,11 @@ public class OmtFunctions {
 	}
 
 	public static VariantRecordData getVariantRecordDataByName(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.VARIANT_RECORD_DATA, datatypeName, findVariantRecordDataByName(modules, datatypeName));
+	}
+
+	private static VariantRecordData findVariantRecordDataByName(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			VariantRecordData variantRecordData = getVariantRecordDataByName(module, datatypeName);
 			if (variantRecordData != null) {
@@ -481,6 +796,11 @@ public class OmtFunctions {
 	}
 
 	public static ObjectModelType getEnumeratedDataModule(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.ENUMERATED_DATA, datatypeName, findEnumeratedDataModule(modules, datatypeName));
+	}
+
+	private static ObjectModelType findEnumeratedDataModule(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			if (getEnumeratedDataByName(module, datatypeName) != null) {
 				return module;
@@ -491,6 +811,11 @@ public class OmtFunctions {
 	}
 
 	public static EnumeratedData getEnumeratedDataByName(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.ENUMERATED_DATA, datatypeName, findEnumeratedDataByName(modules, datatypeName));
+	}
+
+	private static EnumeratedData findEnumeratedDataByName(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			EnumeratedData enumeratedData = getEnumeratedDataByName(module, datatypeName);
 			if (enumeratedData != null) {
@@ -518,6 +843,11 @@ public class OmtFunctions {
 	}
 
 	public static ObjectModelType getArrayDataModule(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.ARRAY_DATA, datatypeName, findArrayDataModule(modules, datatypeName));
+	}
+
+	private static ObjectModelType findArrayDataModule(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			if (getArrayDataByName(module, datatypeName) != null) {
 				return module;
@@ -528,6 +858,11 @@ public class OmtFunctions {
 	}
 
 	public static ArrayData getArrayDataByName(ObjectModelType[] modules, String datatypeName) {
+		LookupEvent event = OmtInstrumentation.beginLookup();
+		return OmtInstrumentation.end(event, Lookup.ARRAY_DATA, datatypeName, findArrayDataByName(modules, datatypeName));
+	}
+
+	private static ArrayData findArrayDataByName(ObjectModelType[] modules, String datatypeName) {
 		for (ObjectModelType module : modules) {
 			ArrayData arrayData = getArrayDataByName(module, datatypeName);
 			if (arrayData != null) {
@@ -572,44 +907,31 @@ public class OmtFunctions {
 	/**
 	 * Parse the cardinality of an array type.
 	 *
-	 * Syntax is: '[' <min> '..' <max> ']' | <value> | 'Dynamic'
+	 * Syntax is: '[' <min> '..' <max> ']' | <value> | 'Dynamic', or a comma
+	 * separated list of these for a multidimensional array. The result is the
+	 * total number of elements; an unbounded maximum is Integer.MAX_VALUE.
 	 *
 	 * @param dt Array datatype
 	 * @return cardinality (>= 0) or null on error
+	 * @see Cardinality#of(ArrayData)
 	 */
 	public static int[] geCardinality(ArrayData dt) {
-		try {
-			String cardinality = dt.getCardinality().getValue();
-
-			if (cardinality.equals(OmtMimConstants.DYNAMIC)) {
-				return new int[]{0, Integer.MAX_VALUE};
-			}
-
-			int first = cardinality.indexOf('[');
-			int last = cardinality.lastIndexOf(']');
-
-			if (first == -1 && last == -1) {
-				// must be a single value
-				int v = Integer.parseInt(cardinality);
-				return (v < 0) ? null : new int[]{v, v};
-			}
-
-			if (first == -1 || last == -1) {
-				return null;
-			}
-
-			// must be a min, max
-			String part[] = cardinality.substring(first + 1, last).split("\\.\\.");
-			if (part == null || part.length != 2 || part[0] == null || part[1] == null) {
-				return null;
-			}
+		if (dt == null) {
+			return null;
+		}
 
-			return new int[]{Integer.parseInt(part[0]), Integer.parseInt(part[1])};
-		} catch (NumberFormatException ex) {
+		try {
+			Cardinality cardinality = Cardinality.of(dt);
+			return new int[]{count(cardinality.getMinElements()), count(cardinality.getMaxElements())};
+		} catch (IllegalArgumentException ex) {
 			return null;
 		}
 	}
 
+	private static int count(long n) {
+		return n == Cardinality.UNBOUNDED || n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+	}
+
 	/**
 	 * Gets all array datatype with a given encoding
 	 *
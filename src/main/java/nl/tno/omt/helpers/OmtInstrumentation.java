@@ -0,0 +1,312 @@
+package nl.tno.omt.helpers;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ServiceLoader;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import nl.tno.omt.helpers.OmtMetrics.Lookup;
+
+/**
+ * JFR events and OmtMetrics dispatch for the instrumented operations.
+ *
+ * An instrumented operation calls a begin method, which returns null when
+ * neither the JFR event nor an OmtMetrics implementation is enabled. In that
+ * case nothing is measured, the streams are not wrapped, and the end method
+ * returns immediately. The event instance of a disabled event does not escape
+ * and is removed by the JIT compiler.
+ *
+ * @author bergtwvd
+ */
+final class OmtInstrumentation {
+
+	private static volatile OmtMetrics metrics = ServiceLoader.load(OmtMetrics.class).findFirst().orElse(null);
+
+	private OmtInstrumentation() {
+	}
+
+	static void setMetrics(OmtMetrics m) {
+		metrics = m;
+	}
+
+	static OmtMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Name("nl.tno.omt.ReadOmt")
+	@Label("Read OMT")
+	@Description("FOM module read with OmtFunctions.readOmt")
+	@Category("OMT")
+	@StackTrace(false)
+	static final class ReadOmtEvent extends Event {
+
+		@Label("Module")
+		String module;
+
+		@Label("Size")
+		@Description("Bytes read, or characters for a Reader")
+		@DataAmount
+		long size;
+
+		// start of the measurement for OmtMetrics; transient fields are not recorded
+		transient long start;
+	}
+
+	@Name("nl.tno.omt.WriteOmt")
+	@Label("Write OMT")
+	@Description("FOM module written with OmtFunctions.writeOmt")
+	@Category("OMT")
+	@StackTrace(false)
+	static final class WriteOmtEvent extends Event {
+
+		@Label("Size")
+		@Description("Bytes written, or characters for a Writer")
+		@DataAmount
+		long size;
+
+		@Label("Formatted")
+		boolean formatted;
+
+		transient long start;
+	}
+
+	@Name("nl.tno.omt.JaxbContext")
+	@Label("JAXB Context")
+	@Description("Creation of the JAXB context for ObjectModelType")
+	@Category("OMT")
+	static final class JaxbContextEvent extends Event {
+
+		transient long start;
+	}
+
+	@Name("nl.tno.omt.Lookup")
+	@Label("OMT Lookup")
+	@Description("Lookup in OmtFunctions or OmtJavaMapping")
+	@Category("OMT")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class LookupEvent extends Event {
+
+		@Label("Lookup")
+		String lookup;
+
+		@Label("Name")
+		String name;
+
+		@Label("Hit")
+		boolean hit;
+
+		transient long start;
+	}
+
+	// whether an event type is enabled does not depend on the event instance;
+	// a shared instance avoids an allocation per lookup when nothing is measured
+	private static final LookupEvent LOOKUP_ENABLED = new LookupEvent();
+
+	static ReadOmtEvent beginRead(String module) {
+		ReadOmtEvent event = new ReadOmtEvent();
+		if (!event.isEnabled() && metrics == null) {
+			return null;
+		}
+		event.module = module;
+		event.start = System.nanoTime();
+		event.begin();
+		return event;
+	}
+
+	static InputStream count(ReadOmtEvent event, InputStream input) {
+		return event == null ? input : new FilterInputStream(input) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b != -1) {
+					event.size++;
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0) {
+					event.size += n;
+				}
+				return n;
+			}
+		};
+	}
+
+	static Reader count(ReadOmtEvent event, Reader input) {
+		return event == null ? input : new FilterReader(input) {
+			@Override
+			public int read() throws IOException {
+				int c = super.read();
+				if (c != -1) {
+					event.size++;
+				}
+				return c;
+			}
+
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				int n = super.read(cbuf, off, len);
+				if (n > 0) {
+					event.size += n;
+				}
+				return n;
+			}
+		};
+	}
+
+	static void end(ReadOmtEvent event) {
+		if (event == null) {
+			return;
+		}
+		long nanos = System.nanoTime() - event.start;
+		event.commit();
+
+		OmtMetrics m = metrics;
+		if (m != null) {
+			m.readOmt(event.module, event.size, nanos);
+		}
+	}
+
+	static WriteOmtEvent beginWrite(boolean formatted) {
+		WriteOmtEvent event = new WriteOmtEvent();
+		if (!event.isEnabled() && metrics == null) {
+			return null;
+		}
+		event.formatted = formatted;
+		event.start = System.nanoTime();
+		event.begin();
+		return event;
+	}
+
+	static OutputStream count(WriteOmtEvent event, OutputStream output) {
+		return event == null ? output : new FilterOutputStream(output) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				event.size++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				event.size += len;
+			}
+		};
+	}
+
+	static Writer count(WriteOmtEvent event, Writer output) {
+		return event == null ? output : new FilterWriter(output) {
+			@Override
+			public void write(int c) throws IOException {
+				out.write(c);
+				event.size++;
+			}
+
+			@Override
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				out.write(cbuf, off, len);
+				event.size += len;
+			}
+
+			@Override
+			public void write(String str, int off, int len) throws IOException {
+				out.write(str, off, len);
+				event.size += len;
+			}
+		};
+	}
+
+	static void end(WriteOmtEvent event, long size) {
+		if (event != null) {
+			event.size = size;
+			end(event);
+		}
+	}
+
+	static void end(WriteOmtEvent event) {
+		if (event == null) {
+			return;
+		}
+		long nanos = System.nanoTime() - event.start;
+		event.commit();
+
+		OmtMetrics m = metrics;
+		if (m != null) {
+			m.writeOmt(event.size, event.formatted, nanos);
+		}
+	}
+
+	static JaxbContextEvent beginJaxbContext() {
+		JaxbContextEvent event = new JaxbContextEvent();
+		event.start = System.nanoTime();
+		event.begin();
+		return event;
+	}
+
+	static void end(JaxbContextEvent event) {
+		long nanos = System.nanoTime() - event.start;
+		event.commit();
+
+		OmtMetrics m = metrics;
+		if (m != null) {
+			m.jaxbContextCreated(nanos);
+		}
+	}
+
+	static LookupEvent beginLookup() {
+		if (!LOOKUP_ENABLED.isEnabled() && metrics == null) {
+			return null;
+		}
+		LookupEvent event = new LookupEvent();
+		event.start = System.nanoTime();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends a lookup and returns its result.
+	 *
+	 * @param <T> result type
+	 * @param event the event returned by beginLookup
+	 * @param lookup the lookup
+	 * @param name the looked up name
+	 * @param result the result, null on a miss
+	 * @return the result
+	 */
+	static <T> T end(LookupEvent event, Lookup lookup, String name, T result) {
+		if (event == null) {
+			return result;
+		}
+		long nanos = System.nanoTime() - event.start;
+		event.end();
+		if (event.shouldCommit()) {
+			event.lookup = lookup.name();
+			event.name = name;
+			event.hit = result != null;
+			event.commit();
+		}
+
+		OmtMetrics m = metrics;
+		if (m != null) {
+			m.lookup(lookup, result != null, nanos);
+		}
+		return result;
+	}
+}
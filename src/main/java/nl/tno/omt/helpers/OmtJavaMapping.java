@@ -1,14 +1,18 @@
 package nl.tno.omt.helpers;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import nl.tno.omt.ArrayDataTypesType;
 import nl.tno.omt.EnumeratedDataTypesType;
 import nl.tno.omt.FixedRecordDataTypesType;
 import nl.tno.omt.ObjectModelType;
 import nl.tno.omt.SimpleDataTypesType;
 import nl.tno.omt.VariantRecordDataTypesType;
+import nl.tno.omt.helpers.OmtInstrumentation.LookupEvent;
+import nl.tno.omt.helpers.OmtMetrics.Lookup;
 
 /**
  * Class with static helper methods to support the mapping of OMT names to and from Java names.
@@ -17,11 +21,13 @@ import nl.tno.omt.VariantRecordDataTypesType;
  */
 public class OmtJavaMapping {
 
-  // map of OMT presentation name to Java type
-  private static final Map<String, JavaPrimitiveType> representationMap = new HashMap<>();
+  // mappings used by the static methods; replaced as a whole when a mapping is added
+  private static volatile JavaTypeMapping defaultMapping = JavaTypeMapping.builder().build();
 
-  // specific OMT datatype mappings to Java types
-  private static final Map<String, JavaDataType> datatypeMap = new HashMap<>();
+  // bounded caches of escaped names; names without '-' or '_' are not escaped and not cached
+  private static final int NAME_CACHE_SIZE = 8192;
+  private static final Map<String, String> javaNames = new ConcurrentHashMap<>();
+  private static final Map<String, String> omtNames = new ConcurrentHashMap<>();
 
   // enumeration of Java primitive types
   public enum JavaPrimitiveType {
@@ -54,10 +60,10 @@ public class OmtJavaMapping {
   public static class JavaDataType {
 
     // Java type name
-    String datatypeName;
+    final String datatypeName;
 
     // Java imports needed for this type
-    Set<String> imports;
+    final Set<String> imports;
 
     public JavaDataType(String datatypeName, Set<String> imports) {
       this.datatypeName = datatypeName;
@@ -73,18 +79,23 @@ public class OmtJavaMapping {
     }
   }
 
-  static {
-    // add the standard OMT representations to the map
-    representationMap.put(OmtMimConstants.HLAOCTET, JavaPrimitiveType.BYTE);
-    representationMap.put(OmtMimConstants.HLAINTEGER16BE, JavaPrimitiveType.SHORT);
-    representationMap.put(OmtMimConstants.HLAINTEGER32BE, JavaPrimitiveType.INTEGER);
-    representationMap.put(OmtMimConstants.HLAINTEGER64BE, JavaPrimitiveType.LONG);
-    representationMap.put(OmtMimConstants.HLAUNSIGNEDINTEGER16BE, JavaPrimitiveType.SHORT);
-    representationMap.put(OmtMimConstants.HLAUNSIGNEDINTEGER32BE, JavaPrimitiveType.INTEGER);
-    representationMap.put(OmtMimConstants.HLAUNSIGNEDINTEGER64BE, JavaPrimitiveType.LONG);
-    representationMap.put(OmtMimConstants.HLAFLOAT32BE, JavaPrimitiveType.FLOAT);
-    representationMap.put(OmtMimConstants.HLAFLOAT64BE, JavaPrimitiveType.DOUBLE);
-    representationMap.put(OmtMimConstants.HLAOCTETPAIRBE, JavaPrimitiveType.CHARACTER);
+  /**
+   * Returns the mappings used by the static methods. The default mappings contain the standard OMT
+   * representations and the mappings added with addRepresentations and addDatatype.
+   *
+   * @return default mappings
+   */
+  public static JavaTypeMapping getDefaultMapping() {
+    return defaultMapping;
+  }
+
+  /**
+   * Replaces the mappings used by the static methods.
+   *
+   * @param mapping default mappings
+   */
+  public static synchronized void setDefaultMapping(JavaTypeMapping mapping) {
+    defaultMapping = Objects.requireNonNull(mapping);
   }
 
   /**
@@ -92,8 +103,9 @@ public class OmtJavaMapping {
    *
    * @param representations Map with representations
    */
-  public static void addRepresentations(Map<String, JavaPrimitiveType> representations) {
-    representationMap.putAll(representations);
+  public static synchronized void addRepresentations(
+      Map<String, JavaPrimitiveType> representations) {
+    defaultMapping = defaultMapping.toBuilder().addRepresentations(representations).build();
   }
 
   /**
@@ -103,8 +115,10 @@ public class OmtJavaMapping {
    * @param javaTypeName Java type name
    * @param imports required Java import statements for datatype
    */
-  public static void addDatatype(String omtDatatypeName, String javaTypeName, Set<String> imports) {
-    datatypeMap.put(omtDatatypeName, new JavaDataType(javaTypeName, imports));
+  public static synchronized void addDatatype(
+      String omtDatatypeName, String javaTypeName, Set<String> imports) {
+    defaultMapping =
+        defaultMapping.toBuilder().addDatatype(omtDatatypeName, javaTypeName, imports).build();
   }
 
   /**
@@ -114,7 +128,12 @@ public class OmtJavaMapping {
    * @return Java type name or null
    */
   public static JavaDataType getJavaDatatypeName(String omtDatatypeName) {
-    return datatypeMap.get(omtDatatypeName);
+    LookupEvent event = OmtInstrumentation.beginLookup();
+    return OmtInstrumentation.end(
+        event,
+        Lookup.JAVA_DATATYPE_MAPPING,
+        omtDatatypeName,
+        defaultMapping.getDatatype(omtDatatypeName));
   }
 
   /**
@@ -123,13 +142,32 @@ public class OmtJavaMapping {
    * <p>Escape "-" in the OMT name as follows: convert n x "_" to 2n x "_" and convert n x "-" to
    * 2n+1 x "_".
    *
+   * <p>Names without "-" and "_" are returned as is; escaped names are cached.
+   *
    * @param omtName OMT name
    * @return escaped Java name
    */
   public static String toJavaName(String omtName) {
     if (omtName.equals("Class")) return "Class_";
+    if (omtName.indexOf('-') == -1 && omtName.indexOf('_') == -1) return omtName;
+
+    String javaName = javaNames.get(omtName);
+    if (javaName == null) {
+      javaName = escape(omtName);
+      cache(javaNames, omtName, javaName);
+    }
+    return javaName;
+  }
 
-    StringBuilder sb = new StringBuilder();
+  private static void cache(Map<String, String> cache, String key, String value) {
+    if (cache.size() >= NAME_CACHE_SIZE) {
+      cache.clear();
+    }
+    cache.put(key, value);
+  }
+
+  private static String escape(String omtName) {
+    StringBuilder sb = new StringBuilder(omtName.length() + 8);
     for (int i = 0; i < omtName.length(); ) {
       switch (omtName.charAt(i)) {
         case '-' -> {
@@ -159,13 +197,28 @@ public class OmtJavaMapping {
    * <p>Unescape "_" in the Java name as follows: convert 2n x "_" to n x "_" and convert 2n+1 x "_"
    * to n x "-"
    *
+   * <p>Names without "_" are returned as is; unescaped names are cached.
+   *
+   * <p>The escaping is not one-to-one: "a--b" and "a_-b" both have Java name "a_____b", which is
+   * converted back to "a--b".
+   *
    * @param javaName Java name
    * @return unescaped OMT name
    */
   public static String toOmtName(String javaName) {
     if (javaName.equals("Class_")) return "Class";
+    if (javaName.indexOf('_') == -1) return javaName;
 
-    StringBuilder sb = new StringBuilder();
+    String omtName = omtNames.get(javaName);
+    if (omtName == null) {
+      omtName = unescape(javaName);
+      cache(omtNames, javaName, omtName);
+    }
+    return omtName;
+  }
+
+  private static String unescape(String javaName) {
+    StringBuilder sb = new StringBuilder(javaName.length());
     for (int i = 0; i < javaName.length(); ) {
       switch (javaName.charAt(i)) {
         case '_' -> {
@@ -225,31 +278,55 @@ public class OmtJavaMapping {
       boolean useList,
       boolean useBoxed)
       throws Exception {
+    return getJavaDatatypeName(
+        defaultMapping, modules, omtDatatypeName, dimension, useList, useBoxed);
+  }
+
+  /**
+   * Determine Java type name for the provided OMT datatype name.
+   *
+   * @param mapping The mappings to use.
+   * @param modules The FOM modules to search in.
+   * @param omtDatatypeName The OMT datatype name.
+   * @param dimension OMT Array dimension (must be >= 0)
+   * @param useList Use Java List datatype for array (i.e. dimension > 0)
+   * @param useBoxed Return boxed or unboxed name
+   * @return Java type name
+   * @throws java.lang.Exception when no mapping can be provided
+   */
+  public static String getJavaDatatypeName(
+      JavaTypeMapping mapping,
+      ObjectModelType[] modules,
+      String omtDatatypeName,
+      int dimension,
+      boolean useList,
+      boolean useBoxed)
+      throws Exception {
 
     if (dimension == 0) {
       // the datatype does not concern an array; return a boxed type if specified
-      return getJavaDatatypeName(modules, omtDatatypeName, useBoxed);
+      return getJavaDatatypeName(mapping, modules, omtDatatypeName, useBoxed);
     }
 
-    // the datatype concerns an array
+    // the datatype concerns an array; for List we must use a Boxed type for the array component,
+    // for [] we use a primitive type for the base array component
+    return toArrayTypeName(
+        getJavaDatatypeName(mapping, modules, omtDatatypeName, useList), dimension, useList);
+  }
+
+  /**
+   * Returns the Java type name of an array of the given component type.
+   *
+   * @param javaDatatypeName Java component type name, boxed if useList is true
+   * @param dimension array dimension
+   * @param useList Use Java List datatype for array
+   * @return Java type name
+   */
+  static String toArrayTypeName(String javaDatatypeName, int dimension, boolean useList) {
     if (useList) {
-      // for List we must use a Boxed type for the array component
-      String javaDatatypeName = "";
-      for (int i = 0; i < dimension; i++) {
-        javaDatatypeName += "List<";
-      }
-      javaDatatypeName += getJavaDatatypeName(modules, omtDatatypeName, true);
-      for (int i = 0; i < dimension; i++) {
-        javaDatatypeName += ">";
-      }
-      return javaDatatypeName;
+      return "List<".repeat(dimension) + javaDatatypeName + ">".repeat(dimension);
     } else {
-      // for [] we use a primitive type for the base array component
-      String javaDatatypeName = getJavaDatatypeName(modules, omtDatatypeName, false);
-      for (int i = 0; i < dimension; i++) {
-        javaDatatypeName += "[]";
-      }
-      return javaDatatypeName;
+      return javaDatatypeName + "[]".repeat(dimension);
     }
   }
 
@@ -289,34 +366,69 @@ public class OmtJavaMapping {
    */
   public static String getJavaDatatypeName(
       ObjectModelType[] modules, String omtDatatypeName, boolean useBoxed) throws Exception {
+    return getJavaDatatypeName(defaultMapping, modules, omtDatatypeName, useBoxed);
+  }
+
+  /**
+   * Returns the Java type name for the provided OMT datatype name.
+   *
+   * @param mapping The mappings to use
+   * @param modules FOM modules
+   * @param omtDatatypeName OMT datatype name
+   * @param useBoxed Return boxed or unboxed Java type name
+   * @return Java type name
+   * @throws java.lang.Exception when there is no mapping
+   */
+  public static String getJavaDatatypeName(
+      JavaTypeMapping mapping,
+      ObjectModelType[] modules,
+      String omtDatatypeName,
+      boolean useBoxed)
+      throws Exception {
+    LookupEvent event = OmtInstrumentation.beginLookup();
+    String javaDatatypeName = null;
+    try {
+      javaDatatypeName = findJavaDatatypeName(mapping, modules, omtDatatypeName, useBoxed);
+      return javaDatatypeName;
+    } finally {
+      OmtInstrumentation.end(event, Lookup.JAVA_DATATYPE, omtDatatypeName, javaDatatypeName);
+    }
+  }
+
+  private static String findJavaDatatypeName(
+      JavaTypeMapping mapping,
+      ObjectModelType[] modules,
+      String omtDatatypeName,
+      boolean useBoxed)
+      throws Exception {
 
     // check for specific mapping first
-    JavaDataType javaDatatype = datatypeMap.get(omtDatatypeName);
+    JavaDataType javaDatatype = mapping.getDatatype(omtDatatypeName);
     if (javaDatatype != null) {
       return javaDatatype.getDatatypeName();
     }
 
     SimpleDataTypesType.SimpleData simpleData =
-        OmtFunctions.getSimpleDataByName(modules, omtDatatypeName);
+        find(modules, omtDatatypeName, OmtFunctions::getSimpleDataByName);
     if (simpleData != null) {
       return getJavaDatatypeNameForRepresentation(
-          simpleData.getRepresentation().getValue(), useBoxed);
+          mapping, simpleData.getRepresentation().getValue(), useBoxed);
     }
 
     FixedRecordDataTypesType.FixedRecordData fixedRecordData =
-        OmtFunctions.getFixedRecordDataByName(modules, omtDatatypeName);
+        find(modules, omtDatatypeName, OmtFunctions::getFixedRecordDataByName);
     if (fixedRecordData != null) {
       return omtDatatypeName;
     }
 
     VariantRecordDataTypesType.VariantRecordData variantRecordData =
-        OmtFunctions.getVariantRecordDataByName(modules, omtDatatypeName);
+        find(modules, omtDatatypeName, OmtFunctions::getVariantRecordDataByName);
     if (variantRecordData != null) {
       return omtDatatypeName;
     }
 
     EnumeratedDataTypesType.EnumeratedData enumeratedData =
-        OmtFunctions.getEnumeratedDataByName(modules, omtDatatypeName);
+        find(modules, omtDatatypeName, OmtFunctions::getEnumeratedDataByName);
     if (enumeratedData != null) {
       // OMT HLABOOLEAN is mapped to Java boolean
       if (omtDatatypeName.equals(OmtMimConstants.HLABOOLEAN)) {
@@ -327,7 +439,7 @@ public class OmtJavaMapping {
     }
 
     ArrayDataTypesType.ArrayData arrayData =
-        OmtFunctions.getArrayDataByName(modules, omtDatatypeName);
+        find(modules, omtDatatypeName, OmtFunctions::getArrayDataByName);
     if (arrayData != null) {
       // can only be char type; an array of char - regardless of the cardinality - is mapped to Java
       // String
@@ -340,6 +452,19 @@ public class OmtJavaMapping {
     throw new Exception("Unknown datatype " + omtDatatypeName);
   }
 
+  // uninstrumented lookup over the modules, so that probing each datatype category is not
+  // reported as a miss
+  private static <T> T find(
+      ObjectModelType[] modules, String name, BiFunction<ObjectModelType, String, T> lookup) {
+    for (ObjectModelType module : modules) {
+      T result = lookup.apply(module, name);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
   /**
    * Returns Java type name for the provided OMT representation name.
    *
@@ -350,7 +475,21 @@ public class OmtJavaMapping {
    */
   public static String getJavaDatatypeNameForRepresentation(
       String omtRepresentatioName, boolean useBoxed) throws Exception {
-    JavaPrimitiveType javaType = OmtJavaMapping.representationMap.get(omtRepresentatioName);
+    return getJavaDatatypeNameForRepresentation(defaultMapping, omtRepresentatioName, useBoxed);
+  }
+
+  /**
+   * Returns Java type name for the provided OMT representation name.
+   *
+   * @param mapping The mappings to use
+   * @param omtRepresentatioName The OMT representation name.
+   * @param useBoxed Return boxed or unboxed Java type name
+   * @return Java type name
+   * @throws java.lang.Exception when there is no mapping
+   */
+  public static String getJavaDatatypeNameForRepresentation(
+      JavaTypeMapping mapping, String omtRepresentatioName, boolean useBoxed) throws Exception {
+    JavaPrimitiveType javaType = mapping.getRepresentation(omtRepresentatioName);
     if (javaType != null) {
       return useBoxed ? javaType.getBoxdedType() : javaType.getUnboxedType();
     }
@@ -0,0 +1,99 @@
+package nl.tno.omt.helpers;
+
+/**
+ * Metrics hooks for reading, writing and lookups in this library.
+ *
+ * An implementation is installed with install(OmtMetrics), or discovered with
+ * the ServiceLoader when this library is first used. The hooks are called on
+ * the thread that performs the operation and must be thread-safe and cheap.
+ * When no implementation is installed, and the JFR events of this library
+ * are disabled, the instrumented operations do not measure anything.
+ *
+ * The same operations are recorded as JDK Flight Recorder events:
+ * nl.tno.omt.ReadOmt, nl.tno.omt.WriteOmt and nl.tno.omt.JaxbContext are
+ * enabled by default, nl.tno.omt.Lookup is disabled by default because of its
+ * frequency.
+ *
+ * @author bergtwvd
+ */
+public interface OmtMetrics {
+
+	/**
+	 * Instrumented lookups. The ObjectModelType[] lookups of OmtFunctions are
+	 * reported under the kind of the looked up element; lookups that use other
+	 * lookups, such as getObjectClassAttributes, are reported once and not
+	 * their nested lookups.
+	 */
+	enum Lookup {
+		BASIC_DATA,
+		SIMPLE_DATA,
+		ENUMERATED_DATA,
+		ARRAY_DATA,
+		FIXED_RECORD_DATA,
+		VARIANT_RECORD_DATA,
+		OBJECT_CLASS,
+		INTERACTION_CLASS,
+		OBJECT_CLASS_ATTRIBUTES,
+		INTERACTION_CLASS_PARAMETERS,
+		// OmtJavaMapping.getJavaDatatypeName(modules, name, useBoxed)
+		JAVA_DATATYPE,
+		// OmtJavaMapping.getJavaDatatypeName(name)
+		JAVA_DATATYPE_MAPPING
+	}
+
+	/**
+	 * Called after a module was read with OmtFunctions.readOmt.
+	 *
+	 * @param module module URL, or null if read from a stream
+	 * @param size number of bytes read, or characters for a Reader
+	 * @param nanos duration in nanoseconds
+	 */
+	default void readOmt(String module, long size, long nanos) {
+	}
+
+	/**
+	 * Called after a module was written with OmtFunctions.writeOmt.
+	 *
+	 * @param size number of bytes written, or characters for a Writer
+	 * @param formatted true if formatted output was written
+	 * @param nanos duration in nanoseconds
+	 */
+	default void writeOmt(long size, boolean formatted, long nanos) {
+	}
+
+	/**
+	 * Called once, after the JAXB context was created.
+	 *
+	 * @param nanos duration in nanoseconds
+	 */
+	default void jaxbContextCreated(long nanos) {
+	}
+
+	/**
+	 * Called after a lookup.
+	 *
+	 * @param lookup the lookup
+	 * @param hit true if the element was found
+	 * @param nanos duration in nanoseconds
+	 */
+	default void lookup(Lookup lookup, boolean hit, long nanos) {
+	}
+
+	/**
+	 * Installs the metrics implementation, replacing the current one.
+	 *
+	 * @param metrics the implementation, or null to disable metrics
+	 */
+	static void install(OmtMetrics metrics) {
+		OmtInstrumentation.setMetrics(metrics);
+	}
+
+	/**
+	 * Returns the installed metrics implementation.
+	 *
+	 * @return the implementation or null
+	 */
+	static OmtMetrics installed() {
+		return OmtInstrumentation.getMetrics();
+	}
+}
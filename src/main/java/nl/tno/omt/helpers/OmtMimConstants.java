@@ -36,6 +36,12 @@ public class OmtMimConstants {
   public static final String HLAUNSIGNEDINTEGER64BE = "HLAunsignedInteger64BE";
   public static final String HLAFLOAT32BE = "HLAfloat32BE";
   public static final String HLAFLOAT64BE = "HLAfloat64BE";
+  public static final String HLAOCTETPAIRLE = "HLAoctetPairLE";
+  public static final String HLAINTEGER16LE = "HLAinteger16LE";
+  public static final String HLAINTEGER32LE = "HLAinteger32LE";
+  public static final String HLAINTEGER64LE = "HLAinteger64LE";
+  public static final String HLAFLOAT32LE = "HLAfloat32LE";
+  public static final String HLAFLOAT64LE = "HLAfloat64LE";
 
   // MIM simple datatype names
   public static final String HLAASCIICHAR = "HLAASCIIchar";
@@ -0,0 +1,774 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import nl.tno.omt.ObjectModelType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Compact binary snapshot format for ObjectModelType.
+ *
+ * The snapshot contains all fields of the generated nl.tno.omt types, so a
+ * model read from a snapshot is equal to the model that was written. Strings
+ * are written once; repeated strings, such as names and datatype references,
+ * are written as index into the table of strings read so far. Wildcard
+ * content (DOM elements) is stored as a tree of nodes.
+ *
+ * The snapshot starts with a magic number, the format version and a
+ * fingerprint of the generated classes. A snapshot written with another
+ * format version or another schema is rejected.
+ *
+ * @author bergtwvd
+ */
+final class OmtSnapshot {
+
+	// snapshot magic number, "OMTS"
+	static final int MAGIC = 0x4f4d5453;
+
+	// snapshot format version
+	static final int FORMAT_VERSION = 1;
+
+	// value kinds of fields and list elements
+	private enum Kind {
+		STRING, BOOLEAN, SHORT, BIG_INTEGER, BIG_DECIMAL, BYTES, CALENDAR, ENUM, OBJECT, LIST, ANY, OTHER_ATTRIBUTES
+	}
+
+	// encoding of a field or list element value
+	private static final class ValuePlan {
+
+		Kind kind;
+		Field field;
+		Class<?> type;
+		Object[] enumConstants;
+		ClassPlan classPlan;
+		ValuePlan elementPlan;
+	}
+
+	// encoding of a generated class
+	private static final class ClassPlan {
+
+		Constructor<?> constructor;
+		ValuePlan[] fields;
+	}
+
+	private static final Map<Class<?>, ClassPlan> classPlans = new HashMap<>();
+
+	private static final ClassPlan rootPlan;
+
+	private static final int fingerprint;
+
+	private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+
+	static {
+		StringBuilder layout = new StringBuilder();
+		rootPlan = createClassPlan(ObjectModelType.class, layout);
+
+		CRC32 crc = new CRC32();
+		crc.update(layout.toString().getBytes(StandardCharsets.UTF_8));
+		fingerprint = (int) crc.getValue();
+	}
+
+	private OmtSnapshot() {
+	}
+
+	// datatype factory for calendar values, created on first use; the factory is stateless
+	private static class DatatypeFactoryHolder {
+
+		private static final DatatypeFactory factory;
+		private static final DatatypeConfigurationException exception;
+
+		static {
+			DatatypeFactory f = null;
+			DatatypeConfigurationException e = null;
+			try {
+				f = DatatypeFactory.newInstance();
+			} catch (DatatypeConfigurationException ex) {
+				e = ex;
+			}
+			factory = f;
+			exception = e;
+		}
+	}
+
+	private static ClassPlan createClassPlan(Class<?> type, StringBuilder layout) {
+		ClassPlan plan = classPlans.get(type);
+		if (plan != null) {
+			return plan;
+		}
+
+		plan = new ClassPlan();
+		classPlans.put(type, plan);
+		layout.append(type.getName()).append('{');
+
+		try {
+			plan.constructor = type.getDeclaredConstructor();
+			plan.constructor.setAccessible(true);
+		} catch (NoSuchMethodException ex) {
+			throw new IllegalStateException("No default constructor for " + type, ex);
+		}
+
+		// fields of the superclasses first, ordered by name for a stable layout
+		List<Class<?>> hierarchy = new ArrayList<>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			hierarchy.add(0, c);
+		}
+
+		List<ValuePlan> fields = new ArrayList<>();
+		for (Class<?> c : hierarchy) {
+			Field[] declared = c.getDeclaredFields();
+			Arrays.sort(declared, Comparator.comparing(Field::getName));
+			for (Field field : declared) {
+				if (Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+				field.setAccessible(true);
+				layout.append(field.getName()).append(':');
+				ValuePlan fieldPlan = createValuePlan(field.getType(), field.getGenericType(), layout);
+				fieldPlan.field = field;
+				fields.add(fieldPlan);
+				layout.append(';');
+			}
+		}
+
+		plan.fields = fields.toArray(new ValuePlan[0]);
+		layout.append('}');
+		return plan;
+	}
+
+	private static ValuePlan createValuePlan(Class<?> type, Type genericType, StringBuilder layout) {
+		ValuePlan plan = new ValuePlan();
+		plan.type = type;
+
+		if (type == String.class) {
+			plan.kind = Kind.STRING;
+		} else if (type == Boolean.class) {
+			plan.kind = Kind.BOOLEAN;
+		} else if (type == Short.class) {
+			plan.kind = Kind.SHORT;
+		} else if (type == BigInteger.class) {
+			plan.kind = Kind.BIG_INTEGER;
+		} else if (type == BigDecimal.class) {
+			plan.kind = Kind.BIG_DECIMAL;
+		} else if (type == byte[].class) {
+			plan.kind = Kind.BYTES;
+		} else if (type == XMLGregorianCalendar.class) {
+			plan.kind = Kind.CALENDAR;
+		} else if (type.isEnum()) {
+			plan.kind = Kind.ENUM;
+			plan.enumConstants = type.getEnumConstants();
+			layout.append(Arrays.toString(plan.enumConstants));
+		} else if (type == List.class) {
+			plan.kind = Kind.LIST;
+			Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+			layout.append("List<");
+			plan.elementPlan = createValuePlan((Class<?>) elementType, elementType, layout);
+			layout.append('>');
+		} else if (type == Map.class) {
+			plan.kind = Kind.OTHER_ATTRIBUTES;
+		} else if (type == Object.class) {
+			plan.kind = Kind.ANY;
+		} else if (type.getPackage() == ObjectModelType.class.getPackage()) {
+			plan.kind = Kind.OBJECT;
+			plan.classPlan = createClassPlan(type, layout);
+			return plan;
+		} else {
+			throw new IllegalStateException("Unsupported field type " + type);
+		}
+
+		layout.append(plan.kind);
+		return plan;
+	}
+
+	/**
+	 * Writes a snapshot of the model.
+	 *
+	 * @param omt the model
+	 * @param output output stream, not closed
+	 * @throws IOException on error
+	 */
+	static void write(ObjectModelType omt, OutputStream output) throws IOException {
+		Output out = new Output(64 * 1024);
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(fingerprint);
+		writeObject(out, rootPlan, omt);
+		output.write(out.buffer, 0, out.size);
+	}
+
+	private static ClassPlan classPlan(Object node) {
+		ClassPlan plan = classPlans.get(node.getClass());
+		if (plan == null) {
+			throw new IllegalArgumentException("Not an OMT node: " + node.getClass().getName());
+		}
+		return plan;
+	}
+
+	private static boolean isExcluded(ValuePlan field, String[] excluded) {
+		for (String name : excluded) {
+			if (field.field.getName().equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the snapshot encoding of a single node of a model, without
+	 * header. Two nodes with equal content have equal encodings, so the
+	 * encoding can be used to compare nodes.
+	 *
+	 * @param node node of a generated nl.tno.omt type
+	 * @param excluded names of fields of the node that are not encoded
+	 * @return encoding of the node
+	 * @throws IOException on unsupported content
+	 */
+	static byte[] toBytes(Object node, String... excluded) throws IOException {
+		ClassPlan plan = classPlan(node);
+		Output out = new Output(256);
+		try {
+			for (ValuePlan field : plan.fields) {
+				if (!isExcluded(field, excluded)) {
+					writeValue(out, field, field.field.get(node));
+				}
+			}
+		} catch (IllegalAccessException ex) {
+			throw new IOException(ex);
+		}
+		return Arrays.copyOf(out.buffer, out.size);
+	}
+
+	/**
+	 * Returns the names of the fields that differ between two nodes of the
+	 * same type.
+	 *
+	 * @param a first node
+	 * @param b second node
+	 * @param excluded names of fields that are not compared
+	 * @return names of the differing fields, in encoding order
+	 * @throws IOException on unsupported content
+	 */
+	static List<String> changedFields(Object a, Object b, String... excluded) throws IOException {
+		if (a.getClass() != b.getClass()) {
+			throw new IllegalArgumentException("Different node types " + a.getClass().getName() + " and " + b.getClass().getName());
+		}
+
+		List<String> changed = new ArrayList<>();
+		try {
+			for (ValuePlan field : classPlan(a).fields) {
+				if (isExcluded(field, excluded)) {
+					continue;
+				}
+				Output outA = new Output(64);
+				writeValue(outA, field, field.field.get(a));
+				Output outB = new Output(64);
+				writeValue(outB, field, field.field.get(b));
+				if (!Arrays.equals(outA.buffer, 0, outA.size, outB.buffer, 0, outB.size)) {
+					changed.add(field.field.getName());
+				}
+			}
+		} catch (IllegalAccessException ex) {
+			throw new IOException(ex);
+		}
+		return changed;
+	}
+
+	/**
+	 * Copies the field values of a node to another node of the same type. The
+	 * values are not copied deeply.
+	 *
+	 * @param from source node
+	 * @param to target node
+	 * @param excluded names of fields that are not copied
+	 * @throws IOException on error
+	 */
+	static void copyFields(Object from, Object to, String... excluded) throws IOException {
+		try {
+			for (ValuePlan field : classPlan(from).fields) {
+				if (!isExcluded(field, excluded)) {
+					if (field.kind == Kind.OTHER_ATTRIBUTES) {
+						@SuppressWarnings("unchecked")
+						Map<QName, String> map = (Map<QName, String>) field.field.get(to);
+						map.clear();
+						@SuppressWarnings("unchecked")
+						Map<QName, String> source = (Map<QName, String>) field.field.get(from);
+						map.putAll(source);
+					} else {
+						field.field.set(to, field.field.get(from));
+					}
+				}
+			}
+		} catch (IllegalAccessException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Returns a deep copy of a model or of a node of a model.
+	 *
+	 * @param <T> node type
+	 * @param node the model or node
+	 * @return the copy
+	 * @throws IOException on unsupported content
+	 */
+	static <T> T copy(T node) throws IOException {
+		ClassPlan plan = classPlan(node);
+		Output out = new Output(node instanceof ObjectModelType ? 64 * 1024 : 256);
+		writeObject(out, plan, node);
+		@SuppressWarnings("unchecked")
+		T copy = (T) readObject(new Input(ByteBuffer.wrap(out.buffer, 0, out.size)), plan);
+		return copy;
+	}
+
+	/**
+	 * Reads a snapshot from a stream.
+	 *
+	 * @param input input stream, not closed
+	 * @return the model
+	 * @throws IOException on error
+	 */
+	static ObjectModelType read(InputStream input) throws IOException {
+		return read(ByteBuffer.wrap(input.readAllBytes()));
+	}
+
+	/**
+	 * Reads a snapshot from a buffer, starting at the position of the buffer.
+	 *
+	 * @param buffer buffer, e.g. a memory mapped file
+	 * @return the model
+	 * @throws IOException on error
+	 */
+	static ObjectModelType read(ByteBuffer buffer) throws IOException {
+		Input in = new Input(buffer);
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not an OMT snapshot");
+			}
+			int version = in.readInt();
+			if (version != FORMAT_VERSION) {
+				throw new IOException("Unsupported OMT snapshot version " + version);
+			}
+			if (in.readInt() != fingerprint) {
+				throw new IOException("OMT snapshot was written for another OMT schema");
+			}
+			return (ObjectModelType) readObject(in, rootPlan);
+		} catch (RuntimeException ex) {
+			throw new IOException("Corrupt OMT snapshot", ex);
+		}
+	}
+
+	private static void writeObject(Output out, ClassPlan plan, Object object) throws IOException {
+		try {
+			for (ValuePlan field : plan.fields) {
+				writeValue(out, field, field.field.get(object));
+			}
+		} catch (IllegalAccessException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private static void writeValue(Output out, ValuePlan plan, Object value) throws IOException {
+		switch (plan.kind) {
+			case STRING ->
+				out.writeString((String) value);
+			case BOOLEAN ->
+				out.writeByte(value == null ? 0 : ((Boolean) value ? 2 : 1));
+			case SHORT -> {
+				out.writeByte(value == null ? 0 : 1);
+				if (value != null) {
+					out.writeVarInt((Short) value);
+				}
+			}
+			case BIG_INTEGER, BIG_DECIMAL ->
+				out.writeString(value == null ? null : value.toString());
+			case BYTES -> {
+				byte[] bytes = (byte[]) value;
+				out.writeVarInt(bytes == null ? 0 : bytes.length + 1);
+				if (bytes != null) {
+					out.writeBytes(bytes, 0, bytes.length);
+				}
+			}
+			case CALENDAR ->
+				out.writeString(value == null ? null : ((XMLGregorianCalendar) value).toXMLFormat());
+			case ENUM ->
+				out.writeVarInt(value == null ? 0 : ((Enum<?>) value).ordinal() + 1);
+			case OBJECT -> {
+				if (value == null) {
+					out.writeByte(0);
+				} else if (value.getClass() != plan.type) {
+					throw new IOException("Unsupported subclass " + value.getClass().getName() + " of " + plan.type.getName());
+				} else {
+					out.writeByte(1);
+					writeObject(out, plan.classPlan, value);
+				}
+			}
+			case LIST -> {
+				List<?> list = (List<?>) value;
+				out.writeVarInt(list == null ? 0 : list.size() + 1);
+				if (list != null) {
+					for (Object element : list) {
+						writeValue(out, plan.elementPlan, element);
+					}
+				}
+			}
+			case ANY -> {
+				if (value == null) {
+					out.writeByte(0);
+				} else if (value instanceof Element element) {
+					out.writeByte(1);
+					writeElement(out, element);
+				} else {
+					throw new IOException("Unsupported wildcard content " + value.getClass().getName());
+				}
+			}
+			case OTHER_ATTRIBUTES -> {
+				@SuppressWarnings("unchecked")
+				Map<QName, String> map = (Map<QName, String>) value;
+				out.writeVarInt(map.size());
+				for (Map.Entry<QName, String> entry : map.entrySet()) {
+					out.writeString(entry.getKey().getNamespaceURI());
+					out.writeString(entry.getKey().getLocalPart());
+					out.writeString(entry.getKey().getPrefix());
+					out.writeString(entry.getValue());
+				}
+			}
+		}
+	}
+
+	private static Object readObject(Input in, ClassPlan plan) throws IOException {
+		try {
+			Object object = plan.constructor.newInstance();
+			for (ValuePlan field : plan.fields) {
+				if (field.kind == Kind.OTHER_ATTRIBUTES) {
+					// the map is created by the constructor
+					@SuppressWarnings("unchecked")
+					Map<QName, String> map = (Map<QName, String>) field.field.get(object);
+					readOtherAttributes(in, map);
+				} else {
+					Object value = readValue(in, field);
+					if (value != null) {
+						field.field.set(object, value);
+					}
+				}
+			}
+			return object;
+		} catch (ReflectiveOperationException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private static Object readValue(Input in, ValuePlan plan) throws IOException {
+		switch (plan.kind) {
+			case STRING:
+				return in.readString();
+			case BOOLEAN: {
+				int b = in.readByte();
+				return b == 0 ? null : Boolean.valueOf(b == 2);
+			}
+			case SHORT:
+				return in.readByte() == 0 ? null : Short.valueOf((short) in.readVarInt());
+			case BIG_INTEGER: {
+				String s = in.readString();
+				return s == null ? null : new BigInteger(s);
+			}
+			case BIG_DECIMAL: {
+				String s = in.readString();
+				return s == null ? null : new BigDecimal(s);
+			}
+			case BYTES: {
+				int length = in.readVarInt();
+				return length == 0 ? null : in.readBytes(length - 1);
+			}
+			case CALENDAR: {
+				String s = in.readString();
+				return s == null ? null : datatypeFactory().newXMLGregorianCalendar(s);
+			}
+			case ENUM: {
+				int ordinal = in.readVarInt();
+				return ordinal == 0 ? null : plan.enumConstants[ordinal - 1];
+			}
+			case OBJECT:
+				return in.readByte() == 0 ? null : readObject(in, plan.classPlan);
+			case LIST: {
+				int size = in.readVarInt();
+				if (size == 0) {
+					return null;
+				}
+				in.checkSize(size - 1);
+				List<Object> list = new ArrayList<>(size - 1);
+				for (int i = 0; i < size - 1; i++) {
+					list.add(readValue(in, plan.elementPlan));
+				}
+				return list;
+			}
+			case ANY:
+				return in.readByte() == 0 ? null : readElement(in, newDocument());
+			default:
+				throw new IOException("Unexpected value kind " + plan.kind);
+		}
+	}
+
+	private static void readOtherAttributes(Input in, Map<QName, String> map) throws IOException {
+		int size = in.checkSize(in.readVarInt());
+		for (int i = 0; i < size; i++) {
+			String namespace = in.readString();
+			String localPart = in.readString();
+			String prefix = in.readString();
+			map.put(new QName(namespace, localPart, prefix), in.readString());
+		}
+	}
+
+	private static DatatypeFactory datatypeFactory() throws IOException {
+		if (DatatypeFactoryHolder.factory == null) {
+			throw new IOException(DatatypeFactoryHolder.exception);
+		}
+		return DatatypeFactoryHolder.factory;
+	}
+
+	private static Document newDocument() throws IOException {
+		try {
+			synchronized (documentBuilderFactory) {
+				return documentBuilderFactory.newDocumentBuilder().newDocument();
+			}
+		} catch (ParserConfigurationException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	// wildcard DOM content is written as a tree of elements, attributes and character data
+	private static void writeElement(Output out, Element element) throws IOException {
+		out.writeString(element.getNamespaceURI());
+		out.writeString(element.getNodeName());
+
+		NamedNodeMap attributes = element.getAttributes();
+		out.writeVarInt(attributes.getLength());
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attribute = attributes.item(i);
+			out.writeString(attribute.getNamespaceURI());
+			out.writeString(attribute.getNodeName());
+			out.writeString(attribute.getNodeValue());
+		}
+
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			switch (child.getNodeType()) {
+				case Node.ELEMENT_NODE -> {
+					out.writeByte(Node.ELEMENT_NODE);
+					writeElement(out, (Element) child);
+				}
+				case Node.TEXT_NODE, Node.CDATA_SECTION_NODE, Node.COMMENT_NODE -> {
+					out.writeByte(child.getNodeType());
+					out.writeString(child.getNodeValue());
+				}
+				case Node.PROCESSING_INSTRUCTION_NODE -> {
+					out.writeByte(Node.PROCESSING_INSTRUCTION_NODE);
+					out.writeString(child.getNodeName());
+					out.writeString(child.getNodeValue());
+				}
+				default ->
+					throw new IOException("Unsupported DOM node type " + child.getNodeType());
+			}
+		}
+		out.writeByte(0);
+	}
+
+	private static Element readElement(Input in, Document document) throws IOException {
+		Element element = document.createElementNS(in.readString(), in.readString());
+
+		int attributes = in.checkSize(in.readVarInt());
+		for (int i = 0; i < attributes; i++) {
+			element.setAttributeNS(in.readString(), in.readString(), in.readString());
+		}
+
+		for (int type = in.readByte(); type != 0; type = in.readByte()) {
+			switch (type) {
+				case Node.ELEMENT_NODE ->
+					element.appendChild(readElement(in, document));
+				case Node.TEXT_NODE ->
+					element.appendChild(document.createTextNode(in.readString()));
+				case Node.CDATA_SECTION_NODE ->
+					element.appendChild(document.createCDATASection(in.readString()));
+				case Node.COMMENT_NODE ->
+					element.appendChild(document.createComment(in.readString()));
+				case Node.PROCESSING_INSTRUCTION_NODE ->
+					element.appendChild(document.createProcessingInstruction(in.readString(), in.readString()));
+				default ->
+					throw new IOException("Unexpected DOM node type " + type);
+			}
+		}
+		return element;
+	}
+
+	/**
+	 * Snapshot output buffer. Strings are written as varint, where 0 is null,
+	 * 1 is a new string followed by its UTF-8 bytes, and n + 2 is a reference
+	 * to the n-th string written before.
+	 */
+	private static final class Output {
+
+		private byte[] buffer;
+		private int size;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		Output(int capacity) {
+			buffer = new byte[capacity];
+		}
+
+		private void ensure(int n) {
+			if (size + n > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + n));
+			}
+		}
+
+		void writeByte(int b) {
+			ensure(1);
+			buffer[size++] = (byte) b;
+		}
+
+		void writeInt(int v) {
+			ensure(4);
+			buffer[size++] = (byte) (v >>> 24);
+			buffer[size++] = (byte) (v >>> 16);
+			buffer[size++] = (byte) (v >>> 8);
+			buffer[size++] = (byte) v;
+		}
+
+		void writeVarInt(int v) {
+			ensure(5);
+			while ((v & ~0x7f) != 0) {
+				buffer[size++] = (byte) ((v & 0x7f) | 0x80);
+				v >>>= 7;
+			}
+			buffer[size++] = (byte) v;
+		}
+
+		void writeBytes(byte[] bytes, int offset, int length) {
+			ensure(length);
+			System.arraycopy(bytes, offset, buffer, size, length);
+			size += length;
+		}
+
+		void writeUtf(String s) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			writeBytes(bytes, 0, bytes.length);
+		}
+
+		void writeString(String s) {
+			if (s == null) {
+				writeVarInt(0);
+				return;
+			}
+
+			Integer index = strings.get(s);
+			if (index != null) {
+				writeVarInt(index + 2);
+			} else {
+				strings.put(s, strings.size());
+				writeVarInt(1);
+				writeUtf(s);
+			}
+		}
+	}
+
+	/**
+	 * Snapshot input buffer.
+	 */
+	private static final class Input {
+
+		private final ByteBuffer buffer;
+		private final List<String> strings = new ArrayList<>();
+
+		Input(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		int readByte() {
+			return buffer.get() & 0xff;
+		}
+
+		int readInt() {
+			return buffer.getInt();
+		}
+
+		int readVarInt() {
+			int v = 0;
+			for (int shift = 0;; shift += 7) {
+				int b = buffer.get();
+				v |= (b & 0x7f) << shift;
+				if (b >= 0) {
+					return v;
+				}
+			}
+		}
+
+		/**
+		 * Checks a size read from the input, of items that take at least one
+		 * byte each, so that a corrupt size is not used to allocate.
+		 *
+		 * @param size size
+		 * @return the size
+		 * @throws IOException if the size exceeds the remaining input
+		 */
+		int checkSize(int size) throws IOException {
+			if (size < 0 || size > buffer.remaining()) {
+				throw new IOException("Corrupt OMT snapshot, size " + size + " exceeds the remaining input");
+			}
+			return size;
+		}
+
+		byte[] readBytes(int length) throws IOException {
+			checkSize(length);
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			return bytes;
+		}
+
+		String readUtf() throws IOException {
+			int length = checkSize(readVarInt());
+			if (buffer.hasArray()) {
+				String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+				buffer.position(buffer.position() + length);
+				return s;
+			}
+			return new String(readBytes(length), StandardCharsets.UTF_8);
+		}
+
+		String readString() throws IOException {
+			int index = readVarInt();
+			if (index == 0) {
+				return null;
+			}
+			if (index == 1) {
+				String s = readUtf();
+				strings.add(s);
+				return s;
+			}
+			return strings.get(index - 2);
+		}
+	}
+}
@@ -0,0 +1,450 @@
+package nl.tno.omt.helpers;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.DimensionsType;
+import nl.tno.omt.InteractionsType;
+import nl.tno.omt.ModelIdentificationType;
+import nl.tno.omt.NotesType;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.ObjectsType;
+import nl.tno.omt.ServiceUtilizationType;
+import nl.tno.omt.SwitchesType;
+import nl.tno.omt.SynchronizationsType;
+import nl.tno.omt.TagsType;
+import nl.tno.omt.TimeType;
+import nl.tno.omt.TransportationsType;
+import nl.tno.omt.UpdateRatesType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Streaming OMT reader that only binds selected sections of an OMT file.
+ *
+ * The reader walks the top-level sections of the objectModel element with
+ * StAX. Selected sections are bound to the generated nl.tno.omt types with
+ * JAXB; all other sections are skipped without building any objects.
+ * Documentation elements, such as semantics, can be dropped from the bound
+ * sections as well. With all sections selected and no documentation dropped
+ * the result is the same as OmtFunctions.readOmt.
+ *
+ * Note that dropping semantics may cause a class that only has semantics to
+ * be reported as a scaffolding class.
+ *
+ * @author bergtwvd
+ */
+public final class OmtStreamReader {
+
+	/**
+	 * Top-level sections of an OMT file.
+	 */
+	public enum Section {
+		MODEL_IDENTIFICATION("modelIdentification"),
+		SERVICE_UTILIZATION("serviceUtilization"),
+		OBJECTS("objects"),
+		INTERACTIONS("interactions"),
+		DIMENSIONS("dimensions"),
+		TIME("time"),
+		TAGS("tags"),
+		SYNCHRONIZATIONS("synchronizations"),
+		TRANSPORTATIONS("transportations"),
+		SWITCHES("switches"),
+		UPDATE_RATES("updateRates"),
+		DATA_TYPES("dataTypes"),
+		NOTES("notes");
+
+		private final String elementName;
+
+		Section(String elementName) {
+			this.elementName = elementName;
+		}
+
+		public String getElementName() {
+			return elementName;
+		}
+	}
+
+	/**
+	 * Documentation elements that can be dropped from the bound sections.
+	 */
+	public enum Documentation {
+		SEMANTICS("semantics"),
+		DESCRIPTION("description"),
+		UPDATE_CONDITION("updateCondition");
+
+		private final String elementName;
+
+		Documentation(String elementName) {
+			this.elementName = elementName;
+		}
+
+		public String getElementName() {
+			return elementName;
+		}
+	}
+
+	// namespace of OMT elements
+	private static final String OMT_NAMESPACE = "http://standards.ieee.org/IEEE1516-2010";
+
+	// the OMT element name of the notes section is notes2 in the adapted schema
+	private static final String NOTES2 = "notes2";
+
+	private static final Map<String, Section> sectionsByName = new HashMap<>();
+
+	private static final XMLInputFactory inputFactory;
+
+	static {
+		for (Section section : Section.values()) {
+			sectionsByName.put(section.getElementName(), section);
+		}
+		sectionsByName.put(NOTES2, Section.NOTES);
+
+		inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	private static final OmtStreamReader ALL = new OmtStreamReader(EnumSet.allOf(Section.class), EnumSet.noneOf(Documentation.class));
+
+	private static final OmtStreamReader LEAN = new OmtStreamReader(
+			EnumSet.of(Section.OBJECTS, Section.INTERACTIONS, Section.DIMENSIONS, Section.TRANSPORTATIONS, Section.UPDATE_RATES, Section.DATA_TYPES),
+			EnumSet.allOf(Documentation.class));
+
+	private final Set<Section> sections;
+	private final Set<String> droppedElements = new HashSet<>();
+
+	private OmtStreamReader(Set<Section> sections, Set<Documentation> dropped) {
+		this.sections = Collections.unmodifiableSet(EnumSet.copyOf(sections));
+		for (Documentation documentation : dropped) {
+			droppedElements.add(documentation.getElementName());
+		}
+	}
+
+	/**
+	 * Returns a reader that binds all sections and keeps all documentation.
+	 *
+	 * @return reader
+	 */
+	public static OmtStreamReader all() {
+		return ALL;
+	}
+
+	/**
+	 * Returns a reader that binds the class trees, dimensions,
+	 * transportations, update rates and datatypes, and drops all
+	 * documentation.
+	 *
+	 * @return reader
+	 */
+	public static OmtStreamReader lean() {
+		return LEAN;
+	}
+
+	/**
+	 * Returns a reader that binds the given sections and keeps all
+	 * documentation.
+	 *
+	 * @param sections sections to bind
+	 * @return reader
+	 */
+	public static OmtStreamReader of(Set<Section> sections) {
+		return new OmtStreamReader(sections.isEmpty() ? EnumSet.noneOf(Section.class) : sections, EnumSet.noneOf(Documentation.class));
+	}
+
+	/**
+	 * Returns a reader that binds the given sections and drops the given
+	 * documentation elements from these sections.
+	 *
+	 * @param sections sections to bind
+	 * @param dropped documentation elements to drop
+	 * @return reader
+	 */
+	public static OmtStreamReader of(Set<Section> sections, Set<Documentation> dropped) {
+		return new OmtStreamReader(sections.isEmpty() ? EnumSet.noneOf(Section.class) : sections, dropped);
+	}
+
+	public Set<Section> getSections() {
+		return sections;
+	}
+
+	public ObjectModelType readOmt(URL module) throws IOException {
+		return readOmt(module.openStream());
+	}
+
+	public ObjectModelType readOmt(InputStream input) throws IOException {
+		try (input) {
+			return read(inputFactory.createXMLStreamReader(input));
+		} catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	public ObjectModelType readOmt(Reader input) throws IOException {
+		try (input) {
+			return read(inputFactory.createXMLStreamReader(input));
+		} catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private ObjectModelType read(XMLStreamReader input) throws IOException, XMLStreamException {
+		XMLStreamReader reader = droppedElements.isEmpty() ? input : new DroppingReader(input, droppedElements);
+		try {
+			if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !"objectModel".equals(reader.getLocalName())) {
+				throw new IOException("Expected objectModel element, but got " + reader.getName());
+			}
+
+			ObjectModelType omt = new ObjectModelType();
+			readAttributes(reader, omt);
+
+			// namespaces declared on the objectModel element, which are in scope of every section
+			Map<String, String> namespaces = new HashMap<>();
+			for (int i = 0; i < reader.getNamespaceCount(); i++) {
+				String prefix = reader.getNamespacePrefix(i);
+				namespaces.put(prefix == null ? "" : prefix, reader.getNamespaceURI(i));
+			}
+
+			Unmarshaller unmarshaller = JaxbPool.acquireUnmarshaller();
+			boolean completed = false;
+			try {
+				int event = reader.nextTag();
+				while (event == XMLStreamConstants.START_ELEMENT) {
+					Section section = OMT_NAMESPACE.equals(reader.getNamespaceURI()) ? sectionsByName.get(reader.getLocalName()) : null;
+					if (section == null || !sections.contains(section)) {
+						skipElement(reader);
+					} else {
+						bind(unmarshaller, reader, section, omt, namespaces);
+					}
+
+					// binding leaves the reader after the end of the section
+					event = reader.getEventType();
+					if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+						event = reader.nextTag();
+					}
+				}
+				completed = true;
+			} finally {
+				// an unmarshaller that failed is dropped
+				if (completed) {
+					JaxbPool.release(unmarshaller);
+				}
+			}
+
+			return omt;
+		} catch (JAXBException ex) {
+			throw new IOException(ex);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static void readAttributes(XMLStreamReader reader, ObjectModelType omt) {
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String namespace = reader.getAttributeNamespace(i);
+			String name = reader.getAttributeLocalName(i);
+			if (namespace == null || namespace.isEmpty()) {
+				if (name.equals("notes")) {
+					omt.setNotes(reader.getAttributeValue(i));
+				} else if (name.equals("idtag")) {
+					omt.setIdtag(reader.getAttributeValue(i).trim());
+				}
+			} else if (!namespace.equals(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI)) {
+				omt.getOtherAttributes().put(reader.getAttributeName(i), reader.getAttributeValue(i));
+			}
+		}
+	}
+
+	private static void bind(Unmarshaller unmarshaller, XMLStreamReader reader, Section section, ObjectModelType omt, Map<String, String> namespaces) throws JAXBException, XMLStreamException, IOException {
+		switch (section) {
+			case MODEL_IDENTIFICATION ->
+				omt.setModelIdentification(unmarshaller.unmarshal(reader, ModelIdentificationType.class).getValue());
+			case SERVICE_UTILIZATION ->
+				omt.setServiceUtilization(unmarshaller.unmarshal(reader, ServiceUtilizationType.class).getValue());
+			case OBJECTS ->
+				omt.setObjects(unmarshaller.unmarshal(reader, ObjectsType.class).getValue());
+			case INTERACTIONS ->
+				omt.setInteractions(unmarshaller.unmarshal(reader, InteractionsType.class).getValue());
+			case DIMENSIONS ->
+				omt.setDimensions(unmarshaller.unmarshal(reader, DimensionsType.class).getValue());
+			case TIME ->
+				omt.setTime(unmarshaller.unmarshal(reader, TimeType.class).getValue());
+			case TAGS ->
+				omt.setTags(unmarshaller.unmarshal(reader, TagsType.class).getValue());
+			case SYNCHRONIZATIONS ->
+				omt.setSynchronizations(unmarshaller.unmarshal(reader, SynchronizationsType.class).getValue());
+			case TRANSPORTATIONS ->
+				omt.setTransportations(unmarshaller.unmarshal(reader, TransportationsType.class).getValue());
+			case SWITCHES ->
+				omt.setSwitches(unmarshaller.unmarshal(reader, SwitchesType.class).getValue());
+			case UPDATE_RATES ->
+				omt.setUpdateRates(unmarshaller.unmarshal(reader, UpdateRatesType.class).getValue());
+			case DATA_TYPES ->
+				omt.setDataTypes(unmarshaller.unmarshal(reader, DataTypesType.class).getValue());
+			case NOTES -> {
+				if (reader.getLocalName().equals(NOTES2)) {
+					omt.setNotes2(unmarshaller.unmarshal(reader, NotesType.class).getValue());
+				} else {
+					// the standard notes element is not bound by the adapted schema; keep it as DOM element, as JAXB does
+					omt.setAny(readElement(reader, namespaces));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Skips the element at the current START_ELEMENT. The reader is left after
+	 * the END_ELEMENT of the skipped element.
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+		reader.next();
+	}
+
+	/**
+	 * Reads the element at the current START_ELEMENT into a DOM element, in the
+	 * same way as JAXB does for lax wildcard content: the namespaces in scope
+	 * are declared on the element and whitespace-only text before a child
+	 * element is dropped. The reader is left after the END_ELEMENT of the
+	 * element.
+	 */
+	private static Element readElement(XMLStreamReader reader, Map<String, String> namespaces) throws XMLStreamException, IOException {
+		DocumentBuilder builder = JaxbPool.acquireDocumentBuilder();
+		Document document = builder.newDocument();
+		JaxbPool.release(builder);
+		StringBuilder text = new StringBuilder();
+		Element root = null;
+		Node parent = document;
+
+		do {
+			switch (reader.getEventType()) {
+				case XMLStreamConstants.START_ELEMENT -> {
+					appendText(document, parent, text, false);
+
+					Element element = document.createElementNS(reader.getNamespaceURI(), qualifiedName(reader.getName()));
+					if (root == null) {
+						for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+							declareNamespace(element, namespace.getKey(), namespace.getValue());
+						}
+					}
+					for (int i = 0; i < reader.getNamespaceCount(); i++) {
+						declareNamespace(element, reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+					}
+					for (int i = 0; i < reader.getAttributeCount(); i++) {
+						String namespace = reader.getAttributeNamespace(i);
+						element.setAttributeNS(namespace == null || namespace.isEmpty() ? null : namespace,
+								qualifiedName(reader.getAttributeName(i)), reader.getAttributeValue(i));
+					}
+					parent.appendChild(element);
+					parent = element;
+					if (root == null) {
+						root = element;
+					}
+				}
+				case XMLStreamConstants.END_ELEMENT -> {
+					appendText(document, parent, text, true);
+					parent = parent.getParentNode();
+				}
+				case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE, XMLStreamConstants.CDATA ->
+					text.append(reader.getText());
+				default -> {
+				}
+			}
+			reader.next();
+		} while (parent != document);
+
+		return root;
+	}
+
+	private static void appendText(Document document, Node parent, StringBuilder text, boolean keepWhitespace) {
+		if (text.length() > 0 && (keepWhitespace || !text.toString().isBlank())) {
+			parent.appendChild(document.createTextNode(text.toString()));
+		}
+		text.setLength(0);
+	}
+
+	private static void declareNamespace(Element element, String prefix, String namespace) {
+		element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+				prefix == null || prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix,
+				namespace);
+	}
+
+	private static String qualifiedName(QName name) {
+		return name.getPrefix() == null || name.getPrefix().isEmpty() ? name.getLocalPart() : name.getPrefix() + ":" + name.getLocalPart();
+	}
+
+	/**
+	 * Stream reader that skips the subtrees of the dropped OMT elements.
+	 */
+	private static final class DroppingReader extends StreamReaderDelegate {
+
+		private final Set<String> dropped;
+
+		DroppingReader(XMLStreamReader reader, Set<String> dropped) {
+			super(reader);
+			this.dropped = dropped;
+		}
+
+		@Override
+		public int next() throws XMLStreamException {
+			int event = super.next();
+			while (event == XMLStreamConstants.START_ELEMENT && dropped.contains(getLocalName()) && OMT_NAMESPACE.equals(getNamespaceURI())) {
+				int depth = 1;
+				while (depth > 0) {
+					event = super.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						depth++;
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						depth--;
+					}
+				}
+				event = super.next();
+			}
+			return event;
+		}
+
+		@Override
+		public int nextTag() throws XMLStreamException {
+			int event = next();
+			while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace())
+					|| (event == XMLStreamConstants.CDATA && isWhiteSpace())
+					|| event == XMLStreamConstants.SPACE
+					|| event == XMLStreamConstants.PROCESSING_INSTRUCTION
+					|| event == XMLStreamConstants.COMMENT) {
+				event = next();
+			}
+			if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+				throw new XMLStreamException("expected start or end tag", getLocation());
+			}
+			return event;
+		}
+	}
+}
@@ -0,0 +1,857 @@
+package nl.tno.omt.helpers;
+
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.annotation.XmlAnyAttribute;
+import jakarta.xml.bind.annotation.XmlAnyElement;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+import jakarta.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.XmlValue;
+import jakarta.xml.bind.annotation.adapters.XmlAdapter;
+import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.XMLConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.OmtInstrumentation.WriteOmtEvent;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Streaming OMT writer that emits the XML document while it traverses the
+ * model, without a JAXB Marshaller.
+ *
+ * The writer encodes UTF-8 into a single fixed size buffer, which is written
+ * to the target each time it is full, so the memory used does not depend on
+ * the size of the model. Targets are a WritableByteChannel, an OutputStream
+ * or a Path; the output can be compressed with gzip. Formatted output only
+ * adds the indentation, which is copied from a precomputed line.
+ *
+ * The document is the same as the one written by OmtFunctions.writeOmt,
+ * formatted or not: elements, attributes, escaping and indentation follow the
+ * JAXB reference implementation. Only the prefixes of namespaces other than
+ * the OMT namespace, e.g. of other attributes, can differ.
+ *
+ * @author bergtwvd
+ */
+public final class OmtStreamWriter {
+
+	// namespace of OMT elements
+	private static final String OMT_NAMESPACE = "http://standards.ieee.org/IEEE1516-2010";
+
+	private static final String ROOT_ELEMENT = "objectModel";
+
+	private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+
+	// default size of the output buffer
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// indentation of a single level, as in the JAXB reference implementation
+	private static final int INDENT = 4;
+
+	// newline followed by the indentation of 7 levels
+	private static final byte[] INDENTATION = ("\n" + " ".repeat(7 * INDENT)).getBytes(StandardCharsets.US_ASCII);
+
+	// value kinds of attributes, element content and elements
+	private enum Kind {
+		STRING, BOOLEAN, NUMBER, DECIMAL, BYTES, CALENDAR, ENUM, OBJECT, ANY
+	}
+
+	// encoding of a field
+	private static final class PropertyPlan {
+
+		Kind kind;
+		Field field;
+		Class<?> type;
+		String name;
+		boolean list;
+		XmlAdapter<Object, Object> adapter;
+		Map<Object, String> enumValues;
+		ClassPlan classPlan;
+	}
+
+	// encoding of a generated class
+	private static final class ClassPlan {
+
+		PropertyPlan[] attributes;
+		Field otherAttributes;
+		PropertyPlan value;
+		PropertyPlan[] elements;
+		// element name if the class is an XML root element
+		String rootName;
+	}
+
+	private static final Map<Class<?>, ClassPlan> classPlans = new HashMap<>();
+
+	private static final ClassPlan rootPlan;
+
+	static {
+		rootPlan = createClassPlan(ObjectModelType.class);
+	}
+
+	private static final OmtStreamWriter PLAIN = new OmtStreamWriter(false, false, BUFFER_SIZE);
+
+	private static final OmtStreamWriter FORMATTED = new OmtStreamWriter(true, false, BUFFER_SIZE);
+
+	private final boolean formatted;
+	private final boolean gzip;
+	private final int bufferSize;
+
+	private OmtStreamWriter(boolean formatted, boolean gzip, int bufferSize) {
+		this.formatted = formatted;
+		this.gzip = gzip;
+		this.bufferSize = bufferSize;
+	}
+
+	private static ClassPlan createClassPlan(Class<?> type) {
+		ClassPlan plan = classPlans.get(type);
+		if (plan != null) {
+			return plan;
+		}
+
+		plan = new ClassPlan();
+		classPlans.put(type, plan);
+		XmlRootElement root = type.getAnnotation(XmlRootElement.class);
+		if (root != null) {
+			plan.rootName = "##default".equals(root.name()) ? decapitalize(type.getSimpleName()) : root.name();
+		}
+
+		// properties of the superclasses first
+		List<Class<?>> hierarchy = new ArrayList<>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			hierarchy.add(0, c);
+		}
+
+		List<PropertyPlan> attributes = new ArrayList<>();
+		List<PropertyPlan> elements = new ArrayList<>();
+		for (Class<?> c : hierarchy) {
+			Map<String, PropertyPlan> declared = new HashMap<>();
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || field.isAnnotationPresent(XmlTransient.class)) {
+					continue;
+				}
+				field.setAccessible(true);
+				if (field.isAnnotationPresent(XmlAnyAttribute.class)) {
+					plan.otherAttributes = field;
+					continue;
+				}
+
+				PropertyPlan property = createPropertyPlan(field);
+				if (field.isAnnotationPresent(XmlAttribute.class)) {
+					XmlAttribute attribute = field.getAnnotation(XmlAttribute.class);
+					property.name = "##default".equals(attribute.name()) ? field.getName() : attribute.name();
+					attributes.add(property);
+				} else if (field.isAnnotationPresent(XmlValue.class)) {
+					plan.value = property;
+				} else {
+					XmlElement element = field.getAnnotation(XmlElement.class);
+					property.name = element == null || "##default".equals(element.name()) ? field.getName() : element.name();
+					declared.put(field.getName(), property);
+				}
+			}
+
+			// elements in the property order of the class
+			XmlType xmlType = c.getAnnotation(XmlType.class);
+			if (xmlType != null && !(xmlType.propOrder().length == 1 && xmlType.propOrder()[0].isEmpty())) {
+				for (String name : xmlType.propOrder()) {
+					PropertyPlan property = declared.remove(name);
+					if (property != null) {
+						elements.add(property);
+					}
+				}
+			}
+			for (Field field : c.getDeclaredFields()) {
+				PropertyPlan property = declared.remove(field.getName());
+				if (property != null) {
+					elements.add(property);
+				}
+			}
+		}
+
+		plan.attributes = attributes.toArray(new PropertyPlan[0]);
+		plan.elements = elements.toArray(new PropertyPlan[0]);
+		return plan;
+	}
+
+	private static String decapitalize(String name) {
+		return name.isEmpty() ? name : Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static PropertyPlan createPropertyPlan(Field field) {
+		PropertyPlan plan = new PropertyPlan();
+		plan.field = field;
+
+		Class<?> type = field.getType();
+		if (type == List.class) {
+			plan.list = true;
+			type = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+		}
+		plan.type = type;
+
+		XmlJavaTypeAdapter adapter = field.getAnnotation(XmlJavaTypeAdapter.class);
+		if (adapter != null) {
+			try {
+				plan.adapter = (XmlAdapter<Object, Object>) adapter.value().getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException ex) {
+				throw new IllegalStateException("Cannot create adapter for " + field, ex);
+			}
+		}
+
+		if (field.isAnnotationPresent(XmlAnyElement.class)) {
+			plan.kind = Kind.ANY;
+		} else if (type == String.class) {
+			plan.kind = Kind.STRING;
+		} else if (type == Boolean.class) {
+			plan.kind = Kind.BOOLEAN;
+		} else if (type == Short.class || type == Integer.class || type == Long.class || type == BigInteger.class) {
+			plan.kind = Kind.NUMBER;
+		} else if (type == BigDecimal.class) {
+			plan.kind = Kind.DECIMAL;
+		} else if (type == byte[].class) {
+			plan.kind = Kind.BYTES;
+		} else if (XMLGregorianCalendar.class.isAssignableFrom(type)) {
+			plan.kind = Kind.CALENDAR;
+		} else if (type.isEnum()) {
+			plan.kind = Kind.ENUM;
+			plan.enumValues = new HashMap<>();
+			for (Object constant : type.getEnumConstants()) {
+				String name = ((Enum<?>) constant).name();
+				try {
+					XmlEnumValue value = type.getField(name).getAnnotation(XmlEnumValue.class);
+					plan.enumValues.put(constant, value == null ? name : value.value());
+				} catch (NoSuchFieldException ex) {
+					throw new IllegalStateException("No field for enum constant " + name, ex);
+				}
+			}
+		} else if (type.getPackage() == ObjectModelType.class.getPackage()) {
+			plan.kind = Kind.OBJECT;
+			plan.classPlan = createClassPlan(type);
+		} else {
+			throw new IllegalStateException("Unsupported field type " + type);
+		}
+		return plan;
+	}
+
+	/**
+	 * Returns a writer of unformatted, uncompressed documents.
+	 *
+	 * @return writer
+	 */
+	public static OmtStreamWriter plain() {
+		return PLAIN;
+	}
+
+	/**
+	 * Returns a writer of formatted, uncompressed documents.
+	 *
+	 * @return writer
+	 */
+	public static OmtStreamWriter formatted() {
+		return FORMATTED;
+	}
+
+	/**
+	 * Returns a writer.
+	 *
+	 * @param formatted write a formatted document
+	 * @param gzip compress the document with gzip
+	 * @return writer
+	 */
+	public static OmtStreamWriter of(boolean formatted, boolean gzip) {
+		return of(formatted, gzip, BUFFER_SIZE);
+	}
+
+	/**
+	 * Returns a writer with a specific buffer size. The buffer is allocated
+	 * for each document that is written.
+	 *
+	 * @param formatted write a formatted document
+	 * @param gzip compress the document with gzip
+	 * @param bufferSize size of the output buffer in bytes, at least 256
+	 * @return writer
+	 */
+	public static OmtStreamWriter of(boolean formatted, boolean gzip, int bufferSize) {
+		if (bufferSize < 256) {
+			throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+		}
+		return new OmtStreamWriter(formatted, gzip, bufferSize);
+	}
+
+	public boolean isFormatted() {
+		return formatted;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+
+	/**
+	 * Writes the model to a channel.
+	 *
+	 * @param omt the model
+	 * @param output output channel, not closed
+	 * @return the output channel
+	 * @throws IOException on error
+	 */
+	public WritableByteChannel writeOmt(ObjectModelType omt, WritableByteChannel output) throws IOException {
+		if (gzip) {
+			try (GZIPOutputStream stream = new GZIPOutputStream(nonClosing(Channels.newOutputStream(output)), 8192)) {
+				write(omt, new Output(null, stream, bufferSize));
+			}
+		} else {
+			write(omt, new Output(output, null, bufferSize));
+		}
+		return output;
+	}
+
+	/**
+	 * Writes the model to a stream.
+	 *
+	 * @param omt the model
+	 * @param output output stream, not closed
+	 * @return the output stream
+	 * @throws IOException on error
+	 */
+	public OutputStream writeOmt(ObjectModelType omt, OutputStream output) throws IOException {
+		if (gzip) {
+			try (GZIPOutputStream stream = new GZIPOutputStream(nonClosing(output), 8192)) {
+				write(omt, new Output(null, stream, bufferSize));
+			}
+		} else {
+			write(omt, new Output(null, output, bufferSize));
+		}
+		output.flush();
+		return output;
+	}
+
+	/**
+	 * Writes the model to a file. An existing file is replaced.
+	 *
+	 * @param omt the model
+	 * @param output output file
+	 * @return the output file
+	 * @throws IOException on error
+	 */
+	public Path writeOmt(ObjectModelType omt, Path output) throws IOException {
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeOmt(omt, channel);
+		}
+		return output;
+	}
+
+	/**
+	 * Returns a stream that writes to the given stream, but does not close it.
+	 * Closing the gzip stream ends its deflater and releases its native memory;
+	 * the stream of the caller is only flushed.
+	 */
+	private static OutputStream nonClosing(OutputStream output) {
+		return new FilterOutputStream(output) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+	}
+
+	private void write(ObjectModelType omt, Output out) throws IOException {
+		WriteOmtEvent event = OmtInstrumentation.beginWrite(formatted);
+		XmlOutput xml = new XmlOutput(out, formatted);
+		try {
+			xml.writeAscii(HEADER);
+			xml.startElement(null, ROOT_ELEMENT);
+			xml.declare("", OMT_NAMESPACE);
+			writeContent(xml, rootPlan, omt);
+			xml.endElement(null, ROOT_ELEMENT);
+			if (formatted) {
+				xml.writeByte('\n');
+			}
+			out.flush();
+		} catch (IllegalAccessException ex) {
+			throw new IOException(ex);
+		} finally {
+			OmtInstrumentation.end(event, out.count);
+		}
+	}
+
+	private static void writeContent(XmlOutput xml, ClassPlan plan, Object object) throws IOException, IllegalAccessException {
+		// namespace declarations of other attributes precede the attributes
+		Map<?, ?> otherAttributes = plan.otherAttributes == null ? null : (Map<?, ?>) plan.otherAttributes.get(object);
+		if (otherAttributes != null) {
+			for (Object name : otherAttributes.keySet()) {
+				xml.declareAttribute((QName) name);
+			}
+		}
+		for (PropertyPlan attribute : plan.attributes) {
+			Object value = attribute.field.get(object);
+			if (value != null) {
+				String text = toText(attribute, value);
+				if (text != null) {
+					xml.attribute(null, attribute.name, text);
+				}
+			}
+		}
+		if (otherAttributes != null) {
+			for (Map.Entry<?, ?> e : otherAttributes.entrySet()) {
+				QName name = (QName) e.getKey();
+				xml.attribute(xml.prefixOf(name.getNamespaceURI()), name.getLocalPart(), (String) e.getValue());
+			}
+		}
+
+		if (plan.value != null) {
+			Object value = plan.value.field.get(object);
+			String text = value == null ? null : toText(plan.value, value);
+			if (text != null) {
+				xml.text(text);
+			}
+		}
+		for (PropertyPlan element : plan.elements) {
+			Object value = element.field.get(object);
+			if (value == null) {
+				continue;
+			}
+			if (element.list) {
+				for (Object item : (List<?>) value) {
+					if (item != null) {
+						writeElement(xml, element, item);
+					}
+				}
+			} else {
+				writeElement(xml, element, value);
+			}
+		}
+	}
+
+	private static void writeElement(XmlOutput xml, PropertyPlan property, Object value) throws IOException, IllegalAccessException {
+		switch (property.kind) {
+			case OBJECT -> {
+				if (value.getClass() != property.type) {
+					writeObject(xml, property.name, value);
+				} else {
+					xml.startElement(null, property.name);
+					writeContent(xml, property.classPlan, value);
+					xml.endElement(null, property.name);
+				}
+			}
+			case ANY ->
+				writeAny(xml, value);
+			default -> {
+				String text = toText(property, value);
+				xml.startElement(null, property.name);
+				if (text != null) {
+					xml.text(text);
+				}
+				xml.endElement(null, property.name);
+			}
+		}
+	}
+
+	private static void writeObject(XmlOutput xml, String name, Object value) throws IOException, IllegalAccessException {
+		ClassPlan plan = classPlans.get(value.getClass());
+		if (plan == null) {
+			throw new IOException("Unsupported content " + value.getClass().getName());
+		}
+		xml.startElement(null, name);
+		writeContent(xml, plan, value);
+		xml.endElement(null, name);
+	}
+
+	private static void writeAny(XmlOutput xml, Object value) throws IOException, IllegalAccessException {
+		if (value instanceof Element element) {
+			writeNode(xml, element);
+		} else if (value instanceof JAXBElement<?> element && OMT_NAMESPACE.equals(element.getName().getNamespaceURI())) {
+			writeObject(xml, element.getName().getLocalPart(), element.getValue());
+		} else if (classPlans.containsKey(value.getClass()) && classPlans.get(value.getClass()).rootName != null) {
+			writeObject(xml, classPlans.get(value.getClass()).rootName, value);
+		} else {
+			throw new IOException("Unsupported wildcard content " + value.getClass().getName());
+		}
+	}
+
+	// wildcard content, namespaces are declared where they are first used
+	private static void writeNode(XmlOutput xml, Node node) throws IOException {
+		switch (node.getNodeType()) {
+			case Node.ELEMENT_NODE -> {
+				String namespace = node.getNamespaceURI() == null ? "" : node.getNamespaceURI();
+				String name = node.getLocalName() == null ? node.getNodeName() : node.getLocalName();
+				String prefix = node.getPrefix() == null ? "" : node.getPrefix();
+				boolean declare = !namespace.equals(xml.namespaceOf(prefix));
+				xml.startElement(prefix, name);
+				if (declare) {
+					xml.declare(prefix, namespace);
+				}
+
+				NamedNodeMap attributes = node.getAttributes();
+				for (int i = 0; i < attributes.getLength(); i++) {
+					Attr attribute = (Attr) attributes.item(i);
+					if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+						String declared = XMLConstants.XMLNS_ATTRIBUTE.equals(attribute.getPrefix()) ? attribute.getLocalName() : "";
+						if (!attribute.getValue().equals(xml.namespaceOf(declared))) {
+							xml.declare(declared, attribute.getValue());
+						}
+					}
+				}
+				for (int i = 0; i < attributes.getLength(); i++) {
+					Attr attribute = (Attr) attributes.item(i);
+					if (attribute.getNamespaceURI() != null && !XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+						xml.declareAttribute(new QName(attribute.getNamespaceURI(), attribute.getLocalName(), attribute.getPrefix() == null ? "" : attribute.getPrefix()));
+					}
+				}
+				for (int i = 0; i < attributes.getLength(); i++) {
+					Attr attribute = (Attr) attributes.item(i);
+					String attributeNamespace = attribute.getNamespaceURI();
+					if (attributeNamespace == null) {
+						xml.attribute(null, attribute.getLocalName() == null ? attribute.getName() : attribute.getLocalName(), attribute.getValue());
+					} else if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attributeNamespace)) {
+						xml.attribute(xml.prefixOf(attributeNamespace), attribute.getLocalName(), attribute.getValue());
+					}
+				}
+
+				for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+					writeNode(xml, child);
+				}
+				xml.endElement(prefix, name);
+			}
+			case Node.TEXT_NODE, Node.CDATA_SECTION_NODE ->
+				xml.text(node.getNodeValue());
+			default -> {
+				// comments and processing instructions are not bound by JAXB
+			}
+		}
+	}
+
+	private static String toText(PropertyPlan plan, Object value) {
+		if (plan.adapter != null) {
+			try {
+				value = plan.adapter.marshal(value);
+			} catch (Exception ex) {
+				throw new IllegalStateException("Adapter failed for " + plan.field, ex);
+			}
+			if (value == null) {
+				return null;
+			}
+		}
+		return switch (plan.kind) {
+			case STRING ->
+				(String) value;
+			case BOOLEAN, NUMBER ->
+				value.toString();
+			case DECIMAL ->
+				((BigDecimal) value).toPlainString();
+			case BYTES ->
+				Base64.getEncoder().encodeToString((byte[]) value);
+			case CALENDAR ->
+				((XMLGregorianCalendar) value).toXMLFormat();
+			case ENUM ->
+				plan.enumValues.get(value);
+			default ->
+				value.toString();
+		};
+	}
+
+	// UTF-8 bytes in a fixed size buffer, written to a channel or stream when full
+	private static final class Output {
+
+		final WritableByteChannel channel;
+		final OutputStream stream;
+		final byte[] buffer;
+		int size;
+		long count;
+
+		Output(WritableByteChannel channel, OutputStream stream, int bufferSize) {
+			this.channel = channel;
+			this.stream = stream;
+			this.buffer = new byte[bufferSize];
+		}
+
+		void flush() throws IOException {
+			if (channel != null) {
+				ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, size);
+				while (bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+			} else {
+				stream.write(buffer, 0, size);
+			}
+			count += size;
+			size = 0;
+		}
+	}
+
+	// XML document state: indentation, pending start tag and namespace scopes
+	private static final class XmlOutput {
+
+		private final Output out;
+		private final byte[] buffer;
+		private final boolean formatted;
+
+		private int depth;
+		private boolean startTagPending;
+		private boolean didOutputText;
+
+		// namespace declarations in scope, and the number in scope at each depth
+		private String[] prefixes = new String[8];
+		private String[] namespaces = new String[8];
+		private int declarations;
+		private int[] scopes = new int[16];
+		private int elements;
+		private int generatedPrefixes;
+
+		XmlOutput(Output out, boolean formatted) {
+			this.out = out;
+			this.buffer = out.buffer;
+			this.formatted = formatted;
+			prefixes[0] = XMLConstants.XML_NS_PREFIX;
+			namespaces[0] = XMLConstants.XML_NS_URI;
+			prefixes[1] = "";
+			namespaces[1] = "";
+			declarations = 2;
+		}
+
+		void writeByte(int b) throws IOException {
+			if (out.size == buffer.length) {
+				out.flush();
+			}
+			buffer[out.size++] = (byte) b;
+		}
+
+		void writeAscii(String s) throws IOException {
+			int n = s.length();
+			if (out.size + n > buffer.length) {
+				out.flush();
+			}
+			if (n > buffer.length) {
+				for (int i = 0; i < n; i++) {
+					writeByte(s.charAt(i));
+				}
+				return;
+			}
+			for (int i = 0; i < n; i++) {
+				buffer[out.size++] = (byte) s.charAt(i);
+			}
+		}
+
+		private void writeName(String prefix, String name) throws IOException {
+			if (prefix != null && !prefix.isEmpty()) {
+				writeEscaped(prefix, false);
+				writeByte(':');
+			}
+			writeEscaped(name, false);
+		}
+
+		// escapes as the JAXB reference implementation
+		private void writeEscaped(String s, boolean attribute) throws IOException {
+			int n = s.length();
+			for (int i = 0; i < n; i++) {
+				if (out.size + 8 > buffer.length) {
+					out.flush();
+				}
+				char c = s.charAt(i);
+				if (c < 0x80) {
+					switch (c) {
+						case '&' ->
+							put("&amp;");
+						case '<' ->
+							put("&lt;");
+						case '>' ->
+							put("&gt;");
+						case '\r' ->
+							put("&#13;");
+						case '"' -> {
+							if (attribute) {
+								put("&quot;");
+							} else {
+								buffer[out.size++] = (byte) c;
+							}
+						}
+						case '\n' -> {
+							if (attribute) {
+								put("&#10;");
+							} else {
+								buffer[out.size++] = (byte) c;
+							}
+						}
+						default ->
+							buffer[out.size++] = (byte) c;
+					}
+				} else if (c < 0x800) {
+					buffer[out.size++] = (byte) (0xc0 | (c >> 6));
+					buffer[out.size++] = (byte) (0x80 | (c & 0x3f));
+				} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, s.charAt(++i));
+					buffer[out.size++] = (byte) (0xf0 | (cp >> 18));
+					buffer[out.size++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+					buffer[out.size++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+					buffer[out.size++] = (byte) (0x80 | (cp & 0x3f));
+				} else if (Character.isSurrogate(c)) {
+					buffer[out.size++] = '?';
+				} else {
+					buffer[out.size++] = (byte) (0xe0 | (c >> 12));
+					buffer[out.size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+					buffer[out.size++] = (byte) (0x80 | (c & 0x3f));
+				}
+			}
+		}
+
+		// the caller ensures there is room in the buffer
+		private void put(String ascii) {
+			for (int i = 0; i < ascii.length(); i++) {
+				buffer[out.size++] = (byte) ascii.charAt(i);
+			}
+		}
+
+		// as the JAXB reference implementation, the indentation restarts every 8 levels
+		private void printIndent() throws IOException {
+			int length = 1 + (depth % 8) * INDENT;
+			if (out.size + length > buffer.length) {
+				out.flush();
+			}
+			System.arraycopy(INDENTATION, 0, buffer, out.size, length);
+			out.size += length;
+		}
+
+		private void closeStartTag() throws IOException {
+			if (startTagPending) {
+				writeByte('>');
+				startTagPending = false;
+			}
+		}
+
+		void startElement(String prefix, String name) throws IOException {
+			closeStartTag();
+			if (formatted) {
+				if (!didOutputText) {
+					printIndent();
+				}
+				depth++;
+				didOutputText = false;
+			}
+			writeByte('<');
+			writeName(prefix, name);
+			startTagPending = true;
+
+			if (elements == scopes.length) {
+				scopes = Arrays.copyOf(scopes, elements * 2);
+			}
+			scopes[elements++] = declarations;
+		}
+
+		void endElement(String prefix, String name) throws IOException {
+			if (formatted) {
+				depth--;
+				if (!startTagPending && !didOutputText) {
+					printIndent();
+				}
+				didOutputText = false;
+			}
+			if (startTagPending) {
+				writeByte('/');
+				writeByte('>');
+				startTagPending = false;
+			} else {
+				writeByte('<');
+				writeByte('/');
+				writeName(prefix, name);
+				writeByte('>');
+			}
+			declarations = scopes[--elements];
+		}
+
+		void attribute(String prefix, String name, String value) throws IOException {
+			writeByte(' ');
+			writeName(prefix, name);
+			writeByte('=');
+			writeByte('"');
+			writeEscaped(value, true);
+			writeByte('"');
+		}
+
+		void text(String text) throws IOException {
+			closeStartTag();
+			didOutputText = true;
+			writeEscaped(text, false);
+		}
+
+		String namespaceOf(String prefix) {
+			for (int i = declarations - 1; i >= 0; i--) {
+				if (prefixes[i].equals(prefix)) {
+					return namespaces[i];
+				}
+			}
+			return null;
+		}
+
+		// a prefix bound to the namespace, other than the default prefix
+		String prefixOf(String namespace) {
+			if (namespace == null || namespace.isEmpty()) {
+				return null;
+			}
+			for (int i = declarations - 1; i >= 0; i--) {
+				if (!prefixes[i].isEmpty() && namespaces[i].equals(namespace) && namespace.equals(namespaceOf(prefixes[i]))) {
+					return prefixes[i];
+				}
+			}
+			return null;
+		}
+
+		// declares a namespace on the current start tag
+		void declare(String prefix, String namespace) throws IOException {
+			if (declarations == prefixes.length) {
+				prefixes = Arrays.copyOf(prefixes, declarations * 2);
+				namespaces = Arrays.copyOf(namespaces, declarations * 2);
+			}
+			prefixes[declarations] = prefix;
+			namespaces[declarations] = namespace;
+			declarations++;
+			attribute(prefix.isEmpty() ? null : XMLConstants.XMLNS_ATTRIBUTE, prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : prefix, namespace);
+		}
+
+		// declares the namespace of an attribute if it has no prefix yet
+		void declareAttribute(QName name) throws IOException {
+			String namespace = name.getNamespaceURI();
+			if (namespace.isEmpty() || prefixOf(namespace) != null) {
+				return;
+			}
+			String prefix = name.getPrefix();
+			if (prefix.isEmpty() || namespaceOf(prefix) != null) {
+				do {
+					prefix = "ns" + ++generatedPrefixes;
+				} while (namespaceOf(prefix) != null);
+			}
+			declare(prefix, namespace);
+		}
+
+	}
+}
@@ -0,0 +1,107 @@
+package nl.tno.omt.helpers;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Exception thrown when a module is not valid according to the OMT schema.
+ * The exception reports every problem found in the module, not only the
+ * first.
+ *
+ * @author bergtwvd
+ */
+public class OmtValidationException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Severity of a problem.
+	 */
+	public enum Severity {
+		WARNING, ERROR, FATAL_ERROR
+	}
+
+	/**
+	 * Problem found while validating a module.
+	 *
+	 * @param module module name, e.g. the URL of the module, or null
+	 * @param severity severity
+	 * @param line line number, or -1 if unknown
+	 * @param column column number, or -1 if unknown
+	 * @param message message of the schema validator
+	 */
+	public record Problem(String module, Severity severity, int line, int column, String message) {
+
+		static Problem of(String module, Severity severity, SAXParseException ex) {
+			return new Problem(module, severity, ex.getLineNumber(), ex.getColumnNumber(), ex.getMessage());
+		}
+
+		@Override
+		public String toString() {
+			return (module == null ? "" : module + ":") + line + ":" + column + ": " + severity + ": " + message;
+		}
+	}
+
+	private final String module;
+	private final transient List<Problem> problems;
+
+	public OmtValidationException(String module, List<Problem> problems) {
+		super(createMessage(module, problems));
+		this.module = module;
+		this.problems = Collections.unmodifiableList(problems);
+	}
+
+	private static String createMessage(String module, List<Problem> problems) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(module == null ? "Module" : module).append(" is not valid: ").append(problems.size()).append(" problems");
+		for (Problem problem : problems) {
+			sb.append("\n  ").append(problem.line()).append(':').append(problem.column()).append(": ").append(problem.message());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns an error handler that adds all warnings and errors to a list of
+	 * problems. Fatal errors are added as well, and end the parse.
+	 *
+	 * @param module module name, or null
+	 * @param problems list of problems to add to
+	 * @return error handler
+	 */
+	static ErrorHandler collect(String module, List<Problem> problems) {
+		return new ErrorHandler() {
+			@Override
+			public void warning(SAXParseException ex) {
+				problems.add(Problem.of(module, Severity.WARNING, ex));
+			}
+
+			@Override
+			public void error(SAXParseException ex) {
+				problems.add(Problem.of(module, Severity.ERROR, ex));
+			}
+
+			@Override
+			public void fatalError(SAXParseException ex) throws SAXException {
+				problems.add(Problem.of(module, Severity.FATAL_ERROR, ex));
+				throw ex;
+			}
+		};
+	}
+
+	public String getModule() {
+		return module;
+	}
+
+	/**
+	 * Returns the problems, in document order.
+	 *
+	 * @return problems
+	 */
+	public List<Problem> getProblems() {
+		return problems;
+	}
+}
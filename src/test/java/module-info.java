@@ -1,5 +1,7 @@
 module nl.tno.omt.test {
 	requires nl.tno.omt;
+	requires jdk.jfr;
+	requires java.xml;
 
 	// requires for junit tests
 	requires org.junit.jupiter.api;
@@ -0,0 +1,104 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomCache;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestCache {
+
+	static URL rpr;
+	static URL mim;
+
+	@TempDir
+	Path directory;
+
+	@BeforeAll
+	public static void setUpClass() {
+		rpr = TestCache.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml");
+		mim = TestCache.class.getResource("/foms/HLAstandardMIM.xml");
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static String toXml(ObjectModelType omt) throws IOException {
+		return OmtFunctions.writeOmt(omt, new StringWriter(), true).toString();
+	}
+
+	private List<Path> snapshots() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(f -> f.toString().endsWith(".omts")).collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void testHitAndMiss() throws IOException {
+		FomCache cache = FomCache.open(directory, 64L * 1024L * 1024L);
+
+		String expected = toXml(OmtFunctions.readOmt(rpr));
+		Assertions.assertEquals(expected, toXml(cache.readOmt(rpr)));
+		Assertions.assertEquals(1, cache.getMisses());
+		Assertions.assertEquals(expected, toXml(cache.readOmt(rpr)));
+		Assertions.assertEquals(1, cache.getHits());
+
+		// a second cache on the same directory, e.g. in another JVM, shares the snapshots
+		FomCache other = FomCache.open(directory, 64L * 1024L * 1024L);
+		Assertions.assertEquals(expected, toXml(other.readOmt(rpr)));
+		Assertions.assertEquals(1, other.getHits());
+		Assertions.assertEquals(1, snapshots().size());
+
+		// a corrupt snapshot is replaced
+		Files.write(snapshots().get(0), new byte[]{1, 2, 3});
+		Assertions.assertEquals(expected, toXml(cache.readOmt(rpr)));
+		Assertions.assertEquals(2, cache.getMisses());
+		Assertions.assertEquals(expected, toXml(cache.readOmt(rpr)));
+
+		cache.clear();
+		Assertions.assertTrue(snapshots().isEmpty());
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+		FomCache cache = FomCache.open(directory, 64L * 1024L * 1024L);
+		cache.readOmt(mim);
+		long mimSize = Files.size(snapshots().get(0));
+		cache.clear();
+
+		// the bound only fits the MIM snapshot, so the least recently used RPR snapshot is removed
+		FomCache small = FomCache.open(directory, mimSize);
+		small.readOmt(rpr);
+		small.readOmt(mim);
+		Assertions.assertEquals(1, snapshots().size());
+		Assertions.assertEquals(mimSize, Files.size(snapshots().get(0)));
+		small.readOmt(mim);
+		Assertions.assertEquals(1, small.getHits());
+	}
+}
@@ -0,0 +1,97 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.Cardinality;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestCardinality {
+
+	static ObjectModelType rpr;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestCardinality.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testParse() {
+		Cardinality fixed = Cardinality.parse("8");
+		Assertions.assertEquals(1, fixed.getDimensionCount());
+		Assertions.assertTrue(fixed.isFixed());
+		Assertions.assertTrue(fixed.isBounded());
+		Assertions.assertEquals(8, fixed.getMaxElements());
+
+		Assertions.assertSame(Cardinality.DYNAMIC, Cardinality.parse("Dynamic"));
+		Assertions.assertEquals(Cardinality.UNBOUNDED, Cardinality.DYNAMIC.getMaxElements());
+		Assertions.assertFalse(Cardinality.DYNAMIC.isBounded());
+
+		Cardinality range = Cardinality.parse("[1..3],[0..5]");
+		Assertions.assertEquals(2, range.getDimensionCount());
+		Assertions.assertEquals(3, range.getMax(0));
+		Assertions.assertEquals(0, range.getMin(1));
+		Assertions.assertEquals(0, range.getMinElements());
+		Assertions.assertEquals(15, range.getMaxElements());
+		Assertions.assertFalse(range.isFixed());
+		Assertions.assertSame(range, Cardinality.parse("[1..3],[0..5]"));
+		Assertions.assertEquals("[1..3],[0..5]", range.toString());
+
+		Cardinality mixed = Cardinality.parse("Dynamic, 3");
+		Assertions.assertEquals(Cardinality.UNBOUNDED, mixed.getMax(0));
+		Assertions.assertEquals(3, mixed.getMin(1));
+		Assertions.assertEquals(Cardinality.UNBOUNDED, mixed.getMaxElements());
+		Assertions.assertEquals(mixed, Cardinality.parse("Dynamic,3"));
+
+		Assertions.assertEquals(Cardinality.UNBOUNDED, Cardinality.parse("[1..Dynamic]").getMax(0));
+		Assertions.assertEquals((long) Integer.MAX_VALUE * Integer.MAX_VALUE, Cardinality.parse("2147483647,2147483647").getMaxElements());
+
+		// the number of elements overflows, also for the minimum of a range
+		for (String invalid : new String[]{"", "-1", "[3..1]", "[1,3]", "[1..]", "x", "1,,2",
+			"2147483647,2147483647,4", "[2147483647..Dynamic],[2147483647..Dynamic],[4..Dynamic]"}) {
+			Assertions.assertThrows(IllegalArgumentException.class, () -> Cardinality.parse(invalid), invalid);
+		}
+	}
+
+	@Test
+	public void testArrayData() throws IOException {
+		ArrayData array = OmtFunctions.getArrayDataByName(rpr, "UnsignedInteger64Array1Plus");
+		Assertions.assertEquals(Cardinality.parse("[1..2147483647]"), Cardinality.of(array));
+		Assertions.assertArrayEquals(new int[]{1, Integer.MAX_VALUE}, OmtFunctions.geCardinality(array));
+
+		// a changed cardinality is observed
+		array.getCardinality().setValue("[2..4],3");
+		Assertions.assertEquals(12, Cardinality.of(array).getMaxElements());
+		Assertions.assertArrayEquals(new int[]{6, 12}, OmtFunctions.geCardinality(array));
+
+		array.getCardinality().setValue("Dynamic");
+		Assertions.assertArrayEquals(new int[]{0, Integer.MAX_VALUE}, OmtFunctions.geCardinality(array));
+		array.getCardinality().setValue("[1..");
+		Assertions.assertNull(OmtFunctions.geCardinality(array));
+		array.getCardinality().setValue("2147483647,2147483647,4");
+		Assertions.assertNull(OmtFunctions.geCardinality(array));
+		Assertions.assertNull(OmtFunctions.geCardinality(null));
+	}
+}
@@ -0,0 +1,147 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.CardinalityType;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.HLAString;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.ReferenceType;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+import nl.tno.omt.helpers.FomChecker;
+import nl.tno.omt.helpers.FomChecker.Diagnostic;
+import nl.tno.omt.helpers.FomChecker.Rule;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestChecker {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestChecker.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestChecker.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static long count(List<Diagnostic> diagnostics, Rule rule) {
+		return diagnostics.stream().filter(d -> d.rule() == rule).count();
+	}
+
+	private static Diagnostic find(List<Diagnostic> diagnostics, Rule rule, String element) {
+		return diagnostics.stream().filter(d -> d.rule() == rule && element.equals(d.element())).findFirst().orElse(null);
+	}
+
+	private static ReferenceType reference(String value) {
+		ReferenceType reference = new ReferenceType();
+		reference.setValue(value);
+		return reference;
+	}
+
+	@Test
+	public void testConsistent() {
+		FomModuleSet set = FomModuleSet.of(mim, rpr);
+		List<Diagnostic> diagnostics = FomChecker.check(set);
+		Assertions.assertEquals(List.of(), diagnostics);
+
+		// the RPR FOM refers to the datatypes and transportations of the MIM
+		diagnostics = FomChecker.check(FomModuleSet.of(rpr));
+		Assertions.assertTrue(count(diagnostics, Rule.UNRESOLVED_DATATYPE) > 0);
+		Assertions.assertTrue(count(diagnostics, Rule.UNRESOLVED_REPRESENTATION) > 0);
+		Assertions.assertTrue(count(diagnostics, Rule.UNRESOLVED_TRANSPORTATION) > 0);
+		Assertions.assertNotNull(find(diagnostics, Rule.UNRESOLVED_REPRESENTATION, "MeterFloat64"));
+		Assertions.assertTrue(diagnostics.stream().allMatch(d -> d.module() == 0));
+
+		// the result does not depend on the pool
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			Assertions.assertEquals(diagnostics, FomChecker.check(FomModuleSet.of(rpr), pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testRules() throws IOException {
+		ObjectModelType module = OmtFunctions.readOmt(TestChecker.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+
+		ArrayData array = module.getDataTypes().getArrayDataTypes().getArrayData().get(0);
+		CardinalityType cardinality = new CardinalityType();
+		cardinality.setValue("[3..1]");
+		array.setCardinality(cardinality);
+
+		EnumeratedData enumerated = module.getDataTypes().getEnumeratedDataTypes().getEnumeratedData().get(0);
+		HLAString value = new HLAString();
+		value.setValue(enumerated.getEnumerator().get(0).getValue().get(0).getValue());
+		enumerated.getEnumerator().get(1).getValue().set(0, value);
+
+		VariantRecordData variant = module.getDataTypes().getVariantRecordDataTypes().getVariantRecordData().get(0);
+		variant.getAlternative().get(0).getEnumerator().setValue("NoSuchEnumerator");
+
+		// BaseEntity declares EntityType, redeclare it in a subclass
+		ObjectClass baseEntity = module.getObjects().getObjectClass().getObjectClass().stream()
+			.filter(oc -> oc.getName().getValue().equals("BaseEntity")).findFirst().orElseThrow();
+		ObjectClass physicalEntity = baseEntity.getObjectClass().stream()
+			.filter(oc -> oc.getName().getValue().equals("PhysicalEntity")).findFirst().orElseThrow();
+		Attribute attribute = new Attribute();
+		IdentifierType name = new IdentifierType();
+		name.setValue("EntityType");
+		attribute.setName(name);
+		attribute.setDataType(reference("EntityTypeStruct"));
+		attribute.setTransportation(reference("NoSuchTransportation"));
+		physicalEntity.getAttribute().add(attribute);
+
+		List<Diagnostic> diagnostics = FomChecker.check(FomModuleSet.of(mim, module));
+
+		Diagnostic d = find(diagnostics, Rule.INVALID_CARDINALITY, array.getName().getValue());
+		Assertions.assertNotNull(d);
+		Assertions.assertEquals(1, d.module());
+
+		d = find(diagnostics, Rule.DUPLICATE_ENUMERATOR_VALUE, enumerated.getName().getValue());
+		Assertions.assertNotNull(d);
+		Assertions.assertEquals(1, d.module());
+
+		d = find(diagnostics, Rule.INVALID_DISCRIMINANT, variant.getName().getValue());
+		Assertions.assertNotNull(d);
+		Assertions.assertTrue(d.message().contains("NoSuchEnumerator"));
+
+		d = find(diagnostics, Rule.MEMBER_NAME_COLLISION, "HLAobjectRoot.BaseEntity.PhysicalEntity");
+		Assertions.assertNotNull(d);
+		Assertions.assertEquals(1, d.module());
+		Assertions.assertTrue(d.message().contains("EntityType"));
+
+		d = find(diagnostics, Rule.UNRESOLVED_TRANSPORTATION, "HLAobjectRoot.BaseEntity.PhysicalEntity");
+		Assertions.assertNotNull(d);
+		Assertions.assertTrue(d.message().contains("NoSuchTransportation"));
+
+		Assertions.assertEquals(5, diagnostics.size(), diagnostics.toString());
+	}
+}
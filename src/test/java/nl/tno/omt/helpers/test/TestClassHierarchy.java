@@ -0,0 +1,105 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomClassHierarchy;
+import nl.tno.omt.helpers.FomHandles;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestClassHierarchy {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestClassHierarchy.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestClassHierarchy.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	// subclass check by name prefix, as reference
+	private static boolean isPrefix(String fqName, String superclassFqName) {
+		return fqName.equals(superclassFqName) || fqName.startsWith(superclassFqName + ".");
+	}
+
+	private static void check(FomClassHierarchy.Tree tree) {
+		FomHandles.Classes<?, ?> classes = tree.getClasses();
+		int n = classes.getClassCount();
+		for (int i = 0; i < n; i++) {
+			List<Integer> expected = new ArrayList<>();
+			for (int j = 0; j < n; j++) {
+				boolean subclass = isPrefix(classes.getClassName(j), classes.getClassName(i));
+				Assertions.assertEquals(subclass, tree.isSubclassOf(j, i), classes.getClassName(j) + " " + classes.getClassName(i));
+				if (subclass) {
+					expected.add(j);
+				}
+			}
+			Assertions.assertEquals(expected.size(), tree.getDescendantCount(i));
+			int[] descendants = tree.getDescendants(i);
+			Assertions.assertEquals(i, descendants[0]);
+			Arrays.sort(descendants);
+			Assertions.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), descendants);
+			Assertions.assertEquals(i, tree.getClassAt(tree.getPreOrder(i)));
+			for (int subclass : tree.getSubclasses(i)) {
+				Assertions.assertEquals(i, classes.getParent(subclass));
+				Assertions.assertEquals(tree.getDepth(i) + 1, tree.getDepth(subclass));
+			}
+		}
+	}
+
+	@Test
+	public void testObjectClasses() {
+		FomModuleSet set = FomModuleSet.of(mim, rpr);
+		FomClassHierarchy hierarchy = set.getClassHierarchy();
+		Assertions.assertSame(hierarchy, set.getClassHierarchy());
+		check(hierarchy.getObjectClasses());
+
+		Assertions.assertTrue(hierarchy.isObjectSubclassOf("HLAobjectRoot.BaseEntity.PhysicalEntity.Platform", "HLAobjectRoot.BaseEntity"));
+		Assertions.assertTrue(hierarchy.isObjectSubclassOf("HLAobjectRoot.BaseEntity", "HLAobjectRoot.BaseEntity"));
+		Assertions.assertFalse(hierarchy.isObjectSubclassOf("HLAobjectRoot.BaseEntity", "HLAobjectRoot.BaseEntity.PhysicalEntity"));
+		Assertions.assertFalse(hierarchy.isObjectSubclassOf("HLAobjectRoot.Unknown", "HLAobjectRoot"));
+		Assertions.assertEquals(set.getClassIndex().getObjectClassNames().size(),
+			hierarchy.getObjectClasses().getDescendantCount(set.getHandles().getObjectClassHandle("HLAobjectRoot")));
+	}
+
+	@Test
+	public void testInteractionClasses() {
+		FomClassHierarchy hierarchy = FomModuleSet.of(mim, rpr).getClassHierarchy();
+		check(hierarchy.getInteractionClasses());
+		Assertions.assertTrue(hierarchy.isInteractionSubclassOf("HLAinteractionRoot.HLAmanager.HLAfederate", "HLAinteractionRoot"));
+		Assertions.assertFalse(hierarchy.isInteractionSubclassOf("HLAinteractionRoot", "HLAinteractionRoot.HLAmanager"));
+	}
+
+	@Test
+	public void testModuleOrder() {
+		// classes of a later module are numbered after the classes of earlier modules
+		check(FomModuleSet.of(rpr, mim).getClassHierarchy().getObjectClasses());
+		check(FomModuleSet.of(rpr, mim).getClassHierarchy().getInteractionClasses());
+	}
+}
@@ -0,0 +1,250 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import nl.tno.omt.BasicDataRepresentationsType.BasicData;
+import nl.tno.omt.HLAString;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.Size;
+import nl.tno.omt.VariantRecordEncodingType;
+import nl.tno.omt.helpers.FomCodecs;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.HlaCodec;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestCodecs {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+	static FomCodecs codecs;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestCodecs.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestCodecs.class.getResource("/foms/HLAstandardMIM.xml"));
+		codecs = FomModuleSet.of(mim, rpr).getCodecs();
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static Map<String, Object> location(double x, double y, double z) {
+		Map<String, Object> location = new LinkedHashMap<>();
+		location.put("X", x);
+		location.put("Y", y);
+		location.put("Z", z);
+		return location;
+	}
+
+	@Test
+	public void testScalars() throws IOException {
+		HlaCodec int32le = codecs.getCodec("HLAinteger32LE");
+		HlaCodec float64be = codecs.getCodec("HLAfloat64BE");
+		HlaCodec uint16 = codecs.getCodec("RPRunsignedInteger16BE");
+		Assertions.assertEquals(4, int32le.getOctetBoundary());
+		Assertions.assertEquals(4, int32le.getFixedSize());
+
+		// the byte order of the buffer is not used
+		ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.BIG_ENDIAN);
+		int32le.putLong(buffer, 0, 1);
+		Assertions.assertEquals(1, buffer.get(0));
+		Assertions.assertEquals(1, int32le.getLong(buffer, 0));
+		Assertions.assertEquals(1, int32le.getLong(buffer.order(ByteOrder.LITTLE_ENDIAN), 0));
+
+		float64be.putDouble(buffer, 8, 1.5);
+		Assertions.assertEquals(1.5, buffer.order(ByteOrder.BIG_ENDIAN).getDouble(8));
+		Assertions.assertEquals(1.5, float64be.decode(buffer, 8));
+
+		buffer.putShort(0, (short) -1);
+		Assertions.assertEquals(65535, uint16.getLong(buffer, 0));
+		Assertions.assertEquals(65535, uint16.decode(buffer, 0));
+
+		// enumerators are encoded by value
+		HlaCodec.Enumerated bool = (HlaCodec.Enumerated) codecs.getCodec("HLAboolean");
+		Assertions.assertArrayEquals(new byte[]{0, 0, 0, 1}, bool.encode("HLAtrue"));
+		Assertions.assertEquals("HLAtrue", bool.getEnumerator(bool.getLong(ByteBuffer.wrap(new byte[]{0, 0, 0, 1}), 0)));
+	}
+
+	@Test
+	public void testArrays() throws IOException {
+		HlaCodec string = codecs.getCodec("HLAASCIIstring");
+		Assertions.assertArrayEquals(new byte[]{0, 0, 0, 3, 'a', 'b', 'c'}, string.encode("abc"));
+		Assertions.assertEquals("abc", string.decode(string.encode("abc")));
+		Assertions.assertFalse(string.isFixedSize());
+
+		HlaCodec unicode = codecs.getCodec("HLAunicodeString");
+		Assertions.assertArrayEquals(new byte[]{0, 0, 0, 1, 0, 'x'}, unicode.encode("x"));
+		Assertions.assertEquals("€", unicode.decode(unicode.encode("€")));
+
+		HlaCodec opaque = codecs.getCodec("HLAopaqueData");
+		Assertions.assertArrayEquals(new byte[]{1, 2}, (byte[]) opaque.decode(opaque.encode(new byte[]{1, 2})));
+
+		// the elements of a variable array start at their octet boundary after the element count
+		HlaCodec.ArrayCodec array = (HlaCodec.ArrayCodec) codecs.getCodec("UnsignedInteger64Array1Plus");
+		Assertions.assertEquals(8, array.getOctetBoundary());
+		byte[] data = array.encode(List.of(1L, 2L));
+		Assertions.assertEquals(24, data.length);
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		Assertions.assertEquals(2, array.length(buffer, 0));
+		Assertions.assertEquals(16, array.elementOffset(buffer, 0, 1));
+		Assertions.assertEquals(2, array.getElement().getLong(buffer, 16));
+		Assertions.assertEquals(List.of(1L, 2L), array.decode(data));
+		Assertions.assertEquals(24, array.skip(buffer, 0));
+	}
+
+	@Test
+	public void testRecords() throws IOException {
+		HlaCodec.FixedRecord location = (HlaCodec.FixedRecord) codecs.getCodec("WorldLocationStruct");
+		Assertions.assertEquals(8, location.getOctetBoundary());
+		Assertions.assertEquals(24, location.getFixedSize());
+
+		byte[] data = location.encode(location(1, 2, 3));
+		Assertions.assertEquals(24, data.length);
+		Assertions.assertEquals(location(1, 2, 3), location.decode(data));
+
+		// fields are read in place
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		int y = location.getFieldIndex("Y");
+		Assertions.assertEquals(8, location.fieldOffset(buffer, 0, y));
+		Assertions.assertEquals(2.0, location.getField(y).getDouble(buffer, location.fieldOffset(buffer, 0, y)));
+
+		// the alternative starts at its 8 octet boundary after the 1 octet discriminant
+		HlaCodec.VariantRecord variant = (HlaCodec.VariantRecord) codecs.getCodec("SpatialVariantStruct");
+		Assertions.assertEquals(1, variant.getDiscriminant().getFixedSize());
+		buffer = ByteBuffer.allocate(256);
+		variant.getDiscriminant().putLong(buffer, 0, variant.getDiscriminant().getValue("Static"));
+		Assertions.assertEquals(8, variant.valueOffset(buffer, 0));
+		Map<?, ?> value = (Map<?, ?>) variant.decode(buffer, 0);
+		Assertions.assertEquals(List.of(variant.getDiscriminantName(), "SpatialStatic"), List.copyOf(value.keySet()));
+		Assertions.assertEquals(location(0, 0, 0), ((Map<?, ?>) value.get("SpatialStatic")).get("WorldLocation"));
+
+		data = variant.encode(value);
+		Assertions.assertEquals(variant.skip(buffer, 0), data.length);
+		Assertions.assertEquals(ByteBuffer.wrap(data), buffer.slice(0, data.length));
+	}
+
+	@Test
+	public void testExtendableVariant() throws IOException {
+		ObjectModelType changed = OmtFunctions.readOmt(TestCodecs.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		VariantRecordEncodingType encoding = new VariantRecordEncodingType();
+		encoding.setValue("HLAextendableVariantRecord");
+		OmtFunctions.getVariantRecordDataByName(changed, "SpatialVariantStruct").setEncoding(encoding);
+		HlaCodec.VariantRecord variant = (HlaCodec.VariantRecord) FomModuleSet.of(mim, changed).getCodecs().getCodec("SpatialVariantStruct");
+		HlaCodec.VariantRecord fixed = (HlaCodec.VariantRecord) codecs.getCodec("SpatialVariantStruct");
+
+		// the length of the alternative follows the discriminant at a 4 octet boundary
+		Map<String, Object> value = new LinkedHashMap<>();
+		value.put(fixed.getDiscriminantName(), "Static");
+		value.put("SpatialStatic", fixed.getAlternative(fixed.getAlternativeIndex(fixed.getDiscriminant().getValue("Static"))).decode(new byte[64]));
+		byte[] data = variant.encode(value);
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		Assertions.assertEquals(data.length - 8, buffer.getInt(4));
+		Assertions.assertEquals(8, variant.valueOffset(buffer, 0));
+		Assertions.assertEquals(value.get("SpatialStatic"), ((Map<?, ?>) variant.decode(data)).get("SpatialStatic"));
+
+		// an unknown alternative is skipped
+		buffer.put(0, (byte) 99);
+		Assertions.assertEquals(-1, variant.alternative(buffer, 0));
+		Assertions.assertEquals(data.length, variant.skip(buffer, 0));
+		Assertions.assertEquals(List.of(variant.getDiscriminantName()), List.copyOf(((Map<?, ?>) variant.decode(buffer, 0)).keySet()));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> fixed.decode(data));
+	}
+
+	private static BasicData basicData(String name, int bits, String interpretation) {
+		BasicData data = new BasicData();
+		IdentifierType identifier = new IdentifierType();
+		identifier.setValue(name);
+		data.setName(identifier);
+		Size size = new Size();
+		size.setValue(BigInteger.valueOf(bits));
+		data.setSize(size);
+		HLAString text = new HLAString();
+		text.setValue(interpretation);
+		data.setInterpretation(text);
+		return data;
+	}
+
+	@Test
+	public void testBasicKinds() throws IOException {
+		ObjectModelType changed = OmtFunctions.readOmt(TestCodecs.class.getResource("/foms/HLAstandardMIM.xml"));
+		List<BasicData> basicData = changed.getDataTypes().getBasicDataRepresentations().getBasicData();
+		basicData.add(basicData("Custom32", 32, "IEEE 754 single"));
+		basicData.add(basicData("CustomOctet", 8, "unsigned 0..255"));
+		basicData.add(basicData("CustomInteger", 16, "Integer in the range [-2^15, 2^15 - 1]"));
+		basicData.add(basicData("HLAunsignedInteger32BE", 32, "32-bit value"));
+		// the standard representations are decoded by name, not by interpretation
+		OmtFunctions.getBasicDataByName(changed, "HLAfloat32BE").getInterpretation().setValue("32-bit value");
+		OmtFunctions.getBasicDataByName(changed, "HLAoctet").getInterpretation().setValue("Integer in the range [0, 255]");
+		FomCodecs changedCodecs = FomModuleSet.of(changed).getCodecs();
+
+		HlaCodec.Scalar float32 = (HlaCodec.Scalar) changedCodecs.getCodec("HLAfloat32BE");
+		Assertions.assertTrue(float32.isFloatingPoint());
+		Assertions.assertFalse(((HlaCodec.Scalar) changedCodecs.getCodec("HLAoctet")).isUnsigned());
+		Assertions.assertTrue(((HlaCodec.Scalar) changedCodecs.getCodec("HLAunsignedInteger32BE")).isUnsigned());
+
+		// other basic datatypes fall back to their interpretation
+		Assertions.assertTrue(((HlaCodec.Scalar) changedCodecs.getCodec("Custom32")).isFloatingPoint());
+		HlaCodec.Scalar octet = (HlaCodec.Scalar) changedCodecs.getCodec("CustomOctet");
+		Assertions.assertTrue(octet.isUnsigned());
+		Assertions.assertEquals(255, octet.getLong(ByteBuffer.wrap(new byte[]{-1}), 0));
+		HlaCodec.Scalar integer = (HlaCodec.Scalar) changedCodecs.getCodec("CustomInteger");
+		Assertions.assertFalse(integer.isUnsigned() || integer.isFloatingPoint());
+	}
+
+	@Test
+	public void testConcurrentCompile() throws Exception {
+		FomCodecs fresh = FomModuleSet.of(mim, rpr).getCodecs();
+		List<String> names = List.of("WorldLocationStruct", "SpatialVariantStruct", "UnsignedInteger64Array1Plus", "HLAASCIIstring");
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<HlaCodec>> futures = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				String name = names.get(i % names.size());
+				futures.add(executor.submit(() -> fresh.getCodec(name)));
+			}
+
+			// each datatype is compiled once
+			for (int i = 0; i < futures.size(); i++) {
+				Assertions.assertSame(fresh.getCodec(names.get(i % names.size())), futures.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assertions.assertEquals(codecs.getCodec("WorldLocationStruct").getFixedSize(), fresh.getCodec("WorldLocationStruct").getFixedSize());
+	}
+
+	@Test
+	public void testUnsupported() {
+		Assertions.assertThrows(IOException.class, () -> codecs.getCodec("Unknown"));
+		Assertions.assertThrows(IOException.class, () -> codecs.getCodec("ArticulatedParameterStructLengthlessArray"));
+	}
+}
@@ -0,0 +1,138 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.ReferenceType;
+import nl.tno.omt.helpers.FomDatatypeGraph;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestDatatypeGraph {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestDatatypeGraph.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestDatatypeGraph.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testOrder() {
+		FomModuleSet set = FomModuleSet.of(mim, rpr);
+		FomDatatypeGraph graph = set.getDatatypeGraph();
+		Assertions.assertSame(graph, set.getDatatypeGraph());
+
+		Assertions.assertTrue(graph.isAcyclic());
+		Assertions.assertTrue(graph.getUnresolvedReferences().isEmpty());
+
+		// every datatype comes after its dependencies
+		List<String> names = graph.getDatatypeNames();
+		Assertions.assertEquals(graph.size(), names.size());
+		Set<String> seen = new HashSet<>();
+		for (String name : names) {
+			Assertions.assertTrue(seen.containsAll(graph.getDependencies(name)), name);
+			seen.add(name);
+		}
+
+		Assertions.assertEquals(FomDatatypeGraph.Category.FIXED_RECORD, graph.getCategory("WorldLocationStruct"));
+		Assertions.assertEquals(List.of("MeterFloat64"), graph.getDependencies("WorldLocationStruct"));
+		Assertions.assertEquals(List.of("HLAfloat64BE", "MeterFloat64"), graph.getTransitiveDependencies("WorldLocationStruct"));
+		Assertions.assertTrue(graph.getDependents("MeterFloat64").contains("WorldLocationStruct"));
+		Assertions.assertTrue(graph.dependsOn("WorldLocationStruct", "HLAfloat64BE"));
+		Assertions.assertFalse(graph.dependsOn("HLAfloat64BE", "WorldLocationStruct"));
+		Assertions.assertNull(graph.getCategory("Unknown"));
+	}
+
+	@Test
+	public void testUnresolved() {
+		// the RPR FOM refers to the datatypes of the MIM
+		FomDatatypeGraph graph = FomModuleSet.of(rpr).getDatatypeGraph();
+		Assertions.assertFalse(graph.getUnresolvedReferences().isEmpty());
+		Assertions.assertTrue(graph.getUnresolvedReferences().contains(new FomDatatypeGraph.UnresolvedReference("MeterFloat64", "HLAfloat64BE")));
+		Assertions.assertEquals(List.of("MeterFloat64"), graph.getTransitiveDependencies("WorldLocationStruct"));
+	}
+
+	@Test
+	public void testCycle() throws IOException {
+		// a record that refers to itself through an array
+		ObjectModelType changed = OmtFunctions.readOmt(TestDatatypeGraph.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		FixedRecordData record = OmtFunctions.getFixedRecordDataByName(changed, "WorldLocationStruct");
+		String array = changed.getDataTypes().getArrayDataTypes().getArrayData().get(0).getName().getValue();
+		changed.getDataTypes().getArrayDataTypes().getArrayData().get(0).getDataType().setValue("WorldLocationStruct");
+		record.getField().get(0).getDataType().setValue(array);
+
+		FomDatatypeGraph graph = FomModuleSet.of(mim, changed).getDatatypeGraph();
+		Assertions.assertEquals(1, graph.getCycles().size());
+		Assertions.assertEquals(Set.of(array, "WorldLocationStruct"), new HashSet<>(graph.getCycles().get(0)));
+		Assertions.assertTrue(graph.isCyclic("WorldLocationStruct"));
+		Assertions.assertTrue(graph.dependsOn(array, array));
+		Assertions.assertFalse(graph.isCyclic("MeterFloat64"));
+	}
+
+	private static ArrayData array(String name, String element) {
+		ArrayData array = new ArrayData();
+		IdentifierType identifier = new IdentifierType();
+		identifier.setValue(name);
+		array.setName(identifier);
+		ReferenceType reference = new ReferenceType();
+		reference.setValue(element);
+		array.setDataType(reference);
+		return array;
+	}
+
+	@Test
+	public void testLongChain() {
+		// a chain of arrays deeper than a recursive traversal can handle
+		final int n = 100000;
+		ObjectModelType chain = new ObjectModelType();
+		chain.setDataTypes(new DataTypesType());
+		chain.getDataTypes().setArrayDataTypes(new DataTypesType.ArrayDataTypes());
+		List<ArrayData> arrays = chain.getDataTypes().getArrayDataTypes().getArrayData();
+		for (int i = 0; i < n - 1; i++) {
+			arrays.add(array("A" + i, "A" + (i + 1)));
+		}
+		arrays.add(array("A" + (n - 1), "HLAinteger32BE"));
+
+		FomDatatypeGraph graph = FomModuleSet.of(mim, chain).getDatatypeGraph();
+		Assertions.assertTrue(graph.isAcyclic());
+		List<String> order = graph.getDatatypeNames();
+		Assertions.assertTrue(order.indexOf("A" + (n - 1)) < order.indexOf("A0"));
+
+		// closing the chain makes a single cycle of all arrays
+		arrays.set(n - 1, array("A" + (n - 1), "A0"));
+		graph = FomModuleSet.of(mim, chain).getDatatypeGraph();
+		Assertions.assertEquals(1, graph.getCycles().size());
+		Assertions.assertEquals(n, graph.getCycles().get(0).size());
+	}
+}
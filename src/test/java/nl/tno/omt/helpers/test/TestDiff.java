@@ -0,0 +1,183 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.NonEmptyString;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.helpers.FomDiff;
+import nl.tno.omt.helpers.FomDiff.Change;
+import nl.tno.omt.helpers.FomDiff.ChangeType;
+import nl.tno.omt.helpers.FomDiff.Kind;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestDiff {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestDiff.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestDiff.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static String toXml(ObjectModelType omt) throws IOException {
+		return OmtFunctions.writeOmt(omt, new StringWriter(), true).toString();
+	}
+
+	private static IdentifierType identifier(String name) {
+		IdentifierType identifier = new IdentifierType();
+		identifier.setValue(name);
+		return identifier;
+	}
+
+	@Test
+	public void testIdentical() throws IOException {
+		Assertions.assertTrue(FomDiff.of(rpr, rpr).isEmpty());
+		Assertions.assertTrue(FomDiff.of(mim, OmtFunctions.readOmt(TestDiff.class.getResource("/foms/HLAstandardMIM.xml"))).isEmpty());
+	}
+
+	@Test
+	public void testDiff() throws IOException {
+		ObjectModelType changed = OmtFunctions.readOmt(TestDiff.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		ObjectClass baseEntity = OmtFunctions.getObjectClass(changed, "HLAobjectRoot.BaseEntity");
+		String removed = baseEntity.getAttribute().remove(0).getName().getValue();
+		baseEntity.getAttribute().get(0).getDataType().setValue("HLAinteger32BE");
+		String retyped = baseEntity.getAttribute().get(0).getName().getValue();
+		ObjectClass added = new ObjectClass();
+		added.setName(identifier("NewEntity"));
+		baseEntity.getObjectClass().add(1, added);
+		ArrayData array = changed.getDataTypes().getArrayDataTypes().getArrayData().get(0);
+		array.getCardinality().setValue("[1..99]");
+
+		FomDiff diff = FomDiff.of(rpr, changed);
+		Assertions.assertEquals(4, diff.getChanges().size());
+
+		List<Change> attributes = diff.getChanges(ChangeType.REMOVED, Kind.ATTRIBUTE);
+		Assertions.assertEquals(1, attributes.size());
+		Assertions.assertEquals("HLAobjectRoot.BaseEntity", attributes.get(0).owner());
+		Assertions.assertEquals(removed, attributes.get(0).name());
+
+		attributes = diff.getChanges(ChangeType.CHANGED, Kind.ATTRIBUTE);
+		Assertions.assertEquals(1, attributes.size());
+		Assertions.assertEquals(retyped, attributes.get(0).name());
+		Assertions.assertEquals(List.of("dataType"), attributes.get(0).properties());
+
+		List<Change> classes = diff.getChanges(ChangeType.ADDED, Kind.OBJECT_CLASS);
+		Assertions.assertEquals(1, classes.size());
+		Assertions.assertEquals("HLAobjectRoot.BaseEntity.NewEntity", classes.get(0).name());
+		Assertions.assertEquals(1, classes.get(0).index());
+
+		List<Change> arrays = diff.getChanges(ChangeType.CHANGED, Kind.ARRAY_DATA);
+		Assertions.assertEquals(1, arrays.size());
+		Assertions.assertEquals(array.getName().getValue(), arrays.get(0).name());
+		Assertions.assertEquals(List.of("cardinality"), arrays.get(0).properties());
+
+		// the reverse diff reports the opposite changes
+		FomDiff reverse = FomDiff.of(changed, rpr);
+		Assertions.assertEquals(1, reverse.getChanges(ChangeType.ADDED, Kind.ATTRIBUTE).size());
+		Assertions.assertEquals(1, reverse.getChanges(ChangeType.REMOVED, Kind.OBJECT_CLASS).size());
+	}
+
+	@Test
+	public void testApply() throws IOException {
+		String rprXml = toXml(rpr);
+		ObjectModelType changed = OmtFunctions.readOmt(TestDiff.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		ObjectClass physicalEntity = OmtFunctions.getObjectClass(changed, "HLAobjectRoot.BaseEntity.PhysicalEntity");
+		physicalEntity.getAttribute().remove(2);
+		physicalEntity.getAttribute().add(0, physicalEntity.getAttribute().remove(3));
+		physicalEntity.getObjectClass().remove(0);
+		changed.getDataTypes().getSimpleDataTypes().getSimpleData().remove(0);
+		changed.getInteractions().getInteractionClass().getInteractionClass().add(0, changed.getInteractions().getInteractionClass().getInteractionClass().remove(1));
+
+		// reordered elements are moved, the elements in between are not
+		FomDiff diff = FomDiff.of(rpr, changed);
+		Assertions.assertEquals(1, diff.getChanges(ChangeType.MOVED, Kind.ATTRIBUTE).size());
+		Assertions.assertEquals(1, diff.getChanges(ChangeType.MOVED, Kind.INTERACTION_CLASS).size());
+
+		// patching the first version results in the second version, and the reverse
+		Assertions.assertEquals(toXml(changed), toXml(diff.apply(rpr)));
+		Assertions.assertEquals(rprXml, toXml(FomDiff.of(changed, rpr).apply(changed)));
+		Assertions.assertEquals(rprXml, toXml(rpr));
+
+		// a diff between unrelated modules is a complete patch
+		Assertions.assertEquals(toXml(mim), toXml(FomDiff.of(rpr, mim).apply(rpr)));
+
+		// a patch does not apply to a module without the changed elements
+		Assertions.assertThrows(IOException.class, () -> FomDiff.of(rpr, changed).apply(mim));
+	}
+
+	@Test
+	public void testApplyLarge() throws IOException {
+		final int n = 10000;
+		ObjectModelType from = OmtFunctions.readOmt(TestDiff.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		ObjectModelType to = OmtFunctions.readOmt(TestDiff.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		List<SimpleData> fromData = from.getDataTypes().getSimpleDataTypes().getSimpleData();
+		List<SimpleData> toData = to.getDataTypes().getSimpleDataTypes().getSimpleData();
+		List<ObjectClass> fromClasses = from.getObjects().getObjectClass().getObjectClass();
+		List<ObjectClass> toClasses = to.getObjects().getObjectClass().getObjectClass();
+		for (int i = 0; i < n; i++) {
+			SimpleData data = new SimpleData();
+			data.setName(identifier("Data" + i));
+			fromData.add(data);
+			ObjectClass oc = new ObjectClass();
+			oc.setName(identifier("Class" + i));
+			fromClasses.add(oc);
+
+			// removed, changed, moved and added elements
+			if (i % 5 != 0) {
+				data = new SimpleData();
+				data.setName(identifier("Data" + i));
+				if (i % 7 == 0) {
+					NonEmptyString units = new NonEmptyString();
+					units.setValue("m");
+					data.setUnits(units);
+				}
+				toData.add(i % 11 == 0 ? 0 : toData.size(), data);
+				oc = new ObjectClass();
+				oc.setName(identifier("Class" + i));
+				toClasses.add(i % 11 == 0 ? 0 : toClasses.size(), oc);
+			}
+			if (i % 3 == 0) {
+				data = new SimpleData();
+				data.setName(identifier("New" + i));
+				toData.add(data);
+				oc = new ObjectClass();
+				oc.setName(identifier("New" + i));
+				toClasses.add(oc);
+			}
+		}
+
+		FomDiff diff = FomDiff.of(from, to);
+		Assertions.assertEquals(n / 5, diff.getChanges(ChangeType.REMOVED, Kind.SIMPLE_DATA).size());
+		Assertions.assertFalse(diff.getChanges(ChangeType.MOVED, Kind.OBJECT_CLASS).isEmpty());
+		Assertions.assertEquals(toXml(to), toXml(diff.apply(from)));
+	}
+}
@@ -0,0 +1,125 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.Parameter;
+import nl.tno.omt.helpers.FomHandles;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.InheritedMembers;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestHandles {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestHandles.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestHandles.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testObjectClasses() {
+		FomModuleSet set = FomModuleSet.of(mim, rpr);
+		FomHandles handles = set.getHandles();
+		Assertions.assertSame(handles, set.getHandles());
+		FomHandles.Classes<ObjectClass, Attribute> classes = handles.getObjectClasses();
+		Assertions.assertEquals(set.getClassIndex().getObjectClassNames().size(), classes.getClassCount());
+
+		// classes are numbered in class index order, superclasses first
+		int i = 0;
+		for (String fqName : set.getClassIndex().getObjectClassNames()) {
+			Assertions.assertEquals(i, handles.getObjectClassHandle(fqName));
+			Assertions.assertEquals(fqName, classes.getClassName(i));
+			Assertions.assertTrue(classes.getParent(i) < i);
+
+			// the members are the inherited attributes of the member index
+			InheritedMembers<Attribute> attributes = set.getObjectClassAttributes(fqName);
+			List<Attribute> members = new ArrayList<>();
+			for (int handle : classes.getMemberHandles(i)) {
+				members.add(classes.getMember(handle));
+				Assertions.assertTrue(classes.hasMember(i, handle));
+				// a member is found by name, unless a member declared further down hides it
+				int found = classes.getMemberHandle(i, classes.getMemberName(handle));
+				Assertions.assertTrue(found >= handle);
+				Assertions.assertEquals(classes.getMemberName(handle), classes.getMemberName(found));
+			}
+			Assertions.assertEquals(attributes == null ? List.of() : attributes.getAll(), members);
+			Assertions.assertEquals(members.size(), classes.getMemberSet(i).cardinality());
+			i++;
+		}
+
+		int root = handles.getObjectClassHandle("HLAobjectRoot");
+		int entity = handles.getObjectClassHandle("HLAobjectRoot.BaseEntity");
+		int platform = handles.getObjectClassHandle("HLAobjectRoot.BaseEntity.PhysicalEntity.Platform");
+		Assertions.assertEquals(0, root);
+		Assertions.assertEquals(-1, classes.getParent(root));
+		Assertions.assertEquals(root, classes.getParent(entity));
+		Assertions.assertSame(set.getObjectClass("HLAobjectRoot.BaseEntity"), classes.getClassNode(entity));
+		Assertions.assertEquals(-1, handles.getObjectClassHandle("HLAobjectRoot.Unknown"));
+		Assertions.assertEquals(-1, handles.getObjectClassHandle("HLAobjectRoo"));
+
+		// an inherited attribute has the handle of its declaring class
+		int spatial = handles.getAttributeHandle("HLAobjectRoot.BaseEntity", "Spatial");
+		Assertions.assertEquals(spatial, handles.getAttributeHandle("HLAobjectRoot.BaseEntity.PhysicalEntity.Platform", "Spatial"));
+		Assertions.assertEquals(entity, classes.getDeclaringClass(spatial));
+		Assertions.assertEquals("Spatial", classes.getMemberName(spatial));
+		Assertions.assertEquals(-1, handles.getAttributeHandle("HLAobjectRoot.BaseEntity", "Unknown"));
+		Assertions.assertEquals(-1, handles.getAttributeHandle("HLAobjectRoot.Unknown", "Spatial"));
+
+		// the attributes of a superclass are a subset of those of its subclasses
+		BitSet inherited = classes.getMemberSet(platform);
+		inherited.and(classes.getMemberSet(entity));
+		Assertions.assertEquals(classes.getMemberSet(entity), inherited);
+		Assertions.assertFalse(classes.getMemberSet(entity).get(handles.getAttributeHandle("HLAobjectRoot.BaseEntity.PhysicalEntity.Platform", "AfterburnerOn")));
+	}
+
+	@Test
+	public void testInteractionClasses() {
+		FomHandles handles = FomModuleSet.of(mim, rpr).getHandles();
+		FomHandles.Classes<InteractionClass, Parameter> classes = handles.getInteractionClasses();
+		Assertions.assertEquals(0, handles.getInteractionClassHandle("HLAinteractionRoot"));
+
+		// parameters of different classes have different handles
+		BitSet all = new BitSet();
+		for (int i = 0; i < classes.getClassCount(); i++) {
+			for (int handle : classes.getMemberHandles(i)) {
+				if (classes.getDeclaringClass(handle) == i) {
+					Assertions.assertFalse(all.get(handle));
+					all.set(handle);
+				}
+			}
+		}
+		Assertions.assertEquals(classes.getMemberCount(), all.cardinality());
+		Assertions.assertEquals(-1, handles.getParameterHandle("HLAinteractionRoot", "Unknown"));
+	}
+}
@@ -0,0 +1,158 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomJavaTypes;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.JavaTypeMapping;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtJavaMapping;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestJavaTypes {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestJavaTypes.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestJavaTypes.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static String expected(ObjectModelType[] modules, String name, int dimension, boolean useList, boolean useBoxed) {
+		try {
+			return OmtJavaMapping.getJavaDatatypeName(modules, name, dimension, useList, useBoxed);
+		} catch (Exception ex) {
+			return null;
+		}
+	}
+
+	@Test
+	public void testStaticMapping() {
+		FomModuleSet set = FomModuleSet.of(mim, rpr);
+		FomJavaTypes types = set.getJavaTypes();
+		Assertions.assertSame(types, set.getJavaTypes());
+
+		// the same names as the static mapping, for every datatype
+		for (String name : set.getDatatypeGraph().getDatatypeNames()) {
+			for (int dimension = 0; dimension < 3; dimension++) {
+				for (boolean useList : new boolean[]{false, true}) {
+					for (boolean useBoxed : new boolean[]{false, true}) {
+						Assertions.assertEquals(expected(set.getModules(), name, dimension, useList, useBoxed),
+							types.getJavaDatatypeName(name, dimension, useList, useBoxed), name);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testResolution() {
+		FomJavaTypes types = FomModuleSet.of(mim, rpr).getJavaTypes();
+		Assertions.assertEquals("double", types.getJavaDatatypeName("MeterFloat64", false));
+		Assertions.assertEquals("List<List<Double>>", types.getJavaDatatypeName("MeterFloat64", 2, true, false));
+		Assertions.assertEquals("double[][]", types.getJavaDatatypeName("MeterFloat64", 2, false, true));
+		Assertions.assertEquals("Boolean", types.getJavaDatatypeName("HLAboolean", true));
+		Assertions.assertEquals("String", types.getJavaDatatypeName("HLAunicodeString", false));
+		Assertions.assertEquals("WorldLocationStruct", types.getJavaDatatypeName("WorldLocationStruct", false));
+		Assertions.assertNull(types.getProblem("WorldLocationStruct"));
+
+		// unresolved datatypes do not throw
+		Assertions.assertNull(types.getJavaDatatypeName("Unknown", 1, true, true));
+		Assertions.assertEquals("Unknown datatype Unknown", types.getProblem("Unknown"));
+		Assertions.assertNull(types.getJavaDatatypeName("HLAopaqueData", false));
+		Assertions.assertEquals(Set.of("Unknown", "HLAopaqueData"), types.getUnresolved().keySet());
+	}
+
+	@Test
+	public void testAddDatatype() {
+		FomJavaTypes types = FomModuleSet.of(mim, rpr).getJavaTypes();
+		Assertions.assertNull(types.getJavaDatatypeName("HLAhandle", false));
+
+		// an added mapping is used by existing module sets
+		JavaTypeMapping defaultMapping = OmtJavaMapping.getDefaultMapping();
+		try {
+			OmtJavaMapping.addDatatype("HLAhandle", "byte[]", Set.of());
+			Assertions.assertEquals("byte[]", types.getJavaDatatypeName("HLAhandle", false));
+			Assertions.assertEquals("List<byte[]>", types.getJavaDatatypeName("HLAhandle", 1, true, false));
+		} finally {
+			OmtJavaMapping.setDefaultMapping(defaultMapping);
+		}
+		Assertions.assertNull(types.getJavaDatatypeName("HLAhandle", false));
+	}
+
+	@Test
+	public void testMapping() throws Exception {
+		FomModuleSet set = FomModuleSet.of(mim, rpr);
+		JavaTypeMapping floats = JavaTypeMapping.builder()
+			.addRepresentation("HLAfloat64BE", OmtJavaMapping.JavaPrimitiveType.FLOAT)
+			.addDatatype("WorldLocationStruct", "Location", Set.of("com.example.Location"))
+			.build();
+		JavaTypeMapping standard = JavaTypeMapping.builder().build();
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> floats.getDatatypes().clear());
+		Assertions.assertEquals(Set.of("com.example.Location"), floats.getDatatype("WorldLocationStruct").getImports());
+		Assertions.assertNull(standard.getDatatype("WorldLocationStruct"));
+
+		// null imports and null representation types are accepted, as by the static API
+		Map<String, OmtJavaMapping.JavaPrimitiveType> unmapped = new HashMap<>();
+		unmapped.put("HLAfloat64BE", null);
+		JavaTypeMapping lenient = JavaTypeMapping.builder()
+			.addDatatype("WorldLocationStruct", "Location", null)
+			.addRepresentations(unmapped)
+			.build();
+		Assertions.assertEquals(Set.of(), lenient.getDatatype("WorldLocationStruct").getImports());
+		Assertions.assertNull(lenient.getRepresentation("HLAfloat64BE"));
+
+		// the static methods with a mapping
+		Assertions.assertEquals("float", OmtJavaMapping.getJavaDatatypeName(floats, set.getModules(), "MeterFloat64", false));
+		Assertions.assertEquals("List<Location>", OmtJavaMapping.getJavaDatatypeName(floats, set.getModules(), "WorldLocationStruct", 1, true, false));
+		Assertions.assertEquals("double", OmtJavaMapping.getJavaDatatypeName(set.getModules(), "MeterFloat64", false));
+
+		// resolvers with different mappings used concurrently
+		FomJavaTypes floatTypes = set.getJavaTypes(floats);
+		FomJavaTypes standardTypes = set.getJavaTypes(standard);
+		Assertions.assertSame(floats, floatTypes.getMapping());
+		IntStream.range(0, 1000).parallel().forEach(i -> {
+			Assertions.assertEquals("float", floatTypes.getJavaDatatypeName("MeterFloat64", false));
+			Assertions.assertEquals("Location", floatTypes.getJavaDatatypeName("WorldLocationStruct", false));
+			Assertions.assertEquals("double", standardTypes.getJavaDatatypeName("MeterFloat64", false));
+			Assertions.assertEquals("WorldLocationStruct", standardTypes.getJavaDatatypeName("WorldLocationStruct", false));
+		});
+
+		// a resolver with a mapping does not use the default mapping
+		JavaTypeMapping defaultMapping = OmtJavaMapping.getDefaultMapping();
+		try {
+			OmtJavaMapping.addDatatype("MeterFloat64", "Meters", Set.of());
+			Assertions.assertEquals("float", floatTypes.getJavaDatatypeName("MeterFloat64", false));
+			Assertions.assertEquals("Meters", set.getJavaTypes().getJavaDatatypeName("MeterFloat64", false));
+		} finally {
+			OmtJavaMapping.setDefaultMapping(defaultMapping);
+		}
+	}
+}
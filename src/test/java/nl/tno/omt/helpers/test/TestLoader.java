@@ -0,0 +1,109 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomLoadException;
+import nl.tno.omt.helpers.FomLoader;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtMimConstants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestLoader {
+
+	static URL rpr;
+	static URL mim;
+	static ExecutorService executor;
+
+	@BeforeAll
+	public static void setUpClass() {
+		rpr = TestLoader.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml");
+		mim = TestLoader.class.getResource("/foms/HLAstandardMIM.xml");
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+		executor.shutdown();
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testReadModules() throws IOException {
+		ObjectModelType[] modules = FomLoader.readModules(List.of(mim, rpr, mim), executor);
+		Assertions.assertEquals(3, modules.length);
+		Assertions.assertNotNull(modules[0].getDataTypes().getEnumeratedDataTypes());
+		Assertions.assertTrue(modules[1].getModelIdentification().getName().getValue().contains("Real-time Platform Reference FOM"));
+		Assertions.assertEquals(modules[0].getModelIdentification().getName().getValue(), modules[2].getModelIdentification().getName().getValue());
+
+		FomModuleSet set = FomLoader.readModuleSet(List.of(mim, rpr));
+		Assertions.assertNotNull(set.getEnumeratedDataByName(OmtMimConstants.HLABOOLEAN));
+		Assertions.assertNotNull(set.getFixedRecordDataByName("SpatialStaticStruct"));
+	}
+
+	@Test
+	public void testReadFailures() throws IOException {
+		List<ByteArrayInputStream> streams = List.of(
+				new ByteArrayInputStream(mim.openStream().readAllBytes()),
+				new ByteArrayInputStream("<objectModel".getBytes(StandardCharsets.UTF_8)),
+				new ByteArrayInputStream(rpr.openStream().readAllBytes()),
+				new ByteArrayInputStream(new byte[0]));
+
+		FomLoadException ex = Assertions.assertThrows(FomLoadException.class, () -> FomLoader.readModuleStreams(streams, executor));
+		Assertions.assertEquals(2, ex.getFailures().size());
+		Assertions.assertEquals(1, ex.getFailures().get(0).index());
+		Assertions.assertEquals(3, ex.getFailures().get(1).index());
+		Assertions.assertEquals(2, ex.getSuppressed().length);
+
+		// a module that is rejected by the executor is a failed module
+		AtomicInteger submitted = new AtomicInteger();
+		Executor single = task -> {
+			if (submitted.getAndIncrement() > 0) {
+				throw new RejectedExecutionException();
+			}
+			task.run();
+		};
+		ex = Assertions.assertThrows(FomLoadException.class, () -> FomLoader.readModules(List.of(mim, rpr), single));
+		Assertions.assertEquals(1, ex.getFailures().size());
+		Assertions.assertEquals(1, ex.getFailures().get(0).index());
+		Assertions.assertInstanceOf(RejectedExecutionException.class, ex.getFailures().get(0).cause());
+	}
+
+	@Test
+	public void testReadVirtualThreads() throws IOException, URISyntaxException {
+		ObjectModelType[] modules = FomLoader.readModulePaths(List.of(Path.of(mim.toURI()), Path.of(rpr.toURI())));
+		Assertions.assertEquals(2, modules.length);
+		Assertions.assertNotNull(modules[0].getDataTypes().getEnumeratedDataTypes());
+
+		modules = FomLoader.readModuleStreams(List.of(mim.openStream(), rpr.openStream()));
+		Assertions.assertEquals(2, modules.length);
+		Assertions.assertEquals(modules[1].getModelIdentification().getName().getValue(),
+				FomLoader.readModules(List.of(rpr))[0].getModelIdentification().getName().getValue());
+	}
+}
@@ -0,0 +1,120 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.stream.Collectors;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomClassIndex;
+import nl.tno.omt.helpers.FomMergeException;
+import nl.tno.omt.helpers.FomMerger;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtMimConstants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestMerger {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestMerger.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestMerger.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static String toXml(ObjectModelType omt) throws IOException {
+		return OmtFunctions.writeOmt(omt, new StringWriter(), true).toString();
+	}
+
+	private static Set<String> names(Set<Attribute> attributes) {
+		return attributes == null ? null : attributes.stream().map(a -> a.getName().getValue()).collect(Collectors.toSet());
+	}
+
+	@Test
+	public void testMerge() throws IOException {
+		String rprXml = toXml(rpr);
+		ObjectModelType merged = FomMerger.merge(mim, rpr);
+
+		// the modules are not modified
+		Assertions.assertEquals(rprXml, toXml(rpr));
+
+		// scaffolding classes are unified: the root is the MIM definition with the RPR subclasses
+		ObjectModelType[] modules = new ObjectModelType[]{mim, rpr};
+		FomModuleSet set = FomModuleSet.of(modules);
+		FomClassIndex index = FomClassIndex.of(merged);
+		Assertions.assertEquals(set.getClassIndex().getObjectClassNames(), index.getObjectClassNames());
+		Assertions.assertEquals(set.getClassIndex().getInteractionClassNames(), index.getInteractionClassNames());
+		for (String fqName : index.getObjectClassNames()) {
+			Assertions.assertEquals(names(OmtFunctions.getObjectClassAttributes(modules, fqName)), names(OmtFunctions.getObjectClassAttributes(new ObjectModelType[]{merged}, fqName)));
+		}
+		Assertions.assertFalse(index.isScaffoldingObjectClass(OmtMimConstants.HLAOBJECTROOT));
+		Assertions.assertNotNull(index.getObjectClass("HLAobjectRoot.BaseEntity.PhysicalEntity"));
+
+		// identical datatypes are merged, every datatype is defined once
+		for (var e : merged.getDataTypes().getSimpleDataTypes().getSimpleData()) {
+			Assertions.assertNotNull(set.getSimpleDataByName(e.getName().getValue()));
+		}
+		Assertions.assertNotNull(OmtFunctions.getEnumeratedDataByName(merged, OmtMimConstants.HLABOOLEAN));
+	}
+
+	@Test
+	public void testIdempotent() throws IOException {
+		// a single module, and a module merged with itself, merge to the module
+		Assertions.assertEquals(toXml(rpr), toXml(FomMerger.merge(rpr)));
+		Assertions.assertEquals(toXml(mim), toXml(FomMerger.merge(mim, mim)));
+	}
+
+	@Test
+	public void testIncremental() throws IOException {
+		FomMerger merger = new FomMerger().add(mim);
+		Assertions.assertNull(OmtFunctions.getObjectClass(merger.getMerged(), "HLAobjectRoot.BaseEntity"));
+
+		merger.add(rpr);
+		Assertions.assertEquals(2, merger.size());
+		Assertions.assertTrue(merger.getConflicts().isEmpty());
+		Assertions.assertEquals(toXml(FomMerger.merge(mim, rpr)), toXml(merger.getMerged()));
+	}
+
+	@Test
+	public void testConflicts() throws IOException {
+		// a module with a different definition of an RPR datatype and of an RPR class
+		ObjectModelType changed = OmtFunctions.readOmt(TestMerger.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		changed.getDataTypes().getBasicDataRepresentations().getBasicData().get(0).getSize().setValue(BigInteger.valueOf(3));
+		OmtFunctions.getObjectClass(changed, "HLAobjectRoot.BaseEntity").getAttribute().remove(0);
+
+		FomMerger merger = new FomMerger().add(mim).add(rpr).add(changed);
+		Assertions.assertEquals(2, merger.getConflicts().size());
+		Assertions.assertEquals(FomMerger.Category.OBJECT_CLASS, merger.getConflicts().get(0).category());
+		Assertions.assertEquals("HLAobjectRoot.BaseEntity", merger.getConflicts().get(0).name());
+		Assertions.assertEquals(2, merger.getConflicts().get(0).module());
+		Assertions.assertEquals(FomMerger.Category.DATATYPE, merger.getConflicts().get(1).category());
+
+		FomMergeException ex = Assertions.assertThrows(FomMergeException.class, () -> FomMerger.merge(mim, rpr, changed));
+		Assertions.assertEquals(2, ex.getConflicts().size());
+	}
+}
@@ -0,0 +1,135 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.OmtCounters;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtJavaMapping;
+import nl.tno.omt.helpers.OmtMetrics;
+import nl.tno.omt.helpers.OmtMetrics.Lookup;
+import nl.tno.omt.helpers.OmtMimConstants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestMetrics {
+
+	static URL mim;
+
+	@TempDir
+	Path directory;
+
+	@BeforeAll
+	public static void setUpClass() {
+		mim = TestMetrics.class.getResource("/foms/HLAstandardMIM.xml");
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+		OmtMetrics.install(null);
+	}
+
+	private static long size(URL module) throws IOException {
+		try (InputStream input = module.openStream()) {
+			return input.transferTo(OutputStream.nullOutputStream());
+		}
+	}
+
+	@Test
+	public void testCounters() throws Exception {
+		OmtCounters counters = new OmtCounters();
+		OmtMetrics.install(counters);
+		Assertions.assertSame(counters, OmtMetrics.installed());
+
+		ObjectModelType omt = OmtFunctions.readOmt(mim);
+		Assertions.assertEquals(1, counters.getReadCount());
+		Assertions.assertEquals(size(mim), counters.getReadSize());
+
+		String xml = OmtFunctions.writeOmt(omt, new StringWriter()).toString();
+		Assertions.assertEquals(1, counters.getWriteCount());
+		Assertions.assertEquals(xml.length(), counters.getWriteSize());
+
+		// a failed read is reported too
+		Assertions.assertThrows(IOException.class, () -> OmtFunctions.readOmt(new StringReader("<objectModel")));
+		Assertions.assertEquals(2, counters.getReadCount());
+
+		ObjectModelType[] modules = new ObjectModelType[]{omt};
+		Assertions.assertNotNull(OmtFunctions.getEnumeratedDataByName(modules, OmtMimConstants.HLABOOLEAN));
+		Assertions.assertNull(OmtFunctions.getEnumeratedDataByName(modules, "NoSuchType"));
+		Assertions.assertEquals(1, counters.getLookupHits(Lookup.ENUMERATED_DATA));
+		Assertions.assertEquals(1, counters.getLookupMisses(Lookup.ENUMERATED_DATA));
+
+		Assertions.assertEquals("boolean", OmtJavaMapping.getJavaDatatypeName(modules, OmtMimConstants.HLABOOLEAN, false));
+		Assertions.assertThrows(Exception.class, () -> OmtJavaMapping.getJavaDatatypeName(modules, "NoSuchType", false));
+		Assertions.assertEquals(1, counters.getLookupHits(Lookup.JAVA_DATATYPE));
+		Assertions.assertEquals(1, counters.getLookupMisses(Lookup.JAVA_DATATYPE));
+		// the datatype categories probed by the Java mapping are not reported
+		Assertions.assertEquals(0, counters.getLookupCount(Lookup.SIMPLE_DATA));
+		Assertions.assertEquals(2, counters.getLookupCount(Lookup.ENUMERATED_DATA));
+
+		// the lookup of the inherited attributes does not report the class lookups
+		Assertions.assertNotNull(OmtFunctions.getObjectClassAttributes(modules, OmtMimConstants.HLAOBJECTROOT));
+		Assertions.assertEquals(1, counters.getLookupCount(Lookup.OBJECT_CLASS_ATTRIBUTES));
+		Assertions.assertEquals(0, counters.getLookupCount(Lookup.OBJECT_CLASS));
+
+		// nothing is counted after uninstalling
+		OmtMetrics.install(null);
+		OmtFunctions.readOmt(mim);
+		Assertions.assertEquals(2, counters.getReadCount());
+
+		counters.reset();
+		Assertions.assertEquals(0, counters.getLookupCount(Lookup.ENUMERATED_DATA));
+	}
+
+	@Test
+	public void testFlightRecorder() throws Exception {
+		Path file = directory.resolve("omt.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("nl.tno.omt.ReadOmt");
+			recording.enable("nl.tno.omt.Lookup");
+			recording.start();
+
+			ObjectModelType omt = OmtFunctions.readOmt(mim);
+			OmtFunctions.getSimpleDataByName(new ObjectModelType[]{omt}, "NoSuchType");
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		RecordedEvent read = events.stream().filter(e -> e.getEventType().getName().equals("nl.tno.omt.ReadOmt")).findFirst().orElseThrow();
+		Assertions.assertEquals(mim.toString(), read.getString("module"));
+		Assertions.assertEquals(size(mim), read.getLong("size"));
+
+		RecordedEvent lookup = events.stream().filter(e -> e.getEventType().getName().equals("nl.tno.omt.Lookup")).findFirst().orElseThrow();
+		Assertions.assertEquals(Lookup.SIMPLE_DATA.name(), lookup.getString("lookup"));
+		Assertions.assertEquals("NoSuchType", lookup.getString("name"));
+		Assertions.assertFalse(lookup.getBoolean("hit"));
+	}
+}
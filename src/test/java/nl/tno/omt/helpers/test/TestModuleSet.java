@@ -0,0 +1,202 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import nl.tno.omt.ArrayDataTypesType.ArrayData;
+import nl.tno.omt.Attribute;
+import nl.tno.omt.BasicDataRepresentationsType.BasicData;
+import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
+import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
+import nl.tno.omt.InteractionClass;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.Parameter;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
+import nl.tno.omt.helpers.FomClassIndex;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.InheritedMembers;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtMimConstants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestModuleSet {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestModuleSet.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestModuleSet.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testLookups() {
+		ObjectModelType[] modules = new ObjectModelType[]{mim, rpr};
+		FomModuleSet set = FomModuleSet.of(modules);
+
+		// every datatype must resolve to the same instance as the linear lookups
+		for (ObjectModelType module : modules) {
+			for (BasicData e : module.getDataTypes().getBasicDataRepresentations().getBasicData()) {
+				Assertions.assertSame(OmtFunctions.getBasicDataByName(modules, e.getName().getValue()), set.getBasicDataByName(e.getName().getValue()));
+			}
+			for (SimpleData e : module.getDataTypes().getSimpleDataTypes().getSimpleData()) {
+				Assertions.assertSame(OmtFunctions.getSimpleDataByName(modules, e.getName().getValue()), set.getSimpleDataByName(e.getName().getValue()));
+				Assertions.assertSame(OmtFunctions.getSimpleDataModule(modules, e.getName().getValue()), set.getSimpleDataModule(e.getName().getValue()));
+			}
+			for (EnumeratedData e : module.getDataTypes().getEnumeratedDataTypes().getEnumeratedData()) {
+				Assertions.assertSame(OmtFunctions.getEnumeratedDataByName(modules, e.getName().getValue()), set.getEnumeratedDataByName(e.getName().getValue()));
+				Assertions.assertSame(OmtFunctions.getEnumeratedDataModule(modules, e.getName().getValue()), set.getEnumeratedDataModule(e.getName().getValue()));
+			}
+			for (ArrayData e : module.getDataTypes().getArrayDataTypes().getArrayData()) {
+				Assertions.assertSame(OmtFunctions.getArrayDataByName(modules, e.getName().getValue()), set.getArrayDataByName(e.getName().getValue()));
+				Assertions.assertSame(OmtFunctions.getArrayDataModule(modules, e.getName().getValue()), set.getArrayDataModule(e.getName().getValue()));
+			}
+			for (FixedRecordData e : module.getDataTypes().getFixedRecordDataTypes().getFixedRecordData()) {
+				Assertions.assertSame(OmtFunctions.getFixedRecordDataByName(modules, e.getName().getValue()), set.getFixedRecordDataByName(e.getName().getValue()));
+				Assertions.assertSame(OmtFunctions.getFixedRecordDataModule(modules, e.getName().getValue()), set.getFixedRecordDataModule(e.getName().getValue()));
+			}
+			for (VariantRecordData e : module.getDataTypes().getVariantRecordDataTypes().getVariantRecordData()) {
+				Assertions.assertSame(OmtFunctions.getVariantRecordDataByName(modules, e.getName().getValue()), set.getVariantRecordDataByName(e.getName().getValue()));
+				Assertions.assertSame(OmtFunctions.getVariantRecordDataModule(modules, e.getName().getValue()), set.getVariantRecordDataModule(e.getName().getValue()));
+			}
+		}
+
+		Assertions.assertNull(set.getSimpleDataByName("NoSuchType"));
+		Assertions.assertNull(set.getSimpleDataModule("NoSuchType"));
+
+		Assertions.assertSame(OmtFunctions.getTransportationByName(mim, OmtMimConstants.HLARELIABLE), set.getTransportationByName(OmtMimConstants.HLARELIABLE));
+		Assertions.assertSame(mim, set.getTransportationModule(OmtMimConstants.HLARELIABLE));
+		Assertions.assertNotNull(set.getDimensionByName("HLAfederate"));
+	}
+
+	@Test
+	public void testFirstMatchWins() {
+		// HLAboolean is defined in the MIM; the first module in the array wins
+		FomModuleSet set1 = FomModuleSet.of(mim, rpr, mim);
+		Assertions.assertSame(mim, set1.getEnumeratedDataModule(OmtMimConstants.HLABOOLEAN));
+
+		ObjectModelType[] modules = new ObjectModelType[]{rpr, mim};
+		FomModuleSet set2 = FomModuleSet.of(modules);
+		Assertions.assertSame(OmtFunctions.getEnumeratedDataModule(modules, OmtMimConstants.HLABOOLEAN), set2.getEnumeratedDataModule(OmtMimConstants.HLABOOLEAN));
+
+		// modifying the source array does not affect the set
+		modules[1] = rpr;
+		Assertions.assertSame(mim, set2.getModules()[1]);
+	}
+
+	@Test
+	public void testClassIndex() {
+		ObjectModelType[] modules = new ObjectModelType[]{rpr, mim};
+		FomModuleSet set = FomModuleSet.of(modules);
+		FomClassIndex index = set.getClassIndex();
+
+		Assertions.assertFalse(index.getObjectClassNames().isEmpty());
+		for (String fqName : index.getObjectClassNames()) {
+			Assertions.assertSame(OmtFunctions.getObjectClass(modules, fqName, true), set.getObjectClass(fqName));
+			Assertions.assertSame(OmtFunctions.getObjectClass(modules, fqName, false), set.getObjectClass(fqName, false));
+			Assertions.assertSame(OmtFunctions.getObjectClassModule(modules, fqName), index.getObjectClassModule(fqName));
+			Assertions.assertEquals(fqName, index.getObjectClassName(set.getObjectClass(fqName, false)));
+		}
+
+		Assertions.assertFalse(index.getInteractionClassNames().isEmpty());
+		for (String fqName : index.getInteractionClassNames()) {
+			Assertions.assertSame(OmtFunctions.getInteractionClass(modules, fqName, true), set.getInteractionClass(fqName));
+			Assertions.assertSame(OmtFunctions.getInteractionClass(modules, fqName, false), set.getInteractionClass(fqName, false));
+			Assertions.assertSame(OmtFunctions.getInteractionClassModule(modules, fqName), index.getInteractionClassModule(fqName));
+		}
+
+		// the object root is scaffolding in the RPR FOM, but defined in the MIM
+		ObjectClass root = set.getObjectClass(OmtMimConstants.HLAOBJECTROOT);
+		Assertions.assertNotNull(root);
+		Assertions.assertSame(mim, index.getObjectClassModule(OmtMimConstants.HLAOBJECTROOT));
+		Assertions.assertSame(rpr, index.getObjectClassModule(OmtMimConstants.HLAOBJECTROOT, false));
+		Assertions.assertFalse(index.isScaffoldingObjectClass(OmtMimConstants.HLAOBJECTROOT));
+		Assertions.assertTrue(FomClassIndex.of(rpr).isScaffoldingObjectClass(OmtMimConstants.HLAOBJECTROOT));
+
+		InteractionClass ic = set.getInteractionClass("HLAinteractionRoot.WeaponFire");
+		Assertions.assertNotNull(ic);
+		Assertions.assertSame(ic, OmtFunctions.getInteractionClass(rpr, "HLAinteractionRoot.WeaponFire"));
+
+		Assertions.assertNull(set.getObjectClass("HLAobjectRoot.NoSuchClass"));
+		Assertions.assertNull(OmtFunctions.getObjectClass(rpr, "HLAobjectRoot..BaseEntity", false));
+
+		// trailing dots are ignored, as String.split ignored them
+		Assertions.assertSame(OmtFunctions.getObjectClass(rpr, "HLAobjectRoot.BaseEntity", false), OmtFunctions.getObjectClass(rpr, "HLAobjectRoot.BaseEntity.", false));
+		Assertions.assertSame(root, OmtFunctions.getObjectClass(modules, "HLAobjectRoot."));
+		Assertions.assertSame(root, set.getObjectClass("HLAobjectRoot.."));
+		Assertions.assertSame(mim, index.getObjectClassModule("HLAobjectRoot."));
+		Assertions.assertFalse(index.isScaffoldingObjectClass("HLAobjectRoot."));
+		Assertions.assertSame(OmtFunctions.getInteractionClass(modules, "HLAinteractionRoot"), OmtFunctions.getInteractionClass(modules, "HLAinteractionRoot."));
+		Assertions.assertSame(set.getInteractionClass("HLAinteractionRoot"), set.getInteractionClass("HLAinteractionRoot."));
+		Assertions.assertSame(ic, OmtFunctions.getInteractionClass(rpr, "HLAinteractionRoot.WeaponFire."));
+		Assertions.assertEquals(OmtFunctions.getObjectClassAttributes(modules, "HLAobjectRoot"), OmtFunctions.getObjectClassAttributes(modules, "HLAobjectRoot."));
+		Assertions.assertEquals(OmtFunctions.getInteractionClassParameters(modules, "HLAinteractionRoot.WeaponFire"), OmtFunctions.getInteractionClassParameters(modules, "HLAinteractionRoot.WeaponFire."));
+		Assertions.assertNull(OmtFunctions.getObjectClass(modules, "."));
+	}
+
+	@Test
+	public void testMemberIndex() {
+		ObjectModelType[] modules = new ObjectModelType[]{rpr, mim};
+		FomModuleSet set = FomModuleSet.of(modules);
+
+		for (String fqName : set.getClassIndex().getObjectClassNames()) {
+			Set<Attribute> expected = OmtFunctions.getObjectClassAttributes(modules, fqName);
+			InheritedMembers<Attribute> members = set.getObjectClassAttributes(fqName);
+			if (expected == null) {
+				Assertions.assertNull(members);
+			} else {
+				Assertions.assertEquals(expected, new HashSet<>(members.getAll()));
+				Assertions.assertEquals(members.size(), members.getInherited().size() + members.getOwn().size());
+			}
+		}
+
+		for (String fqName : set.getClassIndex().getInteractionClassNames()) {
+			Set<Parameter> expected = OmtFunctions.getInteractionClassParameters(modules, fqName);
+			InheritedMembers<Parameter> members = set.getInteractionClassParameters(fqName);
+			if (expected == null) {
+				Assertions.assertNull(members);
+			} else {
+				Assertions.assertEquals(expected, new HashSet<>(members.getAll()));
+			}
+		}
+
+		// trailing dots are ignored
+		Assertions.assertSame(set.getObjectClassAttributes("HLAobjectRoot.BaseEntity"), set.getObjectClassAttributes("HLAobjectRoot.BaseEntity."));
+		Assertions.assertSame(set.getInteractionClassParameters("HLAinteractionRoot.WeaponFire"), set.getInteractionClassParameters("HLAinteractionRoot.WeaponFire."));
+		Assertions.assertNotNull(set.getInteractionClassParameters("HLAinteractionRoot.WeaponFire"));
+
+		// inherited members come first, in declaration order
+		InheritedMembers<Attribute> base = set.getObjectClassAttributes("HLAobjectRoot.BaseEntity");
+		InheritedMembers<Attribute> physical = set.getObjectClassAttributes("HLAobjectRoot.BaseEntity.PhysicalEntity");
+		Assertions.assertEquals(base.getAll(), physical.getInherited());
+		Assertions.assertSame(set.getObjectClass("HLAobjectRoot.BaseEntity.PhysicalEntity").getAttribute().get(0), physical.getOwn().get(0));
+
+		// the object root is scaffolding in the RPR FOM
+		Assertions.assertNull(FomModuleSet.of(rpr).getObjectClassAttributes("HLAobjectRoot.BaseEntity"));
+		Assertions.assertNull(OmtFunctions.getObjectClassAttributes(new ObjectModelType[]{rpr}, "HLAobjectRoot.BaseEntity"));
+	}
+}
@@ -1,5 +1,16 @@
 package nl.tno.omt.helpers.test;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import nl.tno.omt.DataTypesType;
+import nl.tno.omt.IdentifierType;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.SimpleDataTypesType;
+import nl.tno.omt.SimpleDataTypesType.SimpleData;
+import nl.tno.omt.helpers.FomJavaNames;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtFunctions;
 import nl.tno.omt.helpers.OmtJavaMapping;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -66,4 +77,66 @@ public class TestNaming {
     String omtName = OmtJavaMapping.toOmtName(javaName);
     Assertions.assertEquals("Class_", omtName);
   }
+
+  @Test
+  public void testUnescaped() {
+    // names without '-' and '_' are returned as is
+    String omtName = new String("PhysicalEntity");
+    Assertions.assertSame(omtName, OmtJavaMapping.toJavaName(omtName));
+    Assertions.assertSame(omtName, OmtJavaMapping.toOmtName(omtName));
+    Assertions.assertEquals("Class_", OmtJavaMapping.toJavaName("Class"));
+
+    // escaped names are cached
+    String javaName = OmtJavaMapping.toJavaName("a-b");
+    Assertions.assertEquals("a___b", javaName);
+    Assertions.assertSame(javaName, OmtJavaMapping.toJavaName("a-b"));
+    Assertions.assertEquals("a-b", OmtJavaMapping.toOmtName("a___b"));
+  }
+
+  @Test
+  public void testCollision() {
+    // both names escape to the same Java name, which converts back to one of them
+    Assertions.assertEquals("a_____b", OmtJavaMapping.toJavaName("a_-b"));
+    Assertions.assertEquals("a_____b", OmtJavaMapping.toJavaName("a--b"));
+    Assertions.assertEquals("a--b", OmtJavaMapping.toOmtName("a_____b"));
+
+    ObjectModelType module = new ObjectModelType();
+    module.setDataTypes(new DataTypesType());
+    module.getDataTypes().setSimpleDataTypes(new SimpleDataTypesType());
+    for (String name : new String[] {"a--b", "a_-b", "c-d"}) {
+      SimpleData data = new SimpleData();
+      IdentifierType id = new IdentifierType();
+      id.setValue(name);
+      data.setName(id);
+      module.getDataTypes().getSimpleDataTypes().getSimpleData().add(data);
+    }
+    FomJavaNames names = FomModuleSet.of(module).getJavaNames();
+    Assertions.assertEquals(Map.of("a_____b", Set.of("a--b", "a_-b")), names.getCollisions());
+    Assertions.assertNull(names.getOmtName("a_____b"));
+    Assertions.assertEquals("a_____b", names.getJavaName("a_-b"));
+    Assertions.assertEquals("c-d", names.getOmtName("c___d"));
+  }
+
+  @Test
+  public void testModuleSet() throws IOException {
+    ObjectModelType rpr =
+        OmtFunctions.readOmt(TestNaming.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+    ObjectModelType mim =
+        OmtFunctions.readOmt(TestNaming.class.getResource("/foms/HLAstandardMIM.xml"));
+    FomModuleSet set = FomModuleSet.of(mim, rpr);
+    FomJavaNames names = set.getJavaNames();
+    Assertions.assertSame(names, set.getJavaNames());
+
+    // every name maps both ways
+    for (Map.Entry<String, String> e : names.getJavaNames().entrySet()) {
+      Assertions.assertEquals(OmtJavaMapping.toJavaName(e.getKey()), e.getValue());
+      Assertions.assertEquals(e.getKey(), names.getOmtName(e.getValue()));
+    }
+    Assertions.assertEquals("PhysicalEntity", names.getJavaName("PhysicalEntity"));
+    Assertions.assertEquals("Spatial", names.getJavaName("Spatial"));
+    Assertions.assertEquals("WorldLocationStruct", names.getJavaName("WorldLocationStruct"));
+    Assertions.assertEquals("HLAfederate", names.getOmtName("HLAfederate"));
+    Assertions.assertEquals(Map.of(), names.getCollisions());
+    Assertions.assertNull(names.getJavaName("Unknown"));
+  }
 }
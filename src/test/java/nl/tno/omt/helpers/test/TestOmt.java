@@ -1,14 +1,24 @@
 package nl.tno.omt.helpers.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import nl.tno.omt.DataTypesType;
 import nl.tno.omt.EnumeratedDataTypesType.EnumeratedData;
 import nl.tno.omt.FixedRecordDataTypesType.FixedRecordData;
 import nl.tno.omt.ObjectModelType;
 import nl.tno.omt.VariantRecordDataTypesType.VariantRecordData;
 import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtStreamReader;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -68,4 +78,54 @@ public class TestOmt {
 		Assertions.assertNotNull(data5);
 		Assertions.assertEquals("SpatialVariantStruct", data5.getName().getValue());
 	}
+
+	@Test
+	public void testConcurrentReadWrite() throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		OmtFunctions.writeOmt(mim, bos);
+		byte[] bytes = bos.toByteArray();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ObjectModelType>> futures = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				boolean formatted = (i % 2 == 0);
+				futures.add(executor.submit(() -> {
+					ObjectModelType omt = OmtFunctions.readOmt(new ByteArrayInputStream(bytes));
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					OmtFunctions.writeOmt(omt, out, formatted);
+					return OmtFunctions.readOmt(new ByteArrayInputStream(out.toByteArray()));
+				}));
+			}
+
+			for (Future<ObjectModelType> future : futures) {
+				Assertions.assertNotNull(OmtFunctions.getEnumeratedDataByName(future.get(), "HLAboolean"));
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// a failed read does not affect subsequent reads
+		Assertions.assertThrows(IOException.class, () -> OmtFunctions.readOmt(new StringReader("<objectModel")));
+		Assertions.assertNotNull(OmtFunctions.readOmt(new ByteArrayInputStream(bytes)));
+	}
+
+	// true if the referent is collected within a few garbage collections
+	private static boolean collected(WeakReference<?> reference) throws InterruptedException {
+		for (int i = 0; i < 10 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		return reference.get() == null;
+	}
+
+	@Test
+	public void testPoolDoesNotRetainModel() throws Exception {
+		// the pooled unmarshallers do not keep the last model reachable, on the stream and the StAX path
+		WeakReference<ObjectModelType> model = new WeakReference<>(OmtFunctions.readOmt(TestOmt.class.getResource("/foms/HLAstandardMIM.xml")));
+		Assertions.assertTrue(collected(model));
+
+		WeakReference<DataTypesType> dataTypes = new WeakReference<>(OmtStreamReader.all().readOmt(TestOmt.class.getResource("/foms/HLAstandardMIM.xml")).getDataTypes());
+		Assertions.assertTrue(collected(dataTypes));
+	}
 }
@@ -0,0 +1,96 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.Arrays;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestSnapshot {
+
+	static URL rpr;
+	static URL mim;
+
+	@BeforeAll
+	public static void setUpClass() {
+		rpr = TestSnapshot.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml");
+		mim = TestSnapshot.class.getResource("/foms/HLAstandardMIM.xml");
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static String toXml(ObjectModelType omt) throws IOException {
+		return OmtFunctions.writeOmt(omt, new StringWriter(), true).toString();
+	}
+
+	private static byte[] toSnapshot(ObjectModelType omt) throws IOException {
+		return ((ByteArrayOutputStream) OmtFunctions.writeOmtSnapshot(omt, new ByteArrayOutputStream())).toByteArray();
+	}
+
+	private static void testRoundTrip(URL module) throws IOException {
+		ObjectModelType omt = OmtFunctions.readOmt(module);
+		byte[] snapshot = toSnapshot(omt);
+		ObjectModelType copy = OmtFunctions.readOmtSnapshot(new ByteArrayInputStream(snapshot));
+
+		// the snapshot is lossless and stable
+		Assertions.assertEquals(toXml(omt), toXml(copy));
+		Assertions.assertArrayEquals(snapshot, toSnapshot(copy));
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		testRoundTrip(rpr);
+		testRoundTrip(mim);
+	}
+
+	@Test
+	public void testInvalidSnapshot() throws IOException {
+		byte[] snapshot = toSnapshot(OmtFunctions.readOmt(mim));
+
+		// unknown format version
+		byte[] version = snapshot.clone();
+		version[7]++;
+		Assertions.assertThrows(IOException.class, () -> OmtFunctions.readOmtSnapshot(new ByteArrayInputStream(version)));
+
+		// not a snapshot
+		Assertions.assertThrows(IOException.class, () -> OmtFunctions.readOmtSnapshot(mim));
+
+		// truncated snapshot
+		byte[] truncated = Arrays.copyOf(snapshot, snapshot.length / 2);
+		Assertions.assertThrows(IOException.class, () -> OmtFunctions.readOmtSnapshot(new ByteArrayInputStream(truncated)));
+
+		// a huge size anywhere in the snapshot is reported as corrupt, not allocated
+		for (int i = 12; i < snapshot.length - 5; i += 97) {
+			byte[] corrupt = snapshot.clone();
+			System.arraycopy(new byte[]{-1, -1, -1, -1, 0x07}, 0, corrupt, i, 5);
+			try {
+				OmtFunctions.readOmtSnapshot(new ByteArrayInputStream(corrupt));
+			} catch (IOException ex) {
+				// expected for most positions
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.EnumSet;
+import nl.tno.omt.ObjectClass;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtStreamReader;
+import nl.tno.omt.helpers.OmtStreamReader.Documentation;
+import nl.tno.omt.helpers.OmtStreamReader.Section;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestStreamReader {
+
+	static URL rpr;
+	static URL mim;
+
+	@BeforeAll
+	public static void setUpClass() {
+		rpr = TestStreamReader.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml");
+		mim = TestStreamReader.class.getResource("/foms/HLAstandardMIM.xml");
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static String toXml(ObjectModelType omt) throws IOException {
+		return OmtFunctions.writeOmt(omt, new StringWriter(), true).toString();
+	}
+
+	@Test
+	public void testReadAll() throws IOException {
+		// with all sections the result must be the same as the JAXB reader
+		Assertions.assertEquals(toXml(OmtFunctions.readOmt(rpr)), toXml(OmtStreamReader.all().readOmt(rpr)));
+		Assertions.assertEquals(toXml(OmtFunctions.readOmt(mim)), toXml(OmtStreamReader.all().readOmt(mim)));
+	}
+
+	@Test
+	public void testReadLean() throws IOException {
+		ObjectModelType lean = OmtStreamReader.lean().readOmt(rpr);
+		Assertions.assertNull(lean.getModelIdentification());
+		Assertions.assertNull(lean.getTags());
+		Assertions.assertNull(lean.getSwitches());
+		Assertions.assertNull(lean.getAny());
+		Assertions.assertNotNull(lean.getObjects());
+		Assertions.assertNotNull(lean.getInteractions());
+		Assertions.assertNotNull(lean.getDataTypes());
+
+		FomModuleSet full = FomModuleSet.of(OmtFunctions.readOmt(mim), OmtFunctions.readOmt(rpr));
+		FomModuleSet set = FomModuleSet.of(OmtStreamReader.lean().readOmt(mim), lean);
+
+		ObjectClass oc = set.getObjectClass("HLAobjectRoot.BaseEntity.PhysicalEntity");
+		Assertions.assertNotNull(oc);
+		Assertions.assertNull(oc.getSemantics());
+		Assertions.assertNotNull(full.getObjectClass("HLAobjectRoot.BaseEntity.PhysicalEntity").getSemantics());
+		Assertions.assertEquals(full.getObjectClassAttributes("HLAobjectRoot.BaseEntity.PhysicalEntity").size(),
+				set.getObjectClassAttributes("HLAobjectRoot.BaseEntity.PhysicalEntity").size());
+
+		Assertions.assertNotNull(set.getFixedRecordDataByName("SpatialStaticStruct"));
+		Assertions.assertNull(set.getFixedRecordDataByName("SpatialStaticStruct").getSemantics());
+		Assertions.assertEquals(full.getFixedRecordDataByName("SpatialStaticStruct").getField().size(),
+				set.getFixedRecordDataByName("SpatialStaticStruct").getField().size());
+	}
+
+	@Test
+	public void testReadSections() throws IOException {
+		ObjectModelType omt = OmtStreamReader.of(EnumSet.of(Section.DATA_TYPES, Section.NOTES), EnumSet.of(Documentation.SEMANTICS)).readOmt(rpr);
+		Assertions.assertNull(omt.getObjects());
+		Assertions.assertNull(omt.getInteractions());
+		Assertions.assertNotNull(omt.getDataTypes());
+		Assertions.assertNotNull(omt.getAny());
+
+		ObjectModelType empty = OmtStreamReader.of(EnumSet.noneOf(Section.class)).readOmt(mim);
+		Assertions.assertNull(empty.getObjects());
+		Assertions.assertNull(empty.getDataTypes());
+	}
+}
@@ -0,0 +1,137 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import javax.xml.namespace.QName;
+import nl.tno.omt.ModelIdentificationType;
+import nl.tno.omt.NonEmptyString;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtStreamWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestStreamWriter {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestStreamWriter.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestStreamWriter.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	private static byte[] marshal(ObjectModelType omt, boolean formatted) throws IOException {
+		return ((ByteArrayOutputStream) OmtFunctions.writeOmt(omt, new ByteArrayOutputStream(), formatted)).toByteArray();
+	}
+
+	private static byte[] stream(OmtStreamWriter writer, ObjectModelType omt) throws IOException {
+		return ((ByteArrayOutputStream) writer.writeOmt(omt, new ByteArrayOutputStream())).toByteArray();
+	}
+
+	private static byte[] toSnapshot(ObjectModelType omt) throws IOException {
+		return ((ByteArrayOutputStream) OmtFunctions.writeOmtSnapshot(omt, new ByteArrayOutputStream())).toByteArray();
+	}
+
+	@Test
+	public void testSameAsMarshaller() throws IOException {
+		for (ObjectModelType omt : new ObjectModelType[]{mim, rpr}) {
+			Assertions.assertEquals(new String(marshal(omt, false), "UTF-8"), new String(stream(OmtStreamWriter.plain(), omt), "UTF-8"));
+			Assertions.assertEquals(new String(marshal(omt, true), "UTF-8"), new String(stream(OmtStreamWriter.formatted(), omt), "UTF-8"));
+		}
+
+		// a buffer smaller than most elements
+		Assertions.assertArrayEquals(marshal(rpr, true), stream(OmtStreamWriter.of(true, false, 256), rpr));
+	}
+
+	@Test
+	public void testEscaping() throws IOException {
+		ObjectModelType omt = new ObjectModelType();
+		ModelIdentificationType identification = new ModelIdentificationType();
+		NonEmptyString name = new NonEmptyString();
+		name.setValue("a<b>c&d\"e'f\r\ng\th é€😀 ]]>");
+		name.setNotes("x\"<>&'\r\né");
+		name.getOtherAttributes().put(new QName("urn:x", "foo"), "v");
+		name.getOtherAttributes().put(new QName("urn:y", "bar", "y"), "w");
+		identification.setName(name);
+		omt.setModelIdentification(identification);
+
+		byte[] xml = stream(OmtStreamWriter.plain(), omt);
+		ObjectModelType copy = OmtFunctions.readOmt(new ByteArrayInputStream(xml));
+		Assertions.assertEquals(name.getValue(), copy.getModelIdentification().getName().getValue());
+		Assertions.assertEquals(name.getNotes(), copy.getModelIdentification().getName().getNotes());
+		Assertions.assertEquals(name.getOtherAttributes(), copy.getModelIdentification().getName().getOtherAttributes());
+	}
+
+	@Test
+	public void testTargets() throws IOException {
+		byte[] snapshot = toSnapshot(rpr);
+
+		// channel
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		OmtStreamWriter.formatted().writeOmt(rpr, Channels.newChannel(bytes));
+		Assertions.assertArrayEquals(marshal(rpr, true), bytes.toByteArray());
+
+		// gzip to a stream, which is not closed
+		boolean[] closed = {false};
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		OmtStreamWriter.of(false, true).writeOmt(rpr, compressed);
+		Assertions.assertFalse(closed[0]);
+		try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+			Assertions.assertArrayEquals(marshal(rpr, false), input.readAllBytes());
+		}
+
+		// gzip to a file
+		Path file = Files.createTempFile("omt", ".xml.gz");
+		try {
+			OmtStreamWriter writer = OmtStreamWriter.of(false, true);
+			Assertions.assertTrue(writer.isGzip());
+			Assertions.assertFalse(writer.isFormatted());
+			writer.writeOmt(rpr, file);
+			Assertions.assertTrue(Files.size(file) < marshal(rpr, false).length / 4);
+			try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+				Assertions.assertArrayEquals(snapshot, toSnapshot(OmtFunctions.readOmt(input)));
+			}
+
+			// an existing file is replaced
+			OmtStreamWriter.plain().writeOmt(mim, file);
+			Assertions.assertArrayEquals(marshal(mim, false), Files.readAllBytes(file));
+		} finally {
+			Files.delete(file);
+		}
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> OmtStreamWriter.of(false, false, 16));
+	}
+}
@@ -0,0 +1,136 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomLoadException;
+import nl.tno.omt.helpers.FomLoader;
+import nl.tno.omt.helpers.OmtFunctions;
+import nl.tno.omt.helpers.OmtMimConstants;
+import nl.tno.omt.helpers.OmtValidationException;
+import nl.tno.omt.helpers.OmtValidationException.Problem;
+import nl.tno.omt.helpers.OmtValidationException.Severity;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestValidation {
+
+	static URL rpr;
+	static URL mim;
+	static URL minimal;
+	static ExecutorService executor;
+
+	@BeforeAll
+	public static void setUpClass() {
+		rpr = TestValidation.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml");
+		mim = TestValidation.class.getResource("/foms/HLAstandardMIM.xml");
+		minimal = TestValidation.class.getResource("/foms/MinimalFOM.xml");
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+		executor.shutdown();
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testValidate() throws IOException {
+		// the bundled modules are FOM modules, not complete FOMs, so they are not valid OMT documents
+		List<Problem> problems = OmtFunctions.validateOmt(mim);
+		Assertions.assertFalse(problems.isEmpty());
+		for (Problem problem : problems) {
+			Assertions.assertEquals(mim.toString(), problem.module());
+			Assertions.assertEquals(Severity.ERROR, problem.severity());
+			Assertions.assertTrue(problem.line() > 0);
+		}
+
+		// the pooled validators report the same problems again
+		Assertions.assertEquals(problems, OmtFunctions.validateOmt(mim));
+	}
+
+	@Test
+	public void testReadValidated() throws IOException {
+		OmtValidationException ex = Assertions.assertThrows(OmtValidationException.class, () -> OmtFunctions.readOmtValidated(rpr));
+		Assertions.assertEquals(rpr.toString(), ex.getModule());
+
+		// all problems are reported, not only the first
+		List<Problem> problems = OmtFunctions.validateOmt(rpr);
+		Assertions.assertTrue(problems.size() > 1);
+		Assertions.assertEquals(problems.size(), ex.getProblems().size());
+		for (int i = 0; i < problems.size(); i++) {
+			Assertions.assertEquals(problems.get(i).line(), ex.getProblems().get(i).line());
+			Assertions.assertEquals(problems.get(i).severity(), ex.getProblems().get(i).severity());
+		}
+
+		// not well-formed
+		ex = Assertions.assertThrows(OmtValidationException.class,
+				() -> OmtFunctions.readOmtValidated(new ByteArrayInputStream("<objectModel".getBytes(StandardCharsets.UTF_8))));
+		Assertions.assertEquals(Severity.FATAL_ERROR, ex.getProblems().get(ex.getProblems().size() - 1).severity());
+
+		// reading without validation is not affected
+		Assertions.assertNotNull(OmtFunctions.readOmt(rpr));
+	}
+
+	@Test
+	public void testReadValid() throws IOException {
+		Assertions.assertEquals(List.of(), OmtFunctions.validateOmt(minimal));
+
+		// read twice, the second read uses the pooled parser, validator and unmarshaller
+		for (int i = 0; i < 2; i++) {
+			ObjectModelType omt = OmtFunctions.readOmtValidated(minimal);
+			Assertions.assertEquals("Minimal", omt.getModelIdentification().getName().getValue());
+			Assertions.assertEquals(OmtMimConstants.HLAOBJECTROOT, omt.getObjects().getObjectClass().getName().getValue());
+		}
+
+		// a DOCTYPE is rejected, and the failed read does not affect the next read
+		String xml;
+		try (InputStream input = minimal.openStream()) {
+			xml = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		byte[] doctype = xml.replace("<objectModel ", "<!DOCTYPE objectModel [<!ENTITY name \"Minimal\">]>\n<objectModel ").getBytes(StandardCharsets.UTF_8);
+		Assertions.assertThrows(IOException.class, () -> OmtFunctions.readOmtValidated(new ByteArrayInputStream(doctype)));
+		Assertions.assertNotNull(OmtFunctions.readOmtValidated(minimal));
+
+		Assertions.assertEquals(List.of(), FomLoader.validateModules(List.of(minimal, minimal)));
+		Assertions.assertEquals(2, FomLoader.readValidatedModules(List.of(minimal, minimal)).length);
+	}
+
+	@Test
+	public void testValidateModules() throws IOException {
+		List<Problem> mimProblems = OmtFunctions.validateOmt(mim);
+		List<Problem> rprProblems = OmtFunctions.validateOmt(rpr);
+
+		// problems of all modules, in module order
+		List<Problem> problems = FomLoader.validateModules(List.of(mim, rpr, mim), executor);
+		Assertions.assertEquals(2 * mimProblems.size() + rprProblems.size(), problems.size());
+		Assertions.assertEquals(mimProblems, problems.subList(0, mimProblems.size()));
+		Assertions.assertEquals(rprProblems, problems.subList(mimProblems.size(), mimProblems.size() + rprProblems.size()));
+
+		FomLoadException ex = Assertions.assertThrows(FomLoadException.class, () -> FomLoader.readValidatedModules(List.of(mim, rpr), executor));
+		Assertions.assertEquals(2, ex.getFailures().size());
+		Assertions.assertEquals(mimProblems.size(), ((OmtValidationException) ex.getFailures().get(0).cause()).getProblems().size());
+		Assertions.assertEquals(rprProblems.size(), ((OmtValidationException) ex.getFailures().get(1).cause()).getProblems().size());
+	}
+}
@@ -0,0 +1,144 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.OrderEnumerations;
+import nl.tno.omt.helpers.Cardinality;
+import nl.tno.omt.helpers.FomDatatypeGraph;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.FomView;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestView {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestView.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestView.class.getResource("/foms/HLAstandardMIM.xml"));
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testView() {
+		FomModuleSet set = FomModuleSet.of(mim, rpr);
+		FomView view = FomView.of(set);
+
+		Assertions.assertEquals(set.getDatatypeGraph().size(), view.getDatatypeCount());
+		Assertions.assertEquals(set.getClassIndex().getObjectClassNames().size(), view.getObjectClassCount());
+		Assertions.assertEquals(set.getClassIndex().getInteractionClassNames().size(), view.getInteractionClassCount());
+		Assertions.assertNull(view.getDatatype("Unknown"));
+
+		// references are resolved to the view objects
+		FomView.FixedRecord location = (FomView.FixedRecord) view.getDatatype("WorldLocationStruct");
+		Assertions.assertEquals(3, location.getFieldCount());
+		Assertions.assertEquals("X", location.getFieldName(0));
+		FomView.Simple meter = (FomView.Simple) location.getFieldType(0);
+		Assertions.assertSame(view.getDatatype("MeterFloat64"), meter);
+		Assertions.assertSame(view.getDatatype("HLAfloat64BE"), meter.getRepresentation());
+		Assertions.assertEquals(64, meter.getRepresentation().getSize());
+
+		FomView.Enumerated bool = (FomView.Enumerated) view.getDatatype("HLAboolean");
+		Assertions.assertEquals(1, bool.getValues(bool.indexOf("HLAtrue"))[0]);
+
+		FomView.Array string = (FomView.Array) view.getDatatype("HLAunicodeString");
+		Assertions.assertSame(view.getDatatype("HLAunicodeChar"), string.getElementType());
+		Assertions.assertEquals(Cardinality.DYNAMIC, string.getCardinality());
+
+		for (int i = 0; i < view.getDatatypeCount(); i++) {
+			FomView.Datatype datatype = view.getDatatype(i);
+			Assertions.assertSame(datatype, view.getDatatype(datatype.getName()));
+			Assertions.assertEquals(set.getDatatypeGraph().getCategory(datatype.getName()), datatype.getCategory());
+		}
+
+		// classes, with inherited members
+		FomView.ClassNode physicalEntity = view.getObjectClass("HLAobjectRoot.BaseEntity.PhysicalEntity");
+		Assertions.assertEquals("HLAobjectRoot.BaseEntity.PhysicalEntity", physicalEntity.getFqName());
+		Assertions.assertSame(view.getObjectClass("HLAobjectRoot.BaseEntity"), physicalEntity.getParent());
+		FomView.Member entityType = physicalEntity.getMember("EntityType");
+		Assertions.assertSame(view.getDatatype("EntityTypeStruct"), entityType.getDatatype());
+		Assertions.assertSame(view.getTransportation("HLAbestEffort"), entityType.getTransportation());
+		Assertions.assertEquals(OrderEnumerations.RECEIVE, entityType.getOrder());
+		Assertions.assertNull(view.getObjectClass("HLAobjectRoot.BaseEntity.Unknown"));
+		Assertions.assertNull(view.getObjectClass("HLAobjectRoot.Base"));
+		// trailing dots are ignored
+		Assertions.assertSame(physicalEntity, view.getObjectClass("HLAobjectRoot.BaseEntity.PhysicalEntity."));
+		Assertions.assertSame(view.getObjectClassRoots().get(0), view.getObjectClass("HLAobjectRoot.."));
+		Assertions.assertNull(view.getObjectClass("."));
+
+		FomView.ClassNode root = view.getInteractionClassRoots().get(0);
+		Assertions.assertEquals("HLAinteractionRoot", root.getName());
+		Assertions.assertNotNull(view.getInteractionClass("HLAinteractionRoot.HLAmanager.HLAfederate.HLAreport"));
+
+		// names are interned and shared between views
+		FomView other = FomView.of(mim, rpr);
+		Assertions.assertSame(view.getDatatype("WorldLocationStruct").getName(), other.getDatatype("WorldLocationStruct").getName());
+		Assertions.assertEquals(FomDatatypeGraph.Category.FIXED_RECORD, other.getDatatype("WorldLocationStruct").getCategory());
+	}
+
+	// heap in use after garbage collection
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(20);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+
+	// depends on the garbage collector, excluded from the default test run; see the Footprint benchmark
+	@Test
+	@Tag("slow")
+	public void testFootprint() throws IOException, InterruptedException {
+		final int copies = 4;
+
+		long base = usedHeap();
+		List<ObjectModelType[]> trees = new ArrayList<>();
+		for (int i = 0; i < copies; i++) {
+			trees.add(new ObjectModelType[]{
+				OmtFunctions.readOmt(TestView.class.getResource("/foms/HLAstandardMIM.xml")),
+				OmtFunctions.readOmt(TestView.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"))});
+		}
+		long treeSize = (usedHeap() - base) / copies;
+
+		List<FomView> views = new ArrayList<>();
+		for (ObjectModelType[] tree : trees) {
+			views.add(FomView.of(tree));
+		}
+		trees.clear();
+		long viewSize = (usedHeap() - base) / copies;
+
+		Assertions.assertEquals(copies, views.size());
+		Assertions.assertTrue(treeSize > 0);
+		// the view is a fraction of the JAXB tree
+		Assertions.assertTrue(viewSize * 4 < treeSize, "view " + viewSize / 1024 + " KiB, JAXB tree " + treeSize / 1024 + " KiB");
+	}
+}
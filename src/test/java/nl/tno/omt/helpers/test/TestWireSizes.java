@@ -0,0 +1,117 @@
+package nl.tno.omt.helpers.test;
+
+import java.io.IOException;
+import java.util.List;
+import nl.tno.omt.ObjectModelType;
+import nl.tno.omt.helpers.FomDatatypeGraph;
+import nl.tno.omt.helpers.FomModuleSet;
+import nl.tno.omt.helpers.FomWireSizes;
+import nl.tno.omt.helpers.OmtFunctions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author bergtwvd
+ */
+public class TestWireSizes {
+
+	static ObjectModelType rpr;
+	static ObjectModelType mim;
+	static FomModuleSet modules;
+
+	@BeforeAll
+	public static void setUpClass() throws IOException {
+		rpr = OmtFunctions.readOmt(TestWireSizes.class.getResource("/foms/RPR_FOM_v2.0_1516-2010.xml"));
+		mim = OmtFunctions.readOmt(TestWireSizes.class.getResource("/foms/HLAstandardMIM.xml"));
+		modules = FomModuleSet.of(mim, rpr);
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void testDatatypes() {
+		FomWireSizes sizes = modules.getWireSizes();
+		Assertions.assertSame(sizes, modules.getWireSizes());
+		Assertions.assertEquals(modules.getDatatypeGraph().getDatatypeNames().size(), sizes.getDatatypeSizes().size());
+
+		FomWireSizes.DatatypeSize location = sizes.getDatatypeSize("WorldLocationStruct");
+		Assertions.assertEquals(new FomWireSizes.DatatypeSize("WorldLocationStruct", FomDatatypeGraph.Category.FIXED_RECORD, 8, 24, 24, null), location);
+		Assertions.assertTrue(location.isFixedSize());
+
+		// an empty string is only the element count
+		FomWireSizes.DatatypeSize string = sizes.getDatatypeSize("HLAASCIIstring");
+		Assertions.assertEquals(4, string.minSize());
+		Assertions.assertEquals(FomWireSizes.UNBOUNDED, string.maxSize());
+		Assertions.assertTrue(sizes.getUnboundedDatatypes().contains(string));
+
+		// [1..2147483647] elements of 8 octets, after the element count padded to 8 octets
+		FomWireSizes.DatatypeSize array = sizes.getDatatypeSize("UnsignedInteger64Array1Plus");
+		Assertions.assertEquals(16, array.minSize());
+		Assertions.assertEquals(8 + 2147483647L * 8, array.maxSize());
+		Assertions.assertTrue(array.isBounded());
+
+		// the 1 octet discriminant is padded to the 8 octet boundary of the alternatives
+		FomWireSizes.DatatypeSize variant = sizes.getDatatypeSize("SpatialVariantStruct");
+		Assertions.assertEquals(8, variant.octetBoundary());
+		Assertions.assertEquals(8 + 40, variant.minSize());
+		Assertions.assertFalse(variant.isFixedSize());
+
+		// datatypes that depend on an RPR-specific encoding
+		FomWireSizes.DatatypeSize partOf = sizes.getDatatypeSize("IsPartOfStruct");
+		Assertions.assertFalse(partOf.isSupported());
+		Assertions.assertTrue(partOf.problem().contains("RTIobjectId"));
+		Assertions.assertNull(sizes.getDatatypeSize("Unknown"));
+	}
+
+	@Test
+	public void testClasses() {
+		FomWireSizes sizes = modules.getWireSizes();
+
+		// HLAprivilegeToDeleteObject has no datatype
+		FomWireSizes.ClassSize root = sizes.getObjectClassSize("HLAobjectRoot");
+		Assertions.assertEquals(1, root.memberCount());
+		Assertions.assertEquals(0, root.maxSize());
+
+		FomWireSizes.ClassSize federate = sizes.getObjectClassSize("HLAobjectRoot.HLAmanager.HLAfederate");
+		Assertions.assertFalse(federate.isBounded());
+		Assertions.assertTrue(federate.unboundedMembers().contains("HLAfederateName"));
+
+		// inherited attributes are included
+		FomWireSizes.ClassSize entity = sizes.getObjectClassSize("HLAobjectRoot.BaseEntity");
+		FomWireSizes.ClassSize platform = sizes.getObjectClassSize("HLAobjectRoot.BaseEntity.PhysicalEntity.Platform");
+		Assertions.assertTrue(entity.isBounded());
+		Assertions.assertEquals(List.of("IsPartOf"), entity.unsupportedMembers());
+		Assertions.assertEquals(sizes.getDatatypeSize("SpatialVariantStruct").maxSize(), entity.maxMemberSize());
+		Assertions.assertTrue(platform.maxSize() > entity.maxSize());
+		Assertions.assertTrue(platform.unsupportedMembers().containsAll(entity.unsupportedMembers()));
+
+		Assertions.assertEquals(modules.getInteractionClassParameters("HLAinteractionRoot").size(), sizes.getInteractionClassSize("HLAinteractionRoot").memberCount());
+		Assertions.assertNull(sizes.getObjectClassSize("HLAobjectRoot.Unknown"));
+	}
+
+	@Test
+	public void testReport() throws IOException {
+		String report = modules.getWireSizes().writeReport(new StringBuilder()).toString();
+		Assertions.assertTrue(report.startsWith("kind,name,octetBoundary,minSize,maxSize,maxMemberSize,note\n"));
+		Assertions.assertTrue(report.contains("\nFIXED_RECORD,WorldLocationStruct,8,24,24,,\n"));
+		Assertions.assertTrue(report.contains("\nARRAY,HLAASCIIstring,4,4,Dynamic,,\n"));
+		Assertions.assertTrue(report.contains("\nOBJECT_CLASS,HLAobjectRoot,,0,0,0,\n"));
+		Assertions.assertEquals(1 + modules.getWireSizes().getDatatypeSizes().size() + modules.getWireSizes().getObjectClassSizes().size()
+			+ modules.getWireSizes().getInteractionClassSizes().size(), report.split("\n").length);
+	}
+}